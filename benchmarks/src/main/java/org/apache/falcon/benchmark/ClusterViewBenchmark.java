@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.benchmark;
+
+import org.apache.falcon.entity.EntityUtil;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.entity.v0.EntityType;
+import org.apache.falcon.entity.v0.feed.Cluster;
+import org.apache.falcon.entity.v0.feed.ClusterType;
+import org.apache.falcon.entity.v0.feed.Feed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the per cluster views of a feed defined on 20 clusters, as done on bundle build,
+ * update and dry-run. xmlRoundTrip is the copy used by getClusterView before the structural copy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClusterViewBenchmark {
+
+    private static final int CLUSTERS = 20;
+
+    private Feed feed;
+
+    @Setup
+    public void setUp() throws Exception {
+        feed = loadFeed();
+        List<Cluster> clusters = feed.getClusters().getClusters();
+        clusters.clear();
+        for (int i = 0; i < CLUSTERS; i++) {
+            Cluster cluster = loadFeed().getClusters().getClusters().get(0);
+            cluster.setName("cluster" + i);
+            cluster.setType(i == 0 ? ClusterType.SOURCE : ClusterType.TARGET);
+            clusters.add(cluster);
+        }
+    }
+
+    private Feed loadFeed() throws Exception {
+        return (Feed) EntityType.FEED.getUnmarshaller().unmarshal(getClass().getResource("/config/feed/feed-0.1.xml"));
+    }
+
+    @Benchmark
+    public void clusterView(Blackhole blackhole) {
+        for (Cluster cluster : feed.getClusters().getClusters()) {
+            blackhole.consume(EntityUtil.getClusterView(feed, cluster.getName()));
+        }
+    }
+
+    @Benchmark
+    public void xmlRoundTrip(Blackhole blackhole) {
+        for (int i = 0; i < CLUSTERS; i++) {
+            blackhole.consume(Entity.fromString(EntityType.FEED, feed.toString()));
+        }
+    }
+}
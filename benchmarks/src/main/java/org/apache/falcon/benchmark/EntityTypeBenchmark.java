@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.benchmark;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.entity.v0.EntityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of parsing, serializing and copying the sample entity definitions. The "fresh" variants
+ * create a new marshaller per call, the others use the thread confined ones of {@link EntityType}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityTypeBenchmark {
+
+    @Param({"FEED", "PROCESS", "CLUSTER"})
+    private EntityType type;
+
+    private String xml;
+    private Entity entity;
+
+    @Setup
+    public void setUp() throws Exception {
+        InputStream in = getClass().getResourceAsStream(
+                "/config/" + type.name().toLowerCase() + "/" + type.name().toLowerCase() + "-0.1.xml");
+        try {
+            xml = IOUtils.toString(in, "UTF-8");
+        } finally {
+            in.close();
+        }
+        entity = Entity.fromString(type, xml);
+    }
+
+    @Benchmark
+    public Object parseFresh() throws Exception {
+        return type.getUnmarshaller().unmarshal(new StringReader(xml));
+    }
+
+    @Benchmark
+    public Object parse() throws Exception {
+        return type.getThreadLocalUnmarshaller().unmarshal(new StringReader(xml));
+    }
+
+    @Benchmark
+    public String serializeFresh() throws Exception {
+        StringWriter writer = new StringWriter();
+        type.getMarshaller().marshal(entity, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String serialize() throws Exception {
+        return entity.toString();
+    }
+
+    @Benchmark
+    public Object copyFresh() throws Exception {
+        StringWriter writer = new StringWriter();
+        type.getMarshaller().marshal(entity, writer);
+        return type.getUnmarshaller().unmarshal(new StringReader(writer.toString()));
+    }
+
+    @Benchmark
+    public Entity copy() {
+        return entity.copy();
+    }
+}
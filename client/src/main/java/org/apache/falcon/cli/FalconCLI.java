@@ -24,6 +24,7 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.OptionGroup;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.falcon.LifeCycle;
@@ -33,6 +34,7 @@ import org.apache.falcon.entity.v0.SchemaHelper;
 import org.apache.falcon.resource.EntityList;
 import org.apache.falcon.resource.InstancesResult;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
@@ -75,6 +77,8 @@ public class FalconCLI {
     public static final String RESUME_OPT = "resume";
     public static final String DELETE_OPT = "delete";
     public static final String SUBMIT_AND_SCHEDULE_OPT = "submitAndSchedule";
+    public static final String SUBMIT_BULK_OPT = "submitBulk";
+    public static final String SUBMIT_AND_SCHEDULE_BULK_OPT = "submitAndScheduleBulk";
     public static final String VALIDATE_OPT = "validate";
     public static final String STATUS_OPT = "status";
     public static final String SUMMARY_OPT = "summary";
@@ -89,6 +93,7 @@ public class FalconCLI {
     public static final String SORT_ORDER_OPT = "sortOrder";
     public static final String OFFSET_OPT = "offset";
     public static final String NUM_RESULTS_OPT = "numResults";
+    public static final String CURSOR_OPT = "cursor";
     public static final String NUM_INSTANCES_OPT = "numInstances";
 
     public static final String INSTANCE_CMD = "instance";
@@ -107,6 +112,9 @@ public class FalconCLI {
     public static final String CLIENT_PROPERTIES = "/client.properties";
     public static final String LIFECYCLE_OPT = "lifecycle";
     public static final String PARARMS_OPT = "params";
+    public static final String OPERATION_OPT = "operation";
+    public static final String WAIT_OPT = "wait";
+    public static final String BULK_OPT = "bulk";
 
     // Graph Commands
     public static final String GRAPH_CMD = "graph";
@@ -234,8 +242,22 @@ public class FalconCLI {
         Integer offset = parseIntegerInput(commandLine.getOptionValue(OFFSET_OPT), 0, "offset");
         Integer numResults = parseIntegerInput(commandLine.getOptionValue(NUM_RESULTS_OPT),
                 FalconClient.DEFAULT_NUM_RESULTS, "numResults");
+        String cursor = commandLine.getOptionValue(CURSOR_OPT);
+
+        if (optionsList.contains(OPERATION_OPT)) {
+            // operations are looked up by the id returned by kill, suspend, resume and rerun
+            OUT.get().println(client.getOperationStatus(commandLine.getOptionValue(OPERATION_OPT),
+                    commandLine.hasOption(WAIT_OPT)
+                            ? parseIntegerInput(commandLine.getOptionValue(WAIT_OPT), 0, WAIT_OPT) : null));
+            return;
+        }
 
         colo = getColo(colo);
+        if (optionsList.contains(BULK_OPT)) {
+            OUT.get().println(bulkInstanceCommand(commandLine, optionsList, client, colo, lifeCycles));
+            return;
+        }
+
         String instanceAction = "instance";
         validateSortOrder(sortOrder);
         validateInstanceCommands(optionsList, entity, type, colo);
@@ -245,12 +267,12 @@ public class FalconCLI {
             validateOrderBy(orderBy, instanceAction);
             validateFilterBy(filterBy, instanceAction);
             result = client.getRunningInstances(type, entity, colo, lifeCycles, filterBy, orderBy, sortOrder,
-                    offset, numResults);
+                    offset, numResults, cursor);
         } else if (optionsList.contains(STATUS_OPT) || optionsList.contains(LIST_OPT)) {
             validateOrderBy(orderBy, instanceAction);
             validateFilterBy(filterBy, instanceAction);
             result = client.getStatusOfInstances(type, entity, start, end, colo, lifeCycles,
-                    filterBy, orderBy, sortOrder, offset, numResults);
+                    filterBy, orderBy, sortOrder, offset, numResults, cursor);
         } else if (optionsList.contains(SUMMARY_OPT)) {
             result = client.getSummaryOfInstances(type, entity, start, end, colo, lifeCycles);
         } else if (optionsList.contains(KILL_OPT)) {
@@ -268,7 +290,7 @@ public class FalconCLI {
             validateOrderBy(orderBy, instanceAction);
             validateFilterBy(filterBy, instanceAction);
             result = client.getLogsOfInstances(type, entity, start, end, colo, runId, lifeCycles,
-                    filterBy, orderBy, sortOrder, offset, numResults);
+                    filterBy, orderBy, sortOrder, offset, numResults, cursor);
         } else if (optionsList.contains(PARARMS_OPT)) {
             // start time is the nominal time of instance
             result = client.getParamsOfInstance(type, entity, start, colo, clusters, sourceClusters, lifeCycles);
@@ -279,6 +301,48 @@ public class FalconCLI {
         OUT.get().println(result);
     }
 
+    // acts on the instances of the entities selected by tags, pipeline or cluster instead of by name
+    private String bulkInstanceCommand(CommandLine commandLine, Set<String> optionsList, FalconClient client,
+                                       String colo, List<LifeCycle> lifeCycles)
+        throws FalconCLIException, IOException {
+        String type = commandLine.getOptionValue(ENTITY_TYPE_OPT);
+        String start = commandLine.getOptionValue(START_OPT);
+        String end = commandLine.getOptionValue(END_OPT);
+        String filePath = commandLine.getOptionValue(FILE_PATH_OPT);
+        if (StringUtils.isEmpty(type)) {
+            throw new FalconCLIException("Missing argument: type");
+        }
+        if (StringUtils.isEmpty(start) || StringUtils.isEmpty(end)) {
+            throw new FalconCLIException("Missing argument: start and end are required with " + BULK_OPT);
+        }
+        if (optionsList.contains(ENTITY_NAME_OPT)) {
+            throw new FalconCLIException("Invalid argument: name, entities are selected by "
+                    + TAGS_OPT + " and " + FILTER_BY_OPT + " with " + BULK_OPT);
+        }
+
+        String action;
+        String properties = null;
+        if (optionsList.contains(KILL_OPT)) {
+            action = "kill";
+        } else if (optionsList.contains(SUSPEND_OPT)) {
+            action = "suspend";
+        } else if (optionsList.contains(RESUME_OPT)) {
+            action = "resume";
+        } else if (optionsList.contains(RERUN_OPT)) {
+            action = "rerun";
+            properties = filePath == null ? null : FileUtils.readFileToString(new File(filePath));
+        } else if (optionsList.contains(CONTINUE_OPT)) {
+            action = "rerun";
+            properties = "oozie.wf.rerun.failnodes=true\n";
+        } else {
+            throw new FalconCLIException("Invalid argument: " + BULK_OPT
+                    + " applies to kill, suspend, resume, rerun and continue");
+        }
+        return client.bulkInstanceAction(action, type, start, end, commandLine.getOptionValue(FILTER_BY_OPT),
+                commandLine.getOptionValue(TAGS_OPT), properties, colo, commandLine.getOptionValue(CLUSTERS_OPT),
+                commandLine.getOptionValue(SOURCECLUSTER_OPT), lifeCycles);
+    }
+
     private Integer parseIntegerInput(String optionValue, int defaultVal, String optionName) throws FalconCLIException {
         Integer integer = defaultVal;
         if (optionValue != null) {
@@ -352,11 +416,22 @@ public class FalconCLI {
         Integer numResults = parseIntegerInput(commandLine.getOptionValue(NUM_RESULTS_OPT),
                 FalconClient.DEFAULT_NUM_RESULTS, "numResults");
         Integer numInstances = parseIntegerInput(commandLine.getOptionValue(NUM_INSTANCES_OPT), 7, "numInstances");
-        validateEntityType(entityType);
+        String cursor = commandLine.getOptionValue(CURSOR_OPT);
+        if (!optionsList.contains(SUBMIT_BULK_OPT) && !optionsList.contains(SUBMIT_AND_SCHEDULE_BULK_OPT)) {
+            validateEntityType(entityType);
+        }
         validateSortOrder(sortOrder);
         String entityAction = "entity";
 
-        if (optionsList.contains(SUBMIT_OPT)) {
+        if (optionsList.contains(SUBMIT_BULK_OPT)) {
+            validateFilePath(filePath);
+            validateColo(optionsList);
+            result = client.submitBulk(filePath, false);
+        } else if (optionsList.contains(SUBMIT_AND_SCHEDULE_BULK_OPT)) {
+            validateFilePath(filePath);
+            validateColo(optionsList);
+            result = client.submitBulk(filePath, true);
+        } else if (optionsList.contains(SUBMIT_OPT)) {
             validateFilePath(filePath);
             validateColo(optionsList);
             result = client.submit(entityType, filePath);
@@ -408,8 +483,11 @@ public class FalconCLI {
             validateOrderBy(orderBy, entityAction);
             validateFilterBy(filterBy, entityAction);
             EntityList entityList = client.getEntityList(entityType, fields, filterBy,
-                    filterTags, orderBy, sortOrder, offset, numResults);
+                    filterTags, orderBy, sortOrder, offset, numResults, cursor);
             result = entityList != null ? entityList.toString() : "No entity of type (" + entityType + ") found.";
+            if (entityList != null && entityList.getNextCursor() != null) {
+                result += "Next Cursor: " + entityList.getNextCursor();
+            }
         }  else if (optionsList.contains(SUMMARY_OPT)) {
             validateCluster(cluster);
             validateEntityFields(fields);
@@ -584,6 +662,10 @@ public class FalconCLI {
                 "Deletes an entity in Falcon, and kills its instance from workflow engine");
         Option submitAndSchedule = new Option(SUBMIT_AND_SCHEDULE_OPT, false,
                 "Submits and entity to Falcon and schedules it immediately");
+        Option submitBulk = new Option(SUBMIT_BULK_OPT, false,
+                "Submits the entity xmls of a directory to Falcon, clusters first, then feeds and processes");
+        Option submitAndScheduleBulk = new Option(SUBMIT_AND_SCHEDULE_BULK_OPT, false,
+                "Submits the entity xmls of a directory to Falcon and schedules the feeds and processes");
         Option validate = new Option(VALIDATE_OPT, false,
                 "Validates an entity based on the entity type");
         Option status = new Option(STATUS_OPT, false,
@@ -605,6 +687,8 @@ public class FalconCLI {
         group.addOption(resume);
         group.addOption(delete);
         group.addOption(submitAndSchedule);
+        group.addOption(submitBulk);
+        group.addOption(submitAndScheduleBulk);
         group.addOption(validate);
         group.addOption(status);
         group.addOption(definition);
@@ -615,7 +699,6 @@ public class FalconCLI {
         Option url = new Option(URL_OPTION, true, "Falcon URL");
         Option entityType = new Option(ENTITY_TYPE_OPT, true,
                 "Entity type, can be cluster, feed or process xml");
-        entityType.setRequired(true);
         Option filePath = new Option(FILE_PATH_OPT, true,
                 "Path to entity xml file");
         Option entityName = new Option(ENTITY_NAME_OPT, true,
@@ -637,6 +720,8 @@ public class FalconCLI {
                 "Start returning entities from this offset");
         Option numResults = new Option(NUM_RESULTS_OPT, true,
                 "Number of results to return per request");
+        Option cursor = new Option(CURSOR_OPT, true,
+                "Return the entities after this cursor, as printed with the previous page");
         Option numInstances = new Option(NUM_INSTANCES_OPT, true,
                 "Number of instances to return per entity summary request");
 
@@ -657,6 +742,7 @@ public class FalconCLI {
         entityOptions.addOption(sortOrder);
         entityOptions.addOption(offset);
         entityOptions.addOption(numResults);
+        entityOptions.addOption(cursor);
         entityOptions.addOption(numInstances);
 
         return entityOptions;
@@ -714,6 +800,11 @@ public class FalconCLI {
                 false,
                 "Displays the workflow parameters for a given instance of specified nominal time");
 
+        Option operation = new Option(
+                OPERATION_OPT,
+                true,
+                "Displays the progress of the operation with the id returned by kill, suspend, resume and re-run");
+
         OptionGroup group = new OptionGroup();
         group.addOption(running);
         group.addOption(list);
@@ -727,6 +818,7 @@ public class FalconCLI {
         group.addOption(logs);
         group.addOption(continues);
         group.addOption(params);
+        group.addOption(operation);
 
         Option url = new Option(URL_OPTION, true, "Falcon URL");
         Option start = new Option(START_OPT, true,
@@ -769,6 +861,15 @@ public class FalconCLI {
                 "Start returning instances from this offset");
         Option numResults = new Option(NUM_RESULTS_OPT, true,
                 "Number of results to return per request");
+        Option cursor = new Option(CURSOR_OPT, true,
+                "Return the instances after this cursor, as printed with the previous page");
+        Option wait = new Option(WAIT_OPT, true,
+                "Seconds to wait for the operation to complete, up to 60");
+        Option bulk = new Option(BULK_OPT, false,
+                "Kills, suspends, resumes or reruns the instances of all the entities selected by tags, "
+                        + "pipeline or cluster");
+        Option tags = new Option(TAGS_OPT, true,
+                "Select the entities with all the specified tags, with " + BULK_OPT);
 
         instanceOptions.addOption(url);
         instanceOptions.addOptionGroup(group);
@@ -787,6 +888,10 @@ public class FalconCLI {
         instanceOptions.addOption(orderBy);
         instanceOptions.addOption(sortOrder);
         instanceOptions.addOption(numResults);
+        instanceOptions.addOption(cursor);
+        instanceOptions.addOption(wait);
+        instanceOptions.addOption(bulk);
+        instanceOptions.addOption(tags);
 
         return instanceOptions;
     }
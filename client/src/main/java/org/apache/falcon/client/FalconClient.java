@@ -23,6 +23,7 @@ import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
 import com.sun.jersey.client.urlconnection.HTTPSProperties;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.net.util.TrustManagerUtils;
@@ -30,10 +31,12 @@ import org.apache.falcon.LifeCycle;
 import org.apache.falcon.entity.v0.EntityType;
 import org.apache.falcon.entity.v0.SchemaHelper;
 import org.apache.falcon.resource.APIResult;
+import org.apache.falcon.resource.EntitiesResult;
 import org.apache.falcon.resource.EntityList;
 import org.apache.falcon.resource.EntitySummaryResult;
 import org.apache.falcon.resource.InstancesResult;
 import org.apache.falcon.resource.InstancesSummaryResult;
+import org.apache.falcon.resource.OperationResult;
 import org.apache.hadoop.security.authentication.client.AuthenticatedURL;
 import org.apache.hadoop.security.authentication.client.KerberosAuthenticator;
 import org.apache.hadoop.security.authentication.client.PseudoAuthenticator;
@@ -49,6 +52,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
@@ -57,10 +61,12 @@ import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.regex.Pattern;
 
 /**
  * Client API to submit and manage Falcon Entities (Cluster, Feed, Process) jobs
@@ -80,6 +86,7 @@ public class FalconClient {
      */
     public static final String AUTH_COOKIE = "hadoop.auth";
     private static final String AUTH_COOKIE_EQ = AUTH_COOKIE + "=";
+    private static final Pattern XML_DECLARATION = Pattern.compile("^\\s*<\\?xml[^>]*\\?>");
     private static final KerberosAuthenticator AUTHENTICATOR = new KerberosAuthenticator();
 
     public static final int DEFAULT_NUM_RESULTS = 10;
@@ -174,6 +181,8 @@ public class FalconClient {
         SUBMIT("api/entities/submit/", HttpMethod.POST, MediaType.TEXT_XML),
         UPDATE("api/entities/update/", HttpMethod.POST, MediaType.TEXT_XML),
         SUBMITandSCHEDULE("api/entities/submitAndSchedule/", HttpMethod.POST, MediaType.TEXT_XML),
+        SUBMIT_BULK("api/entities/bulk/submit", HttpMethod.POST, MediaType.TEXT_XML),
+        SUBMITandSCHEDULE_BULK("api/entities/bulk/submitAndSchedule", HttpMethod.POST, MediaType.TEXT_XML),
         SCHEDULE("api/entities/schedule/", HttpMethod.POST, MediaType.TEXT_XML),
         SUSPEND("api/entities/suspend/", HttpMethod.POST, MediaType.TEXT_XML),
         RESUME("api/entities/resume/", HttpMethod.POST, MediaType.TEXT_XML),
@@ -208,7 +217,9 @@ public class FalconClient {
         RERUN("api/instance/rerun/", HttpMethod.POST, MediaType.APPLICATION_JSON),
         LOG("api/instance/logs/", HttpMethod.GET, MediaType.APPLICATION_JSON),
         SUMMARY("api/instance/summary/", HttpMethod.GET, MediaType.APPLICATION_JSON),
-        PARAMS("api/instance/params/", HttpMethod.GET, MediaType.APPLICATION_JSON);
+        PARAMS("api/instance/params/", HttpMethod.GET, MediaType.APPLICATION_JSON),
+        OPERATION("api/instance/operation/", HttpMethod.GET, MediaType.APPLICATION_JSON),
+        BULK("api/instance/bulk/", HttpMethod.POST, MediaType.APPLICATION_JSON);
 
         private String path;
         private String method;
@@ -317,6 +328,24 @@ public class FalconClient {
                 entityType, entityStream, null);
     }
 
+    /**
+     * Submits several entities in one request, and schedules the feeds and processes among them if asked to.
+     *
+     * @param path directory of entity xml files, or a file whose root element holds the entity definitions
+     * @param schedule whether to schedule the submitted feeds and processes
+     * @return result of every entity
+     * @throws FalconCLIException
+     */
+    public String submitBulk(String path, boolean schedule) throws FalconCLIException {
+        Entities operation = schedule ? Entities.SUBMITandSCHEDULE_BULK : Entities.SUBMIT_BULK;
+        ClientResponse clientResponse = service.path(operation.path)
+                .header("Cookie", AUTH_COOKIE_EQ + authenticationToken)
+                .accept(operation.mimeType).type(MediaType.TEXT_XML)
+                .method(operation.method, ClientResponse.class, getBulkInputStream(path));
+        checkIfSuccessful(clientResponse);
+        return clientResponse.getEntity(EntitiesResult.class).toString();
+    }
+
     public String getStatus(String entityType, String entityName, String colo)
         throws FalconCLIException {
 
@@ -340,8 +369,17 @@ public class FalconClient {
     public EntityList getEntityList(String entityType, String fields, String filterBy, String filterTags,
                                     String orderBy, String sortOrder,
                                     Integer offset, Integer numResults) throws FalconCLIException {
+        return getEntityList(entityType, fields, filterBy, filterTags, orderBy, sortOrder, offset, numResults, null);
+    }
+
+    /**
+     * Lists the entities after the cursor returned with the previous page, the offset is ignored with a cursor.
+     */
+    public EntityList getEntityList(String entityType, String fields, String filterBy, String filterTags,
+                                    String orderBy, String sortOrder, Integer offset, Integer numResults,
+                                    String cursor) throws FalconCLIException {
         return sendListRequest(Entities.LIST, entityType, fields, filterBy,
-                filterTags, orderBy, sortOrder, offset, numResults);
+                filterTags, orderBy, sortOrder, offset, numResults, cursor);
     }
 
     public String getEntitySummary(String entityType, String cluster, String start, String end,
@@ -356,9 +394,16 @@ public class FalconClient {
     public String getRunningInstances(String type, String entity, String colo, List<LifeCycle> lifeCycles,
                                       String filterBy, String orderBy, String sortOrder,
                                       Integer offset, Integer numResults) throws FalconCLIException {
+        return getRunningInstances(type, entity, colo, lifeCycles, filterBy, orderBy, sortOrder,
+                offset, numResults, null);
+    }
+
+    public String getRunningInstances(String type, String entity, String colo, List<LifeCycle> lifeCycles,
+                                      String filterBy, String orderBy, String sortOrder,
+                                      Integer offset, Integer numResults, String cursor) throws FalconCLIException {
 
         return sendInstanceRequest(Instances.RUNNING, type, entity, null, null,
-                null, null, colo, lifeCycles, filterBy, orderBy, sortOrder, offset, numResults);
+                null, null, colo, lifeCycles, filterBy, orderBy, sortOrder, offset, numResults, cursor);
     }
 
     public String getStatusOfInstances(String type, String entity,
@@ -366,9 +411,21 @@ public class FalconClient {
                                        String colo, List<LifeCycle> lifeCycles, String filterBy,
                                        String orderBy, String sortOrder,
                                        Integer offset, Integer numResults) throws FalconCLIException {
+        return getStatusOfInstances(type, entity, start, end, colo, lifeCycles, filterBy, orderBy, sortOrder,
+                offset, numResults, null);
+    }
+
+    /**
+     * Gets the instances after the cursor returned with the previous page, the offset is ignored with a cursor.
+     */
+    public String getStatusOfInstances(String type, String entity,
+                                       String start, String end,
+                                       String colo, List<LifeCycle> lifeCycles, String filterBy,
+                                       String orderBy, String sortOrder,
+                                       Integer offset, Integer numResults, String cursor) throws FalconCLIException {
 
         return sendInstanceRequest(Instances.STATUS, type, entity, start, end,
-                null, null, colo, lifeCycles, filterBy, orderBy, sortOrder, offset, numResults);
+                null, null, colo, lifeCycles, filterBy, orderBy, sortOrder, offset, numResults, cursor);
     }
 
     public String getSummaryOfInstances(String type, String entity,
@@ -445,9 +502,18 @@ public class FalconClient {
                                      List<LifeCycle> lifeCycles, String filterBy,
                                      String orderBy, String sortOrder, Integer offset, Integer numResults)
         throws FalconCLIException {
+        return getLogsOfInstances(type, entity, start, end, colo, runId, lifeCycles, filterBy, orderBy, sortOrder,
+                offset, numResults, null);
+    }
+
+    public String getLogsOfInstances(String type, String entity, String start,
+                                     String end, String colo, String runId,
+                                     List<LifeCycle> lifeCycles, String filterBy,
+                                     String orderBy, String sortOrder, Integer offset, Integer numResults,
+                                     String cursor) throws FalconCLIException {
 
         return sendInstanceRequest(Instances.LOG, type, entity, start, end,
-                null, runId, colo, lifeCycles, filterBy, orderBy, sortOrder, offset, numResults);
+                null, runId, colo, lifeCycles, filterBy, orderBy, sortOrder, offset, numResults, cursor);
     }
 
     public String getParamsOfInstance(String type, String entity,
@@ -460,6 +526,61 @@ public class FalconClient {
                 start, null, null, null, colo, lifeCycles);
     }
 
+    /**
+     * Kills, suspends, resumes or reruns the instances between start and end of all the entities selected by
+     * tags, or by pipeline and cluster with filterBy, in the background.
+     *
+     * @param action kill, suspend, resume or rerun
+     * @param properties properties overridden by a rerun, null for none
+     * @return the operation to follow with {@link #getOperationStatus}
+     */
+    public String bulkInstanceAction(String action, String type, String start, String end, String filterBy,
+                                     String tags, String properties, String colo, String clusters,
+                                     String sourceClusters, List<LifeCycle> lifeCycles) throws FalconCLIException {
+        checkType(type);
+        Instances bulk = Instances.BULK;
+        WebResource resource = addParamsToResource(service.path(bulk.path).path(action).path(type),
+                start, end, null, colo, null, filterBy, tags, null, null, null, null, null);
+        if (lifeCycles != null) {
+            checkLifeCycleOption(lifeCycles, type);
+            for (LifeCycle lifeCycle : lifeCycles) {
+                resource = resource.queryParam("lifecycle", lifeCycle.toString());
+            }
+        }
+
+        InputStream props;
+        try {
+            props = getServletInputStream(clusters, sourceClusters, properties);
+        } catch (UnsupportedEncodingException e) {
+            throw new FalconCLIException("Unable to send the properties", e);
+        }
+        WebResource.Builder builder = resource
+                .header("Cookie", AUTH_COOKIE_EQ + authenticationToken)
+                .accept(bulk.mimeType);
+        ClientResponse clientResponse = props == null ? builder.method(bulk.method, ClientResponse.class)
+                : builder.method(bulk.method, ClientResponse.class, props);
+        checkIfSuccessful(clientResponse);
+        return clientResponse.getEntity(OperationResult.class).toString();
+    }
+
+    /**
+     * @param operationId id returned by an instance kill, suspend, resume or rerun
+     * @param waitSeconds how long the server may wait for the operation to complete, null to return right away
+     */
+    public String getOperationStatus(String operationId, Integer waitSeconds) throws FalconCLIException {
+        Instances operation = Instances.OPERATION;
+        WebResource resource = service.path(operation.path).path(operationId);
+        if (waitSeconds != null) {
+            resource = resource.queryParam("wait", waitSeconds.toString());
+        }
+        ClientResponse clientResponse = resource
+                .header("Cookie", AUTH_COOKIE_EQ + authenticationToken)
+                .accept(operation.mimeType)
+                .method(operation.method, ClientResponse.class);
+        checkIfSuccessful(clientResponse);
+        return clientResponse.getEntity(OperationResult.class).toString();
+    }
+
     public String getThreadDump() throws FalconCLIException {
         return sendAdminRequest(AdminOperations.STACK);
     }
@@ -499,6 +620,39 @@ public class FalconClient {
         return stream;
     }
 
+    /**
+     * Wraps the entity xml files of a directory in a single document, a file is sent as is.
+     *
+     * @param path directory or file to send
+     * @return stream of the multi document request
+     * @throws FalconCLIException
+     */
+    private InputStream getBulkInputStream(String path) throws FalconCLIException {
+        File file = new File(path);
+        if (!file.isDirectory()) {
+            return getServletInputStream(path);
+        }
+
+        File[] files = file.listFiles();
+        if (files == null) {
+            throw new FalconCLIException("Unable to list " + path);
+        }
+        Arrays.sort(files);
+        StringBuilder buffer = new StringBuilder("<entities>\n");
+        try {
+            for (File entityFile : files) {
+                if (entityFile.isFile() && entityFile.getName().endsWith(".xml")) {
+                    String xml = FileUtils.readFileToString(entityFile, "UTF-8");
+                    buffer.append(XML_DECLARATION.matcher(xml).replaceFirst("")).append('\n');
+                }
+            }
+            buffer.append("</entities>\n");
+            return new ByteArrayInputStream(buffer.toString().getBytes("UTF-8"));
+        } catch (IOException e) {
+            throw new FalconCLIException("Unable to read the entities in " + path, e);
+        }
+    }
+
     private InputStream getServletInputStream(String clusters,
                                               String sourceClusters, String properties)
         throws FalconCLIException, UnsupportedEncodingException {
@@ -659,19 +813,22 @@ public class FalconClient {
                                        String runid, String colo,
                                        List<LifeCycle> lifeCycles) throws FalconCLIException {
         return sendInstanceRequest(instances, type, entity, start, end, props,
-                runid, colo, lifeCycles, "", "", "", 0, DEFAULT_NUM_RESULTS);
+                runid, colo, lifeCycles, "", "", "", 0, DEFAULT_NUM_RESULTS, null);
     }
 
     private String sendInstanceRequest(Instances instances, String type, String entity,
                                        String start, String end, InputStream props, String runid, String colo,
                                        List<LifeCycle> lifeCycles, String filterBy, String orderBy, String sortOrder,
-                                       Integer offset, Integer numResults) throws FalconCLIException {
+                                       Integer offset, Integer numResults, String cursor) throws FalconCLIException {
         checkType(type);
         WebResource resource = service.path(instances.path).path(type)
                 .path(entity);
 
         resource = addParamsToResource(resource, start, end, runid, colo,
                 null, filterBy, null, orderBy, sortOrder, offset, numResults, null);
+        if (!StringUtils.isEmpty(cursor)) {
+            resource = resource.queryParam("cursor", cursor);
+        }
 
         if (lifeCycles != null) {
             checkLifeCycleOption(lifeCycles, type);
@@ -732,11 +889,14 @@ public class FalconClient {
     //SUSPEND CHECKSTYLE CHECK ParameterNumberCheck
     private EntityList sendListRequest(Entities entities, String entityType, String fields, String filterBy,
                                        String filterTags, String orderBy, String sortOrder, Integer offset,
-                                       Integer numResults) throws FalconCLIException {
+                                       Integer numResults, String cursor) throws FalconCLIException {
         WebResource resource = service.path(entities.path)
                 .path(entityType);
         resource = addParamsToResource(resource, null, null, null, null, fields, filterBy, filterTags,
                 orderBy, sortOrder, offset, numResults, null);
+        if (!StringUtils.isEmpty(cursor)) {
+            resource = resource.queryParam("cursor", cursor);
+        }
 
         ClientResponse clientResponse = resource
                 .header("Cookie", AUTH_COOKIE_EQ + authenticationToken)
@@ -885,6 +1045,12 @@ public class FalconClient {
         sb.append("\nAdditional Information:\n");
         sb.append("Response: ").append(result.getMessage());
         sb.append("Request Id: ").append(result.getRequestId());
+        if (result.getNextCursor() != null) {
+            sb.append("\nNext Cursor: ").append(result.getNextCursor());
+        }
+        if (result.getOperationId() != null) {
+            sb.append("\nOperation Id: ").append(result.getOperationId());
+        }
         return sb.toString();
     }
 
@@ -932,6 +1098,9 @@ public class FalconClient {
         sb.append("\nAdditional Information:\n");
         sb.append("Response: ").append(result.getMessage());
         sb.append("Request Id: ").append(result.getRequestId());
+        if (result.getNextCursor() != null) {
+            sb.append("\nNext Cursor: ").append(result.getNextCursor());
+        }
         return sb.toString();
     }
 
@@ -67,7 +67,7 @@ public abstract class Entity {
     public String toString() {
         try {
             StringWriter stringWriter = new StringWriter();
-            Marshaller marshaller = getEntityType().getMarshaller();
+            Marshaller marshaller = getEntityType().getThreadLocalMarshaller();
             marshaller.marshal(this, stringWriter);
             return stringWriter.toString();
         } catch (Exception e) {
@@ -77,7 +77,7 @@ public abstract class Entity {
 
     public static Entity fromString(EntityType type, String str) {
         try {
-            Unmarshaller unmarshaler = type.getUnmarshaller();
+            Unmarshaller unmarshaler = type.getThreadLocalUnmarshaller();
             return (Entity) unmarshaler.unmarshal(new StringReader(str));
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -88,7 +88,12 @@ public abstract class Entity {
         return "(" + getEntityType().name().toLowerCase() + ") " + getName();
     }
 
+    /**
+     * Deep copy of the entity, the copy shares no mutable state with this entity.
+     *
+     * @return copy of this entity
+     */
     public Entity copy() {
-        return fromString(getEntityType(), toString());
+        return EntityCloner.copy(this);
     }
 }
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity.v0;
+
+import javax.xml.bind.JAXBElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Structural deep copy of the jaxb entity graph. Beans are copied field by field, lists and mutable
+ * jdk values are copied and immutable values are shared.
+ */
+final class EntityCloner {
+
+    private static final ConcurrentMap<Class<?>, BeanInfo> BEANS = new ConcurrentHashMap<Class<?>, BeanInfo>();
+
+    private EntityCloner() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T copy(T source) {
+        return (T) copyValue(source);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object value) {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            List<Object> copy = new ArrayList<Object>(list.size());
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        if (value instanceof TimeZone) {
+            return ((TimeZone) value).clone();
+        }
+        if (value instanceof JAXBElement) {
+            JAXBElement<Object> element = (JAXBElement<Object>) value;
+            return new JAXBElement<Object>(element.getName(), element.getDeclaredType(), element.getScope(),
+                    copyValue(element.getValue()));
+        }
+        return getBeanInfo(value.getClass()).copy(value);
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum || value instanceof Frequency;
+    }
+
+    private static BeanInfo getBeanInfo(Class<?> clazz) {
+        BeanInfo info = BEANS.get(clazz);
+        if (info == null) {
+            info = new BeanInfo(clazz);
+            BEANS.putIfAbsent(clazz, info);
+        }
+        return info;
+    }
+
+    /**
+     * No-arg constructor and instance fields of a jaxb bean.
+     */
+    private static final class BeanInfo {
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+
+        private BeanInfo(Class<?> clazz) {
+            try {
+                constructor = clazz.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("No default constructor to copy " + clazz.getName(), e);
+            }
+
+            List<Field> list = new ArrayList<Field>();
+            for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        list.add(field);
+                    }
+                }
+            }
+            fields = list.toArray(new Field[list.size()]);
+        }
+
+        private Object copy(Object source) {
+            try {
+                Object target = constructor.newInstance();
+                for (Field field : fields) {
+                    Object value = field.get(source);
+                    field.set(target, field.getType().isPrimitive() ? value : copyValue(value));
+                }
+                return target;
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to copy " + source.getClass().getName(), e);
+            }
+        }
+    }
+}
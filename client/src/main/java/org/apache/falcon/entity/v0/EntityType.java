@@ -43,6 +43,7 @@ public enum EntityType {
     }
 
     private static final String NS = "http://www.w3.org/2001/XMLSchema";
+    private static final EventHandler EVENT_HANDLER = new EventHandler();
 
     private final Class<? extends Entity> clazz;
     private JAXBContext jaxbContext;
@@ -51,6 +52,9 @@ public enum EntityType {
 
     private String schemaFile;
 
+    private final ThreadLocal<Marshaller> marshallers = new ThreadLocal<Marshaller>();
+    private final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<Unmarshaller>();
+
     private EntityType(Class<? extends Entity> typeClass, String schemaFile, String... immutableProperties) {
         clazz = typeClass;
         this.immutableProperties = immutableProperties;
@@ -83,7 +87,49 @@ public enum EntityType {
     public Unmarshaller getUnmarshaller() throws JAXBException {
         Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
         unmarshaller.setSchema(schema);
-        unmarshaller.setEventHandler(new EventHandler());
+        unmarshaller.setEventHandler(EVENT_HANDLER);
+        return unmarshaller;
+    }
+
+    /**
+     * Returns a marshaller confined to the calling thread, created once per thread and reset to the
+     * configuration of {@link #getMarshaller()} on every call. The marshaller must not be handed to
+     * another thread, kept beyond the current operation or used re-entrantly. Callers that need a
+     * private instance should use {@link #getMarshaller()}.
+     *
+     * @return thread confined marshaller
+     * @throws JAXBException
+     */
+    public Marshaller getThreadLocalMarshaller() throws JAXBException {
+        Marshaller marshaller = marshallers.get();
+        if (marshaller == null) {
+            marshaller = getMarshaller();
+            marshallers.set(marshaller);
+        } else {
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            marshaller.setListener(null);
+        }
+        return marshaller;
+    }
+
+    /**
+     * Returns an unmarshaller confined to the calling thread, with the same contract as
+     * {@link #getThreadLocalMarshaller()}. Schema validation and the fail-fast event handler
+     * are restored on every call.
+     *
+     * @return thread confined unmarshaller
+     * @throws JAXBException
+     */
+    public Unmarshaller getThreadLocalUnmarshaller() throws JAXBException {
+        Unmarshaller unmarshaller = unmarshallers.get();
+        if (unmarshaller == null) {
+            unmarshaller = getUnmarshaller();
+            unmarshallers.set(unmarshaller);
+        } else {
+            unmarshaller.setSchema(schema);
+            unmarshaller.setEventHandler(EVENT_HANDLER);
+            unmarshaller.setListener(null);
+        }
         return unmarshaller;
     }
 
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Pojo for JAXB marshalling / unmarshalling of the results of an operation on several entities.
+ */
+//SUSPEND CHECKSTYLE CHECK VisibilityModifierCheck
+@XmlRootElement
+@edu.umd.cs.findbugs.annotations.SuppressWarnings({"EI_EXPOSE_REP", "EI_EXPOSE_REP2"})
+public class EntitiesResult extends APIResult {
+
+    @XmlElement
+    private EntityResult[] entityResults;
+
+    //For JAXB
+    public EntitiesResult() {
+        super();
+    }
+
+    public EntitiesResult(String message, EntityResult[] entityResults) {
+        super(getStatus(entityResults), message);
+        this.entityResults = entityResults;
+    }
+
+    public EntityResult[] getEntityResults() {
+        return entityResults;
+    }
+
+    public void setEntityResults(EntityResult[] entityResults) {
+        this.entityResults = entityResults;
+    }
+
+    // succeeded when every entity succeeded, failed when none did
+    private static Status getStatus(EntityResult[] entityResults) {
+        int succeeded = 0;
+        int failed = 0;
+        for (EntityResult entityResult : entityResults) {
+            if (entityResult.status == Status.SUCCEEDED) {
+                succeeded++;
+            } else if (entityResult.status == Status.FAILED) {
+                failed++;
+            }
+        }
+        return succeeded == entityResults.length ? Status.SUCCEEDED
+                : failed == entityResults.length ? Status.FAILED : Status.PARTIAL;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(getStatus()).append(": ").append(getMessage()).append('\n');
+        if (entityResults != null) {
+            for (EntityResult entityResult : entityResults) {
+                buffer.append(entityResult).append('\n');
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Result of the operation on a single entity.
+     */
+    @XmlRootElement(name = "entityResult")
+    public static class EntityResult {
+
+        @XmlElement
+        public String type;
+        @XmlElement
+        public String name;
+        @XmlElement
+        public Status status;
+        @XmlElement
+        public String message;
+
+        public EntityResult() {
+        }
+
+        public EntityResult(String type, String name, Status status, String message) {
+            this.type = type;
+            this.name = name;
+            this.status = status;
+            this.message = message;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return name + "(" + type + ") " + status + ": " + message;
+        }
+    }
+}
+//RESUME CHECKSTYLE CHECK VisibilityModifierCheck
@@ -40,6 +40,9 @@ public class EntityList {
     @XmlElement(name = "entity")
     private final EntityElement[] elements;
 
+    @XmlElement
+    private String nextCursor;
+
     /**
      * List of fields returned by RestAPI.
      */
@@ -137,6 +140,17 @@ public class EntityList {
         return elements;
     }
 
+    /**
+     * @return cursor to pass to get the page after this one, null when this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     @Override
     public String toString() {
         StringBuilder buffer = new StringBuilder();
@@ -49,6 +49,12 @@ public class InstancesResult extends APIResult {
     @XmlElement
     private Instance[] instances;
 
+    @XmlElement
+    private String operationId;
+
+    @XmlElement
+    private String nextCursor;
+
     private InstancesResult() { // for jaxb
         super();
     }
@@ -76,6 +82,28 @@ public class InstancesResult extends APIResult {
         this.instances = instances;
     }
 
+    /**
+     * @return handle of the operation tracking the instances changed by an action, null for other requests
+     */
+    public String getOperationId() {
+        return operationId;
+    }
+
+    public void setOperationId(String operationId) {
+        this.operationId = operationId;
+    }
+
+    /**
+     * @return cursor to pass to get the page after this one, null when this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     /**
      * A single instance object inside instance result.
      */
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Pojo for JAXB marshalling / unmarshalling of the progress of an operation on instances.
+ */
+@XmlRootElement
+public class OperationResult extends APIResult {
+
+    /**
+     * Progress of an operation, it is running until every job it changed reaches the expected status.
+     */
+    public static enum OperationStatus {
+        RUNNING, SUCCEEDED, FAILED
+    }
+
+    @XmlElement
+    private String operationId;
+
+    @XmlElement
+    private OperationStatus operationStatus;
+
+    @XmlElement
+    private int pendingJobs;
+
+    //For JAXB
+    public OperationResult() {
+        super();
+    }
+
+    public OperationResult(String operationId, OperationStatus operationStatus, int pendingJobs, String message) {
+        super(operationStatus == OperationStatus.FAILED ? Status.FAILED : Status.SUCCEEDED, message);
+        this.operationId = operationId;
+        this.operationStatus = operationStatus;
+        this.pendingJobs = pendingJobs;
+    }
+
+    public String getOperationId() {
+        return operationId;
+    }
+
+    public OperationStatus getOperationStatus() {
+        return operationStatus;
+    }
+
+    /**
+     * @return number of jobs still to reach their expected status
+     */
+    public int getPendingJobs() {
+        return pendingJobs;
+    }
+
+    @Override
+    public String toString() {
+        return operationId + " " + operationStatus + ", pending jobs: " + pendingJobs + ", " + getMessage();
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity.v0;
+
+import org.apache.falcon.entity.v0.feed.Cluster;
+import org.apache.falcon.entity.v0.feed.ClusterType;
+import org.apache.falcon.entity.v0.feed.Clusters;
+import org.apache.falcon.entity.v0.feed.Feed;
+import org.apache.falcon.entity.v0.feed.Validity;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Tests for the structural copy of entities.
+ */
+public class EntityClonerTest {
+
+    @Test
+    public void testCopyIsDeep() throws Exception {
+        Feed feed = new Feed();
+        feed.setName("feed");
+        feed.setFrequency(new Frequency("hours(1)"));
+        feed.setTimezone(TimeZone.getTimeZone("UTC"));
+        feed.setClusters(new Clusters());
+        for (int i = 0; i < 2; i++) {
+            Cluster cluster = new Cluster();
+            cluster.setName("cluster" + i);
+            cluster.setType(ClusterType.SOURCE);
+            Validity validity = new Validity();
+            validity.setStart(new Date(0));
+            validity.setEnd(new Date(1000));
+            cluster.setValidity(validity);
+            feed.getClusters().getClusters().add(cluster);
+        }
+
+        Feed copy = (Feed) feed.copy();
+        Assert.assertNotSame(copy, feed);
+        Assert.assertEquals(copy.toString(), feed.toString());
+
+        Cluster copiedCluster = copy.getClusters().getClusters().get(0);
+        Assert.assertNotSame(copiedCluster, feed.getClusters().getClusters().get(0));
+        copiedCluster.getValidity().getEnd().setTime(2000);
+        copy.getTimezone().setRawOffset(3600000);
+        copy.getClusters().getClusters().remove(1);
+
+        Assert.assertEquals(feed.getClusters().getClusters().size(), 2);
+        Assert.assertEquals(feed.getClusters().getClusters().get(0).getValidity().getEnd().getTime(), 1000);
+        Assert.assertEquals(feed.getTimezone().getRawOffset(), 0);
+    }
+}
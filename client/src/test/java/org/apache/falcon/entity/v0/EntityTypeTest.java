@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity.v0;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for the thread confined marshallers of EntityType.
+ */
+public class EntityTypeTest {
+
+    @Test
+    public void testThreadLocalMarshallersAreReset() throws Exception {
+        Marshaller marshaller = EntityType.CLUSTER.getThreadLocalMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+        Assert.assertSame(EntityType.CLUSTER.getThreadLocalMarshaller(), marshaller);
+        Assert.assertEquals(marshaller.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT), Boolean.TRUE);
+
+        Unmarshaller unmarshaller = EntityType.CLUSTER.getThreadLocalUnmarshaller();
+        unmarshaller.setSchema(null);
+        unmarshaller.setEventHandler(null);
+        Assert.assertSame(EntityType.CLUSTER.getThreadLocalUnmarshaller(), unmarshaller);
+        Assert.assertNotNull(unmarshaller.getSchema());
+        Assert.assertFalse(unmarshaller.getEventHandler().handleEvent(null));
+    }
+
+    @Test
+    public void testThreadLocalMarshallersAreConfined() throws Exception {
+        final AtomicReference<Unmarshaller> other = new AtomicReference<Unmarshaller>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    other.set(EntityType.CLUSTER.getThreadLocalUnmarshaller());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+
+        Assert.assertNotNull(other.get());
+        Assert.assertNotSame(EntityType.CLUSTER.getThreadLocalUnmarshaller(), other.get());
+        Assert.assertNotSame(EntityType.FEED.getThreadLocalUnmarshaller(),
+                EntityType.CLUSTER.getThreadLocalUnmarshaller());
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.falcon.entity.v0.EntityType;
 import org.apache.falcon.entity.v0.cluster.Cluster;
 import org.apache.falcon.service.ConfigurationChangeListener;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -51,18 +52,19 @@ public final class ColoClusterRelation implements ConfigurationChangeListener {
     }
 
     @Override
-    public void onAdd(Entity entity) {
+    public synchronized void onAdd(Entity entity) {
         if (entity.getEntityType() != EntityType.CLUSTER) {
             return;
         }
 
         Cluster cluster = (Cluster) entity;
-        COLO_CLUSTER_MAP.putIfAbsent(cluster.getColo(), new HashSet<String>());
+        COLO_CLUSTER_MAP.putIfAbsent(cluster.getColo(),
+                Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>()));
         COLO_CLUSTER_MAP.get(cluster.getColo()).add(cluster.getName());
     }
 
     @Override
-    public void onRemove(Entity entity) {
+    public synchronized void onRemove(Entity entity) {
         if (entity.getEntityType() != EntityType.CLUSTER) {
             return;
         }
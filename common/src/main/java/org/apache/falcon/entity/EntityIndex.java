@@ -0,0 +1,444 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity;
+
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.entity.v0.EntityType;
+import org.apache.falcon.entity.v0.cluster.Cluster;
+import org.apache.falcon.service.ConfigurationChangeListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In memory inverted indexes from tags, pipelines, clusters and colos to the names of the entities
+ * using them. Posting lists are kept sorted by entity name, so the entities matching a query can be
+ * walked in name order and a page of results costs the page, not a scan of every entity.
+ */
+public final class EntityIndex implements ConfigurationChangeListener {
+
+    private static final EntityIndex INSTANCE = new EntityIndex();
+
+    private final Map<EntityType, TypeIndex> indexes = new EnumMap<EntityType, TypeIndex>(EntityType.class);
+    private final ConcurrentMap<String, String> clusterColos = new ConcurrentHashMap<String, String>();
+
+    private EntityIndex() {
+        for (EntityType type : EntityType.values()) {
+            indexes.put(type, new TypeIndex());
+        }
+    }
+
+    public static EntityIndex get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param type entity type
+     * @return number of indexed entities of the type
+     */
+    public int size(EntityType type) {
+        return indexes.get(type).entities.size();
+    }
+
+    /**
+     * Names of the entities matching all the constraints of the query, in name order.
+     * The iterator is weakly consistent with concurrent changes to the index.
+     *
+     * @param query constraints
+     * @return matching entity names
+     */
+    public Iterator<String> find(Query query) {
+        TypeIndex index = indexes.get(query.type);
+        List<Postings> constraints = new ArrayList<Postings>();
+        constraints.add(new Postings().add(index.names));
+        for (String tag : query.tags) {
+            Postings tagged = new Postings().add(index.tags.get(tag));
+            constraints.add(query.includeUntagged ? tagged.add(index.untagged) : tagged);
+        }
+        for (String pipeline : query.pipelines) {
+            constraints.add(new Postings().add(index.pipelines.get(pipeline)));
+        }
+        for (String cluster : query.clusters) {
+            constraints.add(new Postings().add(index.clusters.get(cluster)));
+        }
+        if (query.colo != null) {
+            Postings colo = new Postings();
+            for (Map.Entry<String, String> entry : clusterColos.entrySet()) {
+                if (entry.getValue().equals(query.colo)) {
+                    colo.add(index.clusters.get(entry.getKey()));
+                }
+            }
+            constraints.add(colo);
+        }
+
+        Postings driver = constraints.get(0);
+        for (Postings constraint : constraints) {
+            if (constraint.size() < driver.size()) {
+                driver = constraint;
+            }
+        }
+        constraints.remove(driver);
+        return new IntersectionIterator(driver.iterator(query.descending, query.after), constraints);
+    }
+
+    @Override
+    public synchronized void onAdd(Entity entity) {
+        TypeIndex index = indexes.get(entity.getEntityType());
+        Attributes attributes = new Attributes(entity);
+        Attributes previous = index.entities.put(entity.getName(), attributes);
+        // index the new attributes before unindexing the stale ones, so readers always see the entity
+        index.add(entity.getName(), attributes);
+        if (previous != null) {
+            index.removeStale(entity.getName(), previous, attributes);
+        }
+        if (entity.getEntityType() == EntityType.CLUSTER) {
+            clusterColos.put(entity.getName(), ((Cluster) entity).getColo());
+        }
+    }
+
+    @Override
+    public synchronized void onRemove(Entity entity) {
+        TypeIndex index = indexes.get(entity.getEntityType());
+        Attributes attributes = index.entities.remove(entity.getName());
+        if (attributes != null) {
+            index.remove(entity.getName(), attributes);
+        }
+        if (entity.getEntityType() == EntityType.CLUSTER) {
+            clusterColos.remove(entity.getName());
+        }
+    }
+
+    @Override
+    public synchronized void onChange(Entity oldEntity, Entity newEntity) {
+        onAdd(newEntity);
+    }
+
+    @Override
+    public void onReload(Entity entity) {
+        onAdd(entity);
+    }
+
+    /**
+     * Constraints of a lookup. Every constraint has to hold for an entity to match.
+     */
+    public static final class Query {
+        private final EntityType type;
+        private final List<String> tags = new ArrayList<String>();
+        private final List<String> pipelines = new ArrayList<String>();
+        private final List<String> clusters = new ArrayList<String>();
+        private boolean includeUntagged;
+        private String colo;
+        private boolean descending;
+        private String after;
+
+        public Query(EntityType type) {
+            this.type = type;
+        }
+
+        public Query withTags(Collection<String> values) {
+            tags.addAll(values);
+            return this;
+        }
+
+        /**
+         * Entities without any tags match the tag constraints as well.
+         */
+        public Query includeUntagged() {
+            includeUntagged = true;
+            return this;
+        }
+
+        public Query withPipeline(String pipeline) {
+            pipelines.add(pipeline);
+            return this;
+        }
+
+        public Query withCluster(String cluster) {
+            clusters.add(cluster);
+            return this;
+        }
+
+        public Query withColo(String value) {
+            colo = value;
+            return this;
+        }
+
+        public Query descending() {
+            descending = true;
+            return this;
+        }
+
+        /**
+         * Only entities coming after this name in the order of the lookup match, to continue from a previous page.
+         */
+        public Query after(String name) {
+            after = name;
+            return this;
+        }
+    }
+
+    /**
+     * Index of one entity type.
+     */
+    private static final class TypeIndex {
+        private final ConcurrentMap<String, Attributes> entities = new ConcurrentHashMap<String, Attributes>();
+        private final NavigableSet<String> names = new ConcurrentSkipListSet<String>();
+        private final NavigableSet<String> untagged = new ConcurrentSkipListSet<String>();
+        private final ConcurrentMap<String, NavigableSet<String>> tags =
+                new ConcurrentHashMap<String, NavigableSet<String>>();
+        private final ConcurrentMap<String, NavigableSet<String>> pipelines =
+                new ConcurrentHashMap<String, NavigableSet<String>>();
+        private final ConcurrentMap<String, NavigableSet<String>> clusters =
+                new ConcurrentHashMap<String, NavigableSet<String>>();
+
+        private void add(String name, Attributes attributes) {
+            names.add(name);
+            if (attributes.tags.isEmpty()) {
+                untagged.add(name);
+            }
+            add(tags, attributes.tags, name);
+            add(pipelines, attributes.pipelines, name);
+            add(clusters, attributes.clusters, name);
+        }
+
+        private void remove(String name, Attributes attributes) {
+            names.remove(name);
+            untagged.remove(name);
+            remove(tags, attributes.tags, name);
+            remove(pipelines, attributes.pipelines, name);
+            remove(clusters, attributes.clusters, name);
+        }
+
+        private void removeStale(String name, Attributes previous, Attributes current) {
+            if (!current.tags.isEmpty()) {
+                untagged.remove(name);
+            }
+            remove(tags, difference(previous.tags, current.tags), name);
+            remove(pipelines, difference(previous.pipelines, current.pipelines), name);
+            remove(clusters, difference(previous.clusters, current.clusters), name);
+        }
+
+        private static Set<String> difference(Set<String> lhs, Set<String> rhs) {
+            Set<String> difference = new HashSet<String>(lhs);
+            difference.removeAll(rhs);
+            return difference;
+        }
+
+        private static void add(ConcurrentMap<String, NavigableSet<String>> postings, Set<String> keys, String name) {
+            for (String key : keys) {
+                NavigableSet<String> names = postings.get(key);
+                if (names == null) {
+                    names = new ConcurrentSkipListSet<String>();
+                    postings.put(key, names);
+                }
+                names.add(name);
+            }
+        }
+
+        private static void remove(ConcurrentMap<String, NavigableSet<String>> postings, Set<String> keys,
+                                   String name) {
+            for (String key : keys) {
+                NavigableSet<String> names = postings.get(key);
+                if (names != null) {
+                    names.remove(name);
+                    if (names.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexed attributes of an entity, kept to unindex the entity on change or removal.
+     */
+    private static final class Attributes {
+        private final Set<String> tags;
+        private final Set<String> pipelines;
+        private final Set<String> clusters;
+
+        private Attributes(Entity entity) {
+            tags = new HashSet<String>(EntityUtil.getTags(entity));
+            pipelines = new HashSet<String>(EntityUtil.getPipelines(entity));
+            clusters = EntityUtil.getClustersDefined(entity);
+        }
+    }
+
+    /**
+     * Union of sorted posting lists.
+     */
+    private static final class Postings {
+        private final List<NavigableSet<String>> sets = new ArrayList<NavigableSet<String>>();
+
+        private Postings add(NavigableSet<String> posting) {
+            if (posting != null) {
+                sets.add(posting);
+            }
+            return this;
+        }
+
+        private int size() {
+            int size = 0;
+            for (NavigableSet<String> set : sets) {
+                size += set.size();
+            }
+            return size;
+        }
+
+        private boolean contains(String name) {
+            for (NavigableSet<String> set : sets) {
+                if (set.contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Iterator<String> iterator(boolean descending, String after) {
+            if (sets.isEmpty()) {
+                return Collections.<String>emptyList().iterator();
+            }
+            // seek past the names already returned instead of skipping them
+            List<NavigableSet<String>> views = sets;
+            if (after != null) {
+                views = new ArrayList<NavigableSet<String>>(sets.size());
+                for (NavigableSet<String> set : sets) {
+                    views.add(descending ? set.headSet(after, false) : set.tailSet(after, false));
+                }
+            }
+            if (views.size() == 1) {
+                return descending ? views.get(0).descendingIterator() : views.get(0).iterator();
+            }
+            return new MergeIterator(views, descending);
+        }
+    }
+
+    /**
+     * Merges sorted iterators into one sorted iterator without duplicates.
+     */
+    private static final class MergeIterator implements Iterator<String> {
+        private final List<Iterator<String>> iterators = new ArrayList<Iterator<String>>();
+        private final String[] heads;
+        private final boolean descending;
+
+        private MergeIterator(List<NavigableSet<String>> sets, boolean descending) {
+            this.descending = descending;
+            heads = new String[sets.size()];
+            for (int i = 0; i < heads.length; i++) {
+                Iterator<String> iterator = descending ? sets.get(i).descendingIterator() : sets.get(i).iterator();
+                iterators.add(iterator);
+                heads[i] = iterator.hasNext() ? iterator.next() : null;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (String head : heads) {
+                if (head != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String next() {
+            String next = null;
+            for (String head : heads) {
+                if (head != null && (next == null || (descending ? head.compareTo(next) > 0
+                        : head.compareTo(next) < 0))) {
+                    next = head;
+                }
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            for (int i = 0; i < heads.length; i++) {
+                if (next.equals(heads[i])) {
+                    heads[i] = iterators.get(i).hasNext() ? iterators.get(i).next() : null;
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Names of the driving iterator that are contained in all the other posting lists.
+     */
+    private static final class IntersectionIterator implements Iterator<String> {
+        private final Iterator<String> driver;
+        private final List<Postings> constraints;
+        private String next;
+
+        private IntersectionIterator(Iterator<String> driver, List<Postings> constraints) {
+            this.driver = driver;
+            this.constraints = constraints;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && driver.hasNext()) {
+                String candidate = driver.next();
+                boolean matches = true;
+                for (Postings constraint : constraints) {
+                    if (!constraint.contains(candidate)) {
+                        matches = false;
+                        break;
+                    }
+                }
+                if (matches) {
+                    next = candidate;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,413 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.entity.v0.SchemaHelper;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Flattens an entity into "path=value" properties, the form used for entity equality and md5.
+ * Every property is emitted in the sorted order of its path, so the properties can be streamed
+ * without collecting and sorting them. Bean properties are read through getters that are looked
+ * up once per class.
+ */
+final class EntityProperties {
+
+    private static final ConcurrentMap<Class<?>, Kind> KINDS = new ConcurrentHashMap<Class<?>, Kind>();
+    private static final ConcurrentMap<Class<?>, Property[]> PLANS = new ConcurrentHashMap<Class<?>, Property[]>();
+    private static final ConcurrentMap<String, Pattern> FILTERS = new ConcurrentHashMap<String, Pattern>();
+    private static final AtomicReferenceArray<int[]> INDEX_ORDERS = new AtomicReferenceArray<int[]>(64);
+
+    private EntityProperties() {
+    }
+
+    /**
+     * Receives the properties of an entity.
+     */
+    interface Sink {
+        void property(CharSequence path, String value);
+    }
+
+    /**
+     * Appends the properties as "path=value" lines.
+     */
+    static final class StringSink implements Sink {
+        private final StringBuilder buffer = new StringBuilder(1024);
+
+        @Override
+        public void property(CharSequence path, String value) {
+            buffer.append(path).append('=').append(value).append('\n');
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+
+    /**
+     * Feeds the utf-8 bytes of the "path=value" lines to an md5 digest.
+     */
+    static final class DigestSink implements Sink {
+        private final MessageDigest digest;
+        private final byte[] buffer = new byte[512];
+        private int length;
+        private char highSurrogate;
+
+        DigestSink() {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void property(CharSequence path, String value) {
+            write(path);
+            write('=');
+            write(value);
+            write('\n');
+        }
+
+        byte[] digest() {
+            flushSurrogate();
+            digest.update(buffer, 0, length);
+            length = 0;
+            return digest.digest();
+        }
+
+        private void write(CharSequence chars) {
+            int count = chars.length();
+            for (int i = 0; i < count; i++) {
+                write(chars.charAt(i));
+            }
+        }
+
+        // same bytes as String.getBytes("UTF-8"), unpaired surrogates become '?'
+        private void write(char c) {
+            if (length + 4 > buffer.length) {
+                digest.update(buffer, 0, length);
+                length = 0;
+            }
+            if (Character.isLowSurrogate(c) && highSurrogate != 0) {
+                int codePoint = Character.toCodePoint(highSurrogate, c);
+                highSurrogate = 0;
+                buffer[length++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+                return;
+            }
+            flushSurrogate();
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xc0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                buffer[length++] = '?';
+            } else {
+                buffer[length++] = (byte) (0xe0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+
+        private void flushSurrogate() {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                if (length == buffer.length) {
+                    digest.update(buffer, 0, length);
+                    length = 0;
+                }
+                buffer[length++] = '?';
+            }
+        }
+    }
+
+    static Pattern[] compileFilters(String[] filterProps) {
+        if (filterProps == null || filterProps.length == 0) {
+            return null;
+        }
+        Pattern[] patterns = new Pattern[filterProps.length];
+        for (int i = 0; i < filterProps.length; i++) {
+            Pattern pattern = FILTERS.get(filterProps[i]);
+            if (pattern == null) {
+                pattern = Pattern.compile(
+                        filterProps[i].replace(".", "\\.").replace("[", "\\[").replace("]", "\\]"));
+                FILTERS.putIfAbsent(filterProps[i], pattern);
+            }
+            patterns[i] = pattern;
+        }
+        return patterns;
+    }
+
+    static void walk(Object root, Pattern[] filters, Sink sink) throws FalconException {
+        Matcher[] matchers = null;
+        if (filters != null) {
+            matchers = new Matcher[filters.length];
+            for (int i = 0; i < filters.length; i++) {
+                matchers[i] = filters[i].matcher("");
+            }
+        }
+        new Walker(matchers, sink).walk(root);
+    }
+
+    /**
+     * Depth first walk over one entity, reusing a single path buffer.
+     */
+    private static final class Walker {
+        private final Matcher[] matchers;
+        private final Sink sink;
+        private final StringBuilder path = new StringBuilder(128);
+
+        private Walker(Matcher[] matchers, Sink sink) {
+            this.matchers = matchers;
+            this.sink = sink;
+        }
+
+        private void walk(Object root) throws FalconException {
+            if (root != null) {
+                walkBean(root);
+            }
+        }
+
+        private void walkValue(Object obj) throws FalconException {
+            if (obj == null || isFiltered()) {
+                return;
+            }
+
+            switch (kindOf(obj.getClass())) {
+            case DATE:
+                sink.property(path, SchemaHelper.formatDateUTC((Date) obj));
+                break;
+
+            case LANG:
+                sink.property(path, String.valueOf(obj));
+                break;
+
+            case TIMEZONE:
+                sink.property(path, ((TimeZone) obj).getID());
+                break;
+
+            case ENUM:
+                sink.property(path, ((Enum<?>) obj).name());
+                break;
+
+            case LIST:
+                List<?> list = (List<?>) obj;
+                int length = path.length();
+                for (int index : indexOrder(list.size())) {
+                    path.append('[').append(index).append(']');
+                    walkValue(list.get(index));
+                    path.setLength(length);
+                }
+                break;
+
+            case TO_STRING:
+                sink.property(path, obj.toString());
+                break;
+
+            default:
+                path.append('.');
+                walkBean(obj);
+            }
+        }
+
+        private void walkBean(Object obj) throws FalconException {
+            int length = path.length();
+            for (Property property : planOf(obj.getClass())) {
+                path.append(property.name);
+                walkValue(property.get(obj));
+                path.setLength(length);
+            }
+        }
+
+        private boolean isFiltered() {
+            if (matchers != null) {
+                for (Matcher matcher : matchers) {
+                    if (matcher.reset(path).matches()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * How a value is flattened, in the order the kinds are checked.
+     */
+    private enum Kind {
+        DATE(""), LANG(""), TIMEZONE(""), ENUM(""), LIST("["), TO_STRING(""), BEAN(".");
+
+        // first character after the property name in the path of the flattened values
+        private final String separator;
+
+        private Kind(String separator) {
+            this.separator = separator;
+        }
+    }
+
+    private static Kind kindOf(Class<?> clazz) {
+        Kind kind = KINDS.get(clazz);
+        if (kind == null) {
+            kind = classify(clazz);
+            KINDS.put(clazz, kind);
+        }
+        return kind;
+    }
+
+    private static Kind classify(Class<?> clazz) {
+        if (Date.class.isAssignableFrom(clazz)) {
+            return Kind.DATE;
+        } else if (clazz.isPrimitive() || clazz.getPackage() != null
+                && clazz.getPackage().getName().equals("java.lang")) {
+            return Kind.LANG;
+        } else if (TimeZone.class.isAssignableFrom(clazz)) {
+            return Kind.TIMEZONE;
+        } else if (Enum.class.isAssignableFrom(clazz)) {
+            return Kind.ENUM;
+        } else if (List.class.isAssignableFrom(clazz)) {
+            return Kind.LIST;
+        }
+        try {
+            clazz.getDeclaredMethod("toString");
+            return Kind.TO_STRING;
+        } catch (NoSuchMethodException e) {
+            return Kind.BEAN;
+        }
+    }
+
+    /**
+     * Readable bean properties of a class, sorted the way their flattened paths sort. The separator
+     * that follows a name in the path takes part in the ordering, so "tags" followed by "[" sorts
+     * after "tagsX" but before "tagsx".
+     */
+    private static Property[] planOf(Class<?> clazz) throws FalconException {
+        Property[] plan = PLANS.get(clazz);
+        if (plan == null) {
+            try {
+                BeanInfo beanInfo = Introspector.getBeanInfo(clazz);
+                List<Property> properties = new ArrayList<Property>();
+                for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+                    Method getter = descriptor.getReadMethod();
+                    if (getter != null && !descriptor.getName().equals("class")) {
+                        getter.setAccessible(true);
+                        properties.add(new Property(descriptor.getName(), getter));
+                    }
+                }
+                plan = properties.toArray(new Property[properties.size()]);
+                Arrays.sort(plan);
+            } catch (IntrospectionException e) {
+                throw new FalconException(e);
+            }
+            PLANS.putIfAbsent(clazz, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * List indexes in the order of their "[index]" path elements: "[10]" sorts before "[1]"
+     * because '0' sorts before ']'.
+     */
+    private static int[] indexOrder(int size) {
+        int[] order = size < INDEX_ORDERS.length() ? INDEX_ORDERS.get(size) : null;
+        if (order == null) {
+            Integer[] indexes = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                indexes[i] = i;
+            }
+            Arrays.sort(indexes, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer lhs, Integer rhs) {
+                    return (lhs + "]").compareTo(rhs + "]");
+                }
+            });
+            order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = indexes[i];
+            }
+            if (size < INDEX_ORDERS.length()) {
+                INDEX_ORDERS.set(size, order);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * A readable bean property.
+     */
+    private static final class Property implements Comparable<Property> {
+        private final String name;
+        private final String sortKey;
+        private final Method getter;
+
+        private Property(String name, Method getter) {
+            this.name = name;
+            this.getter = getter;
+            this.sortKey = name + kindOf(getter.getReturnType()).separator;
+        }
+
+        private Object get(Object bean) throws FalconException {
+            try {
+                return getter.invoke(bean);
+            } catch (Exception e) {
+                throw new FalconException(e);
+            }
+        }
+
+        @Override
+        public int compareTo(Property other) {
+            return sortKey.compareTo(other.sortKey);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Property && sortKey.equals(((Property) o).sortKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return sortKey.hashCode();
+        }
+    }
+}
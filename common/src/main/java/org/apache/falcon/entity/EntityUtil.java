@@ -18,9 +18,7 @@
 
 package org.apache.falcon.entity;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.codec.binary.Hex;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.falcon.FalconException;
 import org.apache.falcon.Pair;
@@ -48,11 +46,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * Helper to get entity object.
@@ -320,7 +318,9 @@ public final class EntityUtil {
     }
 
     public static String md5(Entity entity) throws FalconException {
-        return new String(Hex.encodeHex(DigestUtils.md5(stringOf(entity))));
+        EntityProperties.DigestSink sink = new EntityProperties.DigestSink();
+        EntityProperties.walk(entity, null, sink);
+        return new String(Hex.encodeHex(sink.digest()));
     }
 
     public static boolean equals(Entity lhs, Entity rhs) throws FalconException {
@@ -336,80 +336,30 @@ public final class EntityUtil {
         }
 
         if (lhs.equals(rhs)) {
-            String lhsString = stringOf(lhs, filterProps);
-            String rhsString = stringOf(rhs, filterProps);
+            Pattern[] filters = EntityProperties.compileFilters(filterProps);
+            String lhsString = stringOf(lhs, filters);
+            String rhsString = stringOf(rhs, filters);
             return lhsString.equals(rhsString);
         } else {
             return false;
         }
     }
 
+    /**
+     * Flattens the entity into sorted "property.path=value" lines, one per property.
+     *
+     * @param entity entity
+     * @return properties of the entity
+     * @throws FalconException
+     */
     public static String stringOf(Entity entity) throws FalconException {
         return stringOf(entity, null);
     }
 
-    private static String stringOf(Entity entity, String[] filterProps) throws FalconException {
-        Map<String, String> map = new HashMap<String, String>();
-        mapToProperties(entity, null, map, filterProps);
-        List<String> keyList = new ArrayList<String>(map.keySet());
-        Collections.sort(keyList);
-        StringBuilder builer = new StringBuilder();
-        for (String key : keyList) {
-            builer.append(key).append('=').append(map.get(key)).append('\n');
-        }
-        return builer.toString();
-    }
-
-    @SuppressWarnings("rawtypes")
-    private static void mapToProperties(Object obj, String name, Map<String, String> propMap, String[] filterProps)
-        throws FalconException {
-
-        if (obj == null) {
-            return;
-        }
-
-        if (filterProps != null && name != null) {
-            for (String filter : filterProps) {
-                if (name.matches(filter.replace(".", "\\.").replace("[", "\\[").replace("]", "\\]"))) {
-                    return;
-                }
-            }
-        }
-
-        if (Date.class.isAssignableFrom(obj.getClass())) {
-            propMap.put(name, SchemaHelper.formatDateUTC((Date) obj));
-        } else if (obj.getClass().getPackage().getName().equals("java.lang")) {
-            propMap.put(name, String.valueOf(obj));
-        } else if (TimeZone.class.isAssignableFrom(obj.getClass())) {
-            propMap.put(name, ((TimeZone) obj).getID());
-        } else if (Enum.class.isAssignableFrom(obj.getClass())) {
-            propMap.put(name, ((Enum) obj).name());
-        } else if (List.class.isAssignableFrom(obj.getClass())) {
-            List list = (List) obj;
-            for (int index = 0; index < list.size(); index++) {
-                mapToProperties(list.get(index), name + "[" + index + "]", propMap, filterProps);
-            }
-        } else {
-            try {
-                Method method = obj.getClass().getDeclaredMethod("toString");
-                propMap.put(name, (String) method.invoke(obj));
-            } catch (NoSuchMethodException e) {
-                try {
-                    Map map = PropertyUtils.describe(obj);
-                    for (Object entry : map.entrySet()) {
-                        String key = (String)((Map.Entry)entry).getKey();
-                        if (!key.equals("class")) {
-                            mapToProperties(map.get(key), name != null ? name + "." + key : key, propMap,
-                                    filterProps);
-                        }
-                    }
-                } catch (Exception e1) {
-                    throw new FalconException(e1);
-                }
-            } catch (Exception e) {
-                throw new FalconException(e);
-            }
-        }
+    private static String stringOf(Entity entity, Pattern[] filters) throws FalconException {
+        EntityProperties.StringSink sink = new EntityProperties.StringSink();
+        EntityProperties.walk(entity, filters, sink);
+        return sink.toString();
     }
 
     public static WorkflowName getWorkflowName(Tag tag, List<String> suffixes,
@@ -46,6 +46,9 @@ import org.slf4j.LoggerFactory;
 
 import javax.jms.ConnectionFactory;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Parser that parses cluster entity definition.
@@ -54,10 +57,37 @@ public class ClusterEntityParser extends EntityParser<Cluster> {
 
     private static final Logger LOG = LoggerFactory.getLogger(ProcessEntityParser.class);
 
+    // interfaces found reachable while reuse is on, by the type and what the interface was reached with
+    private static final ThreadLocal<Set<String>> REACHABLE = new ThreadLocal<Set<String>>();
+
     public ClusterEntityParser() {
         super(EntityType.CLUSTER);
     }
 
+    /**
+     * Reuses the interfaces found reachable by the validations on this thread until {@link #endProbeReuse()}, for
+     * the clusters validated together to reach an interface they share once.
+     */
+    public static void startProbeReuse() {
+        REACHABLE.set(new HashSet<String>());
+    }
+
+    public static void endProbeReuse() {
+        REACHABLE.remove();
+    }
+
+    private static boolean isReachable(Interfacetype interfacetype, String... keys) {
+        Set<String> reachable = REACHABLE.get();
+        return reachable != null && reachable.contains(interfacetype + Arrays.toString(keys));
+    }
+
+    private static void setReachable(Interfacetype interfacetype, String... keys) {
+        Set<String> reachable = REACHABLE.get();
+        if (reachable != null) {
+            reachable.add(interfacetype + Arrays.toString(keys));
+        }
+    }
+
     @Override
     public void validate(Cluster cluster) throws StoreAccessException, ValidationException {
         // validating scheme in light of fail-early
@@ -98,33 +128,39 @@ public class ClusterEntityParser extends EntityParser<Cluster> {
         final String readOnlyStorageUrl = ClusterHelper.getReadOnlyStorageUrl(cluster);
         LOG.info("Validating read interface: {}", readOnlyStorageUrl);
 
-        validateFileSystem(cluster, readOnlyStorageUrl);
+        validateFileSystem(cluster, Interfacetype.READONLY, readOnlyStorageUrl);
     }
 
     private void validateWriteInterface(Cluster cluster) throws ValidationException {
         final String writeStorageUrl = ClusterHelper.getStorageUrl(cluster);
         LOG.info("Validating write interface: {}", writeStorageUrl);
 
-        validateFileSystem(cluster, writeStorageUrl);
+        validateFileSystem(cluster, Interfacetype.WRITE, writeStorageUrl);
     }
 
-    private void validateFileSystem(Cluster cluster, String storageUrl) throws ValidationException {
+    private void validateFileSystem(Cluster cluster, Interfacetype interfacetype, String storageUrl)
+        throws ValidationException {
         try {
             Configuration conf = new Configuration();
             conf.set(HadoopClientFactory.FS_DEFAULT_NAME_KEY, storageUrl);
             conf.setInt("ipc.client.connect.max.retries", 10);
 
+            String nameNodePrincipal = null;
             if (UserGroupInformation.isSecurityEnabled()) {
-                String nameNodePrincipal = ClusterHelper.getPropertyValue(cluster, SecurityUtil.NN_PRINCIPAL);
+                nameNodePrincipal = ClusterHelper.getPropertyValue(cluster, SecurityUtil.NN_PRINCIPAL);
                 Validate.notEmpty(nameNodePrincipal,
                     "Cluster definition missing required namenode credential property: " + SecurityUtil.NN_PRINCIPAL);
 
                 conf.set(SecurityUtil.NN_PRINCIPAL, nameNodePrincipal);
             }
+            if (isReachable(interfacetype, storageUrl, nameNodePrincipal)) {
+                return;
+            }
 
             // todo: ideally check if the end user has access using createProxiedFileSystem
             // hftp won't work and bug is logged at HADOOP-10215
             HadoopClientFactory.get().createFileSystem(conf);
+            setReachable(interfacetype, storageUrl, nameNodePrincipal);
         } catch (FalconException e) {
             throw new ValidationException("Invalid storage server or port: " + storageUrl, e);
         }
@@ -133,9 +169,13 @@ public class ClusterEntityParser extends EntityParser<Cluster> {
     private void validateExecuteInterface(Cluster cluster) throws ValidationException {
         String executeUrl = ClusterHelper.getMREndPoint(cluster);
         LOG.info("Validating execute interface: {}", executeUrl);
+        if (isReachable(Interfacetype.EXECUTE, executeUrl)) {
+            return;
+        }
 
         try {
             HadoopClientFactory.validateJobClient(executeUrl);
+            setReachable(Interfacetype.EXECUTE, executeUrl);
         } catch (IOException e) {
             throw new ValidationException("Invalid Execute server or port: " + executeUrl, e);
         }
@@ -144,11 +184,15 @@ public class ClusterEntityParser extends EntityParser<Cluster> {
     private void validateWorkflowInterface(Cluster cluster) throws ValidationException {
         final String workflowUrl = ClusterHelper.getOozieUrl(cluster);
         LOG.info("Validating workflow interface: {}", workflowUrl);
+        if (isReachable(Interfacetype.WORKFLOW, workflowUrl)) {
+            return;
+        }
 
         try {
             if (!WorkflowEngineFactory.getWorkflowEngine().isAlive(cluster)) {
                 throw new ValidationException("Unable to reach Workflow server:" + workflowUrl);
             }
+            setReachable(Interfacetype.WORKFLOW, workflowUrl);
         } catch (FalconException e) {
             throw new ValidationException("Invalid Workflow server or port: " + workflowUrl, e);
         }
@@ -159,6 +203,9 @@ public class ClusterEntityParser extends EntityParser<Cluster> {
         final String implementation = StartupProperties.get().getProperty(
                 "broker.impl.class", "org.apache.activemq.ActiveMQConnectionFactory");
         LOG.info("Validating messaging interface: {}, implementation: {}", messagingUrl, implementation);
+        if (isReachable(Interfacetype.MESSAGING, messagingUrl, implementation)) {
+            return;
+        }
 
         try {
             @SuppressWarnings("unchecked")
@@ -167,6 +214,7 @@ public class ClusterEntityParser extends EntityParser<Cluster> {
             ConnectionFactory connectionFactory = clazz.getConstructor(
                     String.class, String.class, String.class).newInstance("", "", messagingUrl);
             connectionFactory.createConnection();
+            setReachable(Interfacetype.MESSAGING, messagingUrl, implementation);
         } catch (Exception e) {
             throw new ValidationException("Invalid Messaging server or port: " + messagingUrl
                     + " for: " + implementation, e);
@@ -198,9 +246,13 @@ public class ClusterEntityParser extends EntityParser<Cluster> {
                                 + SecurityUtil.HIVE_METASTORE_PRINCIPAL);
             }
 
+            if (isReachable(Interfacetype.REGISTRY, catalogUrl, metaStorePrincipal)) {
+                return;
+            }
             if (!CatalogServiceFactory.getCatalogService().isAlive(catalogUrl, metaStorePrincipal)) {
                 throw new ValidationException("Unable to reach Catalog server:" + catalogUrl);
             }
+            setReachable(Interfacetype.REGISTRY, catalogUrl, metaStorePrincipal);
         } catch (FalconException e) {
             throw new ValidationException("Invalid Catalog server or port: " + catalogUrl, e);
         }
@@ -85,7 +85,7 @@ public abstract class EntityParser<T extends Entity> {
     public T parse(InputStream xmlStream) throws FalconException {
         try {
             // parse against schema
-            Unmarshaller unmarshaller = entityType.getUnmarshaller();
+            Unmarshaller unmarshaller = entityType.getThreadLocalUnmarshaller();
             T entity = (T) unmarshaller.unmarshal(xmlStream);
             LOG.info("Parsed Entity: {}", entity.getName());
             return entity;
@@ -26,7 +26,6 @@ import org.apache.falcon.service.ConfigurationChangeListener;
 import org.apache.falcon.service.FalconService;
 import org.apache.falcon.util.ReflectionUtils;
 import org.apache.falcon.util.StartupProperties;
-import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsAction;
@@ -34,19 +33,26 @@ import org.apache.hadoop.fs.permission.FsPermission;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.xml.bind.JAXBException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.URLDecoder;
-import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Persistent store for falcon entities.
@@ -55,14 +61,17 @@ public final class ConfigurationStore implements FalconService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ConfigurationStore.class);
     private static final Logger AUDIT = LoggerFactory.getLogger("AUDIT");
-    private static final String UTF_8 = "UTF-8";
 
     private static final ConfigurationStore STORE = new ConfigurationStore();
 
-    private Set<ConfigurationChangeListener> listeners = new LinkedHashSet<ConfigurationChangeListener>();
+    private Set<ConfigurationChangeListener> listeners = new CopyOnWriteArraySet<ConfigurationChangeListener>();
 
     private ThreadLocal<Entity> updatesInProgress = new ThreadLocal<Entity>();
 
+    // lazy restores by type and name, for the threads that need an entity while it is restored
+    private final ConcurrentHashMap<String, FutureTask<Entity>> restoresInProgress
+        = new ConcurrentHashMap<String, FutureTask<Entity>>();
+
     public static ConfigurationStore get() {
         return STORE;
     }
@@ -72,6 +81,13 @@ public final class ConfigurationStore implements FalconService {
 
     private final FileSystem fs;
     private final Path storePath;
+    private final StorePersistence persistence;
+
+    /**
+     * Striped locks guarding changes to an entity, listeners are notified for an entity in
+     * the order of its changes while changes to unrelated entities proceed concurrently.
+     */
+    private final Lock[] locks;
 
     private static final Entity NULL = new Entity() {
         @Override
@@ -80,14 +96,28 @@ public final class ConfigurationStore implements FalconService {
         }
     };
 
+    private static final String LAZY_RESTORE = "lazy";
+
+    /**
+     * Order in which the entities are restored on startup, dependencies before dependents.
+     */
+    private static final EntityType[] RESTORE_ORDER = {EntityType.CLUSTER, EntityType.FEED, EntityType.PROCESS};
+
     private ConfigurationStore() {
         for (EntityType type : EntityType.values()) {
             dictionary.put(type, new ConcurrentHashMap<String, Entity>());
         }
 
+        int stripes = Integer.parseInt(StartupProperties.get().getProperty("config.store.lock.stripes", "64"));
+        locks = new Lock[Math.max(1, stripes)];
+        for (int index = 0; index < locks.length; index++) {
+            locks[index] = new ReentrantLock();
+        }
+
         String uri = StartupProperties.get().getProperty("config.store.uri");
         storePath = new Path(uri);
         fs = initializeFileSystem();
+        persistence = initializePersistence();
     }
 
     /**
@@ -112,6 +142,18 @@ public final class ConfigurationStore implements FalconService {
         }
     }
 
+    private StorePersistence initializePersistence() {
+        try {
+            StorePersistence storePersistence = ReflectionUtils.getInstanceByClassName(
+                    StartupProperties.get().getProperty("config.store.persistence.impl",
+                            XmlFileStorePersistence.class.getName()));
+            storePersistence.init(fs, storePath);
+            return storePersistence;
+        } catch (FalconException e) {
+            throw new RuntimeException("Unable to bring up config store for path: " + storePath, e);
+        }
+    }
+
     @Override
     public void init() throws FalconException {
         String listenerClassNames = StartupProperties.get().
@@ -125,27 +167,131 @@ public final class ConfigurationStore implements FalconService {
             registerListener(listener);
         }
 
-        try {
-            for (EntityType type : EntityType.values()) {
-                ConcurrentHashMap<String, Entity> entityMap = dictionary.get(type);
-                FileStatus[] files = fs.globStatus(new Path(storePath, type.name() + Path.SEPARATOR + "*"));
-                if (files != null) {
-                    for (FileStatus file : files) {
-                        String fileName = file.getPath().getName();
-                        String encodedEntityName = fileName.substring(0, fileName.length() - 4); // drop
-                        // ".xml"
-                        String entityName = URLDecoder.decode(encodedEntityName, UTF_8);
-                        Entity entity = restore(type, entityName);
-                        entityMap.put(entityName, entity);
-                        onReload(entity);
-                    }
+        boolean lazy = LAZY_RESTORE.equalsIgnoreCase(
+                StartupProperties.get().getProperty("config.store.restore.mode", "eager"));
+        if (lazy) {
+            loadPlaceholders();
+            startWarmUp();
+        } else {
+            ExecutorService executor = createRestoreExecutor();
+            try {
+                for (EntityType type : RESTORE_ORDER) {
+                    restoreAll(type, executor);
                 }
+            } finally {
+                executor.shutdownNow();
             }
+        }
+    }
+
+    private ExecutorService createRestoreExecutor() {
+        int threads = Integer.parseInt(StartupProperties.get().getProperty("config.store.restore.threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        return Executors.newFixedThreadPool(Math.max(1, threads), new RestoreThreadFactory());
+    }
+
+    private List<String> listEntityNames(EntityType type) throws FalconException {
+        try {
+            return persistence.list(type);
         } catch (IOException e) {
             throw new FalconException("Unable to restore configurations", e);
         }
     }
 
+    /**
+     * Un-marshalls all the entities of the given type in parallel and then adds them to the
+     * dictionary in the listing order, notifying the listeners from the calling thread.
+     */
+    private void restoreAll(final EntityType type, ExecutorService executor) throws FalconException {
+        List<String> names = listEntityNames(type);
+        List<Future<Entity>> futures = new ArrayList<Future<Entity>>(names.size());
+        for (final String name : names) {
+            futures.add(executor.submit(new Callable<Entity>() {
+                @Override
+                public Entity call() throws Exception {
+                    return restore(type, name);
+                }
+            }));
+        }
+
+        ConcurrentHashMap<String, Entity> entityMap = dictionary.get(type);
+        for (int index = 0; index < names.size(); index++) {
+            Entity entity = waitForRestore(futures.get(index));
+            entityMap.put(names.get(index), entity);
+            onReload(entity);
+        }
+        LOG.info("Restored {} configurations of type {}", names.size(), type);
+    }
+
+    private Entity waitForRestore(Future<Entity> future) throws FalconException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FalconException("Interrupted while restoring configurations", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FalconException) {
+                throw (FalconException) e.getCause();
+            }
+            throw new FalconException("Unable to restore configurations", e.getCause());
+        }
+    }
+
+    /**
+     * Fills the dictionary with placeholders, entities are un-marshalled on first access.
+     */
+    private void loadPlaceholders() throws FalconException {
+        for (EntityType type : RESTORE_ORDER) {
+            ConcurrentHashMap<String, Entity> entityMap = dictionary.get(type);
+            for (String name : listEntityNames(type)) {
+                entityMap.putIfAbsent(name, NULL);
+            }
+        }
+    }
+
+    /**
+     * Materializes the placeholders in the background so listeners eventually see every entity.
+     */
+    private void startWarmUp() {
+        Thread warmUp = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ExecutorService executor = createRestoreExecutor();
+                try {
+                    for (EntityType type : RESTORE_ORDER) {
+                        materializeAll(type, executor);
+                    }
+                    LOG.info("Lazy restore of configuration store completed");
+                } catch (InterruptedException e) {
+                    LOG.warn("Lazy restore of configuration store interrupted");
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+        }, "config-store-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    private void materializeAll(final EntityType type, ExecutorService executor) throws InterruptedException {
+        List<Future<Entity>> futures = new ArrayList<Future<Entity>>();
+        for (final String name : getEntities(type)) {
+            futures.add(executor.submit(new Callable<Entity>() {
+                @Override
+                public Entity call() throws Exception {
+                    return get(type, name);
+                }
+            }));
+        }
+        for (Future<Entity> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                LOG.error("Unable to restore configuration of type {}", type, e.getCause());
+            }
+        }
+    }
+
     public void registerListener(ConfigurationChangeListener listener) {
         listeners.add(listener);
     }
@@ -159,10 +305,13 @@ public final class ConfigurationStore implements FalconService {
      * @param entity - Reference to the Entity Object
      * @throws FalconException
      */
-    public synchronized void publish(EntityType type, Entity entity) throws FalconException {
+    public void publish(EntityType type, Entity entity) throws FalconException {
+        Lock lock = getLock(type, entity.getName());
+        lock.lock();
         try {
+            awaitRestore(type, entity.getName());
             if (get(type, entity.getName()) == null) {
-                persist(type, entity);
+                persistence.persist(type, entity);
                 onAdd(entity);
                 dictionary.get(type).put(entity.getName(), entity);
             } else {
@@ -172,14 +321,19 @@ public final class ConfigurationStore implements FalconService {
             }
         } catch (IOException e) {
             throw new StoreAccessException(e);
+        } finally {
+            lock.unlock();
         }
         AUDIT.info(type + "/" + entity.getName() + " is published into config store");
     }
 
-    private synchronized void updateInternal(EntityType type, Entity entity) throws FalconException {
+    private void updateInternal(EntityType type, Entity entity) throws FalconException {
+        Lock lock = getLock(type, entity.getName());
+        lock.lock();
         try {
+            awaitRestore(type, entity.getName());
             if (get(type, entity.getName()) != null) {
-                persist(type, entity);
+                persistence.persist(type, entity);
                 ConcurrentHashMap<String, Entity> entityMap = dictionary.get(type);
                 Entity oldEntity = entityMap.get(entity.getName());
                 onChange(oldEntity, entity);
@@ -189,11 +343,13 @@ public final class ConfigurationStore implements FalconService {
             }
         } catch (IOException e) {
             throw new StoreAccessException(e);
+        } finally {
+            lock.unlock();
         }
         AUDIT.info(type + "/" + entity.getName() + " is replaced into config store");
     }
 
-    public synchronized void update(EntityType type, Entity entity) throws FalconException {
+    public void update(EntityType type, Entity entity) throws FalconException {
         if (updatesInProgress.get() == entity) {
             updateInternal(type, entity);
         } else {
@@ -219,7 +375,7 @@ public final class ConfigurationStore implements FalconService {
         }
     }
 
-    public synchronized void initiateUpdate(Entity entity) throws FalconException {
+    public void initiateUpdate(Entity entity) throws FalconException {
         if (get(entity.getEntityType(), entity.getName()) == null || updatesInProgress.get() != null) {
             throw new FalconException(
                     "An update for " + entity.toShortString() + " is already in progress or doesn't exist");
@@ -247,13 +403,7 @@ public final class ConfigurationStore implements FalconService {
             }
             T entity = (T) entityMap.get(name);
             if (entity == NULL) { // Object equality being checked
-                try {
-                    entity = this.restore(type, name);
-                } catch (IOException e) {
-                    throw new StoreAccessException(e);
-                }
-                entityMap.put(name, entity);
-                return entity;
+                return this.<T>materialize(type, name);
             } else {
                 return entity;
             }
@@ -262,6 +412,70 @@ public final class ConfigurationStore implements FalconService {
         }
     }
 
+    /**
+     * Replaces the placeholder for a lazily restored entity. Only the thread that swaps the placeholder
+     * notifies the listeners, holding no lock. Changes to the entity wait for that in {@link #awaitRestore}
+     * so that listeners see the reload first.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Entity> T materialize(final EntityType type, final String name) throws FalconException {
+        final String key = type + "/" + name;
+        FutureTask<Entity> restore = new FutureTask<Entity>(new Callable<Entity>() {
+            @Override
+            public Entity call() throws Exception {
+                try {
+                    ConcurrentHashMap<String, Entity> entityMap = dictionary.get(type);
+                    if (entityMap.get(name) == NULL) {
+                        Entity entity = restore(type, name);
+                        if (entityMap.replace(name, NULL, entity)) {
+                            onReload(entity);
+                        }
+                    }
+                    return null;
+                } finally {
+                    restoresInProgress.remove(key);
+                }
+            }
+        });
+        FutureTask<Entity> inProgress = restoresInProgress.putIfAbsent(key, restore);
+        if (inProgress == null) {
+            restore.run();
+        } else {
+            restore = inProgress;
+        }
+        waitForRestore(key, restore);
+        // updated or removed by someone else meanwhile
+        return (T) dictionary.get(type).get(name);
+    }
+
+    /**
+     * Waits for the listeners to be notified of a lazy restore of the entity in progress.
+     */
+    private void awaitRestore(EntityType type, String name) throws FalconException {
+        String key = type + "/" + name;
+        FutureTask<Entity> restore = restoresInProgress.get(key);
+        if (restore != null) {
+            waitForRestore(key, restore);
+        }
+    }
+
+    private void waitForRestore(String key, FutureTask<Entity> restore) throws FalconException {
+        try {
+            restore.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FalconException("Interrupted while restoring " + key, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FalconException) {
+                throw (FalconException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw new StoreAccessException((IOException) e.getCause());
+            }
+            throw new FalconException("Unable to restore " + key, e.getCause());
+        }
+    }
+
     public Collection<String> getEntities(EntityType type) {
         return Collections.unmodifiableCollection(dictionary.get(type).keySet());
     }
@@ -275,21 +489,34 @@ public final class ConfigurationStore implements FalconService {
      *         exist
      * @throws FalconException
      */
-    public synchronized boolean remove(EntityType type, String name) throws FalconException {
+    public boolean remove(EntityType type, String name) throws FalconException {
         Map<String, Entity> entityMap = dictionary.get(type);
-        if (entityMap.containsKey(name)) {
-            try {
-                archive(type, name);
-                Entity entity = entityMap.get(name);
-                onRemove(entity);
-                entityMap.remove(name);
-            } catch (IOException e) {
-                throw new StoreAccessException(e);
+        Lock lock = getLock(type, name);
+        lock.lock();
+        try {
+            if (!entityMap.containsKey(name)) {
+                return false;
+            }
+            awaitRestore(type, name);
+            Entity entity = entityMap.get(name);
+            if (entity == NULL) {
+                entity = materialize(type, name);
             }
-            AUDIT.info(type + " " + name + " is removed from config store");
-            return true;
+            persistence.archive(type, name);
+            onRemove(entity);
+            entityMap.remove(name);
+        } catch (IOException e) {
+            throw new StoreAccessException(e);
+        } finally {
+            lock.unlock();
         }
-        return false;
+        AUDIT.info(type + " " + name + " is removed from config store");
+        return true;
+    }
+
+    private Lock getLock(EntityType type, String name) {
+        int hash = 31 * type.ordinal() + name.hashCode();
+        return locks[(hash & Integer.MAX_VALUE) % locks.length];
     }
 
     private void onRemove(Entity entity) throws FalconException {
@@ -298,65 +525,9 @@ public final class ConfigurationStore implements FalconService {
         }
     }
 
-    /**
-     * @param type   - Entity type that is to be stored into persistent storage
-     * @param entity - entity to persist. JAXB Annotated entity will be marshalled
-     *               to the persistent store. The convention used for storing the
-     *               object:: PROP(config.store.uri)/{entitytype}/{entityname}.xml
-     * @throws java.io.IOException If any error in accessing the storage
-     * @throws FalconException
-     */
-    private void persist(EntityType type, Entity entity) throws IOException, FalconException {
-        OutputStream out = fs
-                .create(new Path(storePath,
-                        type + Path.SEPARATOR + URLEncoder.encode(entity.getName(), UTF_8) + ".xml"));
-        try {
-            type.getMarshaller().marshal(entity, out);
-            LOG.info("Persisted configuration {}/{}", type, entity.getName());
-        } catch (JAXBException e) {
-            LOG.error("Unable to serialize the entity object {}/{}", type, entity.getName(), e);
-            throw new StoreAccessException("Unable to serialize the entity object " + type + "/" + entity.getName(), e);
-        } finally {
-            out.close();
-        }
-    }
-
-    /**
-     * Archive removed configuration in the persistent store.
-     *
-     * @param type - Entity type to archive
-     * @param name - name
-     * @throws IOException If any error in accessing the storage
-     */
-    private void archive(EntityType type, String name) throws IOException {
-        Path archivePath = new Path(storePath, "archive" + Path.SEPARATOR + type);
-        fs.mkdirs(archivePath);
-        fs.rename(new Path(storePath, type + Path.SEPARATOR + URLEncoder.encode(name, UTF_8) + ".xml"),
-                new Path(archivePath, URLEncoder.encode(name, UTF_8) + "." + System.currentTimeMillis()));
-        LOG.info("Archived configuration {}/{}", type, name);
-    }
-
-    /**
-     * @param type - Entity type to restore from persistent store
-     * @param name - Name of the entity to restore.
-     * @param <T>  - Actual entity object type
-     * @return - De-serialized entity object restored from persistent store
-     * @throws IOException     If any error in accessing the storage
-     * @throws FalconException
-     */
     @SuppressWarnings("unchecked")
-    private synchronized <T extends Entity> T restore(EntityType type, String name)
-        throws IOException, FalconException {
-
-        InputStream in = fs.open(new Path(storePath, type + Path.SEPARATOR + URLEncoder.encode(name, UTF_8) + ".xml"));
-        try {
-            return (T) type.getUnmarshaller().unmarshal(in);
-        } catch (JAXBException e) {
-            throw new StoreAccessException("Unable to un-marshall xml definition for " + type + "/" + name, e);
-        } finally {
-            in.close();
-            LOG.info("Restored configuration {}/{}", type, name);
-        }
+    private <T extends Entity> T restore(EntityType type, String name) throws IOException, FalconException {
+        return (T) persistence.restore(type, name);
     }
 
     public void cleanupUpdateInit() {
@@ -369,6 +540,25 @@ public final class ConfigurationStore implements FalconService {
     }
 
     @Override
-    public void destroy() {
+    public void destroy() throws FalconException {
+        try {
+            persistence.close();
+        } catch (IOException e) {
+            throw new StoreAccessException(e);
+        }
+    }
+
+    /**
+     * Daemon threads used to restore the entities from the persistent store.
+     */
+    private static final class RestoreThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "config-store-restore-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
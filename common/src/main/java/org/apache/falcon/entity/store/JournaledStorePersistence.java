@@ -0,0 +1,433 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity.store;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.falcon.FalconException;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.entity.v0.EntityType;
+import org.apache.falcon.util.StartupProperties;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stores all the entities in one binary snapshot and records every change in an
+ * append-only journal. On startup the snapshot is loaded and the journals are replayed;
+ * they are compacted into a new snapshot once they hold
+ * PROP(config.store.journal.compaction.threshold) records. Concurrent changes are group
+ * committed: a writer syncs the journal outside the monitor, covering every record
+ * appended before it, so the writers waiting behind it usually find their records synced.
+ *
+ * Layout:: PROP(config.store.uri)/snapshot and PROP(config.store.uri)/journal.{generation}
+ * An existing xml per file store is imported on first start, see {@link XmlFileStorePersistence}.
+ */
+public class JournaledStorePersistence implements StorePersistence {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JournaledStorePersistence.class);
+
+    private static final String SNAPSHOT = "snapshot";
+    private static final String SNAPSHOT_TMP = "snapshot.tmp";
+    private static final String JOURNAL = "journal.";
+
+    private static final int MAGIC = 0x46414c43; // FALC
+    private static final int VERSION = 1;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    // deflated xml definitions
+    private final Map<EntityType, ConcurrentHashMap<String, byte[]>> entries
+        = new HashMap<EntityType, ConcurrentHashMap<String, byte[]>>();
+
+    // held while syncing, taken before the monitor by anything that closes the journal
+    private final Object syncLock = new Object();
+
+    private FileSystem fs;
+    private Path storePath;
+    private int compactionThreshold;
+
+    private long generation;
+    private FSDataOutputStream journal;
+    private int journalRecords;
+    private long appended;
+    private long synced; // guarded by syncLock
+
+    public JournaledStorePersistence() {
+        for (EntityType type : EntityType.values()) {
+            entries.put(type, new ConcurrentHashMap<String, byte[]>());
+        }
+    }
+
+    @Override
+    public synchronized void init(FileSystem fileSystem, Path path) throws FalconException {
+        this.fs = fileSystem;
+        this.storePath = path;
+        compactionThreshold = Integer.parseInt(StartupProperties.get().getProperty(
+                "config.store.journal.compaction.threshold", "1000"));
+
+        try {
+            Path snapshot = new Path(storePath, SNAPSHOT);
+            Path snapshotTmp = new Path(storePath, SNAPSHOT_TMP);
+            boolean snapshotExists = fs.exists(snapshot);
+            if (snapshotExists) {
+                loadSnapshot(snapshot);
+            } else if (fs.exists(snapshotTmp)) { // failed between delete and rename during compaction
+                loadSnapshot(snapshotTmp);
+            } else {
+                importXml(storePath);
+            }
+
+            long journalGeneration = generation;
+            int lastRecords = -1;
+            while (fs.exists(getJournalPath(journalGeneration))) {
+                lastRecords = replayJournal(getJournalPath(journalGeneration));
+                journalRecords += lastRecords;
+                journalGeneration++;
+            }
+
+            if (!snapshotExists || journalRecords >= compactionThreshold) {
+                compact();
+            } else {
+                // an empty journal is overwritten, so restarts don't pile up journals
+                openJournal(lastRecords == 0 ? journalGeneration - 1 : journalGeneration);
+            }
+        } catch (IOException e) {
+            throw new StoreAccessException("Unable to load configuration snapshot from " + storePath, e);
+        }
+    }
+
+    @Override
+    public List<String> list(EntityType type) {
+        return new ArrayList<String>(entries.get(type).keySet());
+    }
+
+    @Override
+    public void persist(EntityType type, Entity entity) throws IOException, FalconException {
+        byte[] definition = serialize(type, entity);
+        long sequence;
+        synchronized (this) {
+            sequence = appendRecord(PUT, type, entity.getName(), definition);
+            entries.get(type).put(entity.getName(), definition);
+        }
+        sync(sequence);
+        LOG.info("Persisted configuration {}/{}", type, entity.getName());
+        compactIfNeeded();
+    }
+
+    @Override
+    public void archive(EntityType type, String name) throws IOException {
+        byte[] definition;
+        long sequence;
+        synchronized (this) {
+            definition = entries.get(type).get(name);
+            if (definition == null) {
+                return;
+            }
+
+            sequence = appendRecord(REMOVE, type, name, null);
+            entries.get(type).remove(name);
+        }
+        sync(sequence);
+        writeXml(XmlFileStorePersistence.getArchivePath(storePath, type, name), definition);
+        LOG.info("Archived configuration {}/{}", type, name);
+        compactIfNeeded();
+    }
+
+    @Override
+    public Entity restore(EntityType type, String name) throws FalconException {
+        byte[] definition = entries.get(type).get(name);
+        if (definition == null) {
+            throw new StoreAccessException(type + "/" + name + " is not in the configuration snapshot");
+        }
+
+        try {
+            return (Entity) type.getThreadLocalUnmarshaller().unmarshal(
+                    new InflaterInputStream(new ByteArrayInputStream(definition)));
+        } catch (JAXBException e) {
+            throw new StoreAccessException("Unable to un-marshall xml definition for " + type + "/" + name, e);
+        } finally {
+            LOG.debug("Restored configuration {}/{}", type, name);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                closeJournal();
+            }
+        }
+    }
+
+    private int importXml(Path importPath) throws IOException {
+        int count = 0;
+        for (EntityType type : EntityType.values()) {
+            for (String name : XmlFileStorePersistence.list(fs, importPath, type)) {
+                InputStream in = fs.open(XmlFileStorePersistence.getEntityPath(importPath, type, name));
+                try {
+                    entries.get(type).put(name, deflate(IOUtils.toByteArray(in)));
+                } finally {
+                    in.close();
+                }
+                count++;
+            }
+        }
+        if (count > 0) {
+            LOG.info("Imported {} configurations from {}", count, importPath);
+        }
+        return count;
+    }
+
+    /**
+     * Writes a new snapshot of all the entities and rolls over to an empty journal.
+     * Callers hold the monitor and, unless no journal is open yet, the sync lock.
+     *
+     * @throws IOException If any error in accessing the storage
+     */
+    private void compact() throws IOException {
+        closeJournal();
+        long nextGeneration = generation + 1;
+
+        Path snapshotTmp = new Path(storePath, SNAPSHOT_TMP);
+        DataOutputStream out = new DataOutputStream(fs.create(snapshotTmp, true));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(nextGeneration);
+            for (EntityType type : EntityType.values()) {
+                Map<String, byte[]> definitions = entries.get(type);
+                out.writeUTF(type.name());
+                out.writeInt(definitions.size());
+                for (Map.Entry<String, byte[]> entry : definitions.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    writeBytes(out, entry.getValue());
+                }
+            }
+        } finally {
+            out.close();
+        }
+
+        Path snapshot = new Path(storePath, SNAPSHOT);
+        fs.delete(snapshot, false);
+        if (!fs.rename(snapshotTmp, snapshot)) {
+            throw new IOException("Unable to rename " + snapshotTmp + " to " + snapshot);
+        }
+        FileStatus[] journals = fs.globStatus(new Path(storePath, JOURNAL + "*"));
+        if (journals != null) {
+            for (FileStatus journalStatus : journals) {
+                String name = journalStatus.getPath().getName();
+                if (Long.parseLong(name.substring(JOURNAL.length())) < nextGeneration) {
+                    fs.delete(journalStatus.getPath(), false);
+                }
+            }
+        }
+
+        openJournal(nextGeneration);
+        journalRecords = 0;
+        LOG.info("Compacted configuration store into snapshot generation {}", generation);
+    }
+
+    private void compactIfNeeded() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (journalRecords >= compactionThreshold) {
+                    compact();
+                }
+            }
+        }
+    }
+
+    private void openJournal(long journalGeneration) throws IOException {
+        generation = journalGeneration;
+        journal = fs.create(getJournalPath(generation), true);
+        journal.writeInt(MAGIC);
+        journal.writeInt(VERSION);
+        journal.writeLong(generation);
+        journal.sync();
+    }
+
+    // callers hold the sync lock and the monitor, closing makes the appended records durable
+    private void closeJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        synced = appended;
+    }
+
+    private Path getJournalPath(long journalGeneration) {
+        return new Path(storePath, JOURNAL + journalGeneration);
+    }
+
+    private void loadSnapshot(Path snapshot) throws IOException {
+        DataInputStream in = new DataInputStream(fs.open(snapshot));
+        try {
+            generation = readHeader(in, snapshot);
+            for (int index = 0; index < EntityType.values().length; index++) {
+                Map<String, byte[]> definitions = entries.get(EntityType.valueOf(in.readUTF()));
+                int count = in.readInt();
+                for (int entry = 0; entry < count; entry++) {
+                    String name = in.readUTF();
+                    definitions.put(name, readBytes(in));
+                }
+            }
+        } finally {
+            in.close();
+        }
+        LOG.info("Loaded configuration snapshot generation {} from {}", generation, snapshot);
+    }
+
+    private int replayJournal(Path journalPath) throws IOException {
+        int records = 0;
+        DataInputStream in = new DataInputStream(fs.open(journalPath));
+        try {
+            readHeader(in, journalPath);
+            while (true) {
+                byte operation;
+                try {
+                    operation = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    EntityType type = EntityType.valueOf(in.readUTF());
+                    String name = in.readUTF();
+                    if (operation == PUT) {
+                        entries.get(type).put(name, readBytes(in));
+                    } else {
+                        entries.get(type).remove(name);
+                    }
+                    records++;
+                } catch (EOFException e) {
+                    LOG.warn("Ignoring truncated record at the end of journal {}", journalPath);
+                    break;
+                }
+            }
+        } finally {
+            in.close();
+        }
+        LOG.info("Replayed {} records from journal {}", records, journalPath);
+        return records;
+    }
+
+    private long readHeader(DataInputStream in, Path path) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException(path + " is not a configuration store snapshot or journal");
+        }
+        return in.readLong();
+    }
+
+    // callers hold the monitor, returns the sequence of the record to sync
+    private long appendRecord(byte operation, EntityType type, String name, byte[] definition)
+        throws IOException {
+        if (journal == null) { // closed, roll over to a new generation instead of overwriting the journal
+            openJournal(generation + 1);
+        }
+
+        journal.writeByte(operation);
+        journal.writeUTF(type.name());
+        journal.writeUTF(name);
+        if (definition != null) {
+            writeBytes(journal, definition);
+        }
+        journalRecords++;
+        return ++appended;
+    }
+
+    private void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= sequence) { // synced along with the batch of an earlier writer
+                return;
+            }
+
+            FSDataOutputStream out;
+            long batch;
+            synchronized (this) {
+                out = journal;
+                batch = appended;
+            }
+            out.sync();
+            synced = batch;
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private void writeXml(Path path, byte[] definition) throws IOException {
+        OutputStream out = fs.create(path);
+        try {
+            IOUtils.copy(new InflaterInputStream(new ByteArrayInputStream(definition)), out);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static byte[] serialize(EntityType type, Entity entity) throws FalconException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DeflaterOutputStream out = new DeflaterOutputStream(bytes);
+        try {
+            type.getThreadLocalMarshaller().marshal(entity, out);
+            out.close();
+        } catch (JAXBException e) {
+            LOG.error("Unable to serialize the entity object {}/{}", type, entity.getName(), e);
+            throw new StoreAccessException("Unable to serialize the entity object " + type + "/" + entity.getName(), e);
+        } catch (IOException e) {
+            throw new StoreAccessException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] xml) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DeflaterOutputStream out = new DeflaterOutputStream(bytes);
+        out.write(xml);
+        out.close();
+        return bytes.toByteArray();
+    }
+}
@@ -32,6 +32,10 @@ public class StoreAccessException extends FalconException {
         super(message, e);
     }
 
+    public StoreAccessException(String message) {
+        super(message);
+    }
+
     public StoreAccessException(Exception e) {
         super(e);
     }
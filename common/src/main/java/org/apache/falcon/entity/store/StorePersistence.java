@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity.store;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.entity.v0.EntityType;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Persistent storage backing the configuration store.
+ */
+public interface StorePersistence {
+
+    /**
+     * @param fs        - FileSystem hosting the configuration store
+     * @param storePath - PROP(config.store.uri)
+     * @throws FalconException
+     */
+    void init(FileSystem fs, Path storePath) throws FalconException;
+
+    /**
+     * @param type - Entity type
+     * @return - Names of all the persisted entities of the given type
+     * @throws IOException If any error in accessing the storage
+     */
+    List<String> list(EntityType type) throws IOException;
+
+    /**
+     * @param type   - Entity type that is to be stored into persistent storage
+     * @param entity - entity to persist, replaces any earlier definition with the same name
+     * @throws IOException If any error in accessing the storage
+     * @throws FalconException
+     */
+    void persist(EntityType type, Entity entity) throws IOException, FalconException;
+
+    /**
+     * Archive removed configuration in the persistent store.
+     *
+     * @param type - Entity type to archive
+     * @param name - name
+     * @throws IOException If any error in accessing the storage
+     */
+    void archive(EntityType type, String name) throws IOException;
+
+    /**
+     * @param type - Entity type to restore from persistent store
+     * @param name - Name of the entity to restore.
+     * @return - De-serialized entity object restored from persistent store
+     * @throws IOException     If any error in accessing the storage
+     * @throws FalconException
+     */
+    Entity restore(EntityType type, String name) throws IOException, FalconException;
+
+    void close() throws IOException;
+}
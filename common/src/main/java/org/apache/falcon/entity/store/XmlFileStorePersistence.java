@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity.store;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.entity.v0.EntityType;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.bind.JAXBException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores every entity as an xml file. The convention used for storing the
+ * object:: PROP(config.store.uri)/{entitytype}/{entityname}.xml
+ * This layout is also the export and import format of the other persistence backends.
+ */
+public class XmlFileStorePersistence implements StorePersistence {
+
+    private static final Logger LOG = LoggerFactory.getLogger(XmlFileStorePersistence.class);
+    private static final String UTF_8 = "UTF-8";
+
+    private FileSystem fs;
+    private Path storePath;
+
+    @Override
+    public void init(FileSystem fileSystem, Path path) {
+        this.fs = fileSystem;
+        this.storePath = path;
+    }
+
+    @Override
+    public List<String> list(EntityType type) throws IOException {
+        return list(fs, storePath, type);
+    }
+
+    static List<String> list(FileSystem fs, Path storePath, EntityType type) throws IOException {
+        List<String> names = new ArrayList<String>();
+        FileStatus[] files = fs.globStatus(new Path(storePath, type.name() + Path.SEPARATOR + "*"));
+        if (files != null) {
+            for (FileStatus file : files) {
+                String fileName = file.getPath().getName();
+                String encodedEntityName = fileName.substring(0, fileName.length() - 4); // drop
+                // ".xml"
+                names.add(URLDecoder.decode(encodedEntityName, UTF_8));
+            }
+        }
+        return names;
+    }
+
+    static Path getEntityPath(Path storePath, EntityType type, String name) throws IOException {
+        return new Path(storePath, type + Path.SEPARATOR + URLEncoder.encode(name, UTF_8) + ".xml");
+    }
+
+    static Path getArchivePath(Path storePath, EntityType type, String name) throws IOException {
+        return new Path(storePath, "archive" + Path.SEPARATOR + type + Path.SEPARATOR
+                + URLEncoder.encode(name, UTF_8) + "." + System.currentTimeMillis());
+    }
+
+    @Override
+    public void persist(EntityType type, Entity entity) throws IOException, FalconException {
+        OutputStream out = fs.create(getEntityPath(storePath, type, entity.getName()));
+        try {
+            type.getThreadLocalMarshaller().marshal(entity, out);
+            LOG.info("Persisted configuration {}/{}", type, entity.getName());
+        } catch (JAXBException e) {
+            LOG.error("Unable to serialize the entity object {}/{}", type, entity.getName(), e);
+            throw new StoreAccessException("Unable to serialize the entity object " + type + "/" + entity.getName(), e);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    public void archive(EntityType type, String name) throws IOException {
+        Path archivePath = new Path(storePath, "archive" + Path.SEPARATOR + type);
+        fs.mkdirs(archivePath);
+        fs.rename(getEntityPath(storePath, type, name), getArchivePath(storePath, type, name));
+        LOG.info("Archived configuration {}/{}", type, name);
+    }
+
+    @Override
+    public Entity restore(EntityType type, String name) throws IOException, FalconException {
+        InputStream in = fs.open(getEntityPath(storePath, type, name));
+        try {
+            return (Entity) type.getThreadLocalUnmarshaller().unmarshal(in);
+        } catch (JAXBException e) {
+            throw new StoreAccessException("Unable to un-marshall xml definition for " + type + "/" + name, e);
+        } finally {
+            in.close();
+            LOG.info("Restored configuration {}/{}", type, name);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
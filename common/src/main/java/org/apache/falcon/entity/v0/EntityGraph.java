@@ -29,14 +29,24 @@ import org.apache.falcon.service.ConfigurationChangeListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * An in-memory graph of entities and relationship among themselves.
+ * Every node is interned and keeps its adjacent nodes by the kind of edge. A feed has an {@link EdgeKind#INPUT}
+ * edge to every process reading it, a process has an {@link EdgeKind#OUTPUT} edge to every feed it writes, and
+ * feeds and processes have a {@link EdgeKind#CLUSTER} edge to each of their clusters. The edges of an entity only
+ * come from its own definition, so a change applies the difference between the old and new edges of the entity.
  */
 public final class EntityGraph implements ConfigurationChangeListener {
 
@@ -44,7 +54,15 @@ public final class EntityGraph implements ConfigurationChangeListener {
 
     private static EntityGraph instance = new EntityGraph();
 
-    private Map<Node, Set<Node>> graph = new ConcurrentHashMap<Node, Set<Node>>();
+    /**
+     * Kind of relationship an edge stands for.
+     */
+    public enum EdgeKind {
+        INPUT, OUTPUT, CLUSTER
+    }
+
+    private final Map<Node, Node> nodes = new HashMap<Node, Node>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     private EntityGraph() {
     }
@@ -54,78 +72,138 @@ public final class EntityGraph implements ConfigurationChangeListener {
     }
 
     public Set<Entity> getDependents(Entity entity) throws FalconException {
-        Node entityNode = new Node(entity.getEntityType(), entity.getName());
-        if (graph.containsKey(entityNode)) {
-            ConfigurationStore store = ConfigurationStore.get();
-            Set<Entity> dependents = new HashSet<Entity>();
-            for (Node node : graph.get(entityNode)) {
-                Entity dependentEntity = store.get(node.type, node.name);
-                assert dependentEntity != null : "Unable to find " + node;
-                dependents.add(dependentEntity);
+        List<Node> adjacentNodes = new ArrayList<Node>();
+        lock.readLock().lock();
+        try { // copied, resolving the dependents may call back into the graph
+            Node node = nodes.get(new Node(entity.getEntityType(), entity.getName()));
+            if (node == null) {
+                return null;
+            }
+            for (EdgeKind kind : EdgeKind.values()) {
+                adjacentNodes.addAll(node.neighbours(kind, true));
+                adjacentNodes.addAll(node.neighbours(kind, false));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        ConfigurationStore store = ConfigurationStore.get();
+        Set<Entity> dependents = new HashSet<Entity>();
+        for (Node node : adjacentNodes) {
+            Entity dependentEntity = store.get(node.type, node.name);
+            assert dependentEntity != null : "Unable to find " + node;
+            dependents.add(dependentEntity);
+        }
+        return dependents;
+    }
+
+    /**
+     * Feeds and processes the entity reads from, directly or through at most depth processes and feeds.
+     *
+     * @param entity feed or process to start from
+     * @param depth  number of edges to follow at most
+     * @return upstream nodes, nearest first
+     */
+    public Set<Node> getUpstream(Entity entity, int depth) {
+        return traverse(entity, depth, false);
+    }
+
+    /**
+     * Feeds and processes that read from the entity, directly or through at most depth processes and feeds.
+     *
+     * @param entity feed or process to start from
+     * @param depth  number of edges to follow at most
+     * @return downstream nodes, nearest first
+     */
+    public Set<Node> getDownstream(Entity entity, int depth) {
+        return traverse(entity, depth, true);
+    }
+
+    private Set<Node> traverse(Entity entity, int depth, boolean downstream) {
+        lock.readLock().lock();
+        try {
+            Node start = nodes.get(new Node(entity.getEntityType(), entity.getName()));
+            if (start == null) {
+                return Collections.emptySet();
             }
-            return dependents;
-        } else {
-            return null;
+
+            Set<Node> visited = new LinkedHashSet<Node>();
+            List<Node> frontier = Collections.singletonList(start);
+            for (int level = 0; level < depth && !frontier.isEmpty(); level++) {
+                List<Node> next = new ArrayList<Node>();
+                for (Node node : frontier) {
+                    for (Node adjacent : node.neighbours(EdgeKind.INPUT, downstream)) {
+                        if (adjacent != start && visited.add(adjacent)) {
+                            next.add(adjacent);
+                        }
+                    }
+                    for (Node adjacent : node.neighbours(EdgeKind.OUTPUT, downstream)) {
+                        if (adjacent != start && visited.add(adjacent)) {
+                            next.add(adjacent);
+                        }
+                    }
+                }
+                frontier = next;
+            }
+            return visited;
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
     @Override
     public void onAdd(Entity entity) throws FalconException {
-        Map<Node, Set<Node>> nodeEdges = null;
-        switch (entity.getEntityType()) {
-        case PROCESS:
-            nodeEdges = getEdgesFor((Process) entity);
-            break;
-        case FEED:
-            nodeEdges = getEdgesFor((Feed) entity);
-            break;
-        default:
-        }
-        if (nodeEdges == null) {
+        Set<Edge> edges = getEdgesFor(entity);
+        if (edges.isEmpty()) {
             return;
         }
-        LOG.trace("Adding edges for {}: {}", entity.getName(), nodeEdges);
+        LOG.trace("Adding edges for {}: {}", entity.getName(), edges);
 
-        for (Map.Entry<Node, Set<Node>> entry : nodeEdges.entrySet()) {
-            if (graph.containsKey(entry.getKey())) {
-                graph.get(entry.getKey()).addAll(entry.getValue());
-            } else {
-                graph.put(entry.getKey(), entry.getValue());
+        lock.writeLock().lock();
+        try {
+            for (Edge edge : edges) {
+                addEdge(edge);
             }
+        } finally {
+            lock.writeLock().unlock();
         }
         LOG.trace("Merged edges to graph {}", entity.getName());
     }
 
     @Override
     public void onRemove(Entity entity) throws FalconException {
-        Map<Node, Set<Node>> nodeEdges = null;
-        switch (entity.getEntityType()) {
-        case PROCESS:
-            nodeEdges = getEdgesFor((Process) entity);
-            break;
-        case FEED:
-            nodeEdges = getEdgesFor((Feed) entity);
-            break;
-        default:
-        }
-        if (nodeEdges == null) {
-            return;
-        }
-
-        for (Map.Entry<Node, Set<Node>> entry : nodeEdges.entrySet()) {
-            if (graph.containsKey(entry.getKey())) {
-                graph.get(entry.getKey()).removeAll(entry.getValue());
-                if (graph.get(entry.getKey()).isEmpty()) {
-                    graph.remove(entry.getKey());
-                }
+        Set<Edge> edges = getEdgesFor(entity);
+        lock.writeLock().lock();
+        try {
+            for (Edge edge : edges) {
+                removeEdge(edge);
             }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
     @Override
     public void onChange(Entity oldEntity, Entity newEntity) throws FalconException {
-        onRemove(oldEntity);
-        onAdd(newEntity);
+        Set<Edge> removed = getEdgesFor(oldEntity);
+        Set<Edge> added = getEdgesFor(newEntity);
+        Set<Edge> kept = new HashSet<Edge>(removed);
+        kept.retainAll(added);
+        removed.removeAll(kept);
+        added.removeAll(kept);
+        LOG.trace("Changing edges for {}: -{} +{}", newEntity.getName(), removed, added);
+
+        lock.writeLock().lock();
+        try {
+            for (Edge edge : removed) {
+                removeEdge(edge);
+            }
+            for (Edge edge : added) {
+                addEdge(edge);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     @Override
@@ -133,75 +211,134 @@ public final class EntityGraph implements ConfigurationChangeListener {
         onAdd(entity);
     }
 
-    private Map<Node, Set<Node>> getEdgesFor(Process process) {
-        Map<Node, Set<Node>> nodeEdges = new HashMap<Node, Set<Node>>();
+    private void addEdge(Edge edge) {
+        Node from = intern(edge.from);
+        Node to = intern(edge.to);
+        from.adjacent(edge.kind, true).add(to);
+        to.adjacent(edge.kind, false).add(from);
+    }
+
+    private void removeEdge(Edge edge) {
+        Node from = nodes.get(edge.from);
+        Node to = nodes.get(edge.to);
+        if (from == null || to == null) {
+            return;
+        }
+        from.adjacent(edge.kind, true).remove(to);
+        to.adjacent(edge.kind, false).remove(from);
+        if (from.isIsolated()) {
+            nodes.remove(from);
+        }
+        if (to.isIsolated()) {
+            nodes.remove(to);
+        }
+    }
+
+    private Node intern(Node key) {
+        Node node = nodes.get(key);
+        if (node == null) {
+            node = new Node(key.type, key.name);
+            nodes.put(node, node);
+        }
+        return node;
+    }
+
+    private Set<Edge> getEdgesFor(Entity entity) {
+        switch (entity.getEntityType()) {
+        case PROCESS:
+            return getEdgesFor((Process) entity);
+        case FEED:
+            return getEdgesFor((Feed) entity);
+        default:
+            return Collections.emptySet();
+        }
+    }
+
+    private Set<Edge> getEdgesFor(Process process) {
+        Set<Edge> edges = new HashSet<Edge>();
         Node processNode = new Node(EntityType.PROCESS, process.getName());
-        nodeEdges.put(processNode, new HashSet<Node>());
-        Set<Node> processEdges = nodeEdges.get(processNode);
         if (process.getInputs() != null) {
             for (Input input : process.getInputs().getInputs()) {
-                Node feedNode = new Node(EntityType.FEED, input.getFeed());
-                if (!nodeEdges.containsKey(feedNode)) {
-                    nodeEdges.put(feedNode, new HashSet<Node>());
-                }
-                Set<Node> feedEdges = nodeEdges.get(feedNode);
-                processEdges.add(feedNode);
-                feedEdges.add(processNode);
+                edges.add(new Edge(new Node(EntityType.FEED, input.getFeed()), processNode, EdgeKind.INPUT));
             }
         }
         if (process.getOutputs() != null) {
             for (Output output : process.getOutputs().getOutputs()) {
-                Node feedNode = new Node(EntityType.FEED, output.getFeed());
-                if (!nodeEdges.containsKey(feedNode)) {
-                    nodeEdges.put(feedNode, new HashSet<Node>());
-                }
-                Set<Node> feedEdges = nodeEdges.get(feedNode);
-                processEdges.add(feedNode);
-                feedEdges.add(processNode);
+                edges.add(new Edge(processNode, new Node(EntityType.FEED, output.getFeed()), EdgeKind.OUTPUT));
             }
         }
 
         for (Cluster cluster : process.getClusters().getClusters()) {
-            Node clusterNode = new Node(EntityType.CLUSTER, cluster.getName());
-            processEdges.add(clusterNode);
-            nodeEdges.put(clusterNode, new HashSet<Node>());
-            nodeEdges.get(clusterNode).add(processNode);
+            edges.add(new Edge(processNode, new Node(EntityType.CLUSTER, cluster.getName()), EdgeKind.CLUSTER));
         }
-
-        return nodeEdges;
+        return edges;
     }
 
-    private Map<Node, Set<Node>> getEdgesFor(Feed feed) {
-        Map<Node, Set<Node>> nodeEdges = new HashMap<Node, Set<Node>>();
+    private Set<Edge> getEdgesFor(Feed feed) {
+        Set<Edge> edges = new HashSet<Edge>();
         Node feedNode = new Node(EntityType.FEED, feed.getName());
-        Set<Node> feedEdges = new HashSet<Node>();
-        nodeEdges.put(feedNode, feedEdges);
-
         for (org.apache.falcon.entity.v0.feed.Cluster cluster : feed.getClusters().getClusters()) {
-            Node clusterNode = new Node(EntityType.CLUSTER, cluster.getName());
-            if (!nodeEdges.containsKey(clusterNode)) {
-                nodeEdges.put(clusterNode, new HashSet<Node>());
-            }
-            Set<Node> clusterEdges = nodeEdges.get(clusterNode);
-            feedEdges.add(clusterNode);
-            clusterEdges.add(feedNode);
+            edges.add(new Edge(feedNode, new Node(EntityType.CLUSTER, cluster.getName()), EdgeKind.CLUSTER));
         }
-        return nodeEdges;
+        return edges;
     }
 
     /**
-     * Node element in the graph.
+     * Node element in the graph, identified by the type and name of its entity.
      */
-    private static final class Node {
+    public static final class Node {
 
         private final EntityType type;
         private final String name;
 
+        // adjacency of interned nodes, guarded by the graph lock
+        private Map<EdgeKind, Set<Node>> outgoing;
+        private Map<EdgeKind, Set<Node>> incoming;
+
         private Node(EntityType type, String name) {
             this.type = type;
             this.name = name;
         }
 
+        public EntityType getType() {
+            return type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // adjacent nodes to add to or remove from, only called while holding the write lock
+        private Set<Node> adjacent(EdgeKind kind, boolean out) {
+            if (outgoing == null) {
+                outgoing = new EnumMap<EdgeKind, Set<Node>>(EdgeKind.class);
+                incoming = new EnumMap<EdgeKind, Set<Node>>(EdgeKind.class);
+            }
+            Map<EdgeKind, Set<Node>> edges = out ? outgoing : incoming;
+            Set<Node> adjacent = edges.get(kind);
+            if (adjacent == null) {
+                adjacent = new HashSet<Node>();
+                edges.put(kind, adjacent);
+            }
+            return adjacent;
+        }
+
+        // adjacent nodes to read, without allocating any
+        private Set<Node> neighbours(EdgeKind kind, boolean out) {
+            Map<EdgeKind, Set<Node>> edges = out ? outgoing : incoming;
+            Set<Node> adjacent = edges != null ? edges.get(kind) : null;
+            return adjacent != null ? adjacent : Collections.<Node>emptySet();
+        }
+
+        private boolean isIsolated() {
+            for (EdgeKind kind : EdgeKind.values()) {
+                if (!neighbours(kind, true).isEmpty() || !neighbours(kind, false).isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) {
@@ -237,4 +374,42 @@ public final class EntityGraph implements ConfigurationChangeListener {
             return "(" + type + ") " + name;
         }
     }
+
+    /**
+     * Directed edge between two nodes.
+     */
+    private static final class Edge {
+
+        private final Node from;
+        private final Node to;
+        private final EdgeKind kind;
+
+        private Edge(Node from, Node to, EdgeKind kind) {
+            this.from = from;
+            this.to = to;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Edge)) {
+                return false;
+            }
+            Edge edge = (Edge) o;
+            return kind == edge.kind && from.equals(edge.from) && to.equals(edge.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * from.hashCode() + to.hashCode()) + kind.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return from + " -" + kind + "-> " + to;
+        }
+    }
 }
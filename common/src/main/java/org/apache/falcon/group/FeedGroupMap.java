@@ -54,7 +54,7 @@ public final class FeedGroupMap implements ConfigurationChangeListener {
     }
 
     @Override
-    public void onAdd(Entity entity) throws FalconException {
+    public synchronized void onAdd(Entity entity) throws FalconException {
 
         if (entity.getEntityType().equals(EntityType.FEED)) {
             Feed feed = (Feed) entity;
@@ -67,7 +67,7 @@ public final class FeedGroupMap implements ConfigurationChangeListener {
     }
 
     @Override
-    public void onRemove(Entity entity) throws FalconException {
+    public synchronized void onRemove(Entity entity) throws FalconException {
         if (entity.getEntityType().equals(EntityType.FEED)) {
             Feed feed = (Feed) entity;
             if (StringUtils.isEmpty(feed.getGroups())) {
@@ -85,7 +85,7 @@ public final class FeedGroupMap implements ConfigurationChangeListener {
     }
 
     @Override
-    public void onChange(Entity oldEntity, Entity newEntity)
+    public synchronized void onChange(Entity oldEntity, Entity newEntity)
         throws FalconException {
 
         onRemove(oldEntity);
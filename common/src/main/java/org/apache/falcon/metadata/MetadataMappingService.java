@@ -193,8 +193,10 @@ public class MetadataMappingService
         graph.shutdown();
     }
 
+    // entity vertices share user, colo and tag vertices that are looked up before being added,
+    // changes to the entity graph are serialized while the config store notifies concurrently
     @Override
-    public void onAdd(Entity entity) throws FalconException {
+    public synchronized void onAdd(Entity entity) throws FalconException {
         EntityType entityType = entity.getEntityType();
         LOG.info("Adding lineage for entity: {}, type: {}", entity.getName(), entityType);
 
@@ -225,7 +227,7 @@ public class MetadataMappingService
     }
 
     @Override
-    public void onChange(Entity oldEntity, Entity newEntity) throws FalconException {
+    public synchronized void onChange(Entity oldEntity, Entity newEntity) throws FalconException {
         EntityType entityType = newEntity.getEntityType();
         LOG.info("Updating lineage for entity: {}, type: {}", newEntity.getName(), entityType);
 
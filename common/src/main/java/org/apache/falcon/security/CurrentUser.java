@@ -67,6 +67,22 @@ public final class CurrentUser {
         return INSTANCE.currentSubject.get();
     }
 
+    /**
+     * Logs in the subject of another thread, or nobody if it is null, for a pooled thread running a task on
+     * behalf of that thread. The task calls {@link #clear()} once done, the next task may be another user's.
+     */
+    public static void setSubject(Subject subject) {
+        if (subject == null) {
+            clear();
+        } else {
+            INSTANCE.currentSubject.set(subject);
+        }
+    }
+
+    public static void clear() {
+        INSTANCE.currentSubject.remove();
+    }
+
     public static String getUser() {
         String user = getUserInternal();
         if (user == null) {
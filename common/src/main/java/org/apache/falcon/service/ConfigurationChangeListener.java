@@ -23,6 +23,8 @@ import org.apache.falcon.entity.v0.Entity;
 
 /**
  * Configuration change notification listener.
+ * Notifications for an entity arrive in the order of its changes, notifications for
+ * different entities may arrive concurrently and implementations must be thread safe.
  */
 public interface ConfigurationChangeListener {
 
@@ -32,6 +32,7 @@ import org.apache.falcon.entity.v0.feed.Feed;
 import org.apache.falcon.entity.v0.process.Cluster;
 import org.apache.falcon.entity.v0.process.Process;
 import org.apache.falcon.hadoop.HadoopClientFactory;
+import org.apache.falcon.util.StartupProperties;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -41,11 +42,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Helper methods to facilitate entity updates.
@@ -61,6 +74,36 @@ public final class UpdateHelper {
                                                                 "lateProcess.lateInputs[\\d+].input",
                                                                 "lateProcess.lateInputs[\\d+].workflowPath", };
 
+    private static final int CHECKSUM_CACHE_SIZE =
+        Integer.parseInt(StartupProperties.get().getProperty("update.checksum.cache.size", "10000"));
+
+    // checksums of the user workflow and lib files by path, modification time and length
+    private static final Map<String, String> CHECKSUMS = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > CHECKSUM_CACHE_SIZE;
+        }
+    };
+
+    // lists dirs and computes checksums in parallel
+    private static final ThreadPoolExecutor WALKERS;
+
+    static {
+        int threads = Integer.parseInt(StartupProperties.get().getProperty("update.checksum.threads", "10"));
+        WALKERS = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "update-checksum-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        WALKERS.allowCoreThreadTimeOut(true);
+    }
+
     private UpdateHelper() {}
 
     public static boolean isEntityUpdated(Entity oldEntity, Entity newEntity, String cluster,
@@ -144,13 +187,16 @@ public final class UpdateHelper {
 
     /**
      * Recursively traverses each file and tracks checksum. If dest != null, each traversed file is copied to dest
+     * The dirs of a level are listed in parallel and files that didn't change since they were last checksummed
+     * reuse their checksum.
      * @param fs FileSystem
      * @param src file/directory
      * @param dest directory always
      * @return checksums
      * @throws FalconException
      */
-    public static Map<String, String> checksumAndCopy(FileSystem fs, Path src, Path dest) throws FalconException {
+    public static Map<String, String> checksumAndCopy(final FileSystem fs, Path src, Path dest)
+        throws FalconException {
         try {
             Configuration conf = new Configuration();
             Map<String, String> paths = new HashMap<String, String>();
@@ -158,25 +204,27 @@ public final class UpdateHelper {
                 throw new FalconException("mkdir failed on " + dest);
             }
 
-            if (fs.isFile(src)) {
-                paths.put(src.toString(), fs.getFileChecksum(src).toString());
-                if (dest != null) {
-                    Path target = new Path(dest, src.getName());
-                    FileUtil.copy(fs, src, fs, target, false, conf);
-                    LOG.debug("Copied {} to {}", src, target);
-                }
+            // files keyed by the name their checksum is tracked with, and where they are copied to
+            Map<String, FileStatus> files = new LinkedHashMap<String, FileStatus>();
+            Map<String, Path> targets = new HashMap<String, Path>();
+            FileStatus srcStatus;
+            try {
+                srcStatus = fs.getFileStatus(src);
+            } catch (FileNotFoundException e) {
+                // as listing it does, hadoop 1 returns nothing for a missing dir and hadoop 2 fails
+                fs.listStatus(src);
+                return paths;
+            }
+            if (!srcStatus.isDir()) {
+                files.put(src.toString(), srcStatus);
+                targets.put(src.toString(), dest == null ? null : new Path(dest, src.getName()));
             } else {
-                FileStatus[] files = fs.listStatus(src);
-                if (files != null) {
-                    for (FileStatus file : files) {
-                        if (fs.isFile(file.getPath())) {
-                            paths.putAll(checksumAndCopy(fs, file.getPath(), dest));
-                        } else {
-                            paths.putAll(checksumAndCopy(fs, file.getPath(),
-                                    ((dest == null) ? null : new Path(dest, file.getPath().getName()))));
-                        }
-                    }
-                }
+                walk(fs, srcStatus, dest, files, targets);
+            }
+
+            paths.putAll(getChecksums(fs, files));
+            if (dest != null) {
+                copy(fs, files, targets, conf);
             }
             return paths;
         } catch(IOException e) {
@@ -184,6 +232,118 @@ public final class UpdateHelper {
         }
     }
 
+    // lists the dir and its sub dirs a level at a time, the dirs of a level in parallel
+    private static void walk(final FileSystem fs, FileStatus dir, Path dest, Map<String, FileStatus> files,
+                             Map<String, Path> targets) throws IOException, FalconException {
+        Map<FileStatus, Path> level = new LinkedHashMap<FileStatus, Path>();
+        level.put(dir, dest);
+        while (!level.isEmpty()) {
+            Map<FileStatus, Future<FileStatus[]>> listings = new LinkedHashMap<FileStatus, Future<FileStatus[]>>();
+            for (final FileStatus levelDir : level.keySet()) {
+                listings.put(levelDir, WALKERS.submit(new Callable<FileStatus[]>() {
+                    @Override
+                    public FileStatus[] call() throws IOException {
+                        return fs.listStatus(levelDir.getPath());
+                    }
+                }));
+            }
+
+            Map<FileStatus, Path> nextLevel = new LinkedHashMap<FileStatus, Path>();
+            for (Map.Entry<FileStatus, Future<FileStatus[]>> listing : listings.entrySet()) {
+                Path levelDest = level.get(listing.getKey());
+                FileStatus[] children = get(listing.getValue());
+                if (children == null) {
+                    continue;
+                }
+                for (FileStatus child : children) {
+                    if (child.isDir()) {
+                        Path childDest = levelDest == null ? null : new Path(levelDest, child.getPath().getName());
+                        if (childDest != null && !fs.mkdirs(childDest)) {
+                            throw new FalconException("mkdir failed on " + childDest);
+                        }
+                        nextLevel.put(child, childDest);
+                    } else {
+                        files.put(child.getPath().toString(), child);
+                        targets.put(child.getPath().toString(),
+                            levelDest == null ? null : new Path(levelDest, child.getPath().getName()));
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+    }
+
+    private static void copy(final FileSystem fs, Map<String, FileStatus> files, Map<String, Path> targets,
+                             final Configuration conf) throws IOException {
+        List<Future<Boolean>> copies = new ArrayList<Future<Boolean>>();
+        for (Map.Entry<String, Path> target : targets.entrySet()) {
+            final Path srcPath = files.get(target.getKey()).getPath();
+            final Path targetPath = target.getValue();
+            copies.add(WALKERS.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws IOException {
+                    boolean copied = FileUtil.copy(fs, srcPath, fs, targetPath, false, conf);
+                    LOG.debug("Copied {} to {}", srcPath, targetPath);
+                    return copied;
+                }
+            }));
+        }
+        for (Future<Boolean> copy : copies) {
+            get(copy);
+        }
+    }
+
+    // checksums the files that changed since they were last checksummed, in parallel
+    private static Map<String, String> getChecksums(final FileSystem fs, Map<String, FileStatus> files)
+        throws IOException {
+        Map<String, String> checksums = new HashMap<String, String>();
+        Map<String, String> cacheKeys = new HashMap<String, String>();
+        Map<String, Future<String>> pending = new HashMap<String, Future<String>>();
+        for (Map.Entry<String, FileStatus> file : files.entrySet()) {
+            final FileStatus status = file.getValue();
+            String cacheKey = fs.getUri() + "\t" + status.getPath().toUri().getPath() + "\t"
+                + status.getModificationTime() + "\t" + status.getLen();
+            String checksum;
+            synchronized (CHECKSUMS) {
+                checksum = CHECKSUMS.get(cacheKey);
+            }
+            if (checksum != null) {
+                checksums.put(file.getKey(), checksum);
+            } else {
+                cacheKeys.put(file.getKey(), cacheKey);
+                pending.put(file.getKey(), WALKERS.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws IOException {
+                        return fs.getFileChecksum(status.getPath()).toString();
+                    }
+                }));
+            }
+        }
+
+        for (Map.Entry<String, Future<String>> file : pending.entrySet()) {
+            String checksum = get(file.getValue());
+            synchronized (CHECKSUMS) {
+                CHECKSUMS.put(cacheKeys.get(file.getKey()), checksum);
+            }
+            checksums.put(file.getKey(), checksum);
+        }
+        return checksums;
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
     public static boolean shouldUpdate(Entity oldEntity, Entity newEntity, Entity affectedEntity, String cluster)
         throws FalconException {
         if (oldEntity.getEntityType() == EntityType.FEED && affectedEntity.getEntityType() == EntityType.PROCESS) {
@@ -0,0 +1,298 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.entity.store.ConfigurationStore;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.entity.v0.EntityType;
+import org.apache.falcon.service.FalconService;
+import org.apache.falcon.service.Services;
+import org.apache.falcon.util.StartupProperties;
+import org.apache.falcon.workflow.engine.AbstractWorkflowEngine;
+import org.apache.falcon.workflow.engine.WorkflowEngineActionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the status of schedulable entities, which otherwise takes a look up of the bundles on every
+ * cluster of the entity. Entries are marked stale by the workflow engine actions and by workflow job end
+ * notifications and looked up again when next read, the entries that are read are refreshed in the background
+ * before they expire.
+ */
+public final class EntityStatusCache implements FalconService, WorkflowEngineActionListener,
+        WorkflowExecutionListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntityStatusCache.class);
+
+    public static final String SERVICE_NAME = EntityStatusCache.class.getSimpleName();
+
+    private static final String TTL_PROPERTY = "entity.status.cache.ttl.seconds";
+    // entries not read for this many ttl periods are dropped instead of refreshed
+    private static final int IDLE_PERIODS = 10;
+
+    private static final EntityStatusCache INSTANCE = new EntityStatusCache();
+
+    /**
+     * Status of an entity as reported by the entity apis.
+     */
+    public enum EntityStatus {
+        SUBMITTED, SUSPENDED, RUNNING
+    }
+
+    private final ConcurrentMap<String, Entry> statuses = new ConcurrentHashMap<String, Entry>();
+    private volatile AbstractWorkflowEngine workflowEngine;
+    private volatile long ttl;
+    private volatile ScheduledExecutorService refresher;
+
+    public static EntityStatusCache get() {
+        return INSTANCE;
+    }
+
+    // services are loaded by reflection, which falls back to get() as this constructor is not accessible
+    private EntityStatusCache() {
+        this(null);
+    }
+
+    EntityStatusCache(AbstractWorkflowEngine workflowEngine) {
+        this.workflowEngine = workflowEngine;
+        this.ttl = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(StartupProperties.get().getProperty(TTL_PROPERTY, "60")));
+    }
+
+    @Override
+    public String getName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void init() throws FalconException {
+        ttl = TimeUnit.SECONDS.toMillis(Long.parseLong(StartupProperties.get().getProperty(TTL_PROPERTY, "60")));
+        if (ttl <= 0) {
+            LOG.info("Entity status cache is disabled");
+            return;
+        }
+
+        if (Services.get().isRegistered(WorkflowJobEndNotificationService.SERVICE_NAME)) {
+            Services.get().<WorkflowJobEndNotificationService>getService(
+                    WorkflowJobEndNotificationService.SERVICE_NAME).registerListener(this);
+        }
+
+        refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "entity-status-refresher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long period = Math.max(ttl / 2, 1);
+        refresher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+        LOG.info("Entity status cache refreshes every {} ms", period);
+    }
+
+    @Override
+    public void destroy() throws FalconException {
+        if (Services.get().isRegistered(WorkflowJobEndNotificationService.SERVICE_NAME)) {
+            Services.get().<WorkflowJobEndNotificationService>getService(
+                    WorkflowJobEndNotificationService.SERVICE_NAME).unregisterListener(this);
+        }
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+        statuses.clear();
+    }
+
+    /**
+     * Returns the status of the entity, looking it up in the workflow engine when it is not cached or
+     * when the cached status has expired.
+     */
+    public EntityStatus getStatus(Entity entity) throws FalconException {
+        if (!entity.getEntityType().isSchedulable()) {
+            return EntityStatus.SUBMITTED;
+        }
+
+        String key = keyOf(entity.getEntityType(), entity.getName());
+        long now = System.currentTimeMillis();
+        Entry entry = statuses.get(key);
+        if (entry != null && entry.status != null && now - entry.timestamp < ttl) {
+            entry.lastAccess = now;
+            return entry.status;
+        }
+
+        EntityStatus status = computeStatus(entity);
+        if (ttl > 0) {
+            store(key, new Entry(entity.getEntityType(), entity.getName(), status, now));
+        }
+        return status;
+    }
+
+    /**
+     * Marks the cached status of the entity stale, it is looked up again on the next read. A burst of job end
+     * notifications thus costs a single look up, and none if the status isn't read.
+     */
+    public void invalidate(EntityType type, String name) {
+        statuses.put(keyOf(type, name), new Entry(type, name, null, System.currentTimeMillis()));
+    }
+
+    void refresh() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Entry> cached : statuses.entrySet()) {
+            Entry entry = cached.getValue();
+            if (now - entry.lastAccess > IDLE_PERIODS * ttl) {
+                statuses.remove(cached.getKey(), entry);
+            } else if (entry.status != null && now - entry.timestamp >= ttl / 2) {
+                refresh(cached.getKey(), now);
+            }
+        }
+    }
+
+    private void refresh(String key, long now) {
+        Entry entry = statuses.get(key);
+        if (entry == null || entry.status != null && now - entry.timestamp < ttl / 2) {
+            return;
+        }
+        try {
+            Entity entity = ConfigurationStore.get().get(entry.type, entry.name);
+            if (entity == null) {
+                statuses.remove(key, entry);
+                return;
+            }
+            Entry fresh = new Entry(entry.type, entry.name, computeStatus(entity), now);
+            fresh.lastAccess = entry.lastAccess;
+            store(key, fresh);
+        } catch (Throwable e) {
+            LOG.warn("Unable to refresh the status of {}({})", entry.name, entry.type, e);
+        }
+    }
+
+    // keeps the looked up status unless the entry was invalidated or refreshed after the look up started
+    private void store(String key, Entry fresh) {
+        while (true) {
+            Entry current = statuses.get(key);
+            if (current == null) {
+                if (statuses.putIfAbsent(key, fresh) == null) {
+                    return;
+                }
+            } else if (current.status == null ? current.timestamp >= fresh.timestamp
+                    : current.timestamp > fresh.timestamp) {
+                return;
+            } else if (statuses.replace(key, current, fresh)) {
+                return;
+            }
+        }
+    }
+
+    private EntityStatus computeStatus(Entity entity) throws FalconException {
+        AbstractWorkflowEngine engine = workflowEngine;
+        if (engine == null) {
+            engine = WorkflowEngineFactory.getWorkflowEngine();
+            workflowEngine = engine;
+        }
+
+        if (engine.isActive(entity)) {
+            return engine.isSuspended(entity) ? EntityStatus.SUSPENDED : EntityStatus.RUNNING;
+        }
+        return EntityStatus.SUBMITTED;
+    }
+
+    private static String keyOf(EntityType type, String name) {
+        return type.name() + '/' + name;
+    }
+
+    @Override
+    public void beforeSchedule(Entity entity, String cluster) throws FalconException {
+    }
+
+    @Override
+    public void afterSchedule(Entity entity, String cluster) throws FalconException {
+        invalidate(entity.getEntityType(), entity.getName());
+    }
+
+    @Override
+    public void beforeDelete(Entity entity, String cluster) throws FalconException {
+    }
+
+    @Override
+    public void afterDelete(Entity entity, String cluster) throws FalconException {
+        invalidate(entity.getEntityType(), entity.getName());
+    }
+
+    @Override
+    public void beforeSuspend(Entity entity, String cluster) throws FalconException {
+    }
+
+    @Override
+    public void afterSuspend(Entity entity, String cluster) throws FalconException {
+        invalidate(entity.getEntityType(), entity.getName());
+    }
+
+    @Override
+    public void beforeResume(Entity entity, String cluster) throws FalconException {
+    }
+
+    @Override
+    public void afterResume(Entity entity, String cluster) throws FalconException {
+        invalidate(entity.getEntityType(), entity.getName());
+    }
+
+    // a bundle ends with its last instance, so the status may change whenever an instance ends
+    @Override
+    public void onSuccess(WorkflowExecutionContext context) throws FalconException {
+        invalidate(EntityType.valueOf(context.getEntityType().toUpperCase()), context.getEntityName());
+    }
+
+    @Override
+    public void onFailure(WorkflowExecutionContext context) throws FalconException {
+        invalidate(EntityType.valueOf(context.getEntityType().toUpperCase()), context.getEntityName());
+    }
+
+    /**
+     * Status of an entity and when it was looked up, a null status marks an invalidated entity.
+     */
+    private static final class Entry {
+        private final EntityType type;
+        private final String name;
+        private final EntityStatus status;
+        private final long timestamp;
+        private volatile long lastAccess;
+
+        private Entry(EntityType type, String name, EntityStatus status, long timestamp) {
+            this.type = type;
+            this.name = name;
+            this.status = status;
+            this.timestamp = timestamp;
+            this.lastAccess = timestamp;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.falcon.entity.v0.Entity;
 import org.apache.falcon.entity.v0.cluster.Cluster;
 import org.apache.falcon.resource.InstancesResult;
 import org.apache.falcon.resource.InstancesSummaryResult;
+import org.apache.falcon.resource.OperationResult;
 
 import java.util.HashSet;
 import java.util.List;
@@ -85,6 +86,15 @@ public abstract class AbstractWorkflowEngine {
     public abstract InstancesResult getStatus(Entity entity, Date start, Date end,
                                               List<LifeCycle> lifeCycles) throws FalconException;
 
+    /**
+     * Status of the instances, engines able to filter on the status may leave out the instances that
+     * are not in the given status. Others return all instances.
+     */
+    public InstancesResult getStatus(Entity entity, Date start, Date end, List<LifeCycle> lifeCycles,
+                                     InstancesResult.WorkflowStatus status) throws FalconException {
+        return getStatus(entity, start, end, lifeCycles);
+    }
+
     public abstract InstancesSummaryResult getSummary(Entity entity, Date start, Date end,
                                                       List<LifeCycle> lifeCycles) throws FalconException;
 
@@ -99,4 +109,21 @@ public abstract class AbstractWorkflowEngine {
 
     public abstract InstancesResult getInstanceParams(Entity entity, Date start, Date end,
                                                       List<LifeCycle> lifeCycles) throws FalconException;
+
+    /**
+     * Progress of an operation started by an instance action, waiting up to waitMillis for it to complete.
+     * Engines that complete the actions before returning don't track operations.
+     */
+    public OperationResult getOperationStatus(String operationId, long waitMillis) throws FalconException {
+        throw new FalconException("Operations are not tracked by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Kills, suspends, resumes or reruns the instances of the entities between start and end in the background,
+     * returning right away with the operation that reports the progress.
+     */
+    public OperationResult bulkInstanceAction(String action, List<Entity> entities, Date start, Date end,
+                                              Properties props, List<LifeCycle> lifeCycles) throws FalconException {
+        throw new FalconException("Bulk instance actions are not supported by " + getClass().getSimpleName());
+    }
 }
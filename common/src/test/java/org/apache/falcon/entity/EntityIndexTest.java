@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity;
+
+import org.apache.falcon.entity.v0.EntityType;
+import org.apache.falcon.entity.v0.cluster.Cluster;
+import org.apache.falcon.entity.v0.process.Clusters;
+import org.apache.falcon.entity.v0.process.Process;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tests for the tag, pipeline, cluster and colo indexes of entities.
+ */
+public class EntityIndexTest {
+
+    private final EntityIndex index = EntityIndex.get();
+
+    @Test
+    public void testFind() throws Exception {
+        index.onAdd(newCluster("c1", "colo1"));
+        index.onAdd(newCluster("c2", "colo2"));
+        index.onAdd(newProcess("p1", "owner=a,dept=x", "etl", "c1"));
+        index.onAdd(newProcess("p2", "owner=b,dept=x", "etl,report", "c1", "c2"));
+        index.onAdd(newProcess("p3", null, "report", "c2"));
+        Assert.assertEquals(index.size(EntityType.PROCESS), 3);
+
+        Assert.assertEquals(find(query().withTags(Arrays.asList("dept=x"))), Arrays.asList("p1", "p2"));
+        Assert.assertEquals(find(query().withTags(Arrays.asList("dept=x", "owner=b"))), Arrays.asList("p2"));
+        Assert.assertEquals(find(query().withTags(Arrays.asList("owner=b")).includeUntagged()),
+                Arrays.asList("p2", "p3"));
+        Assert.assertEquals(find(query().withPipeline("report").descending()), Arrays.asList("p3", "p2"));
+        Assert.assertEquals(find(query().withPipeline("etl").withCluster("c2")), Arrays.asList("p2"));
+        Assert.assertEquals(find(query().withColo("colo1")), Arrays.asList("p1", "p2"));
+        Assert.assertEquals(find(query().withColo("colo3")), Collections.emptyList());
+        Assert.assertEquals(find(query().withTags(Arrays.asList("owner=c"))), Collections.emptyList());
+        Assert.assertEquals(find(query().descending()), Arrays.asList("p3", "p2", "p1"));
+
+        // pages continue after the last name returned, whether or not it still exists
+        Assert.assertEquals(find(query().after("p1")), Arrays.asList("p2", "p3"));
+        Assert.assertEquals(find(query().after("p25")), Arrays.asList("p3"));
+        Assert.assertEquals(find(query().descending().after("p3")), Arrays.asList("p2", "p1"));
+        Assert.assertEquals(find(query().withTags(Arrays.asList("owner=b")).includeUntagged().after("p2")),
+                Arrays.asList("p3"));
+
+        index.onChange(newProcess("p2", "owner=b,dept=x", "etl,report", "c1", "c2"),
+                newProcess("p2", "owner=c", "etl", "c2"));
+        Assert.assertEquals(find(query().withTags(Arrays.asList("dept=x"))), Arrays.asList("p1"));
+        Assert.assertEquals(find(query().withTags(Arrays.asList("owner=c"))), Arrays.asList("p2"));
+        Assert.assertEquals(find(query().withPipeline("report")), Arrays.asList("p3"));
+        Assert.assertEquals(find(query().withColo("colo1")), Arrays.asList("p1"));
+
+        index.onRemove(newProcess("p1", null, null));
+        Assert.assertEquals(find(query()), Arrays.asList("p2", "p3"));
+        Assert.assertEquals(find(query().withTags(Arrays.asList("dept=x"))), Collections.emptyList());
+        Assert.assertEquals(index.size(EntityType.PROCESS), 2);
+    }
+
+    private EntityIndex.Query query() {
+        return new EntityIndex.Query(EntityType.PROCESS);
+    }
+
+    private List<String> find(EntityIndex.Query query) {
+        List<String> names = new ArrayList<String>();
+        for (Iterator<String> iterator = index.find(query); iterator.hasNext();) {
+            names.add(iterator.next());
+        }
+        return names;
+    }
+
+    private Cluster newCluster(String name, String colo) {
+        Cluster cluster = new Cluster();
+        cluster.setName(name);
+        cluster.setColo(colo);
+        return cluster;
+    }
+
+    private Process newProcess(String name, String tags, String pipelines, String... clusters) {
+        Process process = new Process();
+        process.setName(name);
+        process.setTags(tags);
+        process.setPipelines(pipelines);
+        process.setClusters(new Clusters());
+        for (String cluster : clusters) {
+            org.apache.falcon.entity.v0.process.Cluster processCluster =
+                    new org.apache.falcon.entity.v0.process.Cluster();
+            processCluster.setName(cluster);
+            process.getClusters().getClusters().add(processCluster);
+        }
+        return process;
+    }
+}
@@ -18,7 +18,11 @@
 
 package org.apache.falcon.entity;
 
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.falcon.Pair;
+import org.apache.falcon.entity.v0.Entity;
 import org.apache.falcon.entity.v0.EntityType;
 import org.apache.falcon.entity.v0.Frequency;
 import org.apache.falcon.entity.v0.SchemaHelper;
@@ -28,9 +32,15 @@ import org.apache.falcon.entity.v0.process.Process;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.lang.reflect.Method;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 
 /**
@@ -83,6 +93,86 @@ public class EntityUtilTest extends AbstractTestBase {
         Assert.assertTrue(EntityUtil.equals(process1, process2, new String[]{"clusters.clusters[\\d+].validity.end"}));
     }
 
+    @Test
+    public void testStringOfIsCompatible() throws Exception {
+        Process process = (Process) EntityType.PROCESS.getUnmarshaller().unmarshal(
+                getClass().getResourceAsStream(PROCESS_XML));
+        Cluster template = process.getClusters().getClusters().get(0);
+        for (int i = 0; i < 11; i++) {
+            Cluster cluster = new Cluster();
+            cluster.setName("cluster" + i);
+            cluster.setValidity(template.getValidity());
+            process.getClusters().getClusters().add(cluster);
+        }
+        process.setTags("owner=f\u00f8\u00e9,\ud83d\ude00=smile");
+        Feed feed = (Feed) EntityType.FEED.getUnmarshaller().unmarshal(getClass().getResourceAsStream(FEED_XML));
+        org.apache.falcon.entity.v0.cluster.Cluster cluster = (org.apache.falcon.entity.v0.cluster.Cluster)
+                EntityType.CLUSTER.getUnmarshaller().unmarshal(getClass().getResourceAsStream(CLUSTER_XML));
+
+        for (Entity entity : new Entity[]{process, feed, cluster}) {
+            String expected = legacyStringOf(entity, null);
+            Assert.assertEquals(EntityUtil.stringOf(entity), expected);
+            Assert.assertEquals(EntityUtil.md5(entity), new String(Hex.encodeHex(DigestUtils.md5(expected))));
+        }
+
+        String[] filters = {"clusters.clusters[\\d+].validity.end", "tags"};
+        Process other = (Process) process.copy();
+        other.setTags("changed");
+        other.getClusters().getClusters().get(10).getValidity().setEnd(new Date(0));
+        Assert.assertTrue(EntityUtil.equals(process, other, filters));
+        Assert.assertFalse(EntityUtil.equals(process, other, new String[]{"tags"}));
+    }
+
+    // flattening used by EntityUtil.stringOf before it streamed the properties in order
+    @SuppressWarnings("rawtypes")
+    private static String legacyStringOf(Object obj, String[] filterProps) throws Exception {
+        Map<String, String> map = new HashMap<String, String>();
+        legacyMapToProperties(obj, null, map, filterProps);
+        List<String> keyList = new ArrayList<String>(map.keySet());
+        Collections.sort(keyList);
+        StringBuilder builder = new StringBuilder();
+        for (String key : keyList) {
+            builder.append(key).append('=').append(map.get(key)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void legacyMapToProperties(Object obj, String name, Map<String, String> propMap,
+                                              String[] filterProps) throws Exception {
+        if (obj == null) {
+            return;
+        }
+        if (Date.class.isAssignableFrom(obj.getClass())) {
+            propMap.put(name, SchemaHelper.formatDateUTC((Date) obj));
+        } else if (obj.getClass().getPackage().getName().equals("java.lang")) {
+            propMap.put(name, String.valueOf(obj));
+        } else if (TimeZone.class.isAssignableFrom(obj.getClass())) {
+            propMap.put(name, ((TimeZone) obj).getID());
+        } else if (Enum.class.isAssignableFrom(obj.getClass())) {
+            propMap.put(name, ((Enum) obj).name());
+        } else if (List.class.isAssignableFrom(obj.getClass())) {
+            List list = (List) obj;
+            for (int index = 0; index < list.size(); index++) {
+                legacyMapToProperties(list.get(index), name + "[" + index + "]", propMap, filterProps);
+            }
+        } else {
+            try {
+                Method method = obj.getClass().getDeclaredMethod("toString");
+                propMap.put(name, (String) method.invoke(obj));
+            } catch (NoSuchMethodException e) {
+                Map map = PropertyUtils.describe(obj);
+                for (Object entry : map.entrySet()) {
+                    String key = (String) ((Map.Entry) entry).getKey();
+                    if (!key.equals("class")) {
+                        legacyMapToProperties(map.get(key), name != null ? name + "." + key : key, propMap,
+                                filterProps);
+                    }
+                }
+            }
+        }
+    }
+
     private static Date getDate(String date) throws Exception {
         DateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm Z");
         return format.parse(date);
@@ -0,0 +1,216 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity.store;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.entity.v0.EntityType;
+import org.apache.falcon.entity.v0.cluster.Cluster;
+import org.apache.falcon.entity.v0.feed.Feed;
+import org.apache.falcon.entity.v0.process.Process;
+import org.apache.falcon.service.ConfigurationChangeListener;
+import org.apache.falcon.util.StartupProperties;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for restoring the configuration store on startup.
+ */
+public class ConfigurationStoreRestoreTest {
+
+    private static final String PROCESS_XML = "/config/process/process-0.1.xml";
+    private static final String FEED_XML = "/config/feed/feed-0.1.xml";
+    private static final String CLUSTER_XML = "/config/cluster/cluster-0.1.xml";
+
+    private ConfigurationStore store;
+    private FileSystem fs;
+    private Path storePath;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        String location = StartupProperties.get().getProperty("config.store.uri") + "-" + getClass().getName();
+        StartupProperties.get().setProperty("config.store.uri", location);
+        storePath = new Path(location);
+        fs = FileSystem.get(storePath.toUri(), new Configuration());
+        fs.delete(storePath, true);
+
+        StartupProperties.get().setProperty("configstore.listeners", "");
+        store = ConfigurationStore.get();
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+        StartupProperties.get().setProperty("config.store.restore.mode", "eager");
+        fs.delete(storePath, true);
+    }
+
+    @Test
+    public void testLazyRestore() throws Exception {
+        writeEntity(EntityType.CLUSTER, CLUSTER_XML, "lazy-cluster");
+        writeEntity(EntityType.FEED, FEED_XML, "lazy-feed");
+        writeEntity(EntityType.PROCESS, PROCESS_XML, "lazy-process");
+
+        StartupProperties.get().setProperty("config.store.restore.mode", "lazy");
+        store.init();
+
+        Assert.assertTrue(store.getEntities(EntityType.PROCESS).contains("lazy-process"));
+        Process process = store.get(EntityType.PROCESS, "lazy-process");
+        Assert.assertNotNull(process);
+        Assert.assertEquals(process.getName(), "lazy-process");
+        Feed feed = store.get(EntityType.FEED, "lazy-feed");
+        Assert.assertEquals(feed.getName(), "lazy-feed");
+        Cluster cluster = store.get(EntityType.CLUSTER, "lazy-cluster");
+        Assert.assertEquals(cluster.getName(), "lazy-cluster");
+
+        Assert.assertTrue(store.remove(EntityType.PROCESS, "lazy-process"));
+        Assert.assertNull(store.get(EntityType.PROCESS, "lazy-process"));
+    }
+
+    @Test (dependsOnMethods = "testLazyRestore")
+    public void testParallelRestore() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            writeEntity(EntityType.FEED, FEED_XML, "feed-" + i);
+            writeEntity(EntityType.PROCESS, PROCESS_XML, "process-" + i);
+        }
+
+        StartupProperties.get().setProperty("config.store.restore.mode", "eager");
+        StartupProperties.get().setProperty("config.store.restore.threads", "4");
+        store.init();
+
+        for (int i = 0; i < 20; i++) {
+            Feed feed = store.get(EntityType.FEED, "feed-" + i);
+            Assert.assertEquals(feed.getName(), "feed-" + i);
+            Process process = store.get(EntityType.PROCESS, "process-" + i);
+            Assert.assertEquals(process.getName(), "process-" + i);
+        }
+    }
+
+    @Test (dependsOnMethods = "testParallelRestore")
+    public void testChangeWaitsForLazyReload() throws Exception {
+        final Process process = (Process) writeEntity(EntityType.PROCESS, PROCESS_XML, "reloaded-process");
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch reloading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ConfigurationChangeListener listener = new ConfigurationChangeListener() {
+            @Override
+            public void onAdd(Entity entity) {
+            }
+
+            @Override
+            public void onRemove(Entity entity) {
+            }
+
+            @Override
+            public void onChange(Entity oldEntity, Entity newEntity) {
+                events.add("change");
+            }
+
+            @Override
+            public void onReload(Entity entity) throws FalconException {
+                if (entity.getName().equals("reloaded-process")) {
+                    events.add("reload");
+                    reloading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new FalconException(e);
+                    }
+                }
+            }
+        };
+        store.registerListener(listener);
+        try {
+            StartupProperties.get().setProperty("config.store.restore.mode", "lazy");
+            store.init();
+            Thread reader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        store.get(EntityType.PROCESS, "reloaded-process");
+                    } catch (FalconException e) {
+                        events.add(e.toString());
+                    }
+                }
+            });
+            reader.start();
+            Assert.assertTrue(reloading.await(10, TimeUnit.SECONDS));
+
+            Thread updater = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        store.initiateUpdate(process);
+                        try {
+                            store.update(EntityType.PROCESS, process);
+                        } finally {
+                            store.cleanupUpdateInit();
+                        }
+                    } catch (FalconException e) {
+                        events.add(e.toString());
+                    }
+                }
+            });
+            updater.start();
+            updater.join(500);
+            Assert.assertEquals(events, Arrays.asList("reload"));
+
+            release.countDown();
+            updater.join();
+            reader.join();
+            Assert.assertEquals(events, Arrays.asList("reload", "change"));
+        } finally {
+            release.countDown();
+            store.unregisterListener(listener);
+        }
+    }
+
+    private Entity writeEntity(EntityType type, String resource, String name) throws Exception {
+        Entity entity = (Entity) type.getUnmarshaller().unmarshal(getClass().getResource(resource));
+        if (entity instanceof Cluster) {
+            ((Cluster) entity).setName(name);
+        } else if (entity instanceof Feed) {
+            ((Feed) entity).setName(name);
+        } else {
+            ((Process) entity).setName(name);
+        }
+
+        OutputStream out = fs.create(new Path(storePath,
+                type + Path.SEPARATOR + URLEncoder.encode(name, "UTF-8") + ".xml"));
+        try {
+            type.getMarshaller().marshal(entity, out);
+        } finally {
+            out.close();
+        }
+        return entity;
+    }
+}
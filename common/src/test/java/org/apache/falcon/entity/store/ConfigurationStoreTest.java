@@ -36,6 +36,13 @@ import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Tests for validating configuration store.
@@ -156,6 +163,108 @@ public class ConfigurationStoreTest {
         Assert.assertNull(p2);
     }
 
+    @Test
+    public void testConcurrentPublishAndUpdate() throws Exception {
+        final int threads = 8;
+        final int entities = 10;
+        final int updates = 25;
+        final RecordingListener recorder = new RecordingListener();
+        for (int i = 0; i < entities; i++) {
+            Process process = new Process();
+            process.setName("shared" + i);
+            store.publish(EntityType.PROCESS, process);
+        }
+        store.registerListener(recorder);
+
+        final AtomicInteger published = new AtomicInteger();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < updates; i++) {
+                            // every thread races to publish the same names, only one may win
+                            Process contended = new Process();
+                            contended.setName("contended" + i);
+                            try {
+                                store.publish(EntityType.PROCESS, contended);
+                                published.incrementAndGet();
+                            } catch (EntityAlreadyExistsException expected) {
+                                // lost the race
+                            }
+
+                            Process process = new Process();
+                            process.setName("shared" + ((thread + i) % entities));
+                            process.setTags("version=" + thread + "-" + i);
+                            store.initiateUpdate(process);
+                            try {
+                                store.update(EntityType.PROCESS, process);
+                            } finally {
+                                store.cleanupUpdateInit();
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        store.unregisterListener(recorder);
+
+        Assert.assertTrue(failures.isEmpty(), "Failures: " + failures);
+        Assert.assertTrue(recorder.violations.isEmpty(), "Lost updates: " + recorder.violations);
+        Assert.assertEquals(published.get(), updates);
+        Assert.assertEquals(recorder.added.get(), updates);
+        Assert.assertEquals(recorder.changed.get(), threads * updates);
+        for (int i = 0; i < entities; i++) {
+            Process process = store.get(EntityType.PROCESS, "shared" + i);
+            Assert.assertSame(process, recorder.latest.get("shared" + i));
+        }
+    }
+
+    /**
+     * Checks that every change of an entity is based on the previous change.
+     */
+    private class RecordingListener implements ConfigurationChangeListener {
+        private final AtomicInteger added = new AtomicInteger();
+        private final AtomicInteger changed = new AtomicInteger();
+        private final Map<String, Entity> latest = new ConcurrentHashMap<String, Entity>();
+        private final List<String> violations = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void onAdd(Entity entity) {
+            added.incrementAndGet();
+        }
+
+        @Override
+        public void onRemove(Entity entity) {
+        }
+
+        @Override
+        public void onChange(Entity oldEntity, Entity newEntity) {
+            Entity previous = latest.put(newEntity.getName(), newEntity);
+            if (previous != null && previous != oldEntity) {
+                violations.add(newEntity.getName());
+            }
+            changed.incrementAndGet();
+        }
+
+        @Override
+        public void onReload(Entity entity) {
+        }
+    }
+
     @BeforeSuite
     @AfterSuite
     public void cleanup() throws IOException {
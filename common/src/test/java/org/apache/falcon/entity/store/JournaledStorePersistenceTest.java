@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.entity.store;
+
+import org.apache.falcon.entity.v0.EntityType;
+import org.apache.falcon.entity.v0.feed.Feed;
+import org.apache.falcon.entity.v0.process.Process;
+import org.apache.falcon.util.StartupProperties;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the snapshot and journal based persistence of the configuration store.
+ */
+public class JournaledStorePersistenceTest {
+
+    private static final String PROCESS_XML = "/config/process/process-0.1.xml";
+    private static final String FEED_XML = "/config/feed/feed-0.1.xml";
+
+    private FileSystem fs;
+    private Path storePath;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        storePath = new Path(StartupProperties.get().getProperty("config.store.uri") + "-" + getClass().getName());
+        fs = FileSystem.get(storePath.toUri(), new Configuration());
+        fs.delete(storePath, true);
+        fs.mkdirs(storePath);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        StartupProperties.get().remove("config.store.journal.compaction.threshold");
+        fs.delete(storePath, true);
+    }
+
+    @Test
+    public void testReplayAfterRestart() throws Exception {
+        JournaledStorePersistence persistence = newPersistence();
+        persistence.persist(EntityType.FEED, newFeed("feed1"));
+        persistence.persist(EntityType.FEED, newFeed("feed2"));
+        persistence.persist(EntityType.PROCESS, newProcess("process1"));
+        persistence.archive(EntityType.FEED, "feed2");
+        persistence.close();
+
+        persistence = newPersistence();
+        Assert.assertEquals(persistence.list(EntityType.FEED).size(), 1);
+        Assert.assertEquals(persistence.restore(EntityType.FEED, "feed1").getName(), "feed1");
+        Assert.assertEquals(persistence.restore(EntityType.PROCESS, "process1").getName(), "process1");
+        Assert.assertTrue(fs.exists(new Path(storePath, "archive/FEED")));
+
+        // closed persistence rolls over to a new journal instead of overwriting the old one
+        persistence.close();
+        persistence.persist(EntityType.FEED, newFeed("feed3"));
+        persistence.close();
+        Assert.assertEquals(newPersistence().list(EntityType.FEED).size(), 2);
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        StartupProperties.get().setProperty("config.store.journal.compaction.threshold", "3");
+        JournaledStorePersistence persistence = newPersistence();
+        for (int i = 0; i < 10; i++) {
+            persistence.persist(EntityType.FEED, newFeed("feed" + i));
+        }
+        persistence.close();
+
+        Assert.assertEquals(fs.globStatus(new Path(storePath, "journal.*")).length, 1);
+        Assert.assertEquals(newPersistence().list(EntityType.FEED).size(), 10);
+    }
+
+    @Test
+    public void testShortJournalIsNotCompactedOnStartup() throws Exception {
+        JournaledStorePersistence persistence = newPersistence();
+        persistence.persist(EntityType.FEED, newFeed("feed1"));
+        persistence.persist(EntityType.FEED, newFeed("feed2"));
+        persistence.close();
+
+        // replayed journal is kept and an empty one is started after it, restarts reuse the empty one
+        newPersistence().close();
+        newPersistence().close();
+        Assert.assertEquals(fs.globStatus(new Path(storePath, "journal.*")).length, 2);
+
+        StartupProperties.get().setProperty("config.store.journal.compaction.threshold", "2");
+        persistence = newPersistence();
+        persistence.close();
+        Assert.assertEquals(fs.globStatus(new Path(storePath, "journal.*")).length, 1);
+        Assert.assertEquals(newPersistence().list(EntityType.FEED).size(), 2);
+    }
+
+    @Test
+    public void testConcurrentChanges() throws Exception {
+        StartupProperties.get().setProperty("config.store.journal.compaction.threshold", "7");
+        final JournaledStorePersistence persistence = newPersistence();
+        final List<Exception> failures = Collections.synchronizedList(new ArrayList<Exception>());
+        List<Thread> writers = new ArrayList<Thread>();
+        for (int writer = 0; writer < 4; writer++) {
+            final int first = writer * 10;
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = first; i < first + 10; i++) {
+                            persistence.persist(EntityType.FEED, newFeed("feed" + i));
+                        }
+                        persistence.archive(EntityType.FEED, "feed" + first);
+                    } catch (Exception e) {
+                        failures.add(e);
+                    }
+                }
+            };
+            writers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : writers) {
+            thread.join();
+        }
+        persistence.close();
+
+        Assert.assertEquals(failures, Collections.emptyList());
+        Assert.assertEquals(newPersistence().list(EntityType.FEED).size(), 36);
+    }
+
+    @Test
+    public void testImportOnFirstStart() throws Exception {
+        XmlFileStorePersistence xmlPersistence = new XmlFileStorePersistence();
+        xmlPersistence.init(fs, storePath);
+        xmlPersistence.persist(EntityType.FEED, newFeed("feed1"));
+        xmlPersistence.persist(EntityType.PROCESS, newProcess("process1"));
+
+        JournaledStorePersistence persistence = newPersistence();
+        Assert.assertEquals(persistence.restore(EntityType.FEED, "feed1").getName(), "feed1");
+        Assert.assertEquals(persistence.restore(EntityType.PROCESS, "process1").getName(), "process1");
+        persistence.archive(EntityType.FEED, "feed1");
+        persistence.close();
+
+        // the snapshot is read from then on
+        Assert.assertEquals(newPersistence().list(EntityType.FEED).size(), 0);
+    }
+
+    private JournaledStorePersistence newPersistence() throws Exception {
+        JournaledStorePersistence persistence = new JournaledStorePersistence();
+        persistence.init(fs, storePath);
+        return persistence;
+    }
+
+    private Feed newFeed(String name) throws Exception {
+        Feed feed = (Feed) EntityType.FEED.getUnmarshaller().unmarshal(getClass().getResource(FEED_XML));
+        feed.setName(name);
+        return feed;
+    }
+
+    private Process newProcess(String name) throws Exception {
+        Process process = (Process) EntityType.PROCESS.getUnmarshaller().unmarshal(
+                getClass().getResource(PROCESS_XML));
+        process.setName(name);
+        return process;
+    }
+}
@@ -28,6 +28,10 @@ import org.apache.falcon.entity.v0.process.Process;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -279,5 +283,75 @@ public class EntityGraphTest extends AbstractTestBase {
 
     @Test
     public void testOnChange() throws Exception {
+        Cluster cluster = new Cluster();
+        cluster.setName("cc1");
+        Process oldProcess = newProcess("cp1", "cc1");
+        addInput(oldProcess, "cf1", cluster);
+        addOutput(oldProcess, "cf2", cluster);
+        graph.onAdd(oldProcess);
+
+        Process newProcess = newProcess("cp1", "cc1");
+        addInput(newProcess, "cf1", cluster);
+        addOutput(newProcess, "cf3", cluster);
+        graph.onChange(oldProcess, newProcess);
+
+        Assert.assertEquals(names(graph.getDownstream(newProcess, 1)), Collections.singletonList("cf3"));
+        Assert.assertEquals(names(graph.getUpstream(newProcess, 1)), Collections.singletonList("cf1"));
+
+        // the feed dropped from the process is not referenced anymore
+        Feed feed = new Feed();
+        feed.setName("cf2");
+        Assert.assertTrue(graph.getUpstream(feed, 1).isEmpty());
+
+        graph.onRemove(newProcess);
+        Assert.assertTrue(graph.getDownstream(newProcess, 1).isEmpty());
+    }
+
+    @Test
+    public void testTraversal() throws Exception {
+        Cluster cluster = new Cluster();
+        cluster.setName("tc1");
+        // tf1 -> tp1 -> tf2 -> tp2 -> tf3 -> tp3 -> tf4
+        Process p1 = newProcess("tp1", "tc1");
+        Feed f1 = addInput(p1, "tf1", cluster);
+        addOutput(p1, "tf2", cluster);
+        Process p2 = newProcess("tp2", "tc1");
+        addInput(p2, "tf2", cluster);
+        addOutput(p2, "tf3", cluster);
+        Process p3 = newProcess("tp3", "tc1");
+        addInput(p3, "tf3", cluster);
+        Feed f4 = addOutput(p3, "tf4", cluster);
+        graph.onAdd(p1);
+        graph.onAdd(p2);
+        graph.onAdd(p3);
+
+        Assert.assertEquals(names(graph.getDownstream(f1, 2)), Arrays.asList("tp1", "tf2"));
+        Assert.assertEquals(names(graph.getDownstream(f1, Integer.MAX_VALUE)),
+                Arrays.asList("tp1", "tf2", "tp2", "tf3", "tp3", "tf4"));
+        Assert.assertEquals(names(graph.getUpstream(f4, 3)), Arrays.asList("tp3", "tf3", "tp2"));
+        Assert.assertEquals(names(graph.getUpstream(p2, 1)), Collections.singletonList("tf2"));
+        Assert.assertTrue(graph.getUpstream(f1, Integer.MAX_VALUE).isEmpty());
+
+        graph.onRemove(p1);
+        graph.onRemove(p2);
+        graph.onRemove(p3);
+    }
+
+    private Process newProcess(String name, String cluster) {
+        Process process = new Process();
+        process.setName(name);
+        org.apache.falcon.entity.v0.process.Cluster processCluster = new org.apache.falcon.entity.v0.process.Cluster();
+        processCluster.setName(cluster);
+        process.setClusters(new org.apache.falcon.entity.v0.process.Clusters());
+        process.getClusters().getClusters().add(processCluster);
+        return process;
+    }
+
+    private List<String> names(Set<EntityGraph.Node> nodes) {
+        List<String> names = new ArrayList<String>();
+        for (EntityGraph.Node node : nodes) {
+            names.add(node.getName());
+        }
+        return names;
     }
 }
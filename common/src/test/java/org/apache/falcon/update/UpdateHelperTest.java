@@ -44,6 +44,7 @@ import org.apache.falcon.entity.v0.process.Process;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -52,6 +53,7 @@ import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
 
 /**
  * Test for Update helper methods.
@@ -113,6 +115,31 @@ public class UpdateHelperTest extends AbstractTestBase {
         Assert.assertTrue(fs.exists(new Path(dest, "workflow.xml")) && fs.isFile(new Path(dest, "workflow.xml")));
     }
 
+    @Test
+    public void testChecksumsOfUnchangedFilesAreReused() throws Exception {
+        FileSystem fs = Mockito.spy(dfsCluster.getFileSystem());
+        Path libdir = new Path("/tmp/checksums/lib");
+        Path lib = new Path(libdir, "nested/common.jar");
+        Path other = new Path(libdir, "other.jar");
+        fs.create(lib).close();
+        fs.create(other).close();
+        Path qualifiedLib = fs.getFileStatus(lib).getPath();
+        Path qualifiedOther = fs.getFileStatus(other).getPath();
+
+        Map<String, String> checksums = UpdateHelper.checksumAndCopy(fs, libdir, null);
+        Assert.assertEquals(checksums.size(), 2);
+        Assert.assertEquals(UpdateHelper.checksumAndCopy(fs, libdir, null), checksums);
+        Mockito.verify(fs, Mockito.times(1)).getFileChecksum(qualifiedLib);
+
+        // a file that changed is checksummed again
+        FSDataOutputStream stream = fs.create(other, true);
+        stream.writeChars("changed");
+        stream.close();
+        Assert.assertNotEquals(UpdateHelper.checksumAndCopy(fs, libdir, null), checksums);
+        Mockito.verify(fs, Mockito.times(1)).getFileChecksum(qualifiedLib);
+        Mockito.verify(fs, Mockito.times(2)).getFileChecksum(qualifiedOther);
+    }
+
     @Test
     public void testIsWorkflowUpdated() throws IOException, FalconException {
         FileSystem fs = dfsCluster.getFileSystem();
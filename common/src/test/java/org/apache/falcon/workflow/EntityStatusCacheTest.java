@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow;
+
+import org.apache.falcon.entity.v0.cluster.Cluster;
+import org.apache.falcon.entity.v0.process.Process;
+import org.apache.falcon.workflow.engine.AbstractWorkflowEngine;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the entity status cache.
+ */
+public class EntityStatusCacheTest {
+
+    private AbstractWorkflowEngine engine;
+    private EntityStatusCache cache;
+    private Process process;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        engine = Mockito.mock(AbstractWorkflowEngine.class);
+        cache = new EntityStatusCache(engine);
+        process = new Process();
+        process.setName("sample");
+    }
+
+    @Test
+    public void testStatusIsCached() throws Exception {
+        Mockito.when(engine.isActive(process)).thenReturn(true);
+        Mockito.when(engine.isSuspended(process)).thenReturn(false);
+
+        Assert.assertEquals(cache.getStatus(process), EntityStatusCache.EntityStatus.RUNNING);
+        Assert.assertEquals(cache.getStatus(process), EntityStatusCache.EntityStatus.RUNNING);
+        Mockito.verify(engine, Mockito.times(1)).isActive(process);
+    }
+
+    @Test
+    public void testActionsInvalidateStatus() throws Exception {
+        Mockito.when(engine.isActive(process)).thenReturn(true);
+        Mockito.when(engine.isSuspended(process)).thenReturn(false);
+        Assert.assertEquals(cache.getStatus(process), EntityStatusCache.EntityStatus.RUNNING);
+
+        Mockito.when(engine.isSuspended(process)).thenReturn(true);
+        cache.afterSuspend(process, "cluster");
+        Assert.assertEquals(cache.getStatus(process), EntityStatusCache.EntityStatus.SUSPENDED);
+
+        Mockito.when(engine.isActive(process)).thenReturn(false);
+        cache.afterDelete(process, "cluster");
+        Assert.assertEquals(cache.getStatus(process), EntityStatusCache.EntityStatus.SUBMITTED);
+        Mockito.verify(engine, Mockito.times(3)).isActive(process);
+    }
+
+    @Test
+    public void testInvalidationsAreLookedUpOnRead() throws Exception {
+        Mockito.when(engine.isActive(process)).thenReturn(true);
+        Mockito.when(engine.isSuspended(process)).thenReturn(false);
+        Assert.assertEquals(cache.getStatus(process), EntityStatusCache.EntityStatus.RUNNING);
+
+        // job end notifications of many instances
+        for (int i = 0; i < 10; i++) {
+            cache.invalidate(process.getEntityType(), process.getName());
+        }
+        Mockito.verify(engine, Mockito.times(1)).isActive(process);
+
+        // a look up started in the same millisecond as an invalidation isn't cached
+        Thread.sleep(10);
+        Assert.assertEquals(cache.getStatus(process), EntityStatusCache.EntityStatus.RUNNING);
+        Assert.assertEquals(cache.getStatus(process), EntityStatusCache.EntityStatus.RUNNING);
+        Mockito.verify(engine, Mockito.times(2)).isActive(process);
+    }
+
+    @Test
+    public void testNonSchedulableEntityIsSubmitted() throws Exception {
+        Cluster cluster = new Cluster();
+        cluster.setName("cluster");
+
+        Assert.assertEquals(cache.getStatus(cluster), EntityStatusCache.EntityStatus.SUBMITTED);
+        Mockito.verifyZeroInteractions(engine);
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.falcon.oozie;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.falcon.FalconException;
 import org.apache.falcon.entity.ClusterHelper;
 import org.apache.falcon.entity.EntityUtil;
@@ -46,6 +47,7 @@ import javax.xml.bind.Unmarshaller;
 import javax.xml.transform.stream.StreamSource;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Properties;
@@ -124,10 +126,18 @@ public abstract class OozieBundleBuilder<T extends Entity> extends OozieEntityBu
             properties.putAll(getHiveCredentials(cluster));
         }
 
-        //Add libpath
+        //Add libpath, the user libs and the falcon jars shared by all the builds
+        List<String> libPaths = new ArrayList<String>();
         Path libPath = getLibPath(cluster, buildPath);
         if (libPath != null) {
-            properties.put(OozieClient.LIBPATH, getStoragePath(libPath));
+            libPaths.add(getStoragePath(libPath));
+        }
+        Path sharedLibPath = copySharedLibs(cluster);
+        if (sharedLibPath != null) {
+            libPaths.add(getStoragePath(sharedLibPath));
+        }
+        if (!libPaths.isEmpty()) {
+            properties.put(OozieClient.LIBPATH, StringUtils.join(libPaths, ','));
         }
 
         return properties;
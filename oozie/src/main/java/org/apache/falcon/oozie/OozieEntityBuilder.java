@@ -49,15 +49,19 @@ import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.util.JAXBSource;
+import javax.xml.namespace.QName;
 import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Base class for building oozie entities - workflow, coordinator and bundle.
@@ -89,6 +93,9 @@ public abstract class OozieEntityBuilder<T extends Entity> {
         }
     };
 
+    // templates parsed once, every build gets its own copy
+    private static final ConcurrentMap<String, Object> TEMPLATES = new ConcurrentHashMap<String, Object>();
+
     protected T entity;
     protected final boolean isSecurityEnabled = SecurityUtil.isSecurityEnabled();
 
@@ -132,19 +139,19 @@ public abstract class OozieEntityBuilder<T extends Entity> {
         try {
             Marshaller marshaller = jaxbContext.createMarshaller();
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+            ByteArrayOutputStream definition = new ByteArrayOutputStream();
+            marshaller.marshal(jaxbElement, definition);
 
             if (LOG.isDebugEnabled()) {
-                StringWriter writer = new StringWriter();
-                marshaller.marshal(jaxbElement, writer);
                 LOG.debug("Writing definition to {} on cluster {}", outPath, cluster.getName());
-                LOG.debug(writer.getBuffer().toString());
+                LOG.debug(definition.toString("UTF-8"));
             }
 
             FileSystem fs = HadoopClientFactory.get().createFileSystem(
                 outPath.toUri(), ClusterHelper.getConfiguration(cluster));
             OutputStream out = fs.create(outPath);
             try {
-                marshaller.marshal(jaxbElement, out);
+                definition.writeTo(out);
             } finally {
                 out.close();
             }
@@ -259,10 +266,39 @@ public abstract class OozieEntityBuilder<T extends Entity> {
         props.put(prefix + "_table", tableStorage.getTable());
     }
 
-    protected void copySharedLibs(Cluster cluster, Path libPath) throws FalconException {
+    /**
+     * @return lib dir of the cluster the falcon jars are shared from, named after their checksums,
+     * null if there are no falcon jars
+     */
+    public static Path getSharedLibPath(Cluster cluster) throws FalconException {
+        String src = StartupProperties.get().getProperty("system.lib.location");
+        try {
+            String digest = SharedLibraryHostingService.getDigest(src, FALCON_JAR_FILTER);
+            if (digest == null) {
+                return null;
+            }
+            return new Path(ClusterHelper.getLocation(cluster, "working"), "lib/falcon/" + digest);
+        } catch (IOException e) {
+            throw new FalconException("Failed to read shared libs from " + src, e);
+        }
+    }
+
+    /**
+     * Pushes the falcon jars to the shared lib dir of the cluster, which the builds of all the entities refer to
+     * instead of getting their own copy.
+     *
+     * @return the lib dir, null if there are no falcon jars to push
+     */
+    protected Path copySharedLibs(Cluster cluster) throws FalconException {
+        Path libPath = getSharedLibPath(cluster);
+        if (libPath == null) {
+            return null;
+        }
+
         try {
             SharedLibraryHostingService.pushLibsToHDFS(StartupProperties.get().getProperty("system.lib.location"),
                 libPath, cluster, FALCON_JAR_FILTER);
+            return libPath;
         } catch (IOException e) {
             throw new FalconException("Failed to copy shared libs on cluster " + cluster.getName(), e);
         }
@@ -284,6 +320,28 @@ public abstract class OozieEntityBuilder<T extends Entity> {
     }
 
     protected <T> T unmarshal(String template, JAXBContext context, Class<T> cls) throws FalconException {
+        Object prototype = TEMPLATES.get(template);
+        if (prototype == null) {
+            prototype = parse(template, context, cls);
+            Object parsed = TEMPLATES.putIfAbsent(template, prototype);
+            if (parsed != null) {
+                prototype = parsed;
+            }
+        }
+
+        // copies the prototype through jaxb events, which is cheaper than reading and parsing the template
+        try {
+            Unmarshaller unmarshaller = context.createUnmarshaller();
+            synchronized (prototype) {
+                return unmarshaller.unmarshal(new JAXBSource(context,
+                    new JAXBElement<T>(new QName("template"), cls, cls.cast(prototype))), cls).getValue();
+            }
+        } catch (JAXBException e) {
+            throw new FalconException("Failed to copy " + template, e);
+        }
+    }
+
+    private <T> T parse(String template, JAXBContext context, Class<T> cls) throws FalconException {
         InputStream resourceAsStream = null;
         try {
             resourceAsStream = OozieEntityBuilder.class.getResourceAsStream(template);
@@ -304,7 +362,7 @@ public abstract class OozieEntityBuilder<T extends Entity> {
             return ProcessHelper.getUserLibPath((Process) entity, cluster, buildPath);
 
         case FEED:
-            return new Path(buildPath, "lib");
+            return null;
 
         default:
         }
@@ -52,10 +52,6 @@ public class FeedBundleBuilder extends OozieBundleBuilder<Feed> {
             props.addAll(replicationProps);
         }
 
-        if (!props.isEmpty()) {
-            copySharedLibs(cluster, getLibPath(cluster, buildPath));
-        }
-
         return props;
     }
 }
@@ -72,7 +72,6 @@ public class ProcessExecutionCoordinatorBuilder extends OozieCoordinatorBuilder<
     @Override public List<Properties> buildCoords(Cluster cluster, Path buildPath) throws FalconException {
         String coordName = getEntityName();
         Path coordPath = getBuildPath(buildPath);
-        copySharedLibs(cluster, new Path(coordPath, "lib"));
 
         COORDINATORAPP coord = new COORDINATORAPP();
         // coord attributes
@@ -18,6 +18,8 @@
 
 package org.apache.falcon.service;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.falcon.FalconException;
 import org.apache.falcon.entity.ClusterHelper;
@@ -35,12 +37,39 @@ import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Host shared libraries in oozie shared lib dir upon creation or modification of cluster.
+ * The checksums of the jars pushed to a dir are kept in a manifest on the cluster, so that only the jars that
+ * changed are uploaded, in parallel. Pushing the same jars to the same dir again doesn't call the cluster.
  */
 public class SharedLibraryHostingService implements ConfigurationChangeListener {
     private static final Logger LOG = LoggerFactory.getLogger(SharedLibraryHostingService.class);
@@ -69,7 +98,38 @@ public class SharedLibraryHostingService implements ConfigurationChangeListener
         }
     };
 
+    private static final String UTF_8 = "UTF-8";
+
+    // checksums of the local jars by path, length and modification time
+    private static final ConcurrentMap<String, String> CHECKSUMS = new ConcurrentHashMap<String, String>();
+    // digest of the jars last pushed to a dir of a cluster
+    private static final ConcurrentMap<String, String> PUSHED = new ConcurrentHashMap<String, String>();
+    private static final ThreadPoolExecutor UPLOADS;
+
+    static {
+        int threads = Integer.parseInt(StartupProperties.get().getProperty("shared.libs.push.threads", "8"));
+        UPLOADS = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "shared-lib-push-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        UPLOADS.allowCoreThreadTimeOut(true);
+    }
+
     private void addLibsTo(Cluster cluster) throws FalconException {
+        // the cluster may point to another file system now, check what it holds
+        for (Iterator<String> iterator = PUSHED.keySet().iterator(); iterator.hasNext();) {
+            if (iterator.next().startsWith(cluster.getName() + '\t')) {
+                iterator.remove();
+            }
+        }
+
         Path lib = new Path(ClusterHelper.getLocation(cluster, "working"), "lib");
         Path libext = new Path(ClusterHelper.getLocation(cluster, "working"), "libext");
         try {
@@ -95,8 +155,19 @@ public class SharedLibraryHostingService implements ConfigurationChangeListener
             return;
         }
 
+        Map<String, File> jars = getJars(src, pathFilter);
+        Map<String, String> checksums = new TreeMap<String, String>();
+        for (Map.Entry<String, File> jar : jars.entrySet()) {
+            checksums.put(jar.getKey(), getChecksum(jar.getValue()));
+        }
+        String digest = getDigest(checksums);
+        String pushedKey = cluster.getName() + '\t' + ClusterHelper.getStorageUrl(cluster) + '\t' + target;
+        if (digest.equals(PUSHED.get(pushedKey))) {
+            return;
+        }
+
         LOG.debug("Copying libs from {}", src);
-        FileSystem fs;
+        final FileSystem fs;
         try {
             fs = getFileSystem(cluster);
             fs.getConf().set("dfs.umaskmode", "022");  // drwxr-xr-x
@@ -104,11 +175,82 @@ public class SharedLibraryHostingService implements ConfigurationChangeListener
             throw new FalconException("Unable to connect to HDFS: "
                     + ClusterHelper.getStorageUrl(cluster), e);
         }
-        if (!fs.exists(target) && !fs.mkdirs(target)) {
+        if (!fs.mkdirs(target)) {
             throw new FalconException("mkdir " + target + " failed");
         }
 
-        for(String srcPaths : src.split(",")) {
+        Path manifestPath = getManifestPath(cluster, target);
+        Map<String, String> manifest = readManifest(fs, manifestPath);
+        // the manifest outlives the jars when the dir is cleaned, only trust it for the jars still there
+        Map<String, Long> present = new HashMap<String, Long>();
+        FileStatus[] statuses = fs.listStatus(target);
+        if (statuses != null) {
+            for (FileStatus status : statuses) {
+                present.put(status.getPath().getName(), status.getLen());
+            }
+        }
+        Map<String, Future<?>> uploads = new TreeMap<String, Future<?>>();
+        for (Map.Entry<String, File> jar : jars.entrySet()) {
+            Long length = present.get(jar.getKey());
+            if (checksums.get(jar.getKey()).equals(manifest.get(jar.getKey()))
+                    && length != null && length == jar.getValue().length()) {
+                continue;
+            }
+            final Path srcFile = new Path(jar.getValue().getAbsolutePath());
+            final Path targetFile = new Path(target, jar.getKey());
+            uploads.put(jar.getKey(), UPLOADS.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    fs.copyFromLocalFile(false, true, srcFile, targetFile);
+                    LOG.info("Copied {} to {} in {}", srcFile, targetFile, fs.getUri());
+                    return null;
+                }
+            }));
+        }
+        if (uploads.isEmpty()) {
+            PUSHED.put(pushedKey, digest);
+            return;
+        }
+
+        IOException failure = null;
+        for (Map.Entry<String, Future<?>> upload : uploads.entrySet()) {
+            try {
+                upload.getValue().get();
+                manifest.put(upload.getKey(), checksums.get(upload.getKey()));
+            } catch (ExecutionException e) {
+                failure = e.getCause() instanceof IOException
+                    ? (IOException) e.getCause() : new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new IOException("Interrupted while copying libs to " + target, e);
+            }
+        }
+        // the jars that were copied are recorded even if others failed
+        writeManifest(fs, manifestPath, manifest);
+        if (failure != null) {
+            throw failure;
+        }
+        PUSHED.put(pushedKey, digest);
+    }
+
+    /**
+     * @return digest of the jars in src accepted by the filter, changes whenever one of them does,
+     * null if there are no such jars
+     */
+    public static String getDigest(String src, FalconPathFilter pathFilter) throws IOException {
+        Map<String, String> checksums = new TreeMap<String, String>();
+        if (StringUtils.isNotEmpty(src)) {
+            for (Map.Entry<String, File> jar : getJars(src, pathFilter).entrySet()) {
+                checksums.put(jar.getKey(), getChecksum(jar.getValue()));
+            }
+        }
+        return checksums.isEmpty() ? null : getDigest(checksums);
+    }
+
+    // jars to push by name on the cluster
+    private static Map<String, File> getJars(String src, FalconPathFilter pathFilter) {
+        Map<String, File> jars = new TreeMap<String, File>();
+        for (String srcPaths : src.split(",")) {
             File srcFile = new File(srcPaths);
             File[] srcFiles = new File[] { srcFile };
             if (srcFile.isDirectory()) {
@@ -116,6 +258,9 @@ public class SharedLibraryHostingService implements ConfigurationChangeListener
             }
 
             for (File file : srcFiles) {
+                if (!file.isFile()) {
+                    continue;
+                }
                 Path path = new Path(file.getAbsolutePath());
                 String jarName = StringUtils.removeEnd(path.getName(), ".jar");
                 if (pathFilter != null) {
@@ -124,17 +269,88 @@ public class SharedLibraryHostingService implements ConfigurationChangeListener
                     }
                     jarName = pathFilter.getJarName(path);
                 }
+                jars.put(jarName + ".jar", file);
+            }
+        }
+        return jars;
+    }
 
-                Path targetFile = new Path(target, jarName + ".jar");
-                if (fs.exists(targetFile)) {
-                    FileStatus fstat = fs.getFileStatus(targetFile);
-                    if (fstat.getLen() == file.length()) {
-                        continue;
-                    }
+    private static String getChecksum(File file) throws IOException {
+        String key = file.getAbsolutePath() + '\t' + file.length() + '\t' + file.lastModified();
+        String checksum = CHECKSUMS.get(key);
+        if (checksum == null) {
+            InputStream in = new FileInputStream(file);
+            try {
+                MessageDigest md5 = newMd5();
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    md5.update(buffer, 0, read);
                 }
-                fs.copyFromLocalFile(false, true, new Path(file.getAbsolutePath()), targetFile);
-                LOG.info("Copied {} to {} in {}", file.getAbsolutePath(), targetFile.toString(), fs.getUri());
+                checksum = new String(Hex.encodeHex(md5.digest()));
+            } finally {
+                IOUtils.closeQuietly(in);
             }
+            CHECKSUMS.put(key, checksum);
+        }
+        return checksum;
+    }
+
+    private static String getDigest(Map<String, String> checksums) throws IOException {
+        MessageDigest md5 = newMd5();
+        for (Map.Entry<String, String> checksum : checksums.entrySet()) {
+            md5.update((checksum.getKey() + '\t' + checksum.getValue() + '\n').getBytes(UTF_8));
+        }
+        return new String(Hex.encodeHex(md5.digest()));
+    }
+
+    private static MessageDigest newMd5() throws IOException {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // manifests are kept apart, every file of a lib dir is shipped with the workflows
+    private static Path getManifestPath(Cluster cluster, Path target) throws IOException {
+        return new Path(new Path(ClusterHelper.getLocation(cluster, "working"), "manifests"),
+            new String(Hex.encodeHex(newMd5().digest(target.toUri().getPath().getBytes(UTF_8)))));
+    }
+
+    private static Map<String, String> readManifest(FileSystem fs, Path manifestPath) throws IOException {
+        Map<String, String> manifest = new TreeMap<String, String>();
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(fs.open(manifestPath), UTF_8));
+        } catch (FileNotFoundException e) {
+            return manifest;
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                if (separator > 0) {
+                    manifest.put(line.substring(0, separator), line.substring(separator + 1));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return manifest;
+    }
+
+    private static void writeManifest(FileSystem fs, Path manifestPath, Map<String, String> manifest)
+        throws IOException {
+        List<String> lines = new ArrayList<String>();
+        for (Map.Entry<String, String> entry : manifest.entrySet()) {
+            lines.add(entry.getKey() + '\t' + entry.getValue());
+        }
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fs.create(manifestPath, true), UTF_8));
+        try {
+            IOUtils.writeLines(lines, "\n", writer);
+        } finally {
+            writer.close();
         }
     }
 
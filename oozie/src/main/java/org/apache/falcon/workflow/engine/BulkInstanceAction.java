@@ -0,0 +1,252 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.security.CurrentUser;
+import org.apache.falcon.util.StartupProperties;
+import org.apache.falcon.workflow.engine.OperationTracker.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.security.auth.Subject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs an instance action on the entities of a bulk request in the background. The work is grouped by cluster,
+ * each cluster having its own oozie server, and every server gets a few workers whose oozie changes are rate
+ * limited, so that rerunning hundreds of instances doesn't flood it. The progress is reported on the operation
+ * as entities are done and the operation is sealed once the last worker finished.
+ */
+final class BulkInstanceAction {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkInstanceAction.class);
+
+    private final Executor executor;
+    private final int workersPerCluster;
+    private final int changesPerSecond;
+
+    /**
+     * Acts on the instances of an entity on a cluster.
+     */
+    interface EntityAction {
+        /**
+         * @return number of instances acted on
+         */
+        int run(Entity entity, String cluster, Throttle throttle) throws FalconException;
+    }
+
+    BulkInstanceAction() {
+        this(newExecutor(Integer.parseInt(StartupProperties.get().getProperty("oozie.bulk.action.threads", "20"))),
+                Integer.parseInt(StartupProperties.get().getProperty("oozie.bulk.action.workers.per.cluster", "4")),
+                Integer.parseInt(StartupProperties.get().getProperty("oozie.bulk.action.changes.per.second", "20")));
+    }
+
+    BulkInstanceAction(Executor executor, int workersPerCluster, int changesPerSecond) {
+        this.executor = executor;
+        this.workersPerCluster = Math.max(workersPerCluster, 1);
+        this.changesPerSecond = changesPerSecond;
+    }
+
+    private static Executor newExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "oozie-bulk-action-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Starts acting on the entities of every cluster, returns right away.
+     */
+    void start(final Operation operation, Map<String, List<Entity>> entitiesByCluster, final EntityAction action) {
+        final Subject subject = CurrentUser.getSubject();
+        final Progress progress = new Progress(operation);
+        List<Runnable> workers = new ArrayList<Runnable>();
+        final AtomicInteger running = new AtomicInteger();
+        for (Map.Entry<String, List<Entity>> entry : entitiesByCluster.entrySet()) {
+            final String cluster = entry.getKey();
+            final Queue<Entity> entities = new ConcurrentLinkedQueue<Entity>(entry.getValue());
+            final Throttle throttle = new Throttle(changesPerSecond);
+            progress.add(entities.size());
+            for (int worker = 0; worker < Math.min(workersPerCluster, entities.size()); worker++) {
+                workers.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        CurrentUser.setSubject(subject);
+                        try {
+                            for (Entity entity = entities.poll(); entity != null; entity = entities.poll()) {
+                                try {
+                                    progress.done(action.run(entity, cluster, throttle));
+                                } catch (Throwable e) {
+                                    LOG.warn("Unable to act on instances of {} on cluster {}",
+                                            entity.toShortString(), cluster, e);
+                                    progress.failed(entity.toShortString() + " on " + cluster + ": "
+                                            + e.getMessage());
+                                }
+                            }
+                        } finally {
+                            CurrentUser.clear();
+                            if (running.decrementAndGet() == 0) {
+                                operation.seal();
+                            }
+                        }
+                    }
+                });
+            }
+        }
+
+        if (workers.isEmpty()) {
+            operation.seal();
+            return;
+        }
+        running.set(workers.size());
+        for (Runnable worker : workers) {
+            executor.execute(worker);
+        }
+    }
+
+    /**
+     * @return the numbers as ranges, "1-3,5" for 1, 2, 3 and 5
+     */
+    static String toRanges(Collection<Integer> numbers) {
+        StringBuilder ranges = new StringBuilder();
+        Integer first = null;
+        Integer last = null;
+        for (Integer number : new TreeSet<Integer>(numbers)) {
+            if (last != null && number == last + 1) {
+                last = number;
+                continue;
+            }
+            appendRange(ranges, first, last);
+            first = number;
+            last = number;
+        }
+        appendRange(ranges, first, last);
+        return ranges.toString();
+    }
+
+    private static void appendRange(StringBuilder ranges, Integer first, Integer last) {
+        if (first == null) {
+            return;
+        }
+        ranges.append(ranges.length() == 0 ? "" : ",").append(first);
+        if (!first.equals(last)) {
+            ranges.append('-').append(last);
+        }
+    }
+
+    /**
+     * Spaces out the changes made on an oozie server.
+     */
+    static final class Throttle {
+        private final long intervalNanos;
+        private long next = System.nanoTime();
+
+        Throttle(int perSecond) {
+            intervalNanos = perSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / perSecond : 0;
+        }
+
+        /**
+         * Waits for the turn of the next change.
+         */
+        void acquire() throws FalconException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long turn;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (next - now < 0) {
+                    next = now;
+                }
+                turn = next;
+                next += intervalNanos;
+            }
+            try {
+                // sleeps are rounded to milliseconds, they may end before the turn
+                for (long wait = turn - System.nanoTime(); wait > 0; wait = turn - System.nanoTime()) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FalconException("Interrupted while waiting to change instances", e);
+            }
+        }
+    }
+
+    /**
+     * Counts the entities done and reports them on the operation.
+     */
+    private static final class Progress {
+        private final Operation operation;
+        private int entities;
+        private int done;
+        private int failed;
+        private int instances;
+
+        private Progress(Operation operation) {
+            this.operation = operation;
+        }
+
+        private synchronized void add(int count) {
+            entities += count;
+            report();
+        }
+
+        private synchronized void done(int count) {
+            done++;
+            instances += count;
+            report();
+        }
+
+        private synchronized void failed(String failure) {
+            done++;
+            failed++;
+            operation.fail(failure);
+            report();
+        }
+
+        private void report() {
+            operation.setProgress(done + " of " + entities + " entities done, " + instances + " instances, "
+                    + failed + " failed");
+        }
+    }
+}
@@ -0,0 +1,443 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.falcon.FalconException;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.hadoop.HadoopClientFactory;
+import org.apache.falcon.util.StartupProperties;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ids of the bundles scheduled for every entity on every cluster, kept next to the configuration store.
+ * An entity that is not in the index has its bundles discovered through its staging paths and oozie.
+ * A bundle that finished after a later one replaced it is retired: only its coordinators are kept, with the
+ * app name and the times needed to tell whether they hold the instances asked for.
+ * Every entity on a cluster has its own record, read the first time it is asked for. The record of a process
+ * on a cluster is the file PROCESS/name/cluster.version under the index dir, holding the comma separated ids of
+ * the bundles on its first line and a tab separated line per retired coordinator. A change writes the next
+ * version aside and renames it in place before the earlier versions are deleted, so the highest version is
+ * always a complete record. Files are read and written outside the lock.
+ */
+public class BundleIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BundleIndex.class);
+
+    private static final String INDEX_DIR = "bundle-index";
+    private static final String UTF_8 = "UTF-8";
+
+    private static final BundleIndex INSTANCE = new BundleIndex();
+
+    // records read so far by entity and cluster, the ids are null if the entity is not indexed
+    private final Map<String, Record> records = new HashMap<String, Record>();
+    private FileSystem fs;
+    private Path indexPath;
+    // bumped whenever bundles are scheduled or deleted, discoveries that overlap a change are not recorded
+    private long generation;
+
+    public static BundleIndex get() {
+        return INSTANCE;
+    }
+
+    BundleIndex() {
+    }
+
+    BundleIndex(FileSystem fs, Path storePath) {
+        this.fs = fs;
+        this.indexPath = new Path(storePath, INDEX_DIR);
+    }
+
+    /**
+     * @return ids of the bundles of the entity on the cluster, or null when not indexed
+     */
+    public List<String> getBundleIds(Entity entity, String cluster) throws FalconException {
+        String key = load(entity, cluster);
+        synchronized (this) {
+            List<String> ids = records.get(key).ids;
+            return ids == null ? null : new ArrayList<String>(ids);
+        }
+    }
+
+    /**
+     * @return coordinators of the retired bundles of the entity on the cluster, or null when not indexed
+     */
+    public List<RetiredCoord> getRetiredCoords(Entity entity, String cluster) throws FalconException {
+        String key = load(entity, cluster);
+        synchronized (this) {
+            Record record = records.get(key);
+            return record.ids == null ? null : new ArrayList<RetiredCoord>(record.coords);
+        }
+    }
+
+    /**
+     * @return generation to pass to {@link #setBundleIds} for bundles discovered from now on
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Records the bundles discovered for the entity on the cluster along with the coordinators of the retired
+     * ones, empty lists record that none are scheduled. Nothing is recorded if bundles were scheduled or deleted
+     * since the discovery started.
+     */
+    public void setBundleIds(Entity entity, String cluster, Collection<String> ids,
+                             Collection<RetiredCoord> retiredCoords, long discoveryGeneration)
+        throws FalconException {
+        String key = load(entity, cluster);
+        Record record;
+        synchronized (this) {
+            if (discoveryGeneration != generation) {
+                return;
+            }
+            record = records.get(key).next(new ArrayList<String>(ids), new ArrayList<RetiredCoord>(retiredCoords));
+            records.put(key, record);
+        }
+        save(entity, cluster, record);
+    }
+
+    /**
+     * Records a bundle scheduled for the entity on the cluster. Entities not indexed yet are left to
+     * discovery, which finds the new bundle along with the earlier ones.
+     */
+    public void addBundleId(Entity entity, String cluster, String id) throws FalconException {
+        String key = load(entity, cluster);
+        Record record;
+        synchronized (this) {
+            generation++;
+            record = records.get(key);
+            if (record.ids == null || record.ids.contains(id)) {
+                return;
+            }
+            List<String> ids = new ArrayList<String>(record.ids);
+            ids.add(id);
+            record = record.next(ids, record.coords);
+            records.put(key, record);
+        }
+        save(entity, cluster, record);
+    }
+
+    /**
+     * Replaces a bundle that finished after a later one replaced it by its coordinators.
+     */
+    public void retireBundle(Entity entity, String cluster, String id, Collection<RetiredCoord> coords)
+        throws FalconException {
+        String key = load(entity, cluster);
+        Record record;
+        synchronized (this) {
+            record = records.get(key);
+            if (record.ids == null || !record.ids.contains(id)) {
+                return;
+            }
+            List<String> ids = new ArrayList<String>(record.ids);
+            ids.remove(id);
+            List<RetiredCoord> retired = new ArrayList<RetiredCoord>(record.coords);
+            retired.addAll(coords);
+            record = record.next(ids, retired);
+            records.put(key, record);
+        }
+        save(entity, cluster, record);
+    }
+
+    /**
+     * Drops bundles and retired coordinators that oozie no longer knows about.
+     */
+    public void removeJobIds(Entity entity, String cluster, Collection<String> ids)
+        throws FalconException {
+        String key = load(entity, cluster);
+        Record record;
+        synchronized (this) {
+            record = records.get(key);
+            if (record.ids == null) {
+                return;
+            }
+            List<String> indexed = new ArrayList<String>(record.ids);
+            List<RetiredCoord> retired = new ArrayList<RetiredCoord>();
+            for (RetiredCoord coord : record.coords) {
+                if (!ids.contains(coord.getId())) {
+                    retired.add(coord);
+                }
+            }
+            if (!indexed.removeAll(ids) && retired.size() == record.coords.size()) {
+                return;
+            }
+            record = record.next(indexed, retired);
+            records.put(key, record);
+        }
+        save(entity, cluster, record);
+    }
+
+    /**
+     * Forgets the entity on the cluster, its bundles are discovered again if asked for.
+     */
+    public void remove(Entity entity, String cluster) throws FalconException {
+        String key = load(entity, cluster);
+        Record record;
+        synchronized (this) {
+            generation++;
+            record = records.get(key);
+            if (record.ids == null) {
+                return;
+            }
+            record = record.next(null, Collections.<RetiredCoord>emptyList());
+            records.put(key, record);
+        }
+        delete(entity, cluster, record.version + 1);
+    }
+
+    private static String keyOf(Entity entity, String cluster) {
+        return entity.getEntityType().name() + '\t' + entity.getName() + '\t' + cluster;
+    }
+
+    private Path getEntityPath(Entity entity) throws FalconException {
+        synchronized (this) {
+            if (indexPath == null) {
+                Path storePath = new Path(StartupProperties.get().getProperty("config.store.uri"));
+                fs = HadoopClientFactory.get().createFileSystem(storePath.toUri());
+                indexPath = new Path(storePath, INDEX_DIR);
+            }
+        }
+        return new Path(new Path(indexPath, entity.getEntityType().name()), entity.getName());
+    }
+
+    // reads the record of the entity on the cluster unless it was already
+    private String load(Entity entity, String cluster) throws FalconException {
+        String key = keyOf(entity, cluster);
+        synchronized (this) {
+            if (records.containsKey(key)) {
+                return key;
+            }
+        }
+
+        Path entityPath = getEntityPath(entity);
+        Record record = new Record(null, Collections.<RetiredCoord>emptyList(), 0);
+        try {
+            FileStatus latest = null;
+            long version = 0;
+            for (FileStatus file : listRecords(entityPath, cluster)) {
+                long fileVersion = getVersion(file.getPath(), cluster);
+                if (fileVersion > version) {
+                    latest = file;
+                    version = fileVersion;
+                }
+            }
+            if (latest != null) {
+                InputStream in = fs.open(latest.getPath());
+                try {
+                    String[] lines = IOUtils.toString(in, UTF_8).split("\n");
+                    String ids = lines[0].trim();
+                    List<RetiredCoord> retired = new ArrayList<RetiredCoord>();
+                    for (int line = 1; line < lines.length; line++) {
+                        retired.add(RetiredCoord.parse(lines[line]));
+                    }
+                    record = new Record(ids.isEmpty()
+                            ? new ArrayList<String>() : new ArrayList<String>(Arrays.asList(ids.split(","))),
+                            retired, version);
+                } finally {
+                    IOUtils.closeQuietly(in);
+                }
+            }
+        } catch (IOException e) {
+            // the entity falls back to discovery
+            LOG.warn("Unable to read the bundles of {} on cluster {} from {}", entity.toShortString(), cluster,
+                    entityPath, e);
+        }
+
+        synchronized (this) {
+            // another thread may have read or changed the record meanwhile
+            if (!records.containsKey(key)) {
+                records.put(key, record);
+            }
+        }
+        return key;
+    }
+
+    // a record that can't be saved is dropped, so that a restart doesn't trust a stale one
+    private void save(Entity entity, String cluster, Record record) throws FalconException {
+        Path entityPath = getEntityPath(entity);
+        Path tmpPath = new Path(entityPath, "." + cluster + "." + record.version + ".tmp");
+        try {
+            FSDataOutputStream out = fs.create(tmpPath, true);
+            try {
+                StringBuilder lines = new StringBuilder(StringUtils.join(record.ids, ','));
+                for (RetiredCoord coord : record.coords) {
+                    lines.append('\n').append(coord);
+                }
+                out.write(lines.toString().getBytes(UTF_8));
+            } finally {
+                out.close();
+            }
+            Path recordPath = new Path(entityPath, cluster + "." + record.version);
+            if (!fs.rename(tmpPath, recordPath)) {
+                throw new IOException("Unable to rename " + tmpPath + " to " + recordPath);
+            }
+            delete(entity, cluster, record.version);
+            Record current;
+            synchronized (this) {
+                current = records.get(keyOf(entity, cluster));
+            }
+            if (current.ids == null) {
+                // forgotten while being written
+                delete(entity, cluster, current.version + 1);
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to save the bundles of {} on cluster {}, they will be discovered",
+                    entity.toShortString(), cluster, e);
+            synchronized (this) {
+                records.put(keyOf(entity, cluster), record.next(null, Collections.<RetiredCoord>emptyList()));
+            }
+            delete(entity, cluster, Long.MAX_VALUE);
+        }
+    }
+
+    // deletes the records of the entity on the cluster before the version
+    private void delete(Entity entity, String cluster, long version) throws FalconException {
+        Path entityPath = getEntityPath(entity);
+        try {
+            for (FileStatus file : listRecords(entityPath, cluster)) {
+                if (getVersion(file.getPath(), cluster) < version) {
+                    fs.delete(file.getPath(), false);
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to delete the earlier bundles of {} on cluster {}", entity.toShortString(), cluster, e);
+        }
+    }
+
+    private List<FileStatus> listRecords(Path entityPath, String cluster) throws IOException {
+        List<FileStatus> files = new ArrayList<FileStatus>();
+        FileStatus[] statuses;
+        try {
+            statuses = fs.listStatus(entityPath);
+        } catch (FileNotFoundException e) {
+            return files;
+        }
+        if (statuses != null) {
+            for (FileStatus file : statuses) {
+                if (getVersion(file.getPath(), cluster) > 0) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+
+    // version of a record of the cluster, 0 for any other file
+    private static long getVersion(Path path, String cluster) {
+        String name = path.getName();
+        if (!name.startsWith(cluster + ".")) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(name.substring(cluster.length() + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Coordinator of a retired bundle.
+     */
+    public static final class RetiredCoord {
+        private final String id;
+        private final String appName;
+        private final Date startTime;
+        private final Date endTime;
+
+        public RetiredCoord(String id, String appName, Date startTime, Date endTime) {
+            this.id = id;
+            this.appName = appName;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getAppName() {
+            return appName;
+        }
+
+        public Date getStartTime() {
+            return startTime;
+        }
+
+        public Date getEndTime() {
+            return endTime;
+        }
+
+        private static RetiredCoord parse(String line) throws IOException {
+            String[] fields = line.trim().split("\t");
+            if (fields.length != 4) {
+                throw new IOException("Invalid retired coordinator " + line);
+            }
+            try {
+                return new RetiredCoord(fields[0], fields[1], new Date(Long.parseLong(fields[2])),
+                        new Date(Long.parseLong(fields[3])));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid retired coordinator " + line, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return id + '\t' + appName + '\t' + startTime.getTime() + '\t' + endTime.getTime();
+        }
+    }
+
+    /**
+     * Bundles of an entity on a cluster, the coordinators of its retired bundles and the version of the record
+     * holding them.
+     */
+    private static final class Record {
+        private final List<String> ids;
+        private final List<RetiredCoord> coords;
+        private final long version;
+
+        private Record(List<String> ids, List<RetiredCoord> coords, long version) {
+            this.ids = ids;
+            this.coords = coords;
+            this.version = version;
+        }
+
+        private Record next(List<String> nextIds, List<RetiredCoord> nextCoords) {
+            return new Record(nextIds, nextCoords, version + 1);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.security.CurrentUser;
+import org.apache.falcon.util.StartupProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.security.auth.Subject;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a workflow engine call on several clusters in parallel, so that the latency of an operation is that
+ * of the slowest cluster instead of the sum of all. Every call has a deadline and a failing or unreachable
+ * cluster does not hold back the results of the others. Calls made from within a call run inline.
+ */
+final class ClusterCallExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterCallExecutor.class);
+
+    private static final ThreadLocal<Boolean> IN_CALL = new ThreadLocal<Boolean>();
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    /**
+     * Performs the call on one cluster.
+     *
+     * @param <T> result of the call
+     */
+    interface ClusterCall<T> {
+        T call(String cluster) throws FalconException;
+    }
+
+    /**
+     * Results of the clusters that succeeded and errors of those that did not, in the order of the clusters.
+     *
+     * @param <T> result of the call
+     */
+    static final class Results<T> {
+        private final Map<String, T> results = new LinkedHashMap<String, T>();
+        private final Map<String, FalconException> errors = new LinkedHashMap<String, FalconException>();
+
+        Map<String, T> getResults() {
+            return results;
+        }
+
+        Map<String, FalconException> getErrors() {
+            return errors;
+        }
+
+        String getErrorMessage() {
+            StringBuilder message = new StringBuilder();
+            for (Map.Entry<String, FalconException> error : errors.entrySet()) {
+                message.append(message.length() == 0 ? "" : ", ").append(error.getKey()).append(": ")
+                        .append(error.getValue().getMessage());
+            }
+            return message.toString();
+        }
+
+        /**
+         * @return the results of all the clusters, or the errors of the clusters that failed
+         */
+        Map<String, T> getAll() throws FalconException {
+            if (errors.isEmpty()) {
+                return results;
+            }
+            if (errors.size() == 1 && results.isEmpty()) {
+                throw errors.values().iterator().next();
+            }
+            throw new FalconException("Failed on clusters " + getErrorMessage(), errors.values().iterator().next());
+        }
+    }
+
+    ClusterCallExecutor() {
+        this(Integer.parseInt(StartupProperties.get().getProperty("oozie.cluster.call.threads", "20")),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(
+                        StartupProperties.get().getProperty("oozie.cluster.call.timeout.seconds", "300"))));
+    }
+
+    ClusterCallExecutor(int threads, long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "oozie-cluster-call-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    <T> Results<T> invoke(Collection<String> clusters, final ClusterCall<T> call) {
+        Results<T> results = new Results<T>();
+        if (clusters.size() < 2 || IN_CALL.get() != null) {
+            for (String cluster : clusters) {
+                try {
+                    results.results.put(cluster, call.call(cluster));
+                } catch (FalconException e) {
+                    results.errors.put(cluster, e);
+                }
+            }
+            return results;
+        }
+
+        final Subject subject = CurrentUser.getSubject();
+        Map<String, Future<T>> futures = new LinkedHashMap<String, Future<T>>();
+        for (final String cluster : clusters) {
+            futures.put(cluster, executor.submit(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    CurrentUser.setSubject(subject);
+                    IN_CALL.set(Boolean.TRUE);
+                    try {
+                        return call.call(cluster);
+                    } finally {
+                        IN_CALL.remove();
+                        CurrentUser.clear();
+                    }
+                }
+            }));
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Map.Entry<String, Future<T>> entry : futures.entrySet()) {
+            String cluster = entry.getKey();
+            try {
+                results.results.put(cluster, entry.getValue().get(
+                        Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS));
+            } catch (ExecutionException e) {
+                results.errors.put(cluster, e.getCause() instanceof FalconException
+                        ? (FalconException) e.getCause() : new FalconException(e.getCause()));
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                LOG.warn("Call on cluster {} did not complete in {} ms", cluster, timeoutMillis);
+                results.errors.put(cluster, new FalconException("Timed out after " + timeoutMillis + " ms", e));
+            } catch (InterruptedException e) {
+                entry.getValue().cancel(true);
+                Thread.currentThread().interrupt();
+                results.errors.put(cluster, new FalconException("Interrupted", e));
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.entity.ClusterHelper;
+import org.apache.falcon.entity.EntityUtil;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.entity.v0.EntityType;
+import org.apache.falcon.entity.v0.cluster.Cluster;
+import org.apache.falcon.entity.v0.process.Input;
+import org.apache.falcon.entity.v0.process.Output;
+import org.apache.falcon.entity.v0.process.Process;
+import org.apache.falcon.hadoop.HadoopClientFactory;
+import org.apache.falcon.util.StartupProperties;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds of entities that passed a dry run, kept for a short while so that scheduling the same definitions
+ * right after, as submitAndSchedule and update do, reuses the staged build instead of building it again.
+ * A build is keyed by the definitions it was made from and is handed out once, to be scheduled. Builds that
+ * are evicted or expire before that are deleted from the staging dir.
+ */
+class EntityBuildCache {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityBuildCache.class);
+
+    // in the order the builds were put, the eldest first
+    private final Map<String, Entry> builds = new LinkedHashMap<String, Entry>();
+    private final int maxEntries;
+    private final long ttl;
+
+    EntityBuildCache() {
+        this(Integer.parseInt(StartupProperties.get().getProperty("oozie.build.cache.size", "100")),
+            TimeUnit.SECONDS.toMillis(Long.parseLong(
+                StartupProperties.get().getProperty("oozie.build.cache.ttl.seconds", "300"))));
+    }
+
+    EntityBuildCache(int maxEntries, long ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+    /**
+     * @return key of the build of the entity on the cluster by the user, from the definitions of the entity,
+     * its clusters and, for a process, its feeds
+     */
+    static String keyOf(Entity entity, Cluster cluster, String user) throws FalconException {
+        StringBuilder key = new StringBuilder();
+        key.append(cluster.getName()).append('/').append(user).append('/')
+            .append(entity.getEntityType()).append('/').append(entity.getName()).append('/')
+            .append(EntityUtil.md5(entity));
+        for (String clusterName : new TreeSet<String>(EntityUtil.getClustersDefined(entity))) {
+            Cluster entityCluster = EntityUtil.getEntity(EntityType.CLUSTER, clusterName);
+            key.append('/').append(EntityUtil.md5(entityCluster));
+        }
+
+        if (entity.getEntityType() == EntityType.PROCESS) {
+            Process process = (Process) entity;
+            TreeSet<String> feeds = new TreeSet<String>();
+            if (process.getInputs() != null) {
+                for (Input input : process.getInputs().getInputs()) {
+                    feeds.add(input.getFeed());
+                }
+            }
+            if (process.getOutputs() != null) {
+                for (Output output : process.getOutputs().getOutputs()) {
+                    feeds.add(output.getFeed());
+                }
+            }
+            for (String feed : feeds) {
+                key.append('/').append(EntityUtil.md5(EntityUtil.getEntity(EntityType.FEED, feed)));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Keeps the build to be scheduled, or deletes it right away if builds are not cached.
+     *
+     * @param buildPath staging path the entity was built in
+     */
+    void put(String key, Cluster cluster, Path buildPath, Properties properties) {
+        Entry entry = new Entry(cluster, buildPath, properties);
+        List<Entry> discarded = new ArrayList<Entry>();
+        synchronized (this) {
+            if (maxEntries > 0 && ttl > 0) {
+                Entry replaced = builds.put(key, entry);
+                if (replaced != null) {
+                    discarded.add(replaced);
+                }
+                expire(discarded);
+            } else {
+                discarded.add(entry);
+            }
+        }
+        discard(discarded);
+    }
+
+    /**
+     * @return properties of the build to schedule, or null if there is no build or it expired
+     */
+    Properties take(String key) {
+        Entry entry;
+        List<Entry> discarded = new ArrayList<Entry>();
+        synchronized (this) {
+            entry = builds.remove(key);
+            if (entry != null && isExpired(entry)) {
+                discarded.add(entry);
+                entry = null;
+            }
+            expire(discarded);
+        }
+        discard(discarded);
+
+        if (entry == null) {
+            return null;
+        }
+        Properties properties = new Properties();
+        properties.putAll(entry.properties);
+        return properties;
+    }
+
+    // removes the builds that expired and the eldest ones over the size
+    private void expire(List<Entry> discarded) {
+        Iterator<Entry> iterator = builds.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (builds.size() <= maxEntries && !isExpired(entry)) {
+                break;
+            }
+            iterator.remove();
+            discarded.add(entry);
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.currentTimeMillis() - entry.timestamp >= ttl;
+    }
+
+    private void discard(List<Entry> discarded) {
+        for (Entry entry : discarded) {
+            delete(entry.cluster, entry.buildPath);
+        }
+    }
+
+    /**
+     * Deletes a build that is not going to be scheduled.
+     */
+    void delete(Cluster cluster, Path buildPath) {
+        try {
+            HadoopClientFactory.get().createFileSystem(buildPath.toUri(), ClusterHelper.getConfiguration(cluster))
+                .delete(buildPath, true);
+        } catch (Exception e) {
+            LOG.warn("Unable to delete build {} on cluster {}", buildPath, cluster.getName(), e);
+        }
+    }
+
+    /**
+     * Properties of a build, where it was staged and when.
+     */
+    private static final class Entry {
+        private final Cluster cluster;
+        private final Path buildPath;
+        private final Properties properties;
+        private final long timestamp;
+
+        private Entry(Cluster cluster, Path buildPath, Properties properties) {
+            this.cluster = cluster;
+            this.buildPath = buildPath;
+            this.properties = new Properties();
+            this.properties.putAll(properties);
+            this.timestamp = System.currentTimeMillis();
+        }
+    }
+}
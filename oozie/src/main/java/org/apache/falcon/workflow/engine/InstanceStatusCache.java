@@ -0,0 +1,274 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.service.FalconService;
+import org.apache.falcon.service.Services;
+import org.apache.falcon.util.StartupProperties;
+import org.apache.falcon.workflow.WorkflowExecutionContext;
+import org.apache.falcon.workflow.WorkflowExecutionListener;
+import org.apache.falcon.workflow.WorkflowJobEndNotificationService;
+import org.apache.oozie.client.CoordinatorAction;
+import org.apache.oozie.client.WorkflowJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the coordinator actions and workflows looked up for instance listings and actions. Instances
+ * that ended are kept until evicted, the others expire after a short while. Instance actions and workflow
+ * job end notifications drop the entries of the instances they change.
+ */
+public final class InstanceStatusCache implements FalconService, WorkflowExecutionListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InstanceStatusCache.class);
+
+    public static final String SERVICE_NAME = InstanceStatusCache.class.getSimpleName();
+
+    private static final String SIZE_PROPERTY = "oozie.instance.cache.size";
+    private static final String TTL_PROPERTY = "oozie.instance.cache.ttl.seconds";
+
+    private static final List<CoordinatorAction.Status> COORD_ACTION_END_STATUS = Arrays.asList(
+        CoordinatorAction.Status.SUCCEEDED, CoordinatorAction.Status.KILLED, CoordinatorAction.Status.FAILED);
+    private static final List<WorkflowJob.Status> WF_END_STATUS = Arrays.asList(
+        WorkflowJob.Status.SUCCEEDED, WorkflowJob.Status.KILLED, WorkflowJob.Status.FAILED);
+
+    private static final InstanceStatusCache INSTANCE = new InstanceStatusCache();
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            evictions.incrementAndGet();
+            unlinkWorkflow(eldest.getKey(), eldest.getValue());
+            return true;
+        }
+    };
+    // key of the workflow of a cached coordinator action to the key of the action
+    private final Map<String, String> actionOfWorkflow = new HashMap<String, String>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private int maxEntries;
+    private long ttl;
+
+    public static InstanceStatusCache get() {
+        return INSTANCE;
+    }
+
+    InstanceStatusCache() {
+    }
+
+    InstanceStatusCache(int maxEntries, long ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public String getName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void init() throws FalconException {
+        synchronized (this) {
+            maxEntries = Integer.parseInt(StartupProperties.get().getProperty(SIZE_PROPERTY, "10000"));
+            ttl = TimeUnit.SECONDS.toMillis(Long.parseLong(StartupProperties.get().getProperty(TTL_PROPERTY, "30")));
+        }
+        if (maxEntries <= 0) {
+            LOG.info("Instance status cache is disabled");
+            return;
+        }
+
+        if (Services.get().isRegistered(WorkflowJobEndNotificationService.SERVICE_NAME)) {
+            Services.get().<WorkflowJobEndNotificationService>getService(
+                    WorkflowJobEndNotificationService.SERVICE_NAME).registerListener(this);
+        }
+        LOG.info("Instance status cache holds up to {} instances, running ones for {} ms", maxEntries, ttl);
+    }
+
+    @Override
+    public void destroy() throws FalconException {
+        if (Services.get().isRegistered(WorkflowJobEndNotificationService.SERVICE_NAME)) {
+            Services.get().<WorkflowJobEndNotificationService>getService(
+                    WorkflowJobEndNotificationService.SERVICE_NAME).unregisterListener(this);
+        }
+        synchronized (this) {
+            maxEntries = 0;
+            entries.clear();
+            actionOfWorkflow.clear();
+        }
+    }
+
+    /**
+     * @return the cached coordinator action, or null when not cached or expired
+     */
+    public CoordinatorAction getCoordAction(String cluster, String actionId) {
+        Object value = lookup(keyOf(cluster, actionId));
+        return value instanceof CoordinatorAction ? (CoordinatorAction) value : null;
+    }
+
+    /**
+     * @return the cached workflow, or null when not cached or expired
+     */
+    public WorkflowJob getWorkflow(String cluster, String wfId) {
+        Object value = lookup(keyOf(cluster, wfId));
+        return value instanceof WorkflowJob ? (WorkflowJob) value : null;
+    }
+
+    public void putCoordAction(String cluster, CoordinatorAction action) {
+        if (action == null || action.getId() == null) {
+            return;
+        }
+
+        String key = keyOf(cluster, action.getId());
+        synchronized (this) {
+            if (store(key, new Entry(action, COORD_ACTION_END_STATUS.contains(action.getStatus())))
+                    && action.getExternalId() != null) {
+                actionOfWorkflow.put(keyOf(cluster, action.getExternalId()), key);
+            }
+        }
+    }
+
+    public void putWorkflow(String cluster, WorkflowJob workflow) {
+        if (workflow == null || workflow.getId() == null) {
+            return;
+        }
+
+        synchronized (this) {
+            store(keyOf(cluster, workflow.getId()), new Entry(workflow, WF_END_STATUS.contains(workflow.getStatus())));
+        }
+    }
+
+    /**
+     * Drops the job from the cache, along with the coordinator action that runs it if the job is a workflow.
+     */
+    public synchronized void invalidate(String cluster, String jobId) {
+        if (jobId == null || entries.isEmpty()) {
+            return;
+        }
+
+        String key = keyOf(cluster, jobId);
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unlinkWorkflow(key, entry);
+        }
+        String actionKey = actionOfWorkflow.remove(key);
+        if (actionKey != null) {
+            entries.remove(actionKey);
+        }
+    }
+
+    /**
+     * @return hits, misses and evictions since the server started, and the number of cached instances
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<String, Long>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        synchronized (this) {
+            stats.put("size", (long) entries.size());
+        }
+        return stats;
+    }
+
+    // the notification is sent by the post processing of the workflow, which is still running by then, so the
+    // entries are dropped rather than looked up again
+    @Override
+    public void onSuccess(WorkflowExecutionContext context) throws FalconException {
+        invalidate(context.getClusterName(), context.getWorkflowId());
+    }
+
+    @Override
+    public void onFailure(WorkflowExecutionContext context) throws FalconException {
+        invalidate(context.getClusterName(), context.getWorkflowId());
+    }
+
+    private synchronized Object lookup(String key) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.ended && System.currentTimeMillis() - entry.timestamp >= ttl) {
+            entries.remove(key);
+            unlinkWorkflow(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    private boolean store(String key, Entry entry) {
+        if (maxEntries <= 0 || !entry.ended && ttl <= 0) {
+            return false;
+        }
+        entries.put(key, entry);
+        return true;
+    }
+
+    private void unlinkWorkflow(String key, Entry entry) {
+        if (entry.value instanceof CoordinatorAction) {
+            String externalId = ((CoordinatorAction) entry.value).getExternalId();
+            if (externalId != null) {
+                String cluster = key.substring(0, key.indexOf('/'));
+                String wfKey = keyOf(cluster, externalId);
+                if (key.equals(actionOfWorkflow.get(wfKey))) {
+                    actionOfWorkflow.remove(wfKey);
+                }
+            }
+        }
+    }
+
+    private static String keyOf(String cluster, String jobId) {
+        return cluster + '/' + jobId;
+    }
+
+    /**
+     * A coordinator action or workflow, when it was looked up and whether it ended.
+     */
+    private static final class Entry {
+        private final Object value;
+        private final boolean ended;
+        private final long timestamp;
+
+        private Entry(Object value, boolean ended) {
+            this.value = value;
+            this.ended = ended;
+            this.timestamp = System.currentTimeMillis();
+        }
+    }
+}
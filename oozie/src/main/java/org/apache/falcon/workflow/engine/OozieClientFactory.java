@@ -30,7 +30,8 @@ import org.slf4j.LoggerFactory;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Factory for providing appropriate oozie client.
+ * Factory for providing appropriate oozie client. One client is shared by all the calls to an oozie server,
+ * along with its authentication tokens and its keep-alive connections.
  */
 public final class OozieClientFactory {
 
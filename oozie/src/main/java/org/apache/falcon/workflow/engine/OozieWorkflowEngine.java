@@ -21,6 +21,7 @@ package org.apache.falcon.workflow.engine;
 import org.apache.commons.lang.StringUtils;
 import org.apache.falcon.FalconException;
 import org.apache.falcon.LifeCycle;
+import org.apache.falcon.entity.ClusterHelper;
 import org.apache.falcon.entity.EntityUtil;
 import org.apache.falcon.entity.store.ConfigurationStore;
 import org.apache.falcon.entity.v0.Entity;
@@ -30,6 +31,7 @@ import org.apache.falcon.entity.v0.Frequency;
 import org.apache.falcon.entity.v0.Frequency.TimeUnit;
 import org.apache.falcon.entity.v0.SchemaHelper;
 import org.apache.falcon.entity.v0.cluster.Cluster;
+import org.apache.falcon.hadoop.HadoopClientFactory;
 import org.apache.falcon.oozie.OozieBundleBuilder;
 import org.apache.falcon.oozie.OozieEntityBuilder;
 import org.apache.falcon.oozie.bundle.BUNDLEAPP;
@@ -41,12 +43,18 @@ import org.apache.falcon.resource.InstancesResult.Instance;
 import org.apache.falcon.resource.InstancesResult.WorkflowStatus;
 import org.apache.falcon.resource.InstancesSummaryResult;
 import org.apache.falcon.resource.InstancesSummaryResult.InstanceSummary;
+import org.apache.falcon.resource.OperationResult;
 import org.apache.falcon.security.CurrentUser;
+import org.apache.falcon.service.Services;
 import org.apache.falcon.update.UpdateHelper;
 import org.apache.falcon.util.OozieUtils;
 import org.apache.falcon.util.RuntimeProperties;
+import org.apache.falcon.workflow.EntityStatusCache;
+import org.apache.falcon.workflow.engine.ClusterCallExecutor.ClusterCall;
+import org.apache.falcon.workflow.engine.OperationTracker.Operation;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.oozie.client.BundleJob;
 import org.apache.oozie.client.CoordinatorAction;
@@ -66,16 +74,20 @@ import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.TreeMap;
 
 /**
  * Workflow engine which uses oozies APIs.
@@ -96,12 +108,36 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
     private static final List<CoordinatorAction.Status> COORD_RERUN_PRECOND =
         Arrays.asList(CoordinatorAction.Status.TIMEDOUT, CoordinatorAction.Status.FAILED);
 
+    // statuses of the coordinator actions that may show as an instance status, as the status of the
+    // workflow of an action can be ahead of the status of the action
+    private static final Map<WorkflowStatus, List<CoordinatorAction.Status>> COORD_ACTION_STATUSES =
+        new EnumMap<WorkflowStatus, List<CoordinatorAction.Status>>(WorkflowStatus.class);
+    static {
+        COORD_ACTION_STATUSES.put(WorkflowStatus.WAITING, Arrays.asList(CoordinatorAction.Status.WAITING,
+            CoordinatorAction.Status.READY, CoordinatorAction.Status.SUBMITTED));
+        COORD_ACTION_STATUSES.put(WorkflowStatus.RUNNING, Arrays.asList(CoordinatorAction.Status.SUBMITTED,
+            CoordinatorAction.Status.RUNNING, CoordinatorAction.Status.SUSPENDED));
+        COORD_ACTION_STATUSES.put(WorkflowStatus.SUSPENDED, Arrays.asList(CoordinatorAction.Status.RUNNING,
+            CoordinatorAction.Status.SUSPENDED));
+        COORD_ACTION_STATUSES.put(WorkflowStatus.SUCCEEDED, Arrays.asList(CoordinatorAction.Status.RUNNING,
+            CoordinatorAction.Status.SUCCEEDED));
+        COORD_ACTION_STATUSES.put(WorkflowStatus.FAILED, Arrays.asList(CoordinatorAction.Status.RUNNING,
+            CoordinatorAction.Status.FAILED, CoordinatorAction.Status.TIMEDOUT));
+        COORD_ACTION_STATUSES.put(WorkflowStatus.KILLED, Arrays.asList(CoordinatorAction.Status.RUNNING,
+            CoordinatorAction.Status.KILLED, CoordinatorAction.Status.DISCARDED));
+    }
+
+    // actions fetched per call when paging through the actions of a coordinator
+    private static final int COORD_ACTIONS_PAGE_SIZE = 500;
+
     private static final List<Job.Status> BUNDLE_ACTIVE_STATUS =
         Arrays.asList(Job.Status.PREP, Job.Status.RUNNING, Job.Status.SUSPENDED, Job.Status.PREPSUSPENDED,
             Job.Status.DONEWITHERROR);
     private static final List<Job.Status> BUNDLE_SUSPENDED_STATUS =
         Arrays.asList(Job.Status.PREPSUSPENDED, Job.Status.SUSPENDED);
     private static final List<Job.Status> BUNDLE_RUNNING_STATUS = Arrays.asList(Job.Status.PREP, Job.Status.RUNNING);
+    private static final List<Job.Status> BUNDLE_FINISHED_STATUS =
+        Arrays.asList(Job.Status.SUCCEEDED, Job.Status.FAILED, Job.Status.KILLED);
 
     private static final List<Job.Status> BUNDLE_SUSPEND_PRECOND =
         Arrays.asList(Job.Status.PREP, Job.Status.RUNNING, Job.Status.DONEWITHERROR);
@@ -113,10 +149,22 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
     private static final String[] BUNDLE_UPDATEABLE_PROPS =
         new String[]{"parallel", "clusters.clusters[\\d+].validity.end", };
 
+    // oozie error code for a job that does not exist, or was purged
+    private static final String JOB_NOT_FOUND = "E0604";
+
     public static final ConfigurationStore STORE = ConfigurationStore.get();
+    private static final BundleIndex BUNDLE_INDEX = BundleIndex.get();
+    private static final ClusterCallExecutor CLUSTER_CALLS = new ClusterCallExecutor();
+    private static final InstanceStatusCache INSTANCE_CACHE = InstanceStatusCache.get();
+    private static final OperationTracker OPERATIONS = OperationTracker.get();
+    private static final EntityBuildCache BUILD_CACHE = new EntityBuildCache();
+    private static final BulkInstanceAction BULK_ACTIONS = new BulkInstanceAction();
 
     public OozieWorkflowEngine() {
         registerListener(new OozieHouseKeepingService());
+        if (Services.get().isRegistered(EntityStatusCache.SERVICE_NAME)) {
+            registerListener(EntityStatusCache.get());
+        }
     }
 
     @Override
@@ -129,48 +177,94 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
     }
 
     @Override
-    public void schedule(Entity entity) throws FalconException {
-        Map<String, BundleJob> bundleMap = findLatestBundle(entity);
-        List<String> schedClusters = new ArrayList<String>();
-        for (Map.Entry<String, BundleJob> entry : bundleMap.entrySet()) {
-            String cluster = entry.getKey();
-            BundleJob bundleJob = entry.getValue();
-            if (bundleJob == MISSING) {
-                schedClusters.add(cluster);
-            } else {
-                LOG.debug("Entity {} is already scheduled on cluster {}", entity.getName(), cluster);
+    public void schedule(final Entity entity) throws FalconException {
+        CLUSTER_CALLS.invoke(EntityUtil.getClustersDefinedInColos(entity), new ClusterCall<Void>() {
+            @Override
+            public Void call(String clusterName) throws FalconException {
+                schedule(entity, clusterName);
+                return null;
             }
+        }).getAll();
+    }
+
+    private void schedule(Entity entity, String clusterName) throws FalconException {
+        if (findLatestBundle(entity, clusterName) != MISSING) {
+            LOG.debug("Entity {} is already scheduled on cluster {}", entity.getName(), clusterName);
+            return;
         }
 
-        if (!schedClusters.isEmpty()) {
+        Cluster cluster = STORE.get(EntityType.CLUSTER, clusterName);
+        Properties properties = takeBuild(entity, cluster);
+        if (properties == null) {
             OozieEntityBuilder builder = OozieEntityBuilder.get(entity);
-            for (String clusterName: schedClusters) {
-                Cluster cluster = STORE.get(EntityType.CLUSTER, clusterName);
-                Path buildPath = EntityUtil.getNewStagingPath(cluster, entity);
-                Properties properties = builder.build(cluster, buildPath);
-                if (properties == null) {
-                    LOG.info("Entity {} is not scheduled on cluster {}", entity.getName(), cluster);
-                    continue;
-                }
-
-                //Do dryRun of coords before schedule as schedule is asynchronous
-                dryRunInternal(cluster, new Path(properties.getProperty(OozieEntityBuilder.ENTITY_PATH)));
-                scheduleEntity(clusterName, properties, entity);
+            Path buildPath = EntityUtil.getNewStagingPath(cluster, entity);
+            properties = builder.build(cluster, buildPath);
+            if (properties == null) {
+                LOG.info("Entity {} is not scheduled on cluster {}", entity.getName(), cluster);
+                return;
             }
+
+            //Do dryRun of coords before schedule as schedule is asynchronous
+            dryRunInternal(cluster, new Path(properties.getProperty(OozieEntityBuilder.ENTITY_PATH)));
         }
+        scheduleEntity(clusterName, properties, entity);
     }
 
+    // the build is staged like one to schedule, so that scheduling the same definitions next can reuse it
     @Override
     public void dryRun(Entity entity, String clusterName) throws FalconException {
         OozieEntityBuilder builder = OozieEntityBuilder.get(entity);
-        Path buildPath = new Path("/tmp", "falcon" + entity.getName() + System.currentTimeMillis());
         Cluster cluster = STORE.get(EntityType.CLUSTER, clusterName);
+        Path buildPath = EntityUtil.getNewStagingPath(cluster, entity);
         Properties props = builder.build(cluster, buildPath);
         if (props != null) {
-            dryRunInternal(cluster, new Path(props.getProperty(OozieEntityBuilder.ENTITY_PATH)));
+            try {
+                dryRunInternal(cluster, new Path(props.getProperty(OozieEntityBuilder.ENTITY_PATH)));
+            } catch (FalconException e) {
+                BUILD_CACHE.delete(cluster, buildPath);
+                throw e;
+            }
+            String buildKey = getBuildKey(entity, cluster);
+            if (buildKey != null) {
+                BUILD_CACHE.put(buildKey, cluster, buildPath, props);
+            } else {
+                BUILD_CACHE.delete(cluster, buildPath);
+            }
+        }
+    }
+
+    private String getBuildKey(Entity entity, Cluster cluster) {
+        try {
+            return EntityBuildCache.keyOf(entity, cluster, CurrentUser.getUser());
+        } catch (FalconException e) {
+            LOG.debug("Build of {} on cluster {} is not cached", entity.toShortString(), cluster.getName(), e);
+            return null;
         }
     }
 
+    /**
+     * @return properties of the build of the same definitions that passed a dry run, null if there is none
+     */
+    private Properties takeBuild(Entity entity, Cluster cluster) {
+        String buildKey = getBuildKey(entity, cluster);
+        Properties properties = buildKey == null ? null : BUILD_CACHE.take(buildKey);
+        if (properties == null) {
+            return null;
+        }
+
+        Path bundlePath = new Path(properties.getProperty(OozieEntityBuilder.ENTITY_PATH));
+        try {
+            FileSystem fs = HadoopClientFactory.get().createFileSystem(
+                bundlePath.toUri(), ClusterHelper.getConfiguration(cluster));
+            if (fs.exists(bundlePath)) {
+                LOG.info("Reusing build {} of {} that passed the dry run", bundlePath, entity.toShortString());
+                return properties;
+            }
+        } catch (Exception e) {
+            LOG.debug("Unable to check build {} on cluster {}", bundlePath, cluster.getName(), e);
+        }
+        return null;
+    }
 
     private void dryRunInternal(Cluster cluster, Path buildPath) throws FalconException {
         BUNDLEAPP bundle = OozieBundleBuilder.unmarshal(cluster, buildPath);
@@ -236,8 +330,79 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         return true;
     }
 
-    //Return all bundles for the entity in the requested cluster
+    //Return all bundles for the entity in the requested cluster, but for the retired ones
     private List<BundleJob> findBundles(Entity entity, String clusterName) throws FalconException {
+        List<String> bundleIds = BUNDLE_INDEX.getBundleIds(entity, clusterName);
+        if (bundleIds == null) {
+            long generation = BUNDLE_INDEX.getGeneration();
+            List<BundleJob> bundles = discoverBundles(entity, clusterName);
+            List<String> discoveredIds = new ArrayList<String>();
+            List<BundleIndex.RetiredCoord> retiredCoords = new ArrayList<BundleIndex.RetiredCoord>();
+            for (BundleJob bundle : getRetiredBundles(bundles)) {
+                retiredCoords.addAll(toRetiredCoords(bundle));
+                bundles.remove(bundle);
+            }
+            for (BundleJob bundle : bundles) {
+                discoveredIds.add(bundle.getId());
+            }
+            BUNDLE_INDEX.setBundleIds(entity, clusterName, discoveredIds, retiredCoords, generation);
+            return bundles;
+        }
+
+        List<BundleJob> bundles = new ArrayList<BundleJob>();
+        List<String> purgedIds = new ArrayList<String>();
+        ProxyOozieClient client = OozieClientFactory.get(clusterName);
+        for (String bundleId : bundleIds) {
+            try {
+                bundles.add(client.getBundleJobInfo(bundleId));
+            } catch (OozieClientException e) {
+                if (!JOB_NOT_FOUND.equals(e.getErrorCode())) {
+                    throw new FalconException(e);
+                }
+                purgedIds.add(bundleId);
+            }
+        }
+        if (!purgedIds.isEmpty()) {
+            LOG.info("Bundles {} of {} on cluster {} are no longer in oozie", purgedIds, entity.toShortString(),
+                clusterName);
+            BUNDLE_INDEX.removeJobIds(entity, clusterName, purgedIds);
+        }
+        for (BundleJob bundle : getRetiredBundles(bundles)) {
+            LOG.info("Retiring bundle {} of {} on cluster {}", bundle.getId(), entity.toShortString(), clusterName);
+            BUNDLE_INDEX.retireBundle(entity, clusterName, bundle.getId(), toRetiredCoords(bundle));
+            bundles.remove(bundle);
+        }
+        return bundles;
+    }
+
+    // bundles that finished after a later bundle replaced them, they are no longer suspended, resumed or killed
+    private List<BundleJob> getRetiredBundles(List<BundleJob> bundles) {
+        List<BundleJob> retired = new ArrayList<BundleJob>();
+        Date latest = null;
+        for (BundleJob bundle : bundles) {
+            if (latest == null || bundle.getCreatedTime().after(latest)) {
+                latest = bundle.getCreatedTime();
+            }
+        }
+        for (BundleJob bundle : bundles) {
+            if (bundle.getCreatedTime().before(latest) && BUNDLE_FINISHED_STATUS.contains(bundle.getStatus())) {
+                retired.add(bundle);
+            }
+        }
+        return retired;
+    }
+
+    private List<BundleIndex.RetiredCoord> toRetiredCoords(BundleJob bundle) {
+        List<BundleIndex.RetiredCoord> coords = new ArrayList<BundleIndex.RetiredCoord>();
+        for (CoordinatorJob coord : bundle.getCoordinators()) {
+            coords.add(new BundleIndex.RetiredCoord(coord.getId(), coord.getAppName(), coord.getStartTime(),
+                coord.getEndTime()));
+        }
+        return coords;
+    }
+
+    //Discover the bundles for the entity in the requested cluster through its staging paths
+    private List<BundleJob> discoverBundles(Entity entity, String clusterName) throws FalconException {
         Cluster cluster = STORE.get(EntityType.CLUSTER, clusterName);
         FileStatus[] stgPaths = EntityUtil.getAllStagingPaths(cluster, entity);
         List<BundleJob> filteredJobs = new ArrayList<BundleJob>();
@@ -269,24 +434,14 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         return filteredJobs;
     }
 
-    //Return all bundles for the entity for each cluster
-    private Map<String, List<BundleJob>> findBundles(Entity entity) throws FalconException {
-        Set<String> clusters = EntityUtil.getClustersDefinedInColos(entity);
-        Map<String, List<BundleJob>> jobMap = new HashMap<String, List<BundleJob>>();
-        for (String cluster : clusters) {
-            jobMap.put(cluster, findBundles(entity, cluster));
-        }
-        return jobMap;
-    }
-
     //Return latest bundle(last created) for the entity for each cluster
-    private Map<String, BundleJob> findLatestBundle(Entity entity) throws FalconException {
-        Set<String> clusters = EntityUtil.getClustersDefinedInColos(entity);
-        Map<String, BundleJob> jobMap = new HashMap<String, BundleJob>();
-        for (String cluster : clusters) {
-            jobMap.put(cluster, findLatestBundle(entity, cluster));
-        }
-        return jobMap;
+    private Map<String, BundleJob> findLatestBundle(final Entity entity) throws FalconException {
+        return CLUSTER_CALLS.invoke(EntityUtil.getClustersDefinedInColos(entity), new ClusterCall<BundleJob>() {
+            @Override
+            public BundleJob call(String cluster) throws FalconException {
+                return findLatestBundle(entity, cluster);
+            }
+        }).getAll();
     }
 
     //Return latest bundle(last created) for the entity in the requested cluster
@@ -327,25 +482,51 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         SUSPEND, RESUME, KILL
     }
 
-    private String doBundleAction(Entity entity, BundleAction action) throws FalconException {
-        Set<String> clusters = EntityUtil.getClustersDefinedInColos(entity);
-        String result = null;
-        for (String cluster : clusters) {
-            result = doBundleAction(entity, action, cluster);
-        }
-        return result;
+    private String doBundleAction(final Entity entity, final BundleAction action) throws FalconException {
+        Map<String, String> results = CLUSTER_CALLS.invoke(EntityUtil.getClustersDefinedInColos(entity),
+            new ClusterCall<String>() {
+                @Override
+                public String call(String cluster) throws FalconException {
+                    return doBundleAction(entity, action, cluster);
+                }
+            }).getAll();
+        return results.isEmpty() ? null : results.values().iterator().next();
     }
 
-    private String doBundleAction(Entity entity, BundleAction action, String cluster) throws FalconException {
+    private String doBundleAction(final Entity entity, BundleAction action, String cluster) throws FalconException {
         List<BundleJob> jobs = findBundles(entity, cluster);
         beforeAction(entity, action, cluster);
+        Operation operation = OPERATIONS.start(action.name() + " " + entity.toShortString() + " on " + cluster);
+        try {
+            doBundleAction(action, cluster, jobs, operation);
+        } finally {
+            // the cached status of the entity is refreshed once the bundles reached their status
+            operation.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    if (Services.get().isRegistered(EntityStatusCache.SERVICE_NAME)) {
+                        EntityStatusCache.get().invalidate(entity.getEntityType(), entity.getName());
+                    }
+                }
+            });
+            operation.seal();
+        }
+        if (action == BundleAction.KILL) {
+            BUNDLE_INDEX.remove(entity, cluster);
+        }
+        afterAction(entity, action, cluster);
+        return "SUCCESS";
+    }
+
+    private void doBundleAction(BundleAction action, String cluster, List<BundleJob> jobs, Operation operation)
+        throws FalconException {
         for (BundleJob job : jobs) {
             switch (action) {
             case SUSPEND:
                 // not already suspended and preconditions are true
                 if (!BUNDLE_SUSPENDED_STATUS.contains(job.getStatus()) && BUNDLE_SUSPEND_PRECOND.contains(
                     job.getStatus())) {
-                    suspend(cluster, job.getId());
+                    suspend(cluster, job.getId(), operation);
                 }
                 break;
 
@@ -353,7 +534,7 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
                 // not already running and preconditions are true
                 if (!BUNDLE_RUNNING_STATUS.contains(job.getStatus()) && BUNDLE_RESUME_PRECOND.contains(
                     job.getStatus())) {
-                    resume(cluster, job.getId());
+                    resume(cluster, job.getId(), operation);
                 }
                 break;
 
@@ -365,8 +546,6 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
             default:
             }
         }
-        afterAction(entity, action, cluster);
-        return "SUCCESS";
     }
 
     private void killBundle(String clusterName, BundleJob job) throws FalconException {
@@ -496,6 +675,12 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         return doJobAction(JobAction.STATUS, entity, start, end, null, lifeCycles);
     }
 
+    @Override
+    public InstancesResult getStatus(Entity entity, Date start, Date end, List<LifeCycle> lifeCycles,
+                                     WorkflowStatus status) throws FalconException {
+        return doJobAction(JobAction.STATUS, entity, start, end, null, lifeCycles, status);
+    }
+
     @Override
     public InstancesSummaryResult getSummary(Entity entity, Date start, Date end,
                                              List<LifeCycle> lifeCycles) throws FalconException {
@@ -510,12 +695,29 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
     }
 
     private static enum JobAction {
-        KILL, SUSPEND, RESUME, RERUN, STATUS, SUMMARY, PARAMS
+        KILL(true), SUSPEND(true), RESUME(true), RERUN(true), STATUS(false), SUMMARY(false), PARAMS(false);
+
+        private final boolean change;
+
+        private JobAction(boolean change) {
+            this.change = change;
+        }
+
+        // actions that change the instances are tracked until the instances reach their new status
+        private boolean isChange() {
+            return change;
+        }
     }
 
     private WorkflowJob getWorkflowInfo(String cluster, String wfId) throws FalconException {
+        WorkflowJob jobInfo = INSTANCE_CACHE.getWorkflow(cluster, wfId);
+        if (jobInfo != null) {
+            return jobInfo;
+        }
         try {
-            return OozieClientFactory.get(cluster).getJobInfo(wfId);
+            jobInfo = OozieClientFactory.get(cluster).getJobInfo(wfId);
+            INSTANCE_CACHE.putWorkflow(cluster, jobInfo);
+            return jobInfo;
         } catch (OozieClientException e) {
             throw new FalconException(e);
         }
@@ -523,136 +725,278 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
 
     private InstancesResult doJobAction(JobAction action, Entity entity, Date start, Date end,
                                         Properties props, List<LifeCycle> lifeCycles) throws FalconException {
-        Map<String, List<CoordinatorAction>> actionsMap = getCoordActions(entity, start, end, lifeCycles);
-        List<String> clusterList = getIncludedClusters(props, FALCON_INSTANCE_ACTION_CLUSTERS);
-        List<String> sourceClusterList = getIncludedClusters(props, FALCON_INSTANCE_SOURCE_CLUSTERS);
-        APIResult.Status overallStatus = APIResult.Status.SUCCEEDED;
-        int instanceCount = 0;
-
-        List<Instance> instances = new ArrayList<Instance>();
-        for (Map.Entry<String, List<CoordinatorAction>> entry : actionsMap.entrySet()) {
-            String cluster = entry.getKey();
-            if (clusterList.size() != 0 && !clusterList.contains(cluster)) {
-                continue;
-            }
+        return doJobAction(action, entity, start, end, props, lifeCycles, null);
+    }
 
-            List<CoordinatorAction> actions = entry.getValue();
-            String sourceCluster = null;
-            for (CoordinatorAction coordinatorAction : actions) {
-                if (entity.getEntityType() == EntityType.FEED) {
-                    sourceCluster = getSourceCluster(cluster, coordinatorAction, entity);
-                    if (sourceClusterList.size() != 0 && !sourceClusterList.contains(sourceCluster)) {
-                        continue;
-                    }
-                }
-                String status;
-                instanceCount++;
-                try {
-                    status = performAction(cluster, action, coordinatorAction, props);
-                } catch (FalconException e) {
-                    LOG.warn("Unable to perform action {} on cluster", action, e);
-                    status = WorkflowStatus.ERROR.name();
-                    overallStatus = APIResult.Status.PARTIAL;
+    private InstancesResult doJobAction(final JobAction action, final Entity entity, final Date start,
+                                        final Date end, final Properties props, final List<LifeCycle> lifeCycles,
+                                        final WorkflowStatus statusFilter) throws FalconException {
+        final List<String> sourceClusterList = getIncludedClusters(props, FALCON_INSTANCE_SOURCE_CLUSTERS);
+        final Operation operation = action.isChange()
+            ? OPERATIONS.start(action.name() + " instances of " + entity.toShortString()) : null;
+        ClusterCallExecutor.Results<InstancesResult> results;
+        try {
+            results = CLUSTER_CALLS.invoke(getIncludedClusters(entity, props), new ClusterCall<InstancesResult>() {
+                @Override
+                public InstancesResult call(String cluster) throws FalconException {
+                    return doJobAction(action, entity, cluster, getCoordActions(entity, cluster, start, end,
+                        lifeCycles, statusFilter), sourceClusterList, props, operation);
                 }
+            });
+        } finally {
+            if (operation != null) {
+                operation.seal();
+            }
+        }
+        if (results.getResults().isEmpty()) {
+            results.getAll();
+        }
 
-                String nominalTimeStr = SchemaHelper.formatDateUTC(coordinatorAction.getNominalTime());
-                InstancesResult.Instance instance =
-                    new InstancesResult.Instance(cluster, nominalTimeStr, WorkflowStatus.valueOf(status));
-                if (StringUtils.isNotEmpty(coordinatorAction.getExternalId())) {
-                    WorkflowJob jobInfo = getWorkflowInfo(cluster, coordinatorAction.getExternalId());
-                    instance.startTime = jobInfo.getStartTime();
-                    instance.endTime = jobInfo.getEndTime();
-                    instance.logFile = jobInfo.getConsoleUrl();
-                    instance.sourceCluster = sourceCluster;
-                    if (action == JobAction.PARAMS) {
-                        instance.wfParams = getWFParams(jobInfo);
-                    }
-                }
-                instance.details = coordinatorAction.getMissingDependencies();
-                instances.add(instance);
+        APIResult.Status overallStatus = APIResult.Status.SUCCEEDED;
+        List<Instance> instances = new ArrayList<Instance>();
+        for (InstancesResult clusterResult : results.getResults().values()) {
+            if (clusterResult.getStatus() == APIResult.Status.PARTIAL) {
+                overallStatus = APIResult.Status.PARTIAL;
             }
+            instances.addAll(Arrays.asList(clusterResult.getInstances()));
         }
-        if (instanceCount < 2 && overallStatus == APIResult.Status.PARTIAL) {
+        if (instances.size() < 2 && overallStatus == APIResult.Status.PARTIAL) {
             overallStatus = APIResult.Status.FAILED;
         }
-        InstancesResult instancesResult = new InstancesResult(overallStatus, action.name());
+
+        String message = action.name();
+        if (!results.getErrors().isEmpty()) {
+            LOG.warn("Unable to perform action {} on clusters {}", action, results.getErrorMessage());
+            overallStatus = APIResult.Status.PARTIAL;
+            message = action.name() + ". Failed on clusters " + results.getErrorMessage();
+        }
+        InstancesResult instancesResult = new InstancesResult(overallStatus, message);
         instancesResult.setInstances(instances.toArray(new Instance[instances.size()]));
+        if (operation != null) {
+            instancesResult.setOperationId(operation.getId());
+        }
         return instancesResult;
     }
 
-    private InstancesSummaryResult doSummaryJobAction(Entity entity, Date start,
-                                                      Date end, Properties props,
-                                                      List<LifeCycle> lifeCycles) throws FalconException {
+    private InstancesResult doJobAction(JobAction action, Entity entity, String cluster,
+                                        List<CoordinatorAction> actions, List<String> sourceClusterList,
+                                        Properties props, Operation operation) throws FalconException {
+        APIResult.Status status = APIResult.Status.SUCCEEDED;
+        List<Instance> instances = new ArrayList<Instance>();
+        String sourceCluster = null;
+        for (CoordinatorAction coordinatorAction : actions) {
+            if (entity.getEntityType() == EntityType.FEED) {
+                sourceCluster = getSourceCluster(cluster, coordinatorAction, entity);
+                if (sourceClusterList.size() != 0 && !sourceClusterList.contains(sourceCluster)) {
+                    continue;
+                }
+            }
+            String actionStatus;
+            try {
+                actionStatus = performAction(cluster, action, coordinatorAction, props, operation);
+            } catch (FalconException e) {
+                LOG.warn("Unable to perform action {} on cluster", action, e);
+                actionStatus = WorkflowStatus.ERROR.name();
+                status = APIResult.Status.PARTIAL;
+            }
 
-        Map<String, List<BundleJob>> bundlesMap = findBundles(entity);
-        List<InstanceSummary> instances = new ArrayList<InstanceSummary>();
-        List<String> clusterList = getIncludedClusters(props, FALCON_INSTANCE_ACTION_CLUSTERS);
+            String nominalTimeStr = SchemaHelper.formatDateUTC(coordinatorAction.getNominalTime());
+            InstancesResult.Instance instance =
+                new InstancesResult.Instance(cluster, nominalTimeStr, WorkflowStatus.valueOf(actionStatus));
+            if (StringUtils.isNotEmpty(coordinatorAction.getExternalId())) {
+                WorkflowJob jobInfo = getWorkflowInfo(cluster, coordinatorAction.getExternalId());
+                instance.startTime = jobInfo.getStartTime();
+                instance.endTime = jobInfo.getEndTime();
+                instance.logFile = jobInfo.getConsoleUrl();
+                instance.sourceCluster = sourceCluster;
+                if (action == JobAction.PARAMS) {
+                    instance.wfParams = getWFParams(jobInfo);
+                }
+            }
+            instance.details = coordinatorAction.getMissingDependencies();
+            instances.add(instance);
+        }
+        InstancesResult result = new InstancesResult(status, action.name());
+        result.setInstances(instances.toArray(new Instance[instances.size()]));
+        return result;
+    }
 
-        for (Map.Entry<String, List<BundleJob>> entry : bundlesMap.entrySet()) {
-            Map<String, Long> instancesSummary = new HashMap<String, Long>();
-            String cluster = entry.getKey();
-            if (clusterList.size() != 0 && !clusterList.contains(cluster)) {
+    @Override
+    public OperationResult bulkInstanceAction(String action, List<Entity> entities, final Date start,
+                                              final Date end, final Properties props,
+                                              final List<LifeCycle> lifeCycles) throws FalconException {
+        final JobAction jobAction;
+        try {
+            jobAction = JobAction.valueOf(action.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new FalconException("Invalid bulk instance action " + action, e);
+        }
+        if (!jobAction.isChange()) {
+            throw new FalconException("Bulk instance action " + action + " does not change instances");
+        }
+
+        // each cluster has its own oozie server, the entities are acted on per cluster
+        Map<String, List<Entity>> entitiesByCluster = new TreeMap<String, List<Entity>>();
+        for (Entity entity : entities) {
+            for (String cluster : getIncludedClusters(entity, props)) {
+                List<Entity> clusterEntities = entitiesByCluster.get(cluster);
+                if (clusterEntities == null) {
+                    clusterEntities = new ArrayList<Entity>();
+                    entitiesByCluster.put(cluster, clusterEntities);
+                }
+                clusterEntities.add(entity);
+            }
+        }
+
+        final Operation operation = OPERATIONS.start(jobAction.name() + " instances of " + entities.size()
+            + " entities");
+        LOG.info("Starting {} of instances of {} entities on clusters {}", jobAction, entities.size(),
+            entitiesByCluster.keySet());
+        BULK_ACTIONS.start(operation, entitiesByCluster, new BulkInstanceAction.EntityAction() {
+            @Override
+            public int run(Entity entity, String cluster, BulkInstanceAction.Throttle throttle)
+                throws FalconException {
+                return doBulkJobAction(jobAction, entity, cluster, getCoordActions(entity, cluster, start, end,
+                    lifeCycles, null), props, operation, throttle);
+            }
+        });
+        return OPERATIONS.getStatus(operation.getId(), 0);
+    }
+
+    private int doBulkJobAction(JobAction action, Entity entity, String cluster, List<CoordinatorAction> actions,
+                                Properties props, Operation operation, BulkInstanceAction.Throttle throttle)
+        throws FalconException {
+        List<String> sourceClusterList = getIncludedClusters(props, FALCON_INSTANCE_SOURCE_CLUSTERS);
+        // coordinator actions that failed before running a workflow are rerun with one call per coordinator
+        Map<String, List<CoordinatorAction>> coordReruns = new LinkedHashMap<String, List<CoordinatorAction>>();
+        int count = 0;
+        for (CoordinatorAction coordinatorAction : actions) {
+            if (entity.getEntityType() == EntityType.FEED && !sourceClusterList.isEmpty()
+                && !sourceClusterList.contains(getSourceCluster(cluster, coordinatorAction, entity))) {
+                continue;
+            }
+            count++;
+            if (action == JobAction.RERUN && StringUtils.isEmpty(coordinatorAction.getExternalId())
+                && COORD_RERUN_PRECOND.contains(coordinatorAction.getStatus())) {
+                List<CoordinatorAction> coordActions = coordReruns.get(coordinatorAction.getJobId());
+                if (coordActions == null) {
+                    coordActions = new ArrayList<CoordinatorAction>();
+                    coordReruns.put(coordinatorAction.getJobId(), coordActions);
+                }
+                coordActions.add(coordinatorAction);
                 continue;
             }
 
-            List<BundleJob> bundles = entry.getValue();
-            ProxyOozieClient client = OozieClientFactory.get(cluster);
-            List<CoordinatorJob> applicableCoords = getApplicableCoords(client, start, end,
-                    bundles, lifeCycles);
-            long unscheduledInstances = 0;
-            boolean isLastCoord = false;
+            throttle.acquire();
+            try {
+                performAction(cluster, action, coordinatorAction, props, operation);
+            } catch (FalconException e) {
+                LOG.warn("Unable to perform action {} on {} on cluster {}", action, coordinatorAction.getId(),
+                    cluster, e);
+                operation.fail(coordinatorAction.getId() + " on " + cluster + ": " + e.getMessage());
+            }
+        }
 
-            for (int i = 0; i < applicableCoords.size(); i++) {
-                CoordinatorJob coord = applicableCoords.get(i);
-                Frequency freq = createFrequency(String.valueOf(coord.getFrequency()), coord.getTimeUnit());
-                TimeZone tz = EntityUtil.getTimeZone(coord.getTimeZone());
-                Date iterStart = EntityUtil.getNextStartTime(coord.getStartTime(), freq, tz, start);
-                Date iterEnd = (coord.getLastActionTime() != null && coord.getLastActionTime().before(end)
-                    ? coord.getLastActionTime() : end);
+        for (Map.Entry<String, List<CoordinatorAction>> coordRerun : coordReruns.entrySet()) {
+            throttle.acquire();
+            try {
+                reRunCoordActions(cluster, coordRerun.getKey(), coordRerun.getValue(), operation);
+            } catch (FalconException e) {
+                operation.fail(coordRerun.getKey() + " on " + cluster + ": " + e.getMessage());
+            }
+        }
+        return count;
+    }
 
-                if (i == 0) {
-                    isLastCoord = true;
+    private InstancesSummaryResult doSummaryJobAction(final Entity entity, final Date start,
+                                                      final Date end, Properties props,
+                                                      final List<LifeCycle> lifeCycles) throws FalconException {
+        ClusterCallExecutor.Results<InstanceSummary> results = CLUSTER_CALLS.invoke(
+            getIncludedClusters(entity, props), new ClusterCall<InstanceSummary>() {
+                @Override
+                public InstanceSummary call(String cluster) throws FalconException {
+                    return getSummary(entity, cluster, start, end, lifeCycles);
                 }
+            });
+        if (results.getResults().isEmpty()) {
+            results.getAll();
+        }
 
-                int startActionNumber = EntityUtil.getInstanceSequence(coord.getStartTime(), freq, tz, iterStart);
-                int lastMaterializedActionNumber =
-                    EntityUtil.getInstanceSequence(coord.getStartTime(), freq, tz, iterEnd);
-                int endActionNumber = EntityUtil.getInstanceSequence(coord.getStartTime(), freq, tz, end);
+        APIResult.Status status = APIResult.Status.SUCCEEDED;
+        String message = JobAction.SUMMARY.name();
+        if (!results.getErrors().isEmpty()) {
+            LOG.warn("Unable to get the summary on clusters {}", results.getErrorMessage());
+            status = APIResult.Status.PARTIAL;
+            message = message + ". Failed on clusters " + results.getErrorMessage();
+        }
+        Collection<InstanceSummary> instances = results.getResults().values();
+        InstancesSummaryResult instancesSummaryResult = new InstancesSummaryResult(status, message);
+        instancesSummaryResult.setInstancesSummary(instances.toArray(new InstanceSummary[instances.size()]));
+        return instancesSummaryResult;
+    }
 
-                if (lastMaterializedActionNumber < startActionNumber) {
-                    continue;
-                }
+    private InstanceSummary getSummary(Entity entity, String cluster, Date start, Date end,
+                                       List<LifeCycle> lifeCycles) throws FalconException {
+        Map<String, Long> instancesSummary = new HashMap<String, Long>();
+        ProxyOozieClient client = OozieClientFactory.get(cluster);
+        List<CoordinatorJob> applicableCoords = getApplicableCoords(entity, cluster, start, end, lifeCycles);
+        long unscheduledInstances = 0;
+        boolean isLastCoord = false;
 
-                if (isLastCoord && endActionNumber != lastMaterializedActionNumber) {
-                    unscheduledInstances = endActionNumber - lastMaterializedActionNumber;
-                }
+        for (int i = 0; i < applicableCoords.size(); i++) {
+            CoordinatorJob coord = applicableCoords.get(i);
+            Frequency freq = createFrequency(String.valueOf(coord.getFrequency()), coord.getTimeUnit());
+            TimeZone tz = EntityUtil.getTimeZone(coord.getTimeZone());
+            Date iterStart = EntityUtil.getNextStartTime(coord.getStartTime(), freq, tz, start);
+            Date iterEnd = (coord.getLastActionTime() != null && coord.getLastActionTime().before(end)
+                ? coord.getLastActionTime() : end);
 
-                CoordinatorJob coordJob;
-                try {
-                    coordJob = client.getCoordJobInfo(coord.getId(), null, startActionNumber,
-                        (lastMaterializedActionNumber - startActionNumber));
-                } catch (OozieClientException e) {
-                    LOG.debug("Unable to get details for coordinator {}", coord.getId(), e);
-                    throw new FalconException(e);
-                }
+            if (i == 0) {
+                isLastCoord = true;
+            }
 
-                if (coordJob != null) {
-                    updateInstanceSummary(coordJob, instancesSummary);
-                }
+            int startActionNumber = EntityUtil.getInstanceSequence(coord.getStartTime(), freq, tz, iterStart);
+            int lastMaterializedActionNumber =
+                EntityUtil.getInstanceSequence(coord.getStartTime(), freq, tz, iterEnd);
+            int endActionNumber = EntityUtil.getInstanceSequence(coord.getStartTime(), freq, tz, end);
+
+            if (lastMaterializedActionNumber < startActionNumber) {
+                continue;
+            }
+
+            if (isLastCoord && endActionNumber != lastMaterializedActionNumber) {
+                unscheduledInstances = endActionNumber - lastMaterializedActionNumber;
+            }
+
+            CoordinatorJob coordJob;
+            try {
+                coordJob = client.getCoordJobInfo(coord.getId(), null, startActionNumber,
+                    (lastMaterializedActionNumber - startActionNumber));
+            } catch (OozieClientException e) {
+                LOG.debug("Unable to get details for coordinator {}", coord.getId(), e);
+                throw new FalconException(e);
             }
 
-            if (unscheduledInstances > 0) {
-                instancesSummary.put("UNSCHEDULED", unscheduledInstances);
+            if (coordJob != null) {
+                updateInstanceSummary(coordJob, instancesSummary);
             }
+        }
 
-            InstanceSummary summary = new InstanceSummary(cluster, instancesSummary);
-            instances.add(summary);
+        if (unscheduledInstances > 0) {
+            instancesSummary.put("UNSCHEDULED", unscheduledInstances);
         }
 
-        InstancesSummaryResult instancesSummaryResult =
-            new InstancesSummaryResult(APIResult.Status.SUCCEEDED, JobAction.SUMMARY.name());
-        instancesSummaryResult.setInstancesSummary(instances.toArray(new InstanceSummary[instances.size()]));
-        return instancesSummaryResult;
+        return new InstanceSummary(cluster, instancesSummary);
+    }
+
+    // clusters of the entity in this colo, limited to the ones asked for in the properties if any
+    private Set<String> getIncludedClusters(Entity entity, Properties props) {
+        Set<String> clusters = EntityUtil.getClustersDefinedInColos(entity);
+        List<String> clusterList = getIncludedClusters(props, FALCON_INSTANCE_ACTION_CLUSTERS);
+        if (!clusterList.isEmpty()) {
+            clusters.retainAll(clusterList);
+        }
+        return clusters;
     }
 
     private Map<String, String> getWFParams(WorkflowJob jobInfo) {
@@ -679,7 +1023,7 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
     }
 
     private String performAction(String cluster, JobAction action, CoordinatorAction coordinatorAction,
-        Properties props) throws FalconException {
+        Properties props, Operation operation) throws FalconException {
         WorkflowJob jobInfo = null;
         String status = coordinatorAction.getStatus().name();
         if (StringUtils.isNotEmpty(coordinatorAction.getExternalId())) {
@@ -692,7 +1036,7 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
                 break;
             }
 
-            kill(cluster, jobInfo.getId());
+            kill(cluster, jobInfo.getId(), operation);
             status = Status.KILLED.name();
             break;
 
@@ -701,7 +1045,7 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
                 break;
             }
 
-            suspend(cluster, jobInfo.getId());
+            suspend(cluster, jobInfo.getId(), operation);
             status = Status.SUSPENDED.name();
             break;
 
@@ -710,18 +1054,18 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
                 break;
             }
 
-            resume(cluster, jobInfo.getId());
+            resume(cluster, jobInfo.getId(), operation);
             status = Status.RUNNING.name();
             break;
 
         case RERUN:
             if (jobInfo == null && COORD_RERUN_PRECOND.contains(coordinatorAction.getStatus())) {
                 //Coord action re-run
-                reRunCoordAction(cluster, coordinatorAction);
+                reRunCoordAction(cluster, coordinatorAction, operation);
                 status = Status.RUNNING.name();
             } else if (jobInfo != null && WF_RERUN_PRECOND.contains(jobInfo.getStatus())) {
                 //wf re-run
-                reRun(cluster, jobInfo.getId(), props);
+                reRun(cluster, jobInfo.getId(), props, operation);
                 status = Status.RUNNING.name();
             }
             break;
@@ -740,41 +1084,56 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         return mapActionStatus(status);
     }
 
-    private void reRunCoordAction(String cluster, CoordinatorAction coordinatorAction) throws FalconException {
+    private void reRunCoordAction(String cluster, CoordinatorAction coordinatorAction, Operation operation)
+        throws FalconException {
         try {
             OozieClient client = OozieClientFactory.get(cluster);
             client.reRunCoord(coordinatorAction.getJobId(), RestConstants.JOB_COORD_RERUN_ACTION,
                 Integer.toString(coordinatorAction.getActionNumber()), true, true);
-            assertCoordActionStatus(cluster, coordinatorAction.getId(),
-                org.apache.oozie.client.CoordinatorAction.Status.RUNNING,
-                org.apache.oozie.client.CoordinatorAction.Status.WAITING,
-                org.apache.oozie.client.CoordinatorAction.Status.READY);
+            expect(operation, OperationTracker.status(cluster, coordinatorAction.getId(),
+                CoordinatorAction.Status.RUNNING, CoordinatorAction.Status.WAITING, CoordinatorAction.Status.READY));
             LOG.info("Rerun job {} on cluster {}", coordinatorAction.getId(), cluster);
         } catch (Exception e) {
             LOG.error("Unable to rerun workflows", e);
             throw new FalconException(e);
+        } finally {
+            INSTANCE_CACHE.invalidate(cluster, coordinatorAction.getId());
         }
     }
 
-    private void assertCoordActionStatus(String cluster, String coordActionId,
-        org.apache.oozie.client.CoordinatorAction.Status... statuses) throws FalconException, OozieClientException {
-        OozieClient client = OozieClientFactory.get(cluster);
-        CoordinatorAction actualStatus = client.getCoordActionInfo(coordActionId);
-        for (int counter = 0; counter < 3; counter++) {
-            for (org.apache.oozie.client.CoordinatorAction.Status status : statuses) {
-                if (status.equals(actualStatus.getStatus())) {
-                    return;
-                }
+    private void reRunCoordActions(String cluster, String coordId, List<CoordinatorAction> coordinatorActions,
+                                   Operation operation) throws FalconException {
+        List<Integer> actionNumbers = new ArrayList<Integer>();
+        for (CoordinatorAction coordinatorAction : coordinatorActions) {
+            actionNumbers.add(coordinatorAction.getActionNumber());
+        }
+        String ranges = BulkInstanceAction.toRanges(actionNumbers);
+        try {
+            OozieClientFactory.get(cluster).reRunCoord(coordId, RestConstants.JOB_COORD_RERUN_ACTION, ranges,
+                true, true);
+            for (CoordinatorAction coordinatorAction : coordinatorActions) {
+                expect(operation, OperationTracker.status(cluster, coordinatorAction.getId(),
+                    CoordinatorAction.Status.RUNNING, CoordinatorAction.Status.WAITING,
+                    CoordinatorAction.Status.READY));
             }
-            try {
-                Thread.sleep(5000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            LOG.info("Rerun actions {} of coordinator {} on cluster {}", ranges, coordId, cluster);
+        } catch (Exception e) {
+            LOG.error("Unable to rerun actions {} of coordinator {}", ranges, coordId, e);
+            throw new FalconException(e);
+        } finally {
+            for (CoordinatorAction coordinatorAction : coordinatorActions) {
+                INSTANCE_CACHE.invalidate(cluster, coordinatorAction.getId());
             }
-            actualStatus = client.getCoordActionInfo(coordActionId);
         }
-        throw new FalconException("For Job" + coordActionId + ", actual statuses: " + actualStatus + ", "
-            + "expected statuses: " + Arrays.toString(statuses));
+    }
+
+    // tracks the job as part of the operation, or on its own when the change wasn't asked for by a client
+    private void expect(Operation operation, OperationTracker.Check check) {
+        if (operation == null) {
+            OPERATIONS.track(check.toString(), check);
+        } else {
+            operation.expect(check);
+        }
     }
 
     private String getSourceCluster(String cluster, CoordinatorAction coordinatorAction, Entity entity)
@@ -814,64 +1173,184 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         }
     }
 
-    protected Map<String, List<CoordinatorAction>> getCoordActions(Entity entity, Date start, Date end,
-                                                                   List<LifeCycle> lifeCycles) throws FalconException {
-        Map<String, List<BundleJob>> bundlesMap = findBundles(entity);
-        Map<String, List<CoordinatorAction>> actionsMap = new HashMap<String, List<CoordinatorAction>>();
+    protected Map<String, List<CoordinatorAction>> getCoordActions(final Entity entity, final Date start,
+        final Date end, final List<LifeCycle> lifeCycles) throws FalconException {
+        return CLUSTER_CALLS.invoke(EntityUtil.getClustersDefinedInColos(entity),
+            new ClusterCall<List<CoordinatorAction>>() {
+                @Override
+                public List<CoordinatorAction> call(String cluster) throws FalconException {
+                    return getCoordActions(entity, cluster, start, end, lifeCycles, null);
+                }
+            }).getAll();
+    }
 
-        for (Map.Entry<String, List<BundleJob>> entry : bundlesMap.entrySet()) {
-            String cluster = entry.getKey();
-            List<BundleJob> bundles = entry.getValue();
-            ProxyOozieClient client = OozieClientFactory.get(cluster);
-            List<CoordinatorJob> applicableCoords =
-                getApplicableCoords(client, start, end, bundles, lifeCycles);
-            List<CoordinatorAction> actions = new ArrayList<CoordinatorAction>();
-            int maxRetentionInstancesCount =
-                Integer.valueOf(RuntimeProperties.get().getProperty("retention.instances.displaycount", "2"));
-            int retentionInstancesCount = 0;
+    private List<CoordinatorAction> getCoordActions(Entity entity, String cluster, Date start, Date end,
+                                                    List<LifeCycle> lifeCycles, WorkflowStatus statusFilter)
+        throws FalconException {
+        ProxyOozieClient client = OozieClientFactory.get(cluster);
+        List<CoordinatorJob> applicableCoords = getApplicableCoords(entity, cluster, start, end, lifeCycles);
+        List<CoordinatorAction> actions = new ArrayList<CoordinatorAction>();
+        int maxRetentionInstancesCount =
+            Integer.valueOf(RuntimeProperties.get().getProperty("retention.instances.displaycount", "2"));
+        int retentionInstancesCount = 0;
+        List<CoordinatorAction.Status> coordStatuses = statusFilter == null ? null
+            : COORD_ACTION_STATUSES.get(statusFilter);
+
+        for (CoordinatorJob coord : applicableCoords) {
+            Date nextMaterializedTime = coord.getNextMaterializedTime();
+            if (nextMaterializedTime == null) {
+                continue;
+            }
 
-            for (CoordinatorJob coord : applicableCoords) {
-                Date nextMaterializedTime = coord.getNextMaterializedTime();
-                if (nextMaterializedTime == null) {
-                    continue;
+            boolean retentionCoord  = isRetentionCoord(coord);
+            Frequency freq = createFrequency(String.valueOf(coord.getFrequency()), coord.getTimeUnit());
+            TimeZone tz = EntityUtil.getTimeZone(coord.getTimeZone());
+
+            Date iterEnd = ((nextMaterializedTime.before(end) || retentionCoord) ? nextMaterializedTime : end);
+            Calendar endCal = Calendar.getInstance(EntityUtil.getTimeZone(coord.getTimeZone()));
+            endCal.setTime(EntityUtil.getNextStartTime(coord.getStartTime(), freq, tz, iterEnd));
+            endCal.add(freq.getTimeUnit().getCalendarUnit(), -(Integer.valueOf((coord.getFrequency()))));
+
+            // sequences of the instances, latest first
+            List<Integer> sequences = new ArrayList<Integer>();
+            while (start.compareTo(endCal.getTime()) <= 0) {
+                if (retentionCoord) {
+                    if (retentionInstancesCount >= maxRetentionInstancesCount) {
+                        break;
+                    }
+                    retentionInstancesCount++;
                 }
 
-                boolean retentionCoord  = isRetentionCoord(coord);
-                Frequency freq = createFrequency(String.valueOf(coord.getFrequency()), coord.getTimeUnit());
-                TimeZone tz = EntityUtil.getTimeZone(coord.getTimeZone());
-
-                Date iterEnd = ((nextMaterializedTime.before(end) || retentionCoord) ? nextMaterializedTime : end);
-                Calendar endCal = Calendar.getInstance(EntityUtil.getTimeZone(coord.getTimeZone()));
-                endCal.setTime(EntityUtil.getNextStartTime(coord.getStartTime(), freq, tz, iterEnd));
+                sequences.add(EntityUtil.getInstanceSequence(coord.getStartTime(), freq, tz, endCal.getTime()));
                 endCal.add(freq.getTimeUnit().getCalendarUnit(), -(Integer.valueOf((coord.getFrequency()))));
+            }
+            // only the last few retention instances are shown, whatever their status
+            actions.addAll(getCoordActions(client, cluster, coord.getId(), sequences,
+                retentionCoord ? null : coordStatuses));
+        }
+        return actions;
+    }
 
-                while (start.compareTo(endCal.getTime()) <= 0) {
-                    if (retentionCoord) {
-                        if (retentionInstancesCount >= maxRetentionInstancesCount) {
-                            break;
-                        }
-                        retentionInstancesCount++;
-                    }
+    // actions of the coordinator for the sequences, in the same order. Actions that are not cached are fetched
+    // a page at a time, from the earliest to the latest one missing.
+    List<CoordinatorAction> getCoordActions(ProxyOozieClient client, String cluster, String coordId,
+                                            List<Integer> sequences, List<CoordinatorAction.Status> statuses)
+        throws FalconException {
+        List<CoordinatorAction> actions = new ArrayList<CoordinatorAction>();
+        Map<Integer, CoordinatorAction> fetched = new HashMap<Integer, CoordinatorAction>();
+        int first = Integer.MAX_VALUE;
+        int last = 0;
+        for (int sequence : sequences) {
+            CoordinatorAction action = INSTANCE_CACHE.getCoordAction(cluster, coordId + "@" + sequence);
+            if (action != null) {
+                fetched.put(sequence, action);
+            } else if (sequence > 0) {
+                first = Math.min(first, sequence);
+                last = Math.max(last, sequence);
+            }
+        }
+
+        boolean filtered = false;
+        if (first <= last) {
+            Map<Integer, CoordinatorAction> page = null;
+            if (statuses != null) {
+                page = fetchCoordActions(client, coordId, statuses, first, last);
+            }
+            filtered = page != null;
+            if (!filtered) {
+                page = fetchCoordActions(client, coordId, first, last);
+            }
+            for (CoordinatorAction action : page.values()) {
+                INSTANCE_CACHE.putCoordAction(cluster, action);
+            }
+            fetched.putAll(page);
+        }
+
+        for (int sequence : sequences) {
+            CoordinatorAction action = fetched.get(sequence);
+            if (action == null && !filtered) {
+                addCoordAction(client, cluster, actions, coordId + "@" + sequence);
+            } else if (action != null && (statuses == null || statuses.contains(action.getStatus()))) {
+                actions.add(action);
+            }
+        }
+        return actions;
+    }
+
+    // actions numbered first to last, the page offset of an action is its number. Fails rather than return
+    // some of them, as the missing ones would otherwise be taken for actions that don't exist.
+    private Map<Integer, CoordinatorAction> fetchCoordActions(ProxyOozieClient client, String coordId,
+                                                             int first, int last) throws FalconException {
+        Map<Integer, CoordinatorAction> actions = new HashMap<Integer, CoordinatorAction>();
+        try {
+            for (int offset = first; offset <= last; offset += COORD_ACTIONS_PAGE_SIZE) {
+                int len = Math.min(COORD_ACTIONS_PAGE_SIZE, last - offset + 1);
+                List<CoordinatorAction> page = client.getCoordJobInfo(coordId, null, offset, len).getActions();
+                for (CoordinatorAction action : page) {
+                    actions.put(action.getActionNumber(), action);
+                }
+                if (page.size() < len) {
+                    break;
+                }
+            }
+        } catch (OozieClientException e) {
+            LOG.warn("Unable to get actions {} to {} of {}", first, last, coordId, e);
+            throw new FalconException("Unable to get actions " + first + " to " + last + " of " + coordId, e);
+        }
+        return actions;
+    }
+
+    // matching actions numbered first to last, the latest first so that paging stops at the first action
+    // before the range. Returns null if oozie can't filter or order the actions.
+    private Map<Integer, CoordinatorAction> fetchCoordActions(ProxyOozieClient client, String coordId,
+                                                             List<CoordinatorAction.Status> statuses,
+                                                             int first, int last) {
+        List<String> filter = new ArrayList<String>();
+        for (CoordinatorAction.Status status : statuses) {
+            filter.add(OozieClient.FILTER_STATUS + "=" + status.name());
+        }
 
-                    int sequence = EntityUtil.getInstanceSequence(coord.getStartTime(), freq, tz, endCal.getTime());
-                    String actionId = coord.getId() + "@" + sequence;
-                    addCoordAction(client, actions, actionId);
-                    endCal.add(freq.getTimeUnit().getCalendarUnit(), -(Integer.valueOf((coord.getFrequency()))));
+        Map<Integer, CoordinatorAction> actions = new HashMap<Integer, CoordinatorAction>();
+        try {
+            for (int offset = 1;; offset += COORD_ACTIONS_PAGE_SIZE) {
+                List<CoordinatorAction> page = client.getCoordJobInfo(coordId, StringUtils.join(filter, ';'),
+                    offset, COORD_ACTIONS_PAGE_SIZE, "desc").getActions();
+                if (page.size() > 1 && page.get(0).getActionNumber() < page.get(page.size() - 1).getActionNumber()) {
+                    return null;
+                }
+                for (CoordinatorAction action : page) {
+                    if (action.getActionNumber() < first) {
+                        return actions;
+                    }
+                    if (action.getActionNumber() <= last) {
+                        actions.put(action.getActionNumber(), action);
+                    }
+                }
+                if (page.size() < COORD_ACTIONS_PAGE_SIZE) {
+                    return actions;
                 }
             }
-            actionsMap.put(cluster, actions);
+        } catch (OozieClientException e) {
+            // older oozie rejects the filter, the actions are fetched again unfiltered which reports any failure
+            LOG.debug("Unable to get actions of {} with filter {}", coordId, filter, e);
+            return null;
         }
-        return actionsMap;
     }
 
     private boolean isRetentionCoord(CoordinatorJob coord){
         return coord.getAppName().contains(LifeCycle.EVICTION.getTag().name());
     }
 
-    private void addCoordAction(ProxyOozieClient client, List<CoordinatorAction> actions, String actionId) {
-        CoordinatorAction coordActionInfo = null;
+    private void addCoordAction(ProxyOozieClient client, String cluster, List<CoordinatorAction> actions,
+                                String actionId) {
+        CoordinatorAction coordActionInfo = INSTANCE_CACHE.getCoordAction(cluster, actionId);
+        if (coordActionInfo != null) {
+            actions.add(coordActionInfo);
+            return;
+        }
         try {
             coordActionInfo = client.getCoordActionInfo(actionId);
+            INSTANCE_CACHE.putCoordAction(cluster, coordActionInfo);
         } catch (OozieClientException e) {
             LOG.debug("Unable to get action for " + actionId + " " + e.getMessage());
         }
@@ -905,34 +1384,54 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         }
     }
 
-    private List<CoordinatorJob> getApplicableCoords(ProxyOozieClient client, Date start, Date end,
-                                                     List<BundleJob> bundles,
+    private List<CoordinatorJob> getApplicableCoords(Entity entity, String cluster, Date start, Date end,
                                                      List<LifeCycle> lifeCycles) throws FalconException {
         List<CoordinatorJob> applicableCoords = new ArrayList<CoordinatorJob>();
-        try {
-            for (BundleJob bundle : bundles) {
-                List<CoordinatorJob> coords = client.getBundleJobInfo(bundle.getId()).getCoordinators();
-                for (CoordinatorJob coord : coords) {
-                    // ignore coords in PREP state, not yet running and retention coord
+        // bundles are loaded with their coords
+        for (BundleJob bundle : findBundles(entity, cluster)) {
+            for (CoordinatorJob coord : bundle.getCoordinators()) {
+                // ignore coords in PREP state, not yet running and retention coord
 
-                    if (coord.getStatus() == Status.PREP
-                            || !isCoordApplicable(coord.getAppName(), lifeCycles)) {
-                        continue;
-                    }
+                if (coord.getStatus() == Status.PREP
+                        || !isCoordApplicable(coord.getAppName(), lifeCycles)) {
+                    continue;
+                }
 
-                    // if end time is before coord-start time or start time is
-                    // after coord-end time ignore.
-                    if (!(end.compareTo(coord.getStartTime()) <= 0 || start.compareTo(coord.getEndTime()) >= 0)) {
-                        applicableCoords.add(coord);
-                    }
+                // if end time is before coord-start time or start time is
+                // after coord-end time ignore.
+                if (!(end.compareTo(coord.getStartTime()) <= 0 || start.compareTo(coord.getEndTime()) >= 0)) {
+                    applicableCoords.add(coord);
                 }
             }
+        }
 
-            sortDescByStartTime(applicableCoords);
-            return applicableCoords;
-        } catch (OozieClientException e) {
-            throw new FalconException(e);
+        // coords of retired bundles are only loaded if they overlap the instances asked for
+        List<BundleIndex.RetiredCoord> retiredCoords = BUNDLE_INDEX.getRetiredCoords(entity, cluster);
+        List<String> purgedIds = new ArrayList<String>();
+        ProxyOozieClient client = OozieClientFactory.get(cluster);
+        for (BundleIndex.RetiredCoord coord : retiredCoords == null
+                ? Collections.<BundleIndex.RetiredCoord>emptyList() : retiredCoords) {
+            if (!isCoordApplicable(coord.getAppName(), lifeCycles)
+                    || end.compareTo(coord.getStartTime()) <= 0 || start.compareTo(coord.getEndTime()) >= 0) {
+                continue;
+            }
+            try {
+                applicableCoords.add(client.getCoordJobInfo(coord.getId(), null, 1, 1));
+            } catch (OozieClientException e) {
+                if (!JOB_NOT_FOUND.equals(e.getErrorCode())) {
+                    throw new FalconException(e);
+                }
+                purgedIds.add(coord.getId());
+            }
         }
+        if (!purgedIds.isEmpty()) {
+            LOG.info("Coords {} of {} on cluster {} are no longer in oozie", purgedIds, entity.toShortString(),
+                cluster);
+            BUNDLE_INDEX.removeJobIds(entity, cluster, purgedIds);
+        }
+
+        sortDescByStartTime(applicableCoords);
+        return applicableCoords;
     }
 
     private boolean isCoordApplicable(String appName, List<LifeCycle> lifeCycles) {
@@ -1093,7 +1592,11 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
             throw new FalconException("Invalid state. Oozie coords are still not created. Try again later");
         }
 
-        // change coords
+        // change coords, waiting for oozie to show the pause times before changing the end times and for the
+        // end times before the new bundle is scheduled
+        Operation pauses = OPERATIONS.start("Pause coordinators of " + bundle.getId() + " on " + cluster);
+        Operation ends = OPERATIONS.start("End coordinators of " + bundle.getId() + " on " + cluster);
+        List<CoordinatorJob> materialized = new ArrayList<CoordinatorJob>();
         for (CoordinatorJob coord : bundle.getCoordinators()) {
             LOG.debug("Updating endtime of coord {} to {} on cluster {}",
                     coord.getId(), SchemaHelper.formatDateUTC(endTime), cluster);
@@ -1102,10 +1605,10 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
                 LOG.info("Nothing is materialized for this coord: {}", coord.getId());
                 if (endTime.compareTo(coord.getStartTime()) <= 0) {
                     LOG.info("Setting end time to START TIME {}", SchemaHelper.formatDateUTC(coord.getStartTime()));
-                    change(cluster, coord.getId(), concurrency, coord.getStartTime(), null);
+                    change(cluster, coord.getId(), concurrency, coord.getStartTime(), null, ends);
                 } else {
                     LOG.info("Setting end time to START TIME {}", SchemaHelper.formatDateUTC(endTime));
-                    change(cluster, coord.getId(), concurrency, endTime, null);
+                    change(cluster, coord.getId(), concurrency, endTime, null, ends);
                 }
             } else {
                 LOG.info("Actions have materialized for this coord: {}, last action {}",
@@ -1115,11 +1618,19 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
                     // set pause time which deletes future actions
                     LOG.info("Setting pause time on coord: {} to {}",
                             coord.getId(), SchemaHelper.formatDateUTC(pauseTime));
-                    change(cluster, coord.getId(), concurrency, null, SchemaHelper.formatDateUTC(pauseTime));
+                    change(cluster, coord.getId(), concurrency, null, SchemaHelper.formatDateUTC(pauseTime), pauses);
                 }
-                change(cluster, coord.getId(), concurrency, endTime, "");
+                materialized.add(coord);
             }
         }
+        pauses.seal();
+        OPERATIONS.await(pauses);
+
+        for (CoordinatorJob coord : materialized) {
+            change(cluster, coord.getId(), concurrency, endTime, "", ends);
+        }
+        ends.seal();
+        OPERATIONS.await(ends);
     }
 
     private String updateInternal(Entity oldEntity, Entity newEntity, Cluster cluster, BundleJob oldBundle,
@@ -1130,7 +1641,7 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         LOG.info("Effective time " + effectiveTime);
 
         //Validate that new entity can be scheduled
-        dryRunForUpdate(cluster, newEntity, effectiveTime);
+        dryRunForUpdate(cluster, newEntity, effectiveTime, user);
 
         boolean suspended = BUNDLE_SUSPENDED_STATUS.contains(oldBundle.getStatus());
 
@@ -1167,13 +1678,20 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         return EntityUtil.getNextStartTime(newEntity, cluster, effectiveTime);
     }
 
-    private void dryRunForUpdate(Cluster cluster, Entity entity, Date startTime) throws FalconException {
+    // as the user the new entity is scheduled as, for the build cached by the dry run to be scheduled
+    private void dryRunForUpdate(Cluster cluster, Entity entity, Date startTime, String user)
+        throws FalconException {
         Entity clone = entity.copy();
         EntityUtil.setStartDate(clone, cluster.getName(), startTime);
+
+        String currentUser = CurrentUser.getUser();
+        switchUser(user);
         try {
             dryRun(clone, cluster.getName());
         } catch (FalconException e) {
             throw new FalconException("The new entity " + entity.toShortString() + " can't be scheduled", e);
+        } finally {
+            switchUser(currentUser);
         }
     }
 
@@ -1185,9 +1703,13 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         switchUser(user);
         try {
             EntityUtil.setStartDate(clone, cluster.getName(), startDate);
-            Path buildPath = EntityUtil.getNewStagingPath(cluster, clone);
-            OozieEntityBuilder builder = OozieEntityBuilder.get(clone);
-            Properties properties = builder.build(cluster, buildPath);
+            // the dry run of the update built the same clone
+            Properties properties = takeBuild(clone, cluster);
+            if (properties == null) {
+                Path buildPath = EntityUtil.getNewStagingPath(cluster, clone);
+                OozieEntityBuilder builder = OozieEntityBuilder.get(clone);
+                properties = builder.build(cluster, buildPath);
+            }
             if (properties != null) {
                 LOG.info("Scheduling {} on cluster {} with props {}", entity.toShortString(), cluster.getName(),
                     properties);
@@ -1232,7 +1754,10 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
 
     @Override
     public void reRun(String cluster, String jobId, Properties props) throws FalconException {
+        reRun(cluster, jobId, props, null);
+    }
 
+    private void reRun(String cluster, String jobId, Properties props, Operation operation) throws FalconException {
         ProxyOozieClient client = OozieClientFactory.get(cluster);
         try {
             WorkflowJob jobInfo = client.getJobInfo(jobId);
@@ -1251,42 +1776,16 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
             jobprops.remove(OozieClient.COORDINATOR_APP_PATH);
             jobprops.remove(OozieClient.BUNDLE_APP_PATH);
             client.reRun(jobId, jobprops);
-            assertStatus(cluster, jobId, Job.Status.RUNNING);
+            expect(operation, OperationTracker.status(cluster, jobId, Job.Status.RUNNING));
             LOG.info("Rerun job {} on cluster {}", jobId, cluster);
         } catch (Exception e) {
             LOG.error("Unable to rerun workflows", e);
             throw new FalconException(e);
+        } finally {
+            INSTANCE_CACHE.invalidate(cluster, jobId);
         }
     }
 
-    private void assertStatus(String cluster, String jobId, Status... statuses) throws FalconException {
-
-        String actualStatus = getWorkflowStatus(cluster, jobId);
-        for (int counter = 0; counter < 3; counter++) {
-            if (!statusEquals(actualStatus, statuses)) {
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException ignore) {
-                    //ignore
-                }
-            } else {
-                return;
-            }
-            actualStatus = getWorkflowStatus(cluster, jobId);
-        }
-        throw new FalconException("For Job" + jobId + ", actual statuses: " + actualStatus + ", expected statuses: "
-            + Arrays.toString(statuses));
-    }
-
-    private boolean statusEquals(String left, Status... right) {
-        for (Status rightElement : right) {
-            if (left.equals(rightElement.name())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     @Override
     public String getWorkflowStatus(String cluster, String jobId) throws FalconException {
 
@@ -1314,6 +1813,7 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
             listener.beforeSchedule(entity, cluster);
         }
         String jobId = run(cluster, props);
+        BUNDLE_INDEX.addBundleId(entity, cluster, jobId);
         for (WorkflowEngineActionListener listener : listeners) {
             listener.afterSchedule(entity, cluster);
         }
@@ -1333,34 +1833,42 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         }
     }
 
-    private void suspend(String cluster, String jobId) throws FalconException {
+    private void suspend(String cluster, String jobId, Operation operation) throws FalconException {
         try {
             OozieClientFactory.get(cluster).suspend(jobId);
-            assertStatus(cluster, jobId, Status.PREPSUSPENDED, Status.SUSPENDED, Status.SUCCEEDED, Status.FAILED,
-                Status.KILLED);
+            expect(operation, OperationTracker.status(cluster, jobId, Status.PREPSUSPENDED, Status.SUSPENDED,
+                Status.SUCCEEDED, Status.FAILED, Status.KILLED));
             LOG.info("Suspended job {} on cluster {}", jobId, cluster);
         } catch (OozieClientException e) {
             throw new FalconException(e);
+        } finally {
+            INSTANCE_CACHE.invalidate(cluster, jobId);
         }
     }
 
-    private void resume(String cluster, String jobId) throws FalconException {
+    private void resume(String cluster, String jobId, Operation operation) throws FalconException {
         try {
             OozieClientFactory.get(cluster).resume(jobId);
-            assertStatus(cluster, jobId, Status.PREP, Status.RUNNING, Status.SUCCEEDED, Status.FAILED, Status.KILLED);
+            expect(operation, OperationTracker.status(cluster, jobId, Status.PREP, Status.RUNNING, Status.SUCCEEDED,
+                Status.FAILED, Status.KILLED));
             LOG.info("Resumed job {} on cluster {}", jobId, cluster);
         } catch (OozieClientException e) {
             throw new FalconException(e);
+        } finally {
+            INSTANCE_CACHE.invalidate(cluster, jobId);
         }
     }
 
-    private void kill(String cluster, String jobId) throws FalconException {
+    private void kill(String cluster, String jobId, Operation operation) throws FalconException {
         try {
             OozieClientFactory.get(cluster).kill(jobId);
-            assertStatus(cluster, jobId, Status.KILLED, Status.SUCCEEDED, Status.FAILED);
+            expect(operation, OperationTracker.status(cluster, jobId, Status.KILLED, Status.SUCCEEDED,
+                Status.FAILED));
             LOG.info("Killed job {} on cluster {}", jobId, cluster);
         } catch (OozieClientException e) {
             throw new FalconException(e);
+        } finally {
+            INSTANCE_CACHE.invalidate(cluster, jobId);
         }
     }
 
@@ -1373,8 +1881,8 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
         }
     }
 
-    private void change(String cluster, String id, int concurrency, Date endTime, String pauseTime)
-        throws FalconException {
+    private void change(String cluster, String id, final int concurrency, final Date endTime, String pauseTime,
+                        Operation operation) throws FalconException {
         StringBuilder changeValue = new StringBuilder();
         changeValue.append(OozieClient.CHANGE_VALUE_CONCURRENCY).append("=").append(concurrency).append(";");
         if (endTime != null) {
@@ -1392,31 +1900,25 @@ public class OozieWorkflowEngine extends AbstractWorkflowEngine {
 
         change(cluster, id, changeValueStr);
 
-        // assert that its really changed
-        try {
-            ProxyOozieClient client = OozieClientFactory.get(cluster);
-            CoordinatorJob coord = client.getCoordJobInfo(id);
-            for (int counter = 0; counter < 3; counter++) {
-                Date intendedPauseTime = (StringUtils.isEmpty(pauseTime) ? null : SchemaHelper.parseDateUTC(pauseTime));
-                if (coord.getConcurrency() != concurrency || (endTime != null && !coord.getEndTime().equals(endTime))
-                    || (intendedPauseTime != null && !intendedPauseTime.equals(coord.getPauseTime()))) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException ignore) {
-                        //ignore
-                    }
-                } else {
-                    return;
-                }
-                coord = client.getCoordJobInfo(id);
+        final Date intendedPauseTime = StringUtils.isEmpty(pauseTime) ? null : SchemaHelper.parseDateUTC(pauseTime);
+        operation.expect(new OperationTracker.Check(cluster, id, changeValueStr) {
+            @Override
+            protected boolean isReached(Object job) {
+                CoordinatorJob coord = (CoordinatorJob) job;
+                return coord.getConcurrency() == concurrency
+                    && (endTime == null || endTime.equals(coord.getEndTime()))
+                    && (intendedPauseTime == null || intendedPauseTime.equals(coord.getPauseTime()));
             }
-            LOG.error("Failed to change coordinator. Current value {}, {}, {}",
-                    coord.getConcurrency(), SchemaHelper.formatDateUTC(coord.getEndTime()),
-                    SchemaHelper.formatDateUTC(coord.getPauseTime()));
-            throw new FalconException("Failed to change coordinator " + id + " with change value " + changeValueStr);
-        } catch (OozieClientException e) {
-            throw new FalconException(e);
+        });
+    }
+
+    @Override
+    public OperationResult getOperationStatus(String operationId, long waitMillis) throws FalconException {
+        OperationResult result = OPERATIONS.getStatus(operationId, waitMillis);
+        if (result == null) {
+            throw new FalconException("Operation " + operationId + " is unknown or has expired");
         }
+        return result;
     }
 
     @Override
@@ -0,0 +1,541 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.falcon.FalconException;
+import org.apache.falcon.resource.OperationResult;
+import org.apache.falcon.resource.OperationResult.OperationStatus;
+import org.apache.falcon.security.CurrentUser;
+import org.apache.falcon.util.StartupProperties;
+import org.apache.oozie.client.BundleJob;
+import org.apache.oozie.client.CoordinatorAction;
+import org.apache.oozie.client.CoordinatorJob;
+import org.apache.oozie.client.Job;
+import org.apache.oozie.client.OozieClient;
+import org.apache.oozie.client.OozieClientException;
+import org.apache.oozie.client.ProxyOozieClient;
+import org.apache.oozie.client.WorkflowJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the jobs changed by kill, suspend, resume, rerun and change until they reach the expected status,
+ * so that the requests return once oozie accepted the changes. One poller looks up the pending jobs of all
+ * the operations, with a query per cluster for each kind of job.
+ */
+public final class OperationTracker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OperationTracker.class);
+
+    // longest a request may wait for an operation to complete
+    private static final long MAX_WAIT = TimeUnit.MINUTES.toMillis(1);
+    // jobs looked up per query
+    private static final int BATCH_SIZE = 50;
+    // orders the checks, a later check of a job supersedes the earlier ones
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private static final OperationTracker INSTANCE = new OperationTracker();
+
+    private final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<String, Operation>();
+    private final JobLookup lookup;
+    private final long interval;
+    private final long timeout;
+    private final long retention;
+    private ScheduledExecutorService poller;
+
+    public static OperationTracker get() {
+        return INSTANCE;
+    }
+
+    private OperationTracker() {
+        this(new OozieJobLookup(),
+            Long.parseLong(StartupProperties.get().getProperty("oozie.operation.poll.interval.millis", "1000")),
+            TimeUnit.SECONDS.toMillis(Long.parseLong(
+                StartupProperties.get().getProperty("oozie.operation.timeout.seconds", "300"))),
+            TimeUnit.SECONDS.toMillis(Long.parseLong(
+                StartupProperties.get().getProperty("oozie.operation.retention.seconds", "3600"))));
+    }
+
+    OperationTracker(JobLookup lookup, long interval, long timeout, long retention) {
+        this.lookup = lookup;
+        this.interval = interval;
+        this.timeout = timeout;
+        this.retention = retention;
+    }
+
+    /**
+     * Looks up the jobs of a cluster.
+     */
+    interface JobLookup {
+        /**
+         * @return the jobs found by id, workflows, coordinators, coordinator actions or bundles
+         */
+        Map<String, Object> lookup(String cluster, Collection<String> jobIds) throws FalconException;
+    }
+
+    /**
+     * Starts an operation, jobs are added to it with {@link Operation#expect} until it is sealed.
+     */
+    public Operation start(String name) {
+        startPoller();
+        Operation operation = new Operation(UUID.randomUUID().toString(), name,
+                CurrentUser.getSubject() == null ? null : CurrentUser.getUser());
+        operations.put(operation.id, operation);
+        return operation;
+    }
+
+    /**
+     * Tracks a single job, for changes that are not part of an operation a client asked for.
+     */
+    public Operation track(String name, Check check) {
+        Operation operation = start(name);
+        operation.expect(check);
+        operation.seal();
+        return operation;
+    }
+
+    /**
+     * @return progress of the operation once it completed or after waiting for waitMillis, null if unknown
+     */
+    public OperationResult getStatus(String operationId, long waitMillis) throws FalconException {
+        Operation operation = operations.get(operationId);
+        if (operation == null) {
+            return null;
+        }
+        try {
+            operation.await(Math.min(waitMillis, MAX_WAIT));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FalconException("Interrupted while waiting for operation " + operationId, e);
+        }
+        return operation.toResult();
+    }
+
+    /**
+     * Waits for the operation to complete, for changes that what follows depends on.
+     *
+     * @throws FalconException if a job doesn't reach its expected status before the operation times out
+     */
+    public void await(Operation operation) throws FalconException {
+        try {
+            // the poller fails the checks pending for longer than the timeout
+            operation.await(timeout + 2 * interval);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FalconException("Interrupted while waiting for operation " + operation.getId(), e);
+        }
+        OperationResult result = operation.toResult();
+        if (result.getOperationStatus() != OperationStatus.SUCCEEDED) {
+            throw new FalconException("Operation " + operation.getId() + " did not complete: "
+                    + result.getMessage());
+        }
+    }
+
+    /**
+     * @return a check that the job reaches one of the statuses
+     */
+    public static Check status(String cluster, String jobId, Enum<?>... statuses) {
+        final List<String> expected = new ArrayList<String>();
+        for (Enum<?> status : statuses) {
+            expected.add(status.name());
+        }
+        return new Check(cluster, jobId, StringUtils.join(expected, '|')) {
+            @Override
+            protected boolean isReached(Object job) {
+                return expected.contains(statusOf(job));
+            }
+        };
+    }
+
+    private synchronized void startPoller() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "oozie-operation-poller");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        poller.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    poll();
+                } catch (Throwable e) {
+                    LOG.warn("Unable to poll the status of operations", e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    void poll() {
+        long now = System.currentTimeMillis();
+        // pending checks grouped by the cluster and the user that started the operation
+        Map<List<String>, List<Check>> pending = new LinkedHashMap<List<String>, List<Check>>();
+        Map<List<String>, Check> latest = new HashMap<List<String>, Check>();
+        for (Iterator<Operation> iterator = operations.values().iterator(); iterator.hasNext();) {
+            Operation operation = iterator.next();
+            if (operation.isExpired(now, retention)) {
+                iterator.remove();
+                continue;
+            }
+            for (Check check : operation.getPending()) {
+                // the job was changed again, only the last change is expected to show
+                List<String> job = Arrays.asList(check.cluster, check.jobId);
+                Check previous = latest.get(job);
+                if (previous != null) {
+                    Check superseded = previous.sequence < check.sequence ? previous : check;
+                    superseded.reached = true;
+                    if (superseded == check) {
+                        continue;
+                    }
+                }
+                latest.put(job, check);
+            }
+        }
+        for (Operation operation : operations.values()) {
+            for (Check check : operation.getPending()) {
+                if (check.reached) {
+                    continue;
+                }
+                List<String> key = Arrays.asList(check.cluster, operation.user);
+                List<Check> checks = pending.get(key);
+                if (checks == null) {
+                    checks = new ArrayList<Check>();
+                    pending.put(key, checks);
+                }
+                checks.add(check);
+            }
+        }
+
+        for (Map.Entry<List<String>, List<Check>> entry : pending.entrySet()) {
+            String cluster = entry.getKey().get(0);
+            String user = entry.getKey().get(1);
+            List<String> jobIds = new ArrayList<String>();
+            for (Check check : entry.getValue()) {
+                jobIds.add(check.jobId);
+            }
+            Map<String, Object> jobs;
+            try {
+                // as the user that started the operation, the poller runs the lookups of all the users
+                if (user == null) {
+                    CurrentUser.clear();
+                } else {
+                    CurrentUser.authenticate(user);
+                }
+                jobs = lookup.lookup(cluster, jobIds);
+            } catch (Throwable e) {
+                LOG.debug("Unable to look up jobs {} on cluster {}", jobIds, cluster, e);
+                continue;
+            } finally {
+                CurrentUser.clear();
+            }
+            for (Check check : entry.getValue()) {
+                Object job = jobs.get(check.jobId);
+                if (job != null) {
+                    check.lastStatus = statusOf(job);
+                    if (check.isReached(job)) {
+                        check.reached = true;
+                        InstanceStatusCache.get().invalidate(cluster, check.jobId);
+                    }
+                }
+            }
+        }
+
+        for (Operation operation : operations.values()) {
+            operation.update(now, timeout);
+        }
+    }
+
+    static String statusOf(Object job) {
+        if (job instanceof WorkflowJob) {
+            return ((WorkflowJob) job).getStatus().name();
+        } else if (job instanceof CoordinatorAction) {
+            return ((CoordinatorAction) job).getStatus().name();
+        } else if (job instanceof Job) {
+            return ((Job) job).getStatus().name();
+        }
+        return null;
+    }
+
+    /**
+     * Status a job is expected to reach.
+     */
+    public abstract static class Check {
+        private final String cluster;
+        private final String jobId;
+        private final String expected;
+        private volatile String lastStatus;
+        private volatile boolean reached;
+        private long added;
+        private long sequence;
+
+        protected Check(String cluster, String jobId, String expected) {
+            this.cluster = cluster;
+            this.jobId = jobId;
+            this.expected = expected;
+        }
+
+        protected abstract boolean isReached(Object job);
+
+        @Override
+        public String toString() {
+            return jobId + " on " + cluster + " expected " + expected + " but was " + lastStatus;
+        }
+    }
+
+    /**
+     * Jobs changed by a request, the operation completes when all of them reached their expected status or
+     * fails when one doesn't in time.
+     */
+    public static final class Operation {
+        private final String id;
+        private final String name;
+        private final String user;
+        private final List<Check> pending = new ArrayList<Check>();
+        private final List<String> failures = new ArrayList<String>();
+        private final List<Runnable> listeners = new ArrayList<Runnable>();
+        private String progress;
+        private boolean sealed;
+        private OperationStatus status = OperationStatus.RUNNING;
+        private long completed;
+
+        private Operation(String id, String name, String user) {
+            this.id = id;
+            this.name = name;
+            this.user = user;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public synchronized void expect(Check check) {
+            if (sealed) {
+                throw new IllegalStateException("Operation " + id + " is sealed");
+            }
+            check.added = System.currentTimeMillis();
+            check.sequence = SEQUENCE.incrementAndGet();
+            pending.add(check);
+        }
+
+        /**
+         * Records a change that could not be made, the operation fails once it completes.
+         */
+        public synchronized void fail(String failure) {
+            failures.add(failure);
+        }
+
+        /**
+         * Sets the progress reported with the status, for operations that change their jobs in the background.
+         */
+        public synchronized void setProgress(String progress) {
+            this.progress = progress;
+        }
+
+        /**
+         * Runs the listener once the operation completes, right away if it did already.
+         */
+        public void addListener(Runnable listener) {
+            synchronized (this) {
+                if (status == OperationStatus.RUNNING) {
+                    listeners.add(listener);
+                    return;
+                }
+            }
+            listener.run();
+        }
+
+        /**
+         * No more jobs are added to the operation, it completes once the pending jobs are done.
+         */
+        public void seal() {
+            synchronized (this) {
+                sealed = true;
+            }
+            update(System.currentTimeMillis(), Long.MAX_VALUE);
+        }
+
+        private synchronized List<Check> getPending() {
+            return new ArrayList<Check>(pending);
+        }
+
+        private synchronized boolean isExpired(long now, long retention) {
+            return status != OperationStatus.RUNNING && now - completed > retention;
+        }
+
+        private void update(long now, long timeout) {
+            List<Runnable> toNotify;
+            synchronized (this) {
+                if (status != OperationStatus.RUNNING) {
+                    return;
+                }
+                for (Iterator<Check> iterator = pending.iterator(); iterator.hasNext();) {
+                    Check check = iterator.next();
+                    if (check.reached) {
+                        iterator.remove();
+                    } else if (now - check.added > timeout) {
+                        iterator.remove();
+                        failures.add(check.toString());
+                    }
+                }
+                if (!sealed || !pending.isEmpty()) {
+                    return;
+                }
+
+                status = failures.isEmpty() ? OperationStatus.SUCCEEDED : OperationStatus.FAILED;
+                completed = now;
+                notifyAll();
+                toNotify = new ArrayList<Runnable>(listeners);
+                listeners.clear();
+            }
+            if (status == OperationStatus.FAILED) {
+                LOG.warn("Operation {} {} failed: {}", id, name, failures);
+            } else {
+                LOG.debug("Operation {} {} succeeded", id, name);
+            }
+            for (Runnable listener : toNotify) {
+                try {
+                    listener.run();
+                } catch (Throwable e) {
+                    LOG.warn("Listener of operation {} failed", id, e);
+                }
+            }
+        }
+
+        private synchronized void await(long millis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + millis;
+            while (status == OperationStatus.RUNNING) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                wait(remaining);
+            }
+        }
+
+        private synchronized OperationResult toResult() {
+            String message = name;
+            if (progress != null) {
+                message += " (" + progress + ")";
+            }
+            if (!failures.isEmpty()) {
+                message += ". " + StringUtils.join(failures, ", ");
+            }
+            return new OperationResult(id, status, pending.size(), message);
+        }
+    }
+
+    /**
+     * Looks up the jobs in oozie, workflows, coordinators and bundles with a query per kind of job.
+     */
+    private static final class OozieJobLookup implements JobLookup {
+
+        @Override
+        public Map<String, Object> lookup(String cluster, Collection<String> jobIds) throws FalconException {
+            Map<String, List<String>> byKind = new HashMap<String, List<String>>();
+            Map<String, Object> jobs = new HashMap<String, Object>();
+            ProxyOozieClient client = OozieClientFactory.get(cluster);
+            for (String jobId : jobIds) {
+                String kind = jobId.contains("-C@") ? "-C@" : jobId.substring(Math.max(jobId.length() - 2, 0));
+                List<String> ids = byKind.get(kind);
+                if (ids == null) {
+                    ids = new ArrayList<String>();
+                    byKind.put(kind, ids);
+                }
+                ids.add(jobId);
+            }
+
+            for (Map.Entry<String, List<String>> entry : byKind.entrySet()) {
+                List<String> ids = entry.getValue();
+                for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+                    List<String> batch = ids.subList(start, Math.min(start + BATCH_SIZE, ids.size()));
+                    lookup(client, entry.getKey(), batch, jobs);
+                }
+            }
+            return jobs;
+        }
+
+        private void lookup(ProxyOozieClient client, String kind, List<String> ids, Map<String, Object> jobs) {
+            List<String> filter = new ArrayList<String>();
+            for (String id : ids) {
+                filter.add(OozieClient.FILTER_ID + "=" + id);
+            }
+            String filterStr = StringUtils.join(filter, ';');
+            try {
+                if ("-W".equals(kind)) {
+                    for (WorkflowJob job : client.getJobsInfo(filterStr, 1, ids.size())) {
+                        jobs.put(job.getId(), job);
+                    }
+                } else if ("-C".equals(kind)) {
+                    for (CoordinatorJob job : client.getCoordJobsInfo(filterStr, 1, ids.size())) {
+                        jobs.put(job.getId(), job);
+                    }
+                } else if ("-B".equals(kind)) {
+                    for (BundleJob job : client.getBundleJobsInfo(filterStr, 1, ids.size())) {
+                        jobs.put(job.getId(), job);
+                    }
+                }
+            } catch (OozieClientException e) {
+                LOG.debug("Unable to look up jobs with filter {}, looking them up one by one", filterStr, e);
+            }
+
+            // coordinator actions, and jobs that oozie didn't filter by id
+            for (String id : ids) {
+                if (jobs.containsKey(id)) {
+                    continue;
+                }
+                try {
+                    if ("-C@".equals(kind)) {
+                        jobs.put(id, client.getCoordActionInfo(id));
+                    } else if ("-C".equals(kind)) {
+                        jobs.put(id, client.getCoordJobInfo(id, null, 1, 1));
+                    } else if ("-B".equals(kind)) {
+                        jobs.put(id, client.getBundleJobInfo(id));
+                    } else {
+                        jobs.put(id, client.getJobInfo(id));
+                    }
+                } catch (OozieClientException e) {
+                    LOG.debug("Unable to look up job {}", id, e);
+                }
+            }
+        }
+    }
+}
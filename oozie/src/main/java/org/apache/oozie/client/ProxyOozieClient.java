@@ -21,8 +21,11 @@ package org.apache.oozie.client;
 import org.apache.falcon.security.CurrentUser;
 import org.apache.falcon.security.SecurityUtil;
 import org.apache.falcon.util.RuntimeProperties;
+import org.apache.falcon.util.StartupProperties;
 import org.apache.hadoop.hdfs.web.KerberosUgiAuthenticator;
 import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.security.authentication.client.AuthenticatedURL;
+import org.apache.hadoop.security.authentication.client.AuthenticationException;
 import org.apache.hadoop.security.authentication.client.Authenticator;
 import org.apache.oozie.client.rest.RestConstants;
 import org.json.simple.JSONObject;
@@ -42,16 +45,29 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Wrapped Oozie Client that does proxy the requests.
+ * Wrapped Oozie Client that does proxy the requests. The authentication token of every user is reused until
+ * shortly before it expires, so that requests don't negotiate authentication with oozie each time.
  */
 public class ProxyOozieClient extends AuthOozieClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(ProxyOozieClient.class);
     private static final Map<String, String> NONE = new HashMap<String, String>();
 
+    // error code of the client for a request oozie did not authenticate
+    private static final String UNAUTHORIZED = "HTTP error code: " + HttpURLConnection.HTTP_UNAUTHORIZED;
+
+    // tokens are renewed this long before oozie expires them
+    private static final long TOKEN_EXPIRY_MARGIN = TimeUnit.MINUTES.toMillis(1);
+
     private final Authenticator authenticator = new KerberosUgiAuthenticator();
+    private final ConcurrentMap<String, AuthToken> authTokens = new ConcurrentHashMap<String, AuthToken>();
+    private final long authTokenTTL = TimeUnit.SECONDS.toMillis(Long.parseLong(
+            StartupProperties.get().getProperty("oozie.client.auth.token.ttl.seconds", "600")));
 
     public ProxyOozieClient(String oozieUrl) {
         super(oozieUrl, SecurityUtil.getAuthenticationType());
@@ -81,11 +97,12 @@ public class ProxyOozieClient extends AuthOozieClient {
         final URL decoratedUrl = decorateUrlWithUser(url);
         LOG.debug("ProxyOozieClient.createConnection: u={}, m={}", url, method);
 
-        UserGroupInformation currentUser = UserGroupInformation.getCurrentUser();
+        final UserGroupInformation currentUser = UserGroupInformation.getCurrentUser();
         try {
             return currentUser.doAs(new PrivilegedExceptionAction<HttpURLConnection>() {
                 public HttpURLConnection run() throws Exception {
-                    HttpURLConnection conn = ProxyOozieClient.super.createConnection(decoratedUrl, method);
+                    HttpURLConnection conn = openConnection(decoratedUrl, method,
+                            getAuthToken(currentUser.getUserName(), decoratedUrl));
 
                     int connectTimeout = Integer.valueOf(
                             RuntimeProperties.get().getProperty("oozie.connect.timeout", "1000"));
@@ -103,6 +120,77 @@ public class ProxyOozieClient extends AuthOozieClient {
         }
     }
 
+    // same as the oozie client does, with the token of the user instead of authenticating on every connection
+    private HttpURLConnection openConnection(URL url, String method, AuthenticatedURL.Token token)
+        throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod(method);
+        if (method.equals("POST") || method.equals("PUT")) {
+            conn.setDoOutput(true);
+        }
+        for (Map.Entry<String, String> header : getHeaders().entrySet()) {
+            conn.setRequestProperty(header.getKey(), header.getValue());
+        }
+        AuthenticatedURL.injectToken(conn, token);
+        return conn;
+    }
+
+    private AuthenticatedURL.Token getAuthToken(String user, URL url) throws IOException, OozieClientException {
+        long now = System.currentTimeMillis();
+        AuthToken cached = authTokens.get(user);
+        if (cached != null && now < cached.expiry) {
+            return cached.token;
+        }
+
+        AuthenticatedURL.Token token = new AuthenticatedURL.Token();
+        try {
+            new AuthenticatedURL(getAuthenticator()).openConnection(url, token);
+        } catch (AuthenticationException e) {
+            authTokens.remove(user);
+            throw new OozieClientException(OozieClientException.AUTHENTICATION,
+                    "Could not authenticate, " + e.getMessage(), e);
+        }
+        if (token.isSet()) {
+            long expiry = Math.min(getExpiry(token.toString()) - TOKEN_EXPIRY_MARGIN, now + authTokenTTL);
+            authTokens.put(user, new AuthToken(token, expiry));
+            LOG.debug("Authenticated {} with oozie {}", user, getOozieUrl());
+        }
+        return token;
+    }
+
+    /**
+     * Calls oozie as the user. A token oozie rejects, say after it restarted with another secret, is dropped and
+     * the call made once more with a new one. A token that could not be had is never cached in the first place.
+     */
+    private <T> T callAs(String user, Callable<T> callable) throws Exception {
+        try {
+            return doAs(user, callable);
+        } catch (OozieClientException e) {
+            if (!UNAUTHORIZED.equals(e.getErrorCode())) {
+                throw e;
+            }
+            String tokenUser = UserGroupInformation.getCurrentUser().getUserName();
+            LOG.info("Oozie {} rejected the authentication token of {}, authenticating again",
+                    getOozieUrl(), tokenUser);
+            authTokens.remove(tokenUser);
+            return doAs(user, callable);
+        }
+    }
+
+    // the hadoop auth token carries its expiry time as "e=<millis>"
+    static long getExpiry(String token) {
+        for (String attribute : token.replace("\"", "").split("&")) {
+            if (attribute.startsWith("e=")) {
+                try {
+                    return Long.parseLong(attribute.substring(2));
+                } catch (NumberFormatException e) {
+                    break;
+                }
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
     protected URL decorateUrlWithUser(URL url) throws IOException {
         String strUrl = url.toString();
 
@@ -120,6 +208,19 @@ public class ProxyOozieClient extends AuthOozieClient {
         return url;
     }
 
+    /**
+     * Authentication token of a user and when to stop using it.
+     */
+    private static final class AuthToken {
+        private final AuthenticatedURL.Token token;
+        private final long expiry;
+
+        private AuthToken(AuthenticatedURL.Token token, long expiry) {
+            this.token = token;
+            this.expiry = expiry;
+        }
+    }
+
     private class OozieConfiguration extends ClientCallable<Properties> {
 
         public OozieConfiguration(String resource) {
@@ -146,7 +247,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public SYSTEM_MODE getSystemMode() throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<SYSTEM_MODE>() {
+            return callAs(CurrentUser.getUser(), new Callable<SYSTEM_MODE>() {
 
                 public SYSTEM_MODE call() throws Exception {
                     return ProxyOozieClient.super.getSystemMode();
@@ -160,7 +261,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public String submit(final Properties conf) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<String>() {
+            return callAs(CurrentUser.getUser(), new Callable<String>() {
 
                 public String call() throws Exception {
                     return ProxyOozieClient.super.submit(conf);
@@ -174,7 +275,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public String dryrun(final Properties conf) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<String>() {
+            return callAs(CurrentUser.getUser(), new Callable<String>() {
 
                 public String call() throws Exception {
                     return ProxyOozieClient.super.dryrun(conf);
@@ -189,7 +290,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public void start(final String jobId) throws OozieClientException {
         try {
-            doAs(CurrentUser.getUser(), new Callable<Object>() {
+            callAs(CurrentUser.getUser(), new Callable<Object>() {
 
                 public String call() throws Exception {
                     ProxyOozieClient.super.start(jobId);
@@ -204,7 +305,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public String run(final Properties conf) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<String>() {
+            return callAs(CurrentUser.getUser(), new Callable<String>() {
 
                 public String call() throws Exception {
                     return ProxyOozieClient.super.run(conf);
@@ -218,7 +319,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public void reRun(final String jobId, final Properties conf) throws OozieClientException {
         try {
-            doAs(CurrentUser.getUser(), new Callable<Object>() {
+            callAs(CurrentUser.getUser(), new Callable<Object>() {
 
                 public Object call() throws Exception {
                     ProxyOozieClient.super.reRun(jobId, conf);
@@ -233,7 +334,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public void suspend(final String jobId) throws OozieClientException {
         try {
-            doAs(CurrentUser.getUser(), new Callable<Object>() {
+            callAs(CurrentUser.getUser(), new Callable<Object>() {
 
                 public Object call() throws Exception {
                     ProxyOozieClient.super.suspend(jobId);
@@ -248,7 +349,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public void resume(final String jobId) throws OozieClientException {
         try {
-            doAs(CurrentUser.getUser(), new Callable<Object>() {
+            callAs(CurrentUser.getUser(), new Callable<Object>() {
 
                 public Object call() throws Exception {
                     ProxyOozieClient.super.resume(jobId);
@@ -263,7 +364,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public void kill(final String jobId) throws OozieClientException {
         try {
-            doAs(CurrentUser.getUser(), new Callable<Object>() {
+            callAs(CurrentUser.getUser(), new Callable<Object>() {
 
                 public Object call() throws Exception {
                     ProxyOozieClient.super.kill(jobId);
@@ -278,7 +379,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public void change(final String jobId, final String changeValue) throws OozieClientException {
         try {
-            doAs(CurrentUser.getUser(), new Callable<Object>() {
+            callAs(CurrentUser.getUser(), new Callable<Object>() {
 
                 public Object call() throws Exception {
                     ProxyOozieClient.super.change(jobId, changeValue);
@@ -293,7 +394,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public WorkflowJob getJobInfo(final String jobId) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<WorkflowJob>() {
+            return callAs(CurrentUser.getUser(), new Callable<WorkflowJob>() {
 
                 public WorkflowJob call() throws Exception {
                     return ProxyOozieClient.super.getJobInfo(jobId);
@@ -308,7 +409,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     public WorkflowJob getJobInfo(final String jobId, final int start, final int len)
         throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<WorkflowJob>() {
+            return callAs(CurrentUser.getUser(), new Callable<WorkflowJob>() {
 
                 public WorkflowJob call() throws Exception {
                     return ProxyOozieClient.super.getJobInfo(jobId, start, len);
@@ -323,7 +424,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     public WorkflowAction getWorkflowActionInfo(final String actionId)
         throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<WorkflowAction>() {
+            return callAs(CurrentUser.getUser(), new Callable<WorkflowAction>() {
 
                 public WorkflowAction call() throws Exception {
                     return ProxyOozieClient.super.getWorkflowActionInfo(actionId);
@@ -337,7 +438,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public String getJobLog(final String jobId) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<String>() {
+            return callAs(CurrentUser.getUser(), new Callable<String>() {
 
                 public String call() throws Exception {
                     return ProxyOozieClient.super.getJobLog(jobId);
@@ -353,7 +454,7 @@ public class ProxyOozieClient extends AuthOozieClient {
                           final String logRetrievalScope, final PrintStream ps)
         throws OozieClientException {
         try {
-            doAs(CurrentUser.getUser(), new Callable<Object>() {
+            callAs(CurrentUser.getUser(), new Callable<Object>() {
 
                 public Object call() throws Exception {
                     ProxyOozieClient.super.getJobLog(jobId, logRetrievalType, logRetrievalScope, ps);
@@ -368,7 +469,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public String getJobDefinition(final String jobId) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<String>() {
+            return callAs(CurrentUser.getUser(), new Callable<String>() {
 
                 public String call() throws Exception {
                     return ProxyOozieClient.super.getJobDefinition(jobId);
@@ -382,7 +483,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public BundleJob getBundleJobInfo(final String jobId) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<BundleJob>() {
+            return callAs(CurrentUser.getUser(), new Callable<BundleJob>() {
 
                 public BundleJob call() throws Exception {
                     return ProxyOozieClient.super.getBundleJobInfo(jobId);
@@ -396,7 +497,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public CoordinatorJob getCoordJobInfo(final String jobId) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<CoordinatorJob>() {
+            return callAs(CurrentUser.getUser(), new Callable<CoordinatorJob>() {
 
                 public CoordinatorJob call() throws Exception {
                     return ProxyOozieClient.super.getCoordJobInfo(jobId);
@@ -412,7 +513,7 @@ public class ProxyOozieClient extends AuthOozieClient {
                                           final int start, final int len)
         throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<CoordinatorJob>() {
+            return callAs(CurrentUser.getUser(), new Callable<CoordinatorJob>() {
 
                 public CoordinatorJob call() throws Exception {
                     return ProxyOozieClient.super.getCoordJobInfo(jobId, filter, start, len);
@@ -423,10 +524,26 @@ public class ProxyOozieClient extends AuthOozieClient {
         }
     }
 
+    @Override
+    public CoordinatorJob getCoordJobInfo(final String jobId, final String filter,
+                                          final int start, final int len, final String order)
+        throws OozieClientException {
+        try {
+            return callAs(CurrentUser.getUser(), new Callable<CoordinatorJob>() {
+
+                public CoordinatorJob call() throws Exception {
+                    return ProxyOozieClient.super.getCoordJobInfo(jobId, filter, start, len, order);
+                }
+            });
+        } catch (Exception e) {
+            throw new OozieClientException(OozieClientException.AUTHENTICATION, e);
+        }
+    }
+
     @Override
     public CoordinatorAction getCoordActionInfo(final String actionId) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<CoordinatorAction>() {
+            return callAs(CurrentUser.getUser(), new Callable<CoordinatorAction>() {
 
                 public CoordinatorAction call() throws Exception {
                     return ProxyOozieClient.super.getCoordActionInfo(actionId);
@@ -443,7 +560,7 @@ public class ProxyOozieClient extends AuthOozieClient {
                                               final boolean noCleanup)
         throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<List<CoordinatorAction>>() {
+            return callAs(CurrentUser.getUser(), new Callable<List<CoordinatorAction>>() {
 
                 public List<CoordinatorAction> call() throws Exception {
                     return ProxyOozieClient.super.reRunCoord(jobId, rerunType, scope, refresh, noCleanup);
@@ -459,7 +576,7 @@ public class ProxyOozieClient extends AuthOozieClient {
                             final boolean refresh, final boolean noCleanup)
         throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<Void>() {
+            return callAs(CurrentUser.getUser(), new Callable<Void>() {
 
                 public Void call() throws Exception {
                     return ProxyOozieClient.super.reRunBundle(jobId, coordScope, dateScope, refresh, noCleanup);
@@ -474,7 +591,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     public List<WorkflowJob> getJobsInfo(final String filter, final int start, final int len)
         throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<List<WorkflowJob>>() {
+            return callAs(CurrentUser.getUser(), new Callable<List<WorkflowJob>>() {
 
                 public List<WorkflowJob> call() throws Exception {
                     return ProxyOozieClient.super.getJobsInfo(filter, start, len);
@@ -488,7 +605,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public List<WorkflowJob> getJobsInfo(final String filter) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<List<WorkflowJob>>() {
+            return callAs(CurrentUser.getUser(), new Callable<List<WorkflowJob>>() {
 
                 public List<WorkflowJob> call() throws Exception {
                     return ProxyOozieClient.super.getJobsInfo(filter);
@@ -502,7 +619,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public void getSlaInfo(final int start, final int len, final String filter) throws OozieClientException {
         try {
-            doAs(CurrentUser.getUser(), new Callable<Object>() {
+            callAs(CurrentUser.getUser(), new Callable<Object>() {
 
                 public Object call() throws Exception {
                     ProxyOozieClient.super.getSlaInfo(start, len, filter);
@@ -517,7 +634,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     @Override
     public String getJobId(final String externalId) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<String>() {
+            return callAs(CurrentUser.getUser(), new Callable<String>() {
 
                 public String call() throws Exception {
                     return ProxyOozieClient.super.getJobId(externalId);
@@ -532,7 +649,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     public List<CoordinatorJob> getCoordJobsInfo(final String filter, final int start,
                                                  final int len) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<List<CoordinatorJob>>() {
+            return callAs(CurrentUser.getUser(), new Callable<List<CoordinatorJob>>() {
 
                 public List<CoordinatorJob> call() throws Exception {
                     return ProxyOozieClient.super.getCoordJobsInfo(filter, start, len);
@@ -547,7 +664,7 @@ public class ProxyOozieClient extends AuthOozieClient {
     public List<BundleJob> getBundleJobsInfo(final String filter, final int start,
                                              final int len) throws OozieClientException {
         try {
-            return doAs(CurrentUser.getUser(), new Callable<List<BundleJob>>() {
+            return callAs(CurrentUser.getUser(), new Callable<List<BundleJob>>() {
                 public List<BundleJob> call() throws Exception {
                     return ProxyOozieClient.super.getBundleJobsInfo(filter, start, len);
                 }
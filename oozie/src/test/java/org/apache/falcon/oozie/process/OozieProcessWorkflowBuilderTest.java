@@ -18,6 +18,8 @@
 
 package org.apache.falcon.oozie.process;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.falcon.FalconException;
 import org.apache.falcon.Tag;
 import org.apache.falcon.cluster.util.EmbeddedCluster;
@@ -69,6 +71,7 @@ import javax.xml.bind.JAXBElement;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -205,13 +208,28 @@ public class OozieProcessWorkflowBuilderTest extends AbstractTestBase {
         if (!new File(path).exists()) {
             Assert.assertTrue(new File(path).mkdirs());
         }
-        Process process = ConfigurationStore.get().get(EntityType.PROCESS, "clicksummary");
-
-        WORKFLOWAPP parentWorkflow = initializeProcessMapper(process, "12", "360");
-        testParentWorkflow(process, parentWorkflow);
+        // a falcon jar for the builds to share
+        File falconJar = new File(path, "falcon-test.jar");
+        FileUtils.writeStringToFile(falconJar, "falcon");
+        try {
+            Assert.assertNotNull(OozieEntityBuilder.getSharedLibPath(cluster));
+            Process process = ConfigurationStore.get().get(EntityType.PROCESS, "clicksummary");
+
+            WORKFLOWAPP parentWorkflow = initializeProcessMapper(process, "12", "360");
+            testParentWorkflow(process, parentWorkflow);
+
+            ACTION oozieAction = getAction(parentWorkflow, "user-action");
+            Assert.assertNotNull(oozieAction.getSubWorkflow());
+        } finally {
+            Assert.assertTrue(falconJar.delete());
+        }
+    }
 
-        ACTION oozieAction = getAction(parentWorkflow, "user-action");
-        Assert.assertNotNull(oozieAction.getSubWorkflow());
+    @Test
+    public void testBundleWithoutFalconJars() throws Exception {
+        Assert.assertNull(OozieEntityBuilder.getSharedLibPath(cluster));
+        Process process = ConfigurationStore.get().get(EntityType.PROCESS, "clicksummary");
+        initializeProcessMapper(process, "12", "360");
     }
 
     @Test
@@ -634,12 +652,23 @@ public class OozieProcessWorkflowBuilderTest extends AbstractTestBase {
             bundle.getCoordinator().get(0).getName());
         String coordPath = bundle.getCoordinator().get(0).getAppPath().replace("${nameNode}", "");
         List<CONFIGURATION.Property> props = bundle.getCoordinator().get(0).getConfiguration().getProperty();
+        // user libs, then the falcon jars shared by all the builds
+        List<String> libPaths = new ArrayList<String>();
+        Path userLibPath = ProcessHelper.getUserLibPath(process, cluster, bundlePath);
+        if (userLibPath != null) {
+            libPaths.add(userLibPath.toString());
+        }
+        Path sharedLibPath = OozieEntityBuilder.getSharedLibPath(cluster);
+        if (sharedLibPath != null) {
+            libPaths.add(sharedLibPath.toString());
+        }
+        String libPath = null;
         for (CONFIGURATION.Property prop : props) {
             if (prop.getName().equals("oozie.libpath")) {
-                Assert.assertEquals(prop.getValue().replace("${nameNode}", ""), new Path(bundlePath,
-                    "userlib").toString());
+                libPath = prop.getValue().replace("${nameNode}", "");
             }
         }
+        assertEquals(libPath, libPaths.isEmpty() ? null : StringUtils.join(libPaths, ","));
 
         COORDINATORAPP coord = getCoordinator(fs, new Path(coordPath));
         testDefCoordMap(process, coord);
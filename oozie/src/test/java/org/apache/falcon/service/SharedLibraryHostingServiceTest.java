@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.service;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.falcon.cluster.util.EmbeddedCluster;
+import org.apache.falcon.security.CurrentUser;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+
+/**
+ * Tests for pushing shared libraries to a cluster.
+ */
+public class SharedLibraryHostingServiceTest {
+
+    @Test
+    public void testOnlyChangedJarsArePushed() throws Exception {
+        CurrentUser.authenticate("falcon");
+        EmbeddedCluster cluster = EmbeddedCluster.newCluster("libCluster");
+        FileSystem fs = cluster.getFileSystem();
+
+        File src = new File("target/shared-lib-test");
+        FileUtils.deleteQuietly(src);
+        File first = new File(src, "first.jar");
+        File second = new File(src, "second.jar");
+        FileUtils.writeStringToFile(first, "first");
+        FileUtils.writeStringToFile(second, "second");
+        String digest = SharedLibraryHostingService.getDigest(src.getPath(), null);
+
+        Path target = new Path("/project/falcon/working/lib/test");
+        SharedLibraryHostingService.pushLibsToHDFS(src.getPath(), target, cluster.getCluster(), null);
+        Assert.assertTrue(fs.exists(new Path(target, "first.jar")));
+        Assert.assertTrue(fs.exists(new Path(target, "second.jar")));
+
+        // the same jars are not checked against the cluster again
+        fs.delete(new Path(target, "first.jar"), false);
+        SharedLibraryHostingService.pushLibsToHDFS(src.getPath(), target, cluster.getCluster(), null);
+        Assert.assertFalse(fs.exists(new Path(target, "first.jar")));
+
+        // the jar that changed is pushed, as is the one missing from the cluster although it is in the manifest
+        FileUtils.writeStringToFile(second, "second, changed");
+        Assert.assertNotEquals(SharedLibraryHostingService.getDigest(src.getPath(), null), digest);
+        SharedLibraryHostingService.pushLibsToHDFS(src.getPath(), target, cluster.getCluster(), null);
+        Assert.assertTrue(fs.exists(new Path(target, "first.jar")));
+        Assert.assertEquals(fs.getFileStatus(new Path(target, "second.jar")).getLen(), second.length());
+
+        // only the jar that changed is pushed
+        long firstPushed = fs.getFileStatus(new Path(target, "first.jar")).getModificationTime();
+        FileUtils.writeStringToFile(second, "second, changed again");
+        SharedLibraryHostingService.pushLibsToHDFS(src.getPath(), target, cluster.getCluster(), null);
+        Assert.assertEquals(fs.getFileStatus(new Path(target, "first.jar")).getModificationTime(), firstPushed);
+        Assert.assertEquals(fs.getFileStatus(new Path(target, "second.jar")).getLen(), second.length());
+
+        // a cleaned dir is filled again
+        fs.delete(target, true);
+        FileUtils.writeStringToFile(first, "first, changed");
+        SharedLibraryHostingService.pushLibsToHDFS(src.getPath(), target, cluster.getCluster(), null);
+        Assert.assertEquals(fs.getFileStatus(new Path(target, "first.jar")).getLen(), first.length());
+        Assert.assertEquals(fs.getFileStatus(new Path(target, "second.jar")).getLen(), second.length());
+    }
+}
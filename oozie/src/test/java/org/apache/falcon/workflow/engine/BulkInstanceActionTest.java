@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.entity.v0.Entity;
+import org.apache.falcon.entity.v0.process.Process;
+import org.apache.falcon.resource.OperationResult;
+import org.apache.falcon.resource.OperationResult.OperationStatus;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for running instance actions on many entities.
+ */
+public class BulkInstanceActionTest {
+
+    private static final long INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private final OperationTracker tracker = new OperationTracker(new OperationTracker.JobLookup() {
+        @Override
+        public Map<String, Object> lookup(String cluster, Collection<String> jobIds) {
+            return new HashMap<String, Object>();
+        }
+    }, INTERVAL, INTERVAL, INTERVAL);
+
+    @Test
+    public void testEntitiesAreActedOnPerCluster() throws Exception {
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        Map<String, List<Entity>> entities = new TreeMap<String, List<Entity>>();
+        entities.put("first", Arrays.<Entity>asList(process("clicks"), process("views")));
+        entities.put("second", Arrays.<Entity>asList(process("clicks")));
+
+        BulkInstanceAction bulkAction = new BulkInstanceAction(new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                runnable.run();
+            }
+        }, 4, 0);
+        OperationTracker.Operation operation = tracker.start("RERUN");
+        bulkAction.start(operation, entities, new BulkInstanceAction.EntityAction() {
+            @Override
+            public int run(Entity entity, String cluster, BulkInstanceAction.Throttle throttle)
+                throws FalconException {
+                calls.add(entity.getName() + "@" + cluster);
+                if (cluster.equals("second")) {
+                    throw new FalconException("oozie is down");
+                }
+                return 2;
+            }
+        });
+
+        Assert.assertEquals(calls, Arrays.asList("clicks@first", "views@first", "clicks@second"));
+        OperationResult result = tracker.getStatus(operation.getId(), 0);
+        Assert.assertEquals(result.getOperationStatus(), OperationStatus.FAILED);
+        Assert.assertTrue(result.getMessage().contains("3 of 3 entities done, 4 instances, 1 failed"),
+                result.getMessage());
+        Assert.assertTrue(result.getMessage().contains("(process) clicks on second: oozie is down"),
+                result.getMessage());
+    }
+
+    @Test
+    public void testWorkersPerClusterAreLimited() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<Entity> processes = new ArrayList<Entity>();
+        for (int index = 0; index < 6; index++) {
+            processes.add(process("process" + index));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            BulkInstanceAction bulkAction = new BulkInstanceAction(executor, 2, 0);
+            OperationTracker.Operation operation = tracker.start("KILL");
+            bulkAction.start(operation, Collections.singletonMap("cluster", processes),
+                    new BulkInstanceAction.EntityAction() {
+                        @Override
+                        public int run(Entity entity, String cluster, BulkInstanceAction.Throttle throttle)
+                            throws FalconException {
+                            int now = running.incrementAndGet();
+                            synchronized (maxRunning) {
+                                maxRunning.set(Math.max(maxRunning.get(), now));
+                            }
+                            try {
+                                Thread.sleep(20);
+                            } catch (InterruptedException e) {
+                                throw new FalconException(e);
+                            }
+                            running.decrementAndGet();
+                            return 1;
+                        }
+                    });
+
+            OperationResult result = tracker.getStatus(operation.getId(), TimeUnit.SECONDS.toMillis(10));
+            Assert.assertEquals(result.getOperationStatus(), OperationStatus.SUCCEEDED);
+            Assert.assertTrue(result.getMessage().contains("6 of 6 entities done, 6 instances"),
+                    result.getMessage());
+            Assert.assertEquals(maxRunning.get(), 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testChangesAreThrottled() throws Exception {
+        BulkInstanceAction.Throttle throttle = new BulkInstanceAction.Throttle(100);
+        long start = System.nanoTime();
+        for (int change = 0; change < 6; change++) {
+            throttle.acquire();
+        }
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testActionNumbersAsRanges() {
+        Assert.assertEquals(BulkInstanceAction.toRanges(Arrays.asList(7, 1, 2, 3, 5, 8, 9)), "1-3,5,7-9");
+        Assert.assertEquals(BulkInstanceAction.toRanges(Arrays.asList(4)), "4");
+        Assert.assertEquals(BulkInstanceAction.toRanges(new ArrayList<Integer>()), "");
+    }
+
+    private static Process process(String name) {
+        Process process = new Process();
+        process.setName(name);
+        return process;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.entity.v0.feed.Feed;
+import org.apache.falcon.entity.v0.process.Process;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Tests for the bundle index.
+ */
+public class BundleIndexTest {
+
+    private static final List<BundleIndex.RetiredCoord> NO_COORDS = Collections.emptyList();
+
+    private FileSystem fs;
+    private Path storePath;
+    private Process process;
+    private Feed feed;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        fs = FileSystem.getLocal(new Configuration());
+        storePath = new Path("target/bundle-index");
+        fs.delete(storePath, true);
+        fs.mkdirs(storePath);
+
+        process = new Process();
+        process.setName("sample");
+        feed = new Feed();
+        feed.setName("sample");
+    }
+
+    @Test
+    public void testIndexIsPersisted() throws Exception {
+        BundleIndex index = new BundleIndex(fs, storePath);
+        Assert.assertNull(index.getBundleIds(process, "cluster1"));
+
+        index.setBundleIds(process, "cluster1", Arrays.asList("b1"), NO_COORDS, index.getGeneration());
+        index.setBundleIds(feed, "cluster1", Collections.<String>emptyList(), NO_COORDS, index.getGeneration());
+        index.addBundleId(process, "cluster1", "b2");
+        index.addBundleId(feed, "cluster2", "b3");
+
+        BundleIndex restored = new BundleIndex(fs, storePath);
+        Assert.assertEquals(restored.getBundleIds(process, "cluster1"), Arrays.asList("b1", "b2"));
+        Assert.assertEquals(restored.getBundleIds(feed, "cluster1"), Collections.emptyList());
+        // bundles of entities that were never discovered are left to discovery
+        Assert.assertNull(restored.getBundleIds(feed, "cluster2"));
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        BundleIndex index = new BundleIndex(fs, storePath);
+        index.setBundleIds(process, "cluster1", Arrays.asList("b1", "b2"), NO_COORDS, index.getGeneration());
+
+        index.removeJobIds(process, "cluster1", Arrays.asList("b1"));
+        Assert.assertEquals(index.getBundleIds(process, "cluster1"), Arrays.asList("b2"));
+
+        index.remove(process, "cluster1");
+        Assert.assertNull(index.getBundleIds(process, "cluster1"));
+        Assert.assertNull(new BundleIndex(fs, storePath).getBundleIds(process, "cluster1"));
+    }
+
+    @Test
+    public void testRetireBundle() throws Exception {
+        BundleIndex index = new BundleIndex(fs, storePath);
+        index.setBundleIds(process, "cluster1", Arrays.asList("b1", "b2"), NO_COORDS, index.getGeneration());
+        Assert.assertEquals(index.getRetiredCoords(process, "cluster1"), NO_COORDS);
+
+        index.retireBundle(process, "cluster1", "b1", Arrays.asList(
+                new BundleIndex.RetiredCoord("c1", "FALCON_PROCESS_DEFAULT_sample", new Date(1000), new Date(2000)),
+                new BundleIndex.RetiredCoord("c2", "FALCON_PROCESS_LATE1_sample", new Date(1000), new Date(2000))));
+        BundleIndex restored = new BundleIndex(fs, storePath);
+        Assert.assertEquals(restored.getBundleIds(process, "cluster1"), Arrays.asList("b2"));
+        List<BundleIndex.RetiredCoord> retired = restored.getRetiredCoords(process, "cluster1");
+        Assert.assertEquals(retired.size(), 2);
+        Assert.assertEquals(retired.get(0).getId(), "c1");
+        Assert.assertEquals(retired.get(0).getAppName(), "FALCON_PROCESS_DEFAULT_sample");
+        Assert.assertEquals(retired.get(0).getStartTime(), new Date(1000));
+        Assert.assertEquals(retired.get(0).getEndTime(), new Date(2000));
+
+        // purged from oozie
+        restored.removeJobIds(process, "cluster1", Arrays.asList("c1"));
+        retired = new BundleIndex(fs, storePath).getRetiredCoords(process, "cluster1");
+        Assert.assertEquals(retired.size(), 1);
+        Assert.assertEquals(retired.get(0).getId(), "c2");
+        Assert.assertNull(index.getRetiredCoords(process, "cluster2"));
+    }
+
+    @Test
+    public void testLatestRecordIsRead() throws Exception {
+        BundleIndex index = new BundleIndex(fs, storePath);
+        index.setBundleIds(process, "cluster1", Arrays.asList("b1"), NO_COORDS, index.getGeneration());
+        index.addBundleId(process, "cluster1", "b2");
+        Path entityPath = new Path(storePath, "bundle-index/PROCESS/sample");
+        Assert.assertEquals(fs.listStatus(entityPath).length, 1);
+
+        // left behind by a write that failed before replacing it
+        FSDataOutputStream out = fs.create(new Path(entityPath, "cluster1.1"));
+        out.write("b1".getBytes("UTF-8"));
+        out.close();
+        fs.create(new Path(entityPath, ".cluster1.3.tmp")).close();
+        Assert.assertEquals(new BundleIndex(fs, storePath).getBundleIds(process, "cluster1"),
+                Arrays.asList("b1", "b2"));
+        Assert.assertNull(new BundleIndex(fs, storePath).getBundleIds(process, "cluster2"));
+    }
+
+    @Test
+    public void testDiscoveryOverlappingScheduleIsNotRecorded() throws Exception {
+        BundleIndex index = new BundleIndex(fs, storePath);
+        long generation = index.getGeneration();
+        index.addBundleId(process, "cluster1", "b1");
+
+        index.setBundleIds(process, "cluster1", Collections.<String>emptyList(), NO_COORDS, generation);
+        Assert.assertNull(index.getBundleIds(process, "cluster1"));
+    }
+}
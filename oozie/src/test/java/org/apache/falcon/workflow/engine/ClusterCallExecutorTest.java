@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.security.CurrentUser;
+import org.apache.falcon.workflow.engine.ClusterCallExecutor.ClusterCall;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the parallel calls on clusters.
+ */
+public class ClusterCallExecutorTest {
+
+    private final ClusterCallExecutor executor = new ClusterCallExecutor(4, 2000);
+
+    @Test
+    public void testCallsRunInParallel() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        ClusterCallExecutor.Results<String> results = executor.invoke(Arrays.asList("c1", "c2", "c3"),
+            new ClusterCall<String>() {
+                @Override
+                public String call(String cluster) throws FalconException {
+                    latch.countDown();
+                    try {
+                        // completes only if all the clusters are called at the same time
+                        if (!latch.await(1, TimeUnit.SECONDS)) {
+                            throw new FalconException("Not called in parallel");
+                        }
+                    } catch (InterruptedException e) {
+                        throw new FalconException(e);
+                    }
+                    return cluster.toUpperCase();
+                }
+            });
+
+        Map<String, String> all = results.getAll();
+        Assert.assertEquals(all.keySet().toString(), "[c1, c2, c3]");
+        Assert.assertEquals(all.get("c2"), "C2");
+    }
+
+    @Test
+    public void testFailingClusterDoesNotFailOthers() throws Exception {
+        ClusterCallExecutor.Results<String> results = executor.invoke(Arrays.asList("c1", "c2", "c3"),
+            new ClusterCall<String>() {
+                @Override
+                public String call(String cluster) throws FalconException {
+                    if (cluster.equals("c2")) {
+                        throw new FalconException("unreachable");
+                    }
+                    if (cluster.equals("c3")) {
+                        try {
+                            Thread.sleep(10000);
+                        } catch (InterruptedException e) {
+                            throw new FalconException(e);
+                        }
+                    }
+                    return cluster;
+                }
+            });
+
+        Assert.assertEquals(results.getResults().keySet().toString(), "[c1]");
+        Assert.assertEquals(results.getErrors().keySet().toString(), "[c2, c3]");
+        Assert.assertEquals(results.getErrors().get("c2").getMessage(), "unreachable");
+        try {
+            results.getAll();
+            Assert.fail("Failed clusters were not reported");
+        } catch (FalconException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Failed on clusters c2: unreachable, c3: Timed out"));
+        }
+    }
+
+    @Test
+    public void testCallsRunAsTheCaller() throws Exception {
+        ClusterCallExecutor single = new ClusterCallExecutor(1, 2000);
+        ClusterCall<String> whoAmI = new ClusterCall<String>() {
+            @Override
+            public String call(String cluster) throws FalconException {
+                return CurrentUser.getSubject() == null ? "nobody" : CurrentUser.getUser();
+            }
+        };
+
+        CurrentUser.authenticate("falcon");
+        try {
+            Assert.assertEquals(single.invoke(Arrays.asList("c1", "c2"), whoAmI).getAll().values().toString(),
+                "[falcon, falcon]");
+        } finally {
+            CurrentUser.clear();
+        }
+        // the pooled thread does not keep the user of the previous call
+        Assert.assertEquals(single.invoke(Arrays.asList("c1", "c2"), whoAmI).getAll().values().toString(),
+            "[nobody, nobody]");
+    }
+}
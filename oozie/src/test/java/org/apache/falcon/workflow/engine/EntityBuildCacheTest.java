@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.entity.v0.cluster.Cluster;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Tests for the cache of entity builds.
+ */
+public class EntityBuildCacheTest {
+
+    private static final Cluster CLUSTER = new Cluster();
+
+    @Test
+    public void testBuildIsTakenOnce() throws Exception {
+        RecordingCache cache = new RecordingCache(10, 60000);
+        Properties properties = new Properties();
+        properties.setProperty("ENTITY_PATH", "/staging/bundle.xml");
+        cache.put("key", CLUSTER, new Path("/staging"), properties);
+        properties.setProperty("ENTITY_PATH", "/changed");
+
+        Properties taken = cache.take("key");
+        Assert.assertEquals(taken.getProperty("ENTITY_PATH"), "/staging/bundle.xml");
+        Assert.assertNull(cache.take("key"));
+        Assert.assertTrue(cache.deleted.isEmpty());
+    }
+
+    @Test
+    public void testBuildExpires() throws Exception {
+        RecordingCache cache = new RecordingCache(10, 50);
+        cache.put("key", CLUSTER, new Path("/staging/key"), new Properties());
+
+        Thread.sleep(100);
+        Assert.assertNull(cache.take("key"));
+        Assert.assertEquals(cache.deleted, Arrays.asList(new Path("/staging/key")));
+    }
+
+    @Test
+    public void testExpiredBuildsAreDeleted() throws Exception {
+        RecordingCache cache = new RecordingCache(10, 50);
+        cache.put("first", CLUSTER, new Path("/staging/first"), new Properties());
+
+        Thread.sleep(100);
+        cache.put("second", CLUSTER, new Path("/staging/second"), new Properties());
+        Assert.assertEquals(cache.deleted, Arrays.asList(new Path("/staging/first")));
+        Assert.assertNotNull(cache.take("second"));
+    }
+
+    @Test
+    public void testOldestBuildIsEvicted() throws Exception {
+        RecordingCache cache = new RecordingCache(1, 60000);
+        cache.put("first", CLUSTER, new Path("/staging/first"), new Properties());
+        cache.put("second", CLUSTER, new Path("/staging/second"), new Properties());
+
+        Assert.assertNull(cache.take("first"));
+        Assert.assertNotNull(cache.take("second"));
+        Assert.assertEquals(cache.deleted, Arrays.asList(new Path("/staging/first")));
+    }
+
+    @Test
+    public void testReplacedBuildIsDeleted() throws Exception {
+        RecordingCache cache = new RecordingCache(10, 60000);
+        cache.put("key", CLUSTER, new Path("/staging/first"), new Properties());
+        cache.put("key", CLUSTER, new Path("/staging/second"), new Properties());
+
+        Assert.assertEquals(cache.deleted, Arrays.asList(new Path("/staging/first")));
+    }
+
+    /**
+     * Cache that records the builds it deletes.
+     */
+    private static final class RecordingCache extends EntityBuildCache {
+        private final List<Path> deleted = new ArrayList<Path>();
+
+        private RecordingCache(int maxEntries, long ttl) {
+            super(maxEntries, ttl);
+        }
+
+        @Override
+        void delete(Cluster cluster, Path buildPath) {
+            deleted.add(buildPath);
+        }
+    }
+}
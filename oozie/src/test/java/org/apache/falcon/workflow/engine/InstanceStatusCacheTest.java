@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.workflow.WorkflowExecutionContext;
+import org.apache.oozie.client.CoordinatorAction;
+import org.apache.oozie.client.WorkflowJob;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the instance status cache.
+ */
+public class InstanceStatusCacheTest {
+
+    @Test
+    public void testEndedInstancesAreKept() throws Exception {
+        InstanceStatusCache cache = new InstanceStatusCache(10, 0);
+        cache.putCoordAction("cluster", coordAction("C@1", null, CoordinatorAction.Status.SUCCEEDED));
+        cache.putCoordAction("cluster", coordAction("C@2", null, CoordinatorAction.Status.RUNNING));
+        cache.putWorkflow("cluster", workflow("W1", WorkflowJob.Status.KILLED));
+
+        Assert.assertNotNull(cache.getCoordAction("cluster", "C@1"));
+        Assert.assertNull(cache.getCoordAction("cluster", "C@2"));
+        Assert.assertNotNull(cache.getWorkflow("cluster", "W1"));
+        Assert.assertNull(cache.getCoordAction("other", "C@1"));
+        Assert.assertEquals(cache.getStats().get("hits"), Long.valueOf(2));
+        Assert.assertEquals(cache.getStats().get("misses"), Long.valueOf(2));
+    }
+
+    @Test
+    public void testRunningInstancesExpire() throws Exception {
+        InstanceStatusCache cache = new InstanceStatusCache(10, 50);
+        cache.putWorkflow("cluster", workflow("W1", WorkflowJob.Status.RUNNING));
+        Assert.assertNotNull(cache.getWorkflow("cluster", "W1"));
+
+        Thread.sleep(100);
+        Assert.assertNull(cache.getWorkflow("cluster", "W1"));
+        Assert.assertEquals(cache.getStats().get("size"), Long.valueOf(0));
+    }
+
+    @Test
+    public void testLeastRecentlyReadIsEvicted() throws Exception {
+        InstanceStatusCache cache = new InstanceStatusCache(2, 0);
+        cache.putWorkflow("cluster", workflow("W1", WorkflowJob.Status.SUCCEEDED));
+        cache.putWorkflow("cluster", workflow("W2", WorkflowJob.Status.SUCCEEDED));
+        cache.getWorkflow("cluster", "W1");
+        cache.putWorkflow("cluster", workflow("W3", WorkflowJob.Status.SUCCEEDED));
+
+        Assert.assertNotNull(cache.getWorkflow("cluster", "W1"));
+        Assert.assertNull(cache.getWorkflow("cluster", "W2"));
+        Assert.assertEquals(cache.getStats().get("evictions"), Long.valueOf(1));
+    }
+
+    @Test
+    public void testJobEndDropsWorkflowAndAction() throws Exception {
+        InstanceStatusCache cache = new InstanceStatusCache(10, 60000);
+        cache.putCoordAction("cluster", coordAction("C@1", "W1", CoordinatorAction.Status.RUNNING));
+        cache.putWorkflow("cluster", workflow("W1", WorkflowJob.Status.RUNNING));
+
+        WorkflowExecutionContext context = Mockito.mock(WorkflowExecutionContext.class);
+        Mockito.when(context.getClusterName()).thenReturn("cluster");
+        Mockito.when(context.getWorkflowId()).thenReturn("W1");
+        cache.onSuccess(context);
+
+        Assert.assertNull(cache.getWorkflow("cluster", "W1"));
+        Assert.assertNull(cache.getCoordAction("cluster", "C@1"));
+    }
+
+    private static CoordinatorAction coordAction(String id, String externalId, CoordinatorAction.Status status) {
+        CoordinatorAction action = Mockito.mock(CoordinatorAction.class);
+        Mockito.when(action.getId()).thenReturn(id);
+        Mockito.when(action.getExternalId()).thenReturn(externalId);
+        Mockito.when(action.getStatus()).thenReturn(status);
+        return action;
+    }
+
+    private static WorkflowJob workflow(String id, WorkflowJob.Status status) {
+        WorkflowJob workflow = Mockito.mock(WorkflowJob.class);
+        Mockito.when(workflow.getId()).thenReturn(id);
+        Mockito.when(workflow.getStatus()).thenReturn(status);
+        return workflow;
+    }
+}
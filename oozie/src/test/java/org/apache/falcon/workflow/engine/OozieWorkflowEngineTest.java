@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.FalconException;
+import org.apache.oozie.client.CoordinatorAction;
+import org.apache.oozie.client.CoordinatorJob;
+import org.apache.oozie.client.OozieClient;
+import org.apache.oozie.client.OozieClientException;
+import org.apache.oozie.client.ProxyOozieClient;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for looking up the coordinator actions of instances in oozie.
+ */
+public class OozieWorkflowEngineTest {
+
+    private static final String COORD_ID = "0000001-oozie-C";
+    private static final String KILLED_FILTER = OozieClient.FILTER_STATUS + "=" + CoordinatorAction.Status.KILLED;
+    private static final int ACTIONS = 1200;
+
+    private final OozieWorkflowEngine engine = new OozieWorkflowEngine();
+    private ProxyOozieClient client;
+    // cluster of each test, so that no test finds the actions cached by another
+    private String cluster;
+    private int tests;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        client = Mockito.mock(ProxyOozieClient.class);
+        cluster = "cluster" + tests++;
+        // the page offset of an action is its number, even numbers were killed
+        Mockito.when(client.getCoordJobInfo(Mockito.eq(COORD_ID), (String) Mockito.isNull(), Mockito.anyInt(),
+                Mockito.anyInt())).thenAnswer(new Answer<CoordinatorJob>() {
+                    @Override
+                    public CoordinatorJob answer(InvocationOnMock invocation) {
+                        int offset = (Integer) invocation.getArguments()[2];
+                        int len = (Integer) invocation.getArguments()[3];
+                        List<CoordinatorAction> page = new ArrayList<CoordinatorAction>();
+                        for (int number = offset; number < offset + len && number <= ACTIONS; number++) {
+                            page.add(action(number));
+                        }
+                        return coord(page);
+                    }
+                });
+    }
+
+    @Test
+    public void testActionsAreFetchedAPageAtATime() throws Exception {
+        List<Integer> sequences = sequences(1100, 50);
+        List<CoordinatorAction> actions = engine.getCoordActions(client, cluster, COORD_ID, sequences, null);
+
+        assertActions(actions, sequences);
+        Mockito.verify(client).getCoordJobInfo(COORD_ID, null, 50, 500);
+        Mockito.verify(client).getCoordJobInfo(COORD_ID, null, 550, 500);
+        Mockito.verify(client).getCoordJobInfo(COORD_ID, null, 1050, 51);
+        Mockito.verify(client, Mockito.never()).getCoordActionInfo(Mockito.anyString());
+    }
+
+    @Test
+    public void testStatusFilterIsPushedDown() throws Exception {
+        // killed actions, the latest first
+        Mockito.when(client.getCoordJobInfo(Mockito.eq(COORD_ID), Mockito.eq(KILLED_FILTER), Mockito.anyInt(),
+                Mockito.anyInt(), Mockito.eq("desc"))).thenAnswer(new Answer<CoordinatorJob>() {
+                    @Override
+                    public CoordinatorJob answer(InvocationOnMock invocation) {
+                        int offset = (Integer) invocation.getArguments()[2];
+                        int len = (Integer) invocation.getArguments()[3];
+                        List<CoordinatorAction> page = new ArrayList<CoordinatorAction>();
+                        for (int index = offset; index < offset + len && index <= ACTIONS / 2; index++) {
+                            page.add(action(ACTIONS + 2 - 2 * index));
+                        }
+                        return coord(page);
+                    }
+                });
+
+        List<Integer> sequences = sequences(300, 101);
+        List<CoordinatorAction> actions = engine.getCoordActions(client, cluster, COORD_ID, sequences,
+                Arrays.asList(CoordinatorAction.Status.KILLED));
+
+        List<Integer> killed = new ArrayList<Integer>();
+        for (int sequence : sequences) {
+            if (sequence % 2 == 0) {
+                killed.add(sequence);
+            }
+        }
+        assertActions(actions, killed);
+        // paging stops at the first action before the earliest one asked for
+        Mockito.verify(client).getCoordJobInfo(COORD_ID, KILLED_FILTER, 1, 500, "desc");
+        Mockito.verify(client).getCoordJobInfo(COORD_ID, KILLED_FILTER, 501, 500, "desc");
+        Mockito.verify(client, Mockito.never()).getCoordJobInfo(COORD_ID, KILLED_FILTER, 1001, 500, "desc");
+        Mockito.verify(client, Mockito.never()).getCoordJobInfo(Mockito.eq(COORD_ID), (String) Mockito.isNull(),
+                Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    public void testUnorderedFilteredActionsFallBackToUnfiltered() throws Exception {
+        // an oozie that ignores the order
+        CoordinatorJob ascending = coord(Arrays.asList(action(2), action(4), action(6)));
+        Mockito.doReturn(ascending).when(client).getCoordJobInfo(COORD_ID, KILLED_FILTER, 1, 500, "desc");
+
+        List<Integer> sequences = sequences(10, 1);
+        List<CoordinatorAction> actions = engine.getCoordActions(client, cluster, COORD_ID, sequences,
+                Arrays.asList(CoordinatorAction.Status.KILLED));
+
+        assertActions(actions, Arrays.asList(10, 8, 6, 4, 2));
+        Mockito.verify(client).getCoordJobInfo(COORD_ID, null, 1, 10);
+    }
+
+    @Test
+    public void testFailedFilteredCallFallsBackToUnfiltered() throws Exception {
+        // an oozie that can't filter
+        Mockito.doThrow(new OozieClientException("E0420", "Invalid jobs filter"))
+                .when(client).getCoordJobInfo(COORD_ID, KILLED_FILTER, 1, 500, "desc");
+
+        List<Integer> sequences = sequences(10, 1);
+        List<CoordinatorAction> actions = engine.getCoordActions(client, cluster, COORD_ID, sequences,
+                Arrays.asList(CoordinatorAction.Status.KILLED));
+
+        assertActions(actions, Arrays.asList(10, 8, 6, 4, 2));
+        Mockito.verify(client).getCoordJobInfo(COORD_ID, null, 1, 10);
+    }
+
+    @Test
+    public void testFailedPageFails() throws Exception {
+        // stubbed without calling the answer of the earlier pages
+        Mockito.doThrow(new OozieClientException("E0603", "SQL error"))
+                .when(client).getCoordJobInfo(COORD_ID, null, 501, 500);
+
+        try {
+            engine.getCoordActions(client, cluster, COORD_ID, sequences(1100, 1), null);
+            Assert.fail("Expected the listing to fail");
+        } catch (FalconException e) {
+            Assert.assertTrue(e.getMessage().contains(COORD_ID), e.getMessage());
+        }
+        Mockito.verify(client, Mockito.never()).getCoordActionInfo(Mockito.anyString());
+    }
+
+    // sequences from the latest to the earliest
+    private static List<Integer> sequences(int latest, int earliest) {
+        List<Integer> sequences = new ArrayList<Integer>();
+        for (int sequence = latest; sequence >= earliest; sequence--) {
+            sequences.add(sequence);
+        }
+        return sequences;
+    }
+
+    private static void assertActions(List<CoordinatorAction> actions, List<Integer> numbers) {
+        List<Integer> actual = new ArrayList<Integer>();
+        for (CoordinatorAction action : actions) {
+            actual.add(action.getActionNumber());
+        }
+        Assert.assertEquals(actual, numbers);
+    }
+
+    private static CoordinatorAction action(int number) {
+        CoordinatorAction action = Mockito.mock(CoordinatorAction.class);
+        Mockito.when(action.getId()).thenReturn(COORD_ID + "@" + number);
+        Mockito.when(action.getActionNumber()).thenReturn(number);
+        Mockito.when(action.getStatus()).thenReturn(number % 2 == 0
+                ? CoordinatorAction.Status.KILLED : CoordinatorAction.Status.SUCCEEDED);
+        return action;
+    }
+
+    private static CoordinatorJob coord(List<CoordinatorAction> actions) {
+        CoordinatorJob coord = Mockito.mock(CoordinatorJob.class);
+        Mockito.when(coord.getActions()).thenReturn(actions);
+        return coord;
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.workflow.engine;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.resource.OperationResult;
+import org.apache.falcon.resource.OperationResult.OperationStatus;
+import org.apache.oozie.client.WorkflowJob;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for tracking the operations on oozie jobs.
+ */
+public class OperationTrackerTest {
+
+    private static final long INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    @Test
+    public void testOperationCompletesWhenJobsReachStatus() throws Exception {
+        FakeLookup lookup = new FakeLookup();
+        OperationTracker tracker = new OperationTracker(lookup, INTERVAL, INTERVAL, INTERVAL);
+        OperationTracker.Operation operation = tracker.start("KILL");
+        operation.expect(OperationTracker.status("cluster", "W1", WorkflowJob.Status.KILLED));
+        operation.expect(OperationTracker.status("cluster", "W2", WorkflowJob.Status.KILLED));
+        operation.seal();
+
+        lookup.jobs.put("W1", workflow("W1", WorkflowJob.Status.KILLED));
+        lookup.jobs.put("W2", workflow("W2", WorkflowJob.Status.RUNNING));
+        tracker.poll();
+        OperationResult result = tracker.getStatus(operation.getId(), 0);
+        Assert.assertEquals(result.getOperationStatus(), OperationStatus.RUNNING);
+        Assert.assertEquals(result.getPendingJobs(), 1);
+
+        lookup.jobs.put("W2", workflow("W2", WorkflowJob.Status.KILLED));
+        tracker.poll();
+        result = tracker.getStatus(operation.getId(), 0);
+        Assert.assertEquals(result.getOperationStatus(), OperationStatus.SUCCEEDED);
+        Assert.assertEquals(result.getPendingJobs(), 0);
+        // jobs of a cluster are looked up together
+        Assert.assertEquals(lookup.calls.size(), 2);
+        Assert.assertEquals(lookup.calls.get(0).size(), 2);
+    }
+
+    @Test
+    public void testOperationFailsWhenJobsTimeOut() throws Exception {
+        FakeLookup lookup = new FakeLookup();
+        OperationTracker tracker = new OperationTracker(lookup, INTERVAL, 0, INTERVAL);
+        OperationTracker.Operation operation = tracker.track("SUSPEND",
+                OperationTracker.status("cluster", "W1", WorkflowJob.Status.SUSPENDED));
+        lookup.jobs.put("W1", workflow("W1", WorkflowJob.Status.RUNNING));
+
+        Thread.sleep(10);
+        tracker.poll();
+        OperationResult result = tracker.getStatus(operation.getId(), 0);
+        Assert.assertEquals(result.getOperationStatus(), OperationStatus.FAILED);
+        Assert.assertTrue(result.getMessage().contains("W1 on cluster expected SUSPENDED but was RUNNING"),
+                result.getMessage());
+    }
+
+    @Test
+    public void testLaterChangeSupersedesEarlierOne() throws Exception {
+        FakeLookup lookup = new FakeLookup();
+        OperationTracker tracker = new OperationTracker(lookup, INTERVAL, INTERVAL, INTERVAL);
+        OperationTracker.Operation suspend = tracker.track("SUSPEND",
+                OperationTracker.status("cluster", "W1", WorkflowJob.Status.SUSPENDED));
+        OperationTracker.Operation resume = tracker.track("RESUME",
+                OperationTracker.status("cluster", "W1", WorkflowJob.Status.RUNNING));
+        lookup.jobs.put("W1", workflow("W1", WorkflowJob.Status.RUNNING));
+
+        tracker.poll();
+        Assert.assertEquals(tracker.getStatus(suspend.getId(), 0).getOperationStatus(), OperationStatus.SUCCEEDED);
+        Assert.assertEquals(tracker.getStatus(resume.getId(), 0).getOperationStatus(), OperationStatus.SUCCEEDED);
+    }
+
+    @Test
+    public void testAwaitReturnsOnceJobsReachStatus() throws Exception {
+        FakeLookup lookup = new FakeLookup();
+        OperationTracker tracker = new OperationTracker(lookup, 10, INTERVAL, INTERVAL);
+        lookup.jobs.put("W1", workflow("W1", WorkflowJob.Status.SUSPENDED));
+        tracker.await(tracker.track("SUSPEND",
+                OperationTracker.status("cluster", "W1", WorkflowJob.Status.SUSPENDED)));
+    }
+
+    @Test
+    public void testAwaitFailsWhenJobsTimeOut() throws Exception {
+        FakeLookup lookup = new FakeLookup();
+        OperationTracker tracker = new OperationTracker(lookup, 10, 50, INTERVAL);
+        lookup.jobs.put("W1", workflow("W1", WorkflowJob.Status.RUNNING));
+        try {
+            tracker.await(tracker.track("SUSPEND",
+                    OperationTracker.status("cluster", "W1", WorkflowJob.Status.SUSPENDED)));
+            Assert.fail("Expected the operation to fail");
+        } catch (FalconException e) {
+            Assert.assertTrue(e.getMessage().contains("W1 on cluster expected SUSPENDED but was RUNNING"),
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void testUnknownOperation() throws Exception {
+        OperationTracker tracker = new OperationTracker(new FakeLookup(), INTERVAL, INTERVAL, INTERVAL);
+        Assert.assertNull(tracker.getStatus("unknown", 0));
+    }
+
+    private static WorkflowJob workflow(String id, WorkflowJob.Status status) {
+        WorkflowJob workflow = Mockito.mock(WorkflowJob.class);
+        Mockito.when(workflow.getId()).thenReturn(id);
+        Mockito.when(workflow.getStatus()).thenReturn(status);
+        return workflow;
+    }
+
+    /**
+     * Returns the jobs set by the test and records the ids looked up.
+     */
+    private static final class FakeLookup implements OperationTracker.JobLookup {
+        private final Map<String, Object> jobs = new HashMap<String, Object>();
+        private final List<List<String>> calls = new ArrayList<List<String>>();
+
+        @Override
+        public Map<String, Object> lookup(String cluster, Collection<String> jobIds) {
+            calls.add(new ArrayList<String>(jobIds));
+            return new HashMap<String, Object>(jobs);
+        }
+    }
+}
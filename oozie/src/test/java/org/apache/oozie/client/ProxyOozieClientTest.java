@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.oozie.client;
+
+import org.apache.falcon.security.CurrentUser;
+import org.mortbay.jetty.Request;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.handler.AbstractHandler;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the oozie client falcon uses.
+ */
+public class ProxyOozieClientTest {
+
+    private static final String TOKEN = "hadoop.auth=\"u=falcon&p=falcon&t=simple&e="
+            + (System.currentTimeMillis() + 3600000) + "&s=secret\"";
+
+    private Server server;
+    // requests for the system mode that carried a token
+    private final AtomicInteger authenticated = new AtomicInteger();
+    private volatile boolean rejectToken;
+
+    @BeforeClass
+    public void startOozie() throws Exception {
+        server = new Server(0);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, HttpServletRequest request, HttpServletResponse response,
+                               int dispatch) throws IOException {
+                if (target.endsWith("/admin/status") && request.getHeader("Cookie") != null) {
+                    authenticated.incrementAndGet();
+                    if (rejectToken) {
+                        rejectToken = false;
+                        response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                        ((Request) request).setHandled(true);
+                        return;
+                    }
+                }
+                response.addHeader("Set-Cookie", TOKEN);
+                response.setContentType("application/json;charset=UTF-8");
+                response.getWriter().write(target.endsWith("/versions") ? "[0,1,2]" : "{\"systemMode\":\"NORMAL\"}");
+                ((Request) request).setHandled(true);
+            }
+        });
+        server.start();
+        CurrentUser.authenticate("falcon");
+    }
+
+    @AfterClass
+    public void stopOozie() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void testRejectedTokenIsRenewed() throws Exception {
+        ProxyOozieClient client = new ProxyOozieClient(
+                "http://localhost:" + server.getConnectors()[0].getLocalPort() + "/oozie/");
+        Assert.assertEquals(client.getSystemMode(), OozieClient.SYSTEM_MODE.NORMAL);
+
+        rejectToken = true;
+        authenticated.set(0);
+        Assert.assertEquals(client.getSystemMode(), OozieClient.SYSTEM_MODE.NORMAL);
+        Assert.assertEquals(authenticated.get(), 2);
+        Assert.assertFalse(rejectToken);
+    }
+}
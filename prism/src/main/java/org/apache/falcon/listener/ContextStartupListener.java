@@ -52,6 +52,12 @@ public class ContextStartupListener implements ServletContextListener {
         LOG.info("Initializing runtime properties ...");
         RuntimeProperties.get();
 
+        // read once by the jdk, when the first connection is kept alive, so before the services call anything
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections",
+                    StartupProperties.get().getProperty("http.max.connections", "20"));
+        }
+
         try {
             startupServices.initialize();
             ConfigurationStore.get();
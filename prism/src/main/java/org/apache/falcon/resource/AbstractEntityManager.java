@@ -25,6 +25,7 @@ import org.apache.falcon.FalconException;
 import org.apache.falcon.FalconRuntimException;
 import org.apache.falcon.FalconWebException;
 import org.apache.falcon.Pair;
+import org.apache.falcon.entity.EntityIndex;
 import org.apache.falcon.entity.EntityNotRegisteredException;
 import org.apache.falcon.entity.EntityUtil;
 import org.apache.falcon.entity.parser.EntityParser;
@@ -38,8 +39,11 @@ import org.apache.falcon.resource.APIResult.Status;
 import org.apache.falcon.resource.EntityList.EntityElement;
 import org.apache.falcon.security.CurrentUser;
 import org.apache.falcon.security.SecurityUtil;
+import org.apache.falcon.service.Services;
 import org.apache.falcon.util.DeploymentUtil;
 import org.apache.falcon.util.RuntimeProperties;
+import org.apache.falcon.workflow.EntityStatusCache;
+import org.apache.falcon.workflow.EntityStatusCache.EntityStatus;
 import org.apache.falcon.workflow.WorkflowEngineFactory;
 import org.apache.falcon.workflow.engine.AbstractWorkflowEngine;
 import org.apache.hadoop.io.IOUtils;
@@ -48,6 +52,11 @@ import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Response;
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
@@ -62,6 +71,12 @@ public abstract class AbstractEntityManager {
     protected static final int XML_DEBUG_LEN = 10 * 1024;
     protected static final String DEFAULT_NUM_RESULTS = "10";
 
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    }
+
     private AbstractWorkflowEngine workflowEngine;
     protected ConfigurationStore configStore = ConfigurationStore.get();
 
@@ -324,26 +339,56 @@ public abstract class AbstractEntityManager {
         }
     }
 
-    protected synchronized Entity submitInternal(HttpServletRequest request, String type)
+    protected Entity submitInternal(HttpServletRequest request, String type)
         throws IOException, FalconException {
 
         EntityType entityType = EntityType.valueOf(type.toUpperCase());
-        Entity entity = deserializeEntity(request, entityType);
+        return submitInternal(deserializeEntity(request, entityType));
+    }
 
-        Entity existingEntity = configStore.get(entityType, entity.getName());
+    protected Entity submitInternal(Entity entity) throws FalconException {
+        Entity existingEntity = getExisting(entity);
         if (existingEntity != null) {
-            if (EntityUtil.equals(existingEntity, entity)) {
-                return existingEntity;
-            }
-
-            throw new EntityAlreadyExistsException(
-                    entity.toShortString() + " already registered with configuration store. "
-                            + "Can't be submitted again. Try removing before submitting.");
+            return existingEntity;
         }
 
         validate(entity);
-        configStore.publish(entityType, entity);
-        LOG.info("Submit successful: ({}): {}", type, entity.getName());
+        return publish(entity);
+    }
+
+    /**
+     * @return the entity registered by the same name if it is the same entity, null if there is none
+     * @throws EntityAlreadyExistsException if another entity is registered by the name
+     */
+    protected Entity getExisting(Entity entity) throws FalconException {
+        Entity existingEntity = configStore.get(entity.getEntityType(), entity.getName());
+        if (existingEntity == null) {
+            return null;
+        }
+        if (EntityUtil.equals(existingEntity, entity)) {
+            return existingEntity;
+        }
+
+        throw new EntityAlreadyExistsException(
+                entity.toShortString() + " already registered with configuration store. "
+                        + "Can't be submitted again. Try removing before submitting.");
+    }
+
+    /**
+     * Registers a validated entity. The store registers an entity name once, so no lock is taken for the time
+     * the entity is validated. The entity of a request that submitted the same one first is returned.
+     */
+    protected Entity publish(Entity entity) throws FalconException {
+        try {
+            configStore.publish(entity.getEntityType(), entity);
+        } catch (EntityAlreadyExistsException e) {
+            Entity existingEntity = getExisting(entity);
+            if (existingEntity == null) {
+                throw e;
+            }
+            return existingEntity;
+        }
+        LOG.info("Submit successful: ({}): {}", entity.getEntityType(), entity.getName());
         return entity;
     }
 
@@ -371,8 +416,44 @@ public abstract class AbstractEntityManager {
         }
     }
 
+    /**
+     * Reads the entities of a multi document request, the root element holds any number of cluster, feed
+     * and process definitions in any order.
+     *
+     * @param request request with the entity definitions
+     * @return entities in the order of the request
+     */
+    protected List<Entity> deserializeEntities(HttpServletRequest request) throws IOException, FalconException {
+        List<Entity> entities = new ArrayList<Entity>();
+        try {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(request.getInputStream());
+            try {
+                reader.nextTag(); // root element
+                int event = reader.nextTag();
+                while (event == XMLStreamConstants.START_ELEMENT) {
+                    EntityType entityType = EntityType.valueOf(reader.getLocalName().toUpperCase());
+                    // leaves the reader right after the end of the entity element
+                    entities.add((Entity) entityType.getThreadLocalUnmarshaller().unmarshal(reader));
+                    event = reader.getEventType();
+                    if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+                        event = reader.nextTag();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new FalconException("Unable to read the entities", e);
+        } catch (JAXBException e) {
+            throw new FalconException("Unable to read the entities", e);
+        } catch (IllegalArgumentException e) {
+            throw new FalconException("Unable to read the entities, unknown entity type", e);
+        }
+        return entities;
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private void validate(Entity entity) throws FalconException {
+    protected void validate(Entity entity) throws FalconException {
         EntityParser entityParser = EntityParserFactory.getParser(entity.getEntityType());
         entityParser.validate(entity);
     }
@@ -391,10 +472,6 @@ public abstract class AbstractEntityManager {
                 action, entity, type, request.getRemoteHost(), CurrentUser.getUser());
     }
 
-    private enum EntityStatus {
-        SUBMITTED, SUSPENDED, RUNNING
-    }
-
     /**
      * Returns the status of requested entity.
      *
@@ -421,6 +498,10 @@ public abstract class AbstractEntityManager {
     }
 
     protected EntityStatus getStatus(Entity entity, EntityType type) throws FalconException {
+        if (Services.get().isRegistered(EntityStatusCache.SERVICE_NAME)) {
+            return EntityStatusCache.get().getStatus(entity);
+        }
+
         EntityStatus status;
 
         if (type.isSchedulable()) {
@@ -470,39 +551,74 @@ public abstract class AbstractEntityManager {
      * @param orderBy        order result by these fields.
      * @param offset         Pagination offset.
      * @param resultsPerPage Number of results that should be returned starting at the offset.
+     * @param cursor         Cursor returned with the previous page, to continue after it instead of at the offset.
      * @return EntityList
      */
     public EntityList getEntityList(String type, String fieldStr, String filterBy, String filterTags,
-                                    String orderBy, String sortOrder, Integer offset, Integer resultsPerPage) {
+                                    String orderBy, String sortOrder, Integer offset, Integer resultsPerPage,
+                                    String cursor) {
 
         HashSet<String> fields = new HashSet<String>(Arrays.asList(fieldStr.toLowerCase().split(",")));
         List<Entity> entities;
         try {
-            entities = getEntities(type, "", "", "", filterBy, filterTags, orderBy, sortOrder, offset, resultsPerPage);
+            checkNumberOfResults(resultsPerPage);
+            // one more than the page tells whether there is a page after it
+            entities = getEntities(type, "", "", "", filterBy, filterTags, orderBy, sortOrder, offset,
+                    resultsPerPage + 1, cursor);
         } catch (Exception e) {
             LOG.error("Failed to get entity list", e);
             throw FalconWebException.newException(e, Response.Status.BAD_REQUEST);
         }
 
-        return entities.size() == 0
+        String nextCursor = null;
+        if (entities.size() > resultsPerPage) {
+            entities = entities.subList(0, resultsPerPage);
+            nextCursor = PageCursor.encode(getNameOrder(orderBy, sortOrder),
+                    entities.get(resultsPerPage - 1).getName());
+        }
+        EntityList entityList = entities.size() == 0
                 ? new EntityList(new Entity[]{})
                 : new EntityList(buildEntityElements(fields, entities));
+        entityList.setNextCursor(nextCursor);
+        return entityList;
     }
 
     protected List<Entity> getEntities(String type, String startDate, String endDate, String cluster,
                                        String filterBy, String filterTags, String orderBy, String sortOrder,
-                                       int offset, int resultsPerPage) throws FalconException {
+                                       int offset, int resultsPerPage, String cursor) throws FalconException {
         final HashMap<String, String> filterByFieldsValues = getFilterByFieldsValues(filterBy);
         final ArrayList<String> filterByTags = getFilterByTags(filterTags);
+        // entities are paged in the order of their names, a cursor holds the last name of the previous page
+        final String nameOrder = getNameOrder(orderBy, sortOrder);
+        final boolean descending = nameOrder.equals("desc");
+        String after = null;
+        if (!StringUtils.isEmpty(cursor)) {
+            after = PageCursor.decode(cursor, new String[]{nameOrder}, 2)[1];
+            offset = 0;
+        }
 
         EntityType entityType = EntityType.valueOf(type.toUpperCase());
         Collection<String> entityNames = configStore.getEntities(entityType);
         if (entityNames == null || entityNames.isEmpty()) {
             return Collections.emptyList();
         }
+        // the index misses entities not yet restored or when it is not a registered listener
+        if (EntityIndex.get().size(entityType) == entityNames.size()) {
+            return getIndexedEntities(entityType, startDate, endDate, cluster, filterByFieldsValues, filterByTags,
+                    descending, after, offset, resultsPerPage);
+        }
 
+        // the status is looked up in the workflow engine, only do it for every entity when filtered on
+        boolean filterByStatus = false;
+        for (Map.Entry<String, String> pair : filterByFieldsValues.entrySet()) {
+            filterByStatus |= !StringUtils.isEmpty(pair.getValue()) && EntityList.EntityFilterByFields.STATUS.name()
+                    .equalsIgnoreCase(pair.getKey());
+        }
         ArrayList<Entity> entities = new ArrayList<Entity>();
         for (String entityName : entityNames) {
+            if (after != null && (descending ? entityName.compareTo(after) >= 0 : entityName.compareTo(after) <= 0)) {
+                continue;
+            }
             Entity entity;
             try {
                 entity = configStore.get(entityType, entityName);
@@ -520,7 +636,7 @@ public abstract class AbstractEntityManager {
 
             List<String> tags = EntityUtil.getTags(entity);
             List<String> pipelines = EntityUtil.getPipelines(entity);
-            String entityStatus = getStatusString(entity);
+            String entityStatus = filterByStatus ? getStatusString(entity) : null;
 
             if (filterEntity(entity, entityStatus,
                     filterByFieldsValues, filterByTags, tags, pipelines)) {
@@ -529,7 +645,7 @@ public abstract class AbstractEntityManager {
             entities.add(entity);
         }
         // Sort entities before returning a subset of entity elements.
-        entities = sortEntities(entities, orderBy, sortOrder);
+        entities = sortEntities(entities, descending);
 
         int pageCount = getRequiredNumberOfResults(entities.size(), offset, resultsPerPage);
         if (pageCount == 0) {  // handle pagination
@@ -538,6 +654,73 @@ public abstract class AbstractEntityManager {
 
         return new ArrayList<Entity>(entities.subList(offset, (offset + pageCount)));
     }
+
+    /**
+     * Walks the entities matching the indexed filters in name order and stops as soon as the page is full.
+     */
+    private List<Entity> getIndexedEntities(EntityType entityType, String startDate, String endDate, String cluster,
+                                            HashMap<String, String> filterByFieldsValues,
+                                            ArrayList<String> filterByTags, boolean descending, String after,
+                                            int offset, int resultsPerPage) throws FalconException {
+        checkNumberOfResults(resultsPerPage);
+        EntityIndex.Query query = new EntityIndex.Query(entityType)
+                .withTags(filterByTags)
+                .includeUntagged()
+                .after(after);
+        if (descending) {
+            query.descending();
+        }
+        if (!StringUtils.isEmpty(cluster)) {
+            query.withCluster(cluster);
+        }
+        boolean filterByStatus = false;
+        for (Map.Entry<String, String> pair : filterByFieldsValues.entrySet()) {
+            if (StringUtils.isEmpty(pair.getValue())) {
+                continue;
+            }
+            switch (EntityList.EntityFilterByFields.valueOf(pair.getKey().toUpperCase())) {
+            case PIPELINES:
+                if (entityType == EntityType.PROCESS) {
+                    query.withPipeline(pair.getValue());
+                }
+                break;
+
+            case CLUSTER:
+                query.withCluster(pair.getValue());
+                break;
+
+            case STATUS:
+                filterByStatus = true;
+                break;
+
+            default:
+                break;
+            }
+        }
+
+        List<Entity> entities = new ArrayList<Entity>();
+        int skip = Math.max(offset, 0);
+        Iterator<String> names = EntityIndex.get().find(query);
+        while (names.hasNext() && entities.size() < resultsPerPage) {
+            Entity entity = configStore.get(entityType, names.next());
+            if (entity == null || filterEntityByDatesAndCluster(entity, startDate, endDate, cluster)) {
+                continue;
+            }
+
+            // tags, pipelines and clusters are matched by the index, status is only fetched when filtered on
+            String entityStatus = filterByStatus ? getStatusString(entity) : null;
+            if (filterEntity(entity, entityStatus, filterByFieldsValues, filterByTags,
+                    EntityUtil.getTags(entity), EntityUtil.getPipelines(entity))) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+            } else {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
     //RESUME CHECKSTYLE CHECK ParameterNumberCheck
 
     private boolean filterEntityByDatesAndCluster(Entity entity, String startDate, String endDate, String cluster)
@@ -584,7 +767,7 @@ public abstract class AbstractEntityManager {
         return filterByFieldValues;
     }
 
-    private static ArrayList<String> getFilterByTags(String filterTags) {
+    protected static ArrayList<String> getFilterByTags(String filterTags) {
         ArrayList<String> filterTagsList = new ArrayList<String>();
         if (!StringUtils.isEmpty(filterTags)) {
             String[] splits = filterTags.split(",");
@@ -702,29 +885,28 @@ public abstract class AbstractEntityManager {
         return filterEntity;
     }
 
-    private ArrayList<Entity> sortEntities(ArrayList<Entity> entities, String orderBy, String sortOrder) {
-        // Sort the ArrayList using orderBy param
+    private ArrayList<Entity> sortEntities(ArrayList<Entity> entities, final boolean descending) {
+        Collections.sort(entities, new Comparator<Entity>() {
+            @Override
+            public int compare(Entity e1, Entity e2) {
+                return descending ? e2.getName().compareTo(e1.getName()) : e1.getName().compareTo(e2.getName());
+            }
+        });
+        return entities;
+    }
+
+    /**
+     * Entities are listed by name, in descending order only when ordered by name that way.
+     */
+    private String getNameOrder(String orderBy, String sortOrder) {
         if (!StringUtils.isEmpty(orderBy)) {
             EntityList.EntityFieldList orderByField = EntityList.EntityFieldList.valueOf(orderBy.toUpperCase());
-            final String order = getValidSortOrder(sortOrder, orderBy);
-            switch (orderByField) {
-
-            case NAME:
-                Collections.sort(entities, new Comparator<Entity>() {
-                    @Override
-                    public int compare(Entity e1, Entity e2) {
-                        return (order.equalsIgnoreCase("asc")) ? e1.getName().compareTo(e2.getName())
-                                : e2.getName().compareTo(e1.getName());
-                    }
-                });
-                break;
-
-            default:
-                break;
+            if (orderByField == EntityList.EntityFieldList.NAME
+                    && getValidSortOrder(sortOrder, orderBy).equalsIgnoreCase("desc")) {
+                return "desc";
             }
-        } // else no sort
-
-        return entities;
+        }
+        return "asc";
     }
 
     protected String getValidSortOrder(String sortOrder, String orderBy) {
@@ -749,11 +931,7 @@ public abstract class AbstractEntityManager {
               Size 10, offset 5, count >= 5, return elements[5,6,7,8,9]
               return elements starting from elements[offset] until the end OR offset+numResults*/
 
-        if (numresults < 1) {
-            LOG.error("Value for param numResults should be > than 0  : {}", numresults);
-            throw FalconWebException.newException("Value for param numResults should be > than 0  : " + numresults,
-                    Response.Status.BAD_REQUEST);
-        }
+        checkNumberOfResults(numresults);
 
         if (offset < 0) { offset = 0; }
 
@@ -768,6 +946,14 @@ public abstract class AbstractEntityManager {
         return retLen;
     }
 
+    protected void checkNumberOfResults(int numresults) {
+        if (numresults < 1) {
+            LOG.error("Value for param numResults should be > than 0  : {}", numresults);
+            throw FalconWebException.newException("Value for param numResults should be > than 0  : " + numresults,
+                    Response.Status.BAD_REQUEST);
+        }
+    }
+
     private EntityElement[] buildEntityElements(HashSet<String> fields, List<Entity> entities) {
         EntityElement[] elements = new EntityElement[entities.size()];
         int elementIndex = 0;
@@ -28,6 +28,8 @@ import org.apache.falcon.entity.v0.Frequency;
 import org.apache.falcon.entity.v0.SchemaHelper;
 import org.apache.falcon.logging.LogProvider;
 import org.apache.falcon.resource.InstancesResult.Instance;
+import org.apache.falcon.security.CurrentUser;
+import org.apache.falcon.security.SecurityUtil;
 import org.apache.falcon.workflow.engine.AbstractWorkflowEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +39,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A base class for managing Entity's Instance operations.
@@ -49,6 +52,8 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
     protected static final long DAY_IN_MILLIS = 86400000L;
     private static final long MONTH_IN_MILLIS = 2592000000L;
 
+    private static final List<String> BULK_ACTIONS = Arrays.asList("kill", "suspend", "resume", "rerun");
+
     protected void checkType(String type) {
         if (StringUtils.isEmpty(type)) {
             throw FalconWebException.newInstanceException("entity type is empty",
@@ -86,7 +91,8 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
     //SUSPEND CHECKSTYLE CHECK ParameterNumberCheck
     public InstancesResult getRunningInstances(String type, String entity,
                                                String colo, List<LifeCycle> lifeCycles, String filterBy,
-                                               String orderBy, String sortOrder, Integer offset, Integer numResults) {
+                                               String orderBy, String sortOrder, Integer offset, Integer numResults,
+                                               String cursor) {
         checkColo(colo);
         checkType(type);
         try {
@@ -95,7 +101,7 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
             AbstractWorkflowEngine wfEngine = getWorkflowEngine();
             Entity entityObject = EntityUtil.getEntity(type, entity);
             return getInstanceResultSubset(wfEngine.getRunningInstances(entityObject, lifeCycles),
-                    filterBy, orderBy, sortOrder, offset, numResults);
+                    filterBy, orderBy, sortOrder, offset, numResults, cursor);
         } catch (Throwable e) {
             LOG.error("Failed to get running instances", e);
             throw FalconWebException.newInstanceException(e, Response.Status.BAD_REQUEST);
@@ -106,15 +112,15 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
     public InstancesResult getInstances(String type, String entity, String startStr, String endStr,
                                         String colo, List<LifeCycle> lifeCycles,
                                         String filterBy, String orderBy, String sortOrder,
-                                        Integer offset, Integer numResults) {
+                                        Integer offset, Integer numResults, String cursor) {
         return getStatus(type, entity, startStr, endStr, colo, lifeCycles,
-                filterBy, orderBy, sortOrder, offset, numResults);
+                filterBy, orderBy, sortOrder, offset, numResults, cursor);
     }
 
     public InstancesResult getStatus(String type, String entity, String startStr, String endStr,
                                      String colo, List<LifeCycle> lifeCycles,
                                      String filterBy, String orderBy, String sortOrder,
-                                     Integer offset, Integer numResults) {
+                                     Integer offset, Integer numResults, String cursor) {
         checkColo(colo);
         checkType(type);
         try {
@@ -126,8 +132,8 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
             // LifeCycle lifeCycleObject = EntityUtil.getLifeCycle(lifeCycle);
             AbstractWorkflowEngine wfEngine = getWorkflowEngine();
             return getInstanceResultSubset(wfEngine.getStatus(entityObject,
-                            startAndEndDate.first, startAndEndDate.second, lifeCycles),
-                    filterBy, orderBy, sortOrder, offset, numResults);
+                            startAndEndDate.first, startAndEndDate.second, lifeCycles, getStatusFilter(filterBy)),
+                    filterBy, orderBy, sortOrder, offset, numResults, cursor);
         } catch (Throwable e) {
             LOG.error("Failed to get instances status", e);
             throw FalconWebException
@@ -156,12 +162,12 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
     public InstancesResult getLogs(String type, String entity, String startStr, String endStr,
                                    String colo, String runId, List<LifeCycle> lifeCycles,
                                    String filterBy, String orderBy, String sortOrder,
-                                   Integer offset, Integer numResults) {
+                                   Integer offset, Integer numResults, String cursor) {
         try {
             lifeCycles = checkAndUpdateLifeCycle(lifeCycles, type);
             // getStatus does all validations and filters clusters
             InstancesResult result = getStatus(type, entity, startStr, endStr,
-                    colo, lifeCycles, filterBy, orderBy, sortOrder, offset, numResults);
+                    colo, lifeCycles, filterBy, orderBy, sortOrder, offset, numResults, cursor);
             LogProvider logProvider = new LogProvider();
             Entity entityObject = EntityUtil.getEntity(type, entity);
             for (Instance instance : result.getInstances()) {
@@ -175,9 +181,28 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
         }
     }
 
+    // status the instances are filtered on, for the workflow engine to leave out the others early
+    private InstancesResult.WorkflowStatus getStatusFilter(String filterBy) {
+        for (Map.Entry<String, String> pair : getFilterByFieldsValues(filterBy).entrySet()) {
+            if (InstancesResult.InstanceFilterFields.STATUS.name().equalsIgnoreCase(pair.getKey())) {
+                try {
+                    return InstancesResult.WorkflowStatus.valueOf(pair.getValue().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    return null; // reported when filtering the instances
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Filters the instances and picks a page of them in a stable order. The page either starts at the offset or,
+     * when a cursor returned with the previous page is given, right after the last instance of that page.
+     */
     private InstancesResult getInstanceResultSubset(InstancesResult resultSet, String filterBy,
                                                     String orderBy, String sortOrder,
-                                                    Integer offset, Integer numResults) {
+                                                    Integer offset, Integer numResults,
+                                                    String cursor) throws FalconException {
 
         ArrayList<Instance> instanceSet = new ArrayList<Instance>();
         if (resultSet.getInstances() == null) {
@@ -189,15 +214,22 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
         // Filter instances
         instanceSet = filteredInstanceSet(resultSet, instanceSet, getFilterByFieldsValues(filterBy));
 
-        int pageCount = super.getRequiredNumberOfResults(instanceSet.size(), offset, numResults);
-        if (pageCount == 0) {
-            // return empty result set
-            return new InstancesResult(resultSet.getMessage(), new Instance[0]);
+        checkNumberOfResults(numResults);
+        String order = getValidSortOrder(sortOrder, orderBy);
+        Comparator<Instance> comparator = InstancePage.comparator(orderBy, order);
+        Instance after = StringUtils.isEmpty(cursor) ? null : InstancePage.getAfter(cursor, orderBy, order);
+        int skip = (after != null || offset < 0) ? 0 : offset;
+        // one more than the page tells whether there is a page after it
+        List<Instance> selected = InstancePage.select(instanceSet, comparator, after, skip + numResults + 1);
+        List<Instance> page = selected.subList(Math.min(skip, selected.size()),
+                Math.min(skip + numResults, selected.size()));
+
+        InstancesResult result = new InstancesResult(resultSet.getMessage(),
+                page.toArray(new Instance[page.size()]));
+        if (selected.size() > skip + numResults) {
+            result.setNextCursor(InstancePage.getCursor(page.get(page.size() - 1), orderBy, order));
         }
-        // Sort the ArrayList using orderBy
-        instanceSet = sortInstances(instanceSet, orderBy, sortOrder);
-        return new InstancesResult(resultSet.getMessage(),
-                instanceSet.subList(offset, (offset+pageCount)).toArray(new Instance[pageCount]));
+        return result;
     }
 
     private ArrayList<Instance> filteredInstanceSet(InstancesResult resultSet, ArrayList<Instance> instanceSet,
@@ -258,56 +290,6 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
         return instanceSet;
     }
 
-    private ArrayList<Instance> sortInstances(ArrayList<Instance> instanceSet,
-                                              String orderBy, String sortOrder) {
-        final String order = getValidSortOrder(sortOrder, orderBy);
-        if (orderBy.equals("status")) {
-            Collections.sort(instanceSet, new Comparator<Instance>() {
-                @Override
-                public int compare(Instance i1, Instance i2) {
-                    if (i1.getStatus() == null) {
-                        i1.status = InstancesResult.WorkflowStatus.ERROR;
-                    }
-                    if (i2.getStatus() == null) {
-                        i2.status = InstancesResult.WorkflowStatus.ERROR;
-                    }
-                    return (order.equalsIgnoreCase("asc")) ? i1.getStatus().name().compareTo(i2.getStatus().name())
-                            : i2.getStatus().name().compareTo(i1.getStatus().name());
-                }
-            });
-        } else if (orderBy.equals("cluster")) {
-            Collections.sort(instanceSet, new Comparator<Instance>() {
-                @Override
-                public int compare(Instance i1, Instance i2) {
-                    return (order.equalsIgnoreCase("asc")) ? i1.getCluster().compareTo(i2.getCluster())
-                            : i2.getCluster().compareTo(i1.getCluster());
-                }
-            });
-        } else if (orderBy.equals("startTime")){
-            Collections.sort(instanceSet, new Comparator<Instance>() {
-                @Override
-                public int compare(Instance i1, Instance i2) {
-                    Date start1 = (i1.getStartTime() == null) ? new Date(0) : i1.getStartTime();
-                    Date start2 = (i2.getStartTime() == null) ? new Date(0) : i2.getStartTime();
-                    return (order.equalsIgnoreCase("asc")) ? start1.compareTo(start2)
-                            : start2.compareTo(start1);
-                }
-            });
-        } else if (orderBy.equals("endTime")) {
-            Collections.sort(instanceSet, new Comparator<Instance>() {
-                @Override
-                public int compare(Instance i1, Instance i2) {
-                    Date end1 = (i1.getEndTime() == null) ? new Date(0) : i1.getEndTime();
-                    Date end2 = (i2.getEndTime() == null) ? new Date(0) : i2.getEndTime();
-                    return (order.equalsIgnoreCase("asc")) ? end1.compareTo(end2)
-                            : end2.compareTo(end1);
-                }
-            });
-        }//Default : no sort
-
-        return instanceSet;
-    }
-
     //RESUME CHECKSTYLE CHECK ParameterNumberCheck
 
     public InstancesResult getInstanceParams(String type,
@@ -333,6 +315,16 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
         }
     }
 
+    public OperationResult getOperationStatus(String operationId, String waitStr) {
+        try {
+            long wait = StringUtils.isEmpty(waitStr) ? 0 : TimeUnit.SECONDS.toMillis(Long.parseLong(waitStr));
+            return getWorkflowEngine().getOperationStatus(operationId, wait);
+        } catch (Throwable e) {
+            LOG.error("Failed to get the status of operation {}", operationId, e);
+            throw FalconWebException.newException(e, Response.Status.BAD_REQUEST);
+        }
+    }
+
     public InstancesResult killInstance(HttpServletRequest request,
                                         String type, String entity, String startStr,
                                         String endStr, String colo,
@@ -426,6 +418,93 @@ public abstract class AbstractInstanceManager extends AbstractEntityManager {
         }
     }
 
+    //SUSPEND CHECKSTYLE CHECK ParameterNumberCheck
+    /**
+     * Kills, suspends, resumes or reruns the instances between start and end of the entities with the tags, in the
+     * pipeline or on the cluster asked for. The instances are acted on in the background, the operation returned
+     * reports the progress.
+     */
+    public OperationResult bulkInstanceAction(HttpServletRequest request, String action, String type,
+                                              String startStr, String endStr, String filterBy, String filterTags,
+                                              String colo, List<LifeCycle> lifeCycles) {
+        checkColo(colo);
+        checkType(type);
+        try {
+            lifeCycles = checkAndUpdateLifeCycle(lifeCycles, type);
+            audit(request, "filterBy=" + filterBy + ",tags=" + filterTags, type,
+                    "INSTANCE_BULK_" + action.toUpperCase());
+            if (!BULK_ACTIONS.contains(action.toLowerCase())) {
+                throw new ValidationException("Invalid bulk instance action " + action + ", should be one of "
+                        + BULK_ACTIONS);
+            }
+            validateNotEmpty("start", startStr);
+            validateNotEmpty("end", endStr);
+            Date start = EntityUtil.parseDateUTC(startStr);
+            Date end = EntityUtil.parseDateUTC(endStr);
+            if (start.after(end)) {
+                throw new ValidationException("Specified end date " + endStr + " is before start date " + startStr);
+            }
+
+            List<Entity> entities = getBulkEntities(EntityType.valueOf(type.toUpperCase()), action, filterBy,
+                    filterTags);
+            Properties props = getProperties(request);
+            return getWorkflowEngine().bulkInstanceAction(action, entities, start, end, props, lifeCycles);
+        } catch (Throwable e) {
+            LOG.error("Failed to {} instances in bulk", action, e);
+            throw FalconWebException.newException(e, Response.Status.BAD_REQUEST);
+        }
+    }
+    //RESUME CHECKSTYLE CHECK ParameterNumberCheck
+
+    // the entities having all the tags, in the pipeline and on the cluster, unlike listing an untagged entity
+    // doesn't match tags and one selector at least is required, so that a bulk action never hits every entity
+    private List<Entity> getBulkEntities(EntityType entityType, String action, String filterBy, String filterTags)
+        throws FalconException {
+        List<String> tags = getFilterByTags(filterTags);
+        String pipeline = null;
+        String cluster = null;
+        for (Map.Entry<String, String> pair : getFilterByFieldsValues(filterBy).entrySet()) {
+            if (StringUtils.isEmpty(pair.getValue())) {
+                continue;
+            }
+            if (EntityList.EntityFilterByFields.PIPELINES.name().equalsIgnoreCase(pair.getKey())) {
+                pipeline = pair.getValue();
+            } else if (EntityList.EntityFilterByFields.CLUSTER.name().equalsIgnoreCase(pair.getKey())) {
+                cluster = pair.getValue();
+            } else {
+                throw new ValidationException("Bulk instance actions select entities by tags, pipelines or cluster, "
+                        + "not by " + pair.getKey());
+            }
+        }
+        if (tags.isEmpty() && pipeline == null && cluster == null) {
+            throw new ValidationException("Tags, a pipeline or a cluster are required to select the entities");
+        }
+
+        List<Entity> entities = new ArrayList<Entity>();
+        Collection<String> entityNames = configStore.getEntities(entityType);
+        for (String entityName : entityNames) {
+            Entity entity = configStore.get(entityType, entityName);
+            if (entity == null
+                    || !EntityUtil.getTags(entity).containsAll(tags)
+                    || (pipeline != null && !EntityUtil.getPipelines(entity).contains(pipeline))
+                    || (cluster != null && !EntityUtil.getClustersDefined(entity).contains(cluster))) {
+                continue;
+            }
+            if (SecurityUtil.isAuthorizationEnabled()) {
+                try {
+                    SecurityUtil.getAuthorizationProvider().authorizeResource("instance", action.toLowerCase(),
+                            entityType.name().toLowerCase(), entity.getName(), CurrentUser.getProxyUgi());
+                } catch (Exception e) {
+                    LOG.warn("Skipping {}, user {} is not authorized to {} its instances",
+                            entity.toShortString(), CurrentUser.getUser(), action, e);
+                    continue;
+                }
+            }
+            entities.add(entity);
+        }
+        return entities;
+    }
+
     private Properties getProperties(HttpServletRequest request) throws IOException {
         Properties props = new Properties();
         ServletInputStream xmlStream = request == null ? null : request.getInputStream();
@@ -23,21 +23,40 @@ import org.apache.falcon.FalconException;
 import org.apache.falcon.FalconWebException;
 import org.apache.falcon.Pair;
 import org.apache.falcon.entity.EntityUtil;
+import org.apache.falcon.entity.parser.ClusterEntityParser;
 import org.apache.falcon.entity.v0.Entity;
 import org.apache.falcon.entity.v0.EntityType;
 import org.apache.falcon.entity.v0.SchemaHelper;
 import org.apache.falcon.entity.v0.UnschedulableEntityException;
 import org.apache.falcon.entity.v0.cluster.Cluster;
+import org.apache.falcon.entity.v0.process.Input;
+import org.apache.falcon.entity.v0.process.Output;
+import org.apache.falcon.entity.v0.process.Process;
 import org.apache.falcon.monitors.Dimension;
+import org.apache.falcon.security.CurrentUser;
+import org.apache.falcon.util.DeploymentUtil;
+import org.apache.falcon.util.StartupProperties;
 import org.apache.hadoop.security.authorize.AuthorizationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.security.auth.Subject;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * REST resource of allowed actions on Schedulable Entities, Only Process and
@@ -47,6 +66,30 @@ public abstract class AbstractSchedulableEntityManager extends AbstractInstanceM
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractSchedulableEntityManager.class);
 
+    // order in which the entities of a bulk request are submitted, an entity only refers to the ones before it
+    private static final List<EntityType> BULK_ORDER =
+            Arrays.asList(EntityType.CLUSTER, EntityType.FEED, EntityType.PROCESS);
+
+    // validates the feeds and processes of all the bulk requests and schedules them
+    private static final ExecutorService BULK_EXECUTOR = newBulkExecutor();
+
+    private static ExecutorService newBulkExecutor() {
+        int threads = Integer.parseInt(StartupProperties.get().getProperty("bulk.schedule.threads", "8"));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "bulk-entities-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Schedules an submitted entity immediately.
      *
@@ -100,6 +143,248 @@ public abstract class AbstractSchedulableEntityManager extends AbstractInstanceM
         }
     }
 
+    /**
+     * Submits the entities of a multi document request in one go. Clusters are submitted before the feeds
+     * and feeds before the processes referring to them, an entity is not submitted when an entity of the
+     * request it refers to failed.
+     *
+     * @param colo colo the request is for
+     * @return result for every entity of the request that applies to this colo
+     */
+    public EntitiesResult submitBulk(
+            @Context HttpServletRequest request, @Dimension("colo") @QueryParam("colo") String colo) {
+        return bulkInternal(request, colo, false);
+    }
+
+    /**
+     * Submits the entities of a multi document request like {@link #submitBulk} and schedules the
+     * submitted feeds and processes, several of them at a time.
+     *
+     * @param colo colo the request is for
+     * @return result for every entity of the request that applies to this colo
+     */
+    public EntitiesResult submitAndScheduleBulk(
+            @Context HttpServletRequest request, @Dimension("colo") @QueryParam("colo") String colo) {
+        return bulkInternal(request, colo, true);
+    }
+
+    private EntitiesResult bulkInternal(HttpServletRequest request, String colo, boolean schedule) {
+        checkColo(colo);
+        List<Entity> entities;
+        try {
+            audit(request, "STREAMED_DATA", "entities", schedule ? "SUBMIT_AND_SCHEDULE_BULK" : "SUBMIT_BULK");
+            entities = deserializeEntities(request);
+        } catch (Throwable e) {
+            LOG.error("Unable to read the entities of the bulk request", e);
+            throw FalconWebException.newException(e, Response.Status.BAD_REQUEST);
+        }
+
+        Map<String, EntitiesResult.EntityResult> results = new HashMap<String, EntitiesResult.EntityResult>();
+        List<Entity> submitted = submitInOrder(entities, results);
+        if (schedule && !DeploymentUtil.isPrism()) {
+            scheduleInParallel(submitted, results);
+        }
+
+        List<EntitiesResult.EntityResult> entityResults = new ArrayList<EntitiesResult.EntityResult>();
+        for (Entity entity : entities) {
+            EntitiesResult.EntityResult result = results.remove(getKey(entity.getEntityType(), entity.getName()));
+            if (result != null) {
+                entityResults.add(result);
+            }
+        }
+        return new EntitiesResult(entityResults.size() + " entities processed",
+                entityResults.toArray(new EntitiesResult.EntityResult[entityResults.size()]));
+    }
+
+    private List<Entity> submitInOrder(List<Entity> entities, Map<String, EntitiesResult.EntityResult> results) {
+        Set<String> keys = new HashSet<String>();
+        Set<String> failed = new HashSet<String>();
+        for (Entity entity : entities) {
+            String key = getKey(entity.getEntityType(), entity.getName());
+            if (!keys.add(key)) {
+                failed.add(key);
+                results.put(key, newResult(entity, APIResult.Status.FAILED, "Defined more than once in the request"));
+            }
+        }
+
+        // the entities of a type only refer to the ones of the types before, they are validated together
+        List<Entity> submitted = new ArrayList<Entity>();
+        for (EntityType type : BULK_ORDER) {
+            List<Entity> submittable = new ArrayList<Entity>();
+            for (Entity entity : entities) {
+                String key = getKey(entity.getEntityType(), entity.getName());
+                if (entity.getEntityType() != type || results.containsKey(key) || !isApplicable(entity)) {
+                    continue;
+                }
+
+                String failedReference = null;
+                for (String reference : getReferences(entity)) {
+                    if (failed.contains(reference)) {
+                        failedReference = reference;
+                        break;
+                    }
+                }
+                if (failedReference != null) {
+                    failed.add(key);
+                    results.put(key, newResult(entity, APIResult.Status.FAILED,
+                            "Refers to " + failedReference + " which failed"));
+                } else {
+                    submittable.add(entity);
+                }
+            }
+
+            List<Future<Entity>> validations = validateAll(submittable);
+            for (int index = 0; index < submittable.size(); index++) {
+                Entity entity = submittable.get(index);
+                String key = getKey(entity.getEntityType(), entity.getName());
+                try {
+                    Entity existingEntity = validations.get(index).get();
+                    submitted.add(existingEntity != null ? existingEntity : publish(entity));
+                    results.put(key, newResult(entity, APIResult.Status.SUCCEEDED,
+                            "Submit successful (" + entity.getEntityType() + ") " + entity.getName()));
+                } catch (Throwable e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    LOG.error("Unable to submit {}", entity.toShortString(), cause);
+                    failed.add(key);
+                    results.put(key, newResult(entity, APIResult.Status.FAILED, getMessage(cause)));
+                }
+            }
+        }
+        return submitted;
+    }
+
+    /**
+     * Validates entities that do not refer to one another, feeds and processes in parallel. Clusters are
+     * validated here one after the other, reaching the interfaces they share once.
+     *
+     * @return for every entity, the same entity already submitted or null if it is valid and yet to be published
+     */
+    private List<Future<Entity>> validateAll(List<Entity> entities) {
+        List<Future<Entity>> validations = new ArrayList<Future<Entity>>();
+        final Subject subject = CurrentUser.getSubject();
+        ClusterEntityParser.startProbeReuse();
+        try {
+            for (final Entity entity : entities) {
+                Callable<Entity> validation = new Callable<Entity>() {
+                    @Override
+                    public Entity call() throws Exception {
+                        Entity existingEntity = getExisting(entity);
+                        if (existingEntity == null) {
+                            validate(entity);
+                        }
+                        return existingEntity;
+                    }
+                };
+                if (entity.getEntityType() == EntityType.CLUSTER) {
+                    FutureTask<Entity> task = new FutureTask<Entity>(validation);
+                    task.run();
+                    validations.add(task);
+                } else {
+                    validations.add(BULK_EXECUTOR.submit(asUser(subject, validation)));
+                }
+            }
+        } finally {
+            ClusterEntityParser.endProbeReuse();
+        }
+        return validations;
+    }
+
+    private void scheduleInParallel(List<Entity> entities, Map<String, EntitiesResult.EntityResult> results) {
+        List<Entity> schedulable = new ArrayList<Entity>();
+        for (Entity entity : entities) {
+            if (entity.getEntityType().isSchedulable()) {
+                schedulable.add(entity);
+            }
+        }
+
+        Subject subject = CurrentUser.getSubject();
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (final Entity entity : schedulable) {
+            futures.add(BULK_EXECUTOR.submit(asUser(subject, new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    getWorkflowEngine().schedule(entity);
+                    return null;
+                }
+            })));
+        }
+
+        for (int index = 0; index < schedulable.size(); index++) {
+            Entity entity = schedulable.get(index);
+            String key = getKey(entity.getEntityType(), entity.getName());
+            try {
+                futures.get(index).get();
+                results.put(key, newResult(entity, APIResult.Status.SUCCEEDED,
+                        entity.getName() + "(" + entity.getEntityType() + ") scheduled successfully"));
+            } catch (ExecutionException e) {
+                LOG.error("Unable to schedule {}", entity.toShortString(), e.getCause());
+                results.put(key, newResult(entity, APIResult.Status.FAILED, getMessage(e.getCause())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.get(index).cancel(true);
+                results.put(key, newResult(entity, APIResult.Status.FAILED, "Interrupted while scheduling"));
+            }
+        }
+    }
+
+    // runs the task on a thread of the bulk executor as the user of the request
+    private static <T> Callable<T> asUser(final Subject subject, final Callable<T> task) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                CurrentUser.setSubject(subject);
+                try {
+                    return task.call();
+                } finally {
+                    CurrentUser.clear();
+                }
+            }
+        };
+    }
+
+    // only the entities with a cluster in this colo are submitted to it, the prism keeps all of them
+    private boolean isApplicable(Entity entity) {
+        return DeploymentUtil.isPrism() || entity.getEntityType() == EntityType.CLUSTER
+                || !EntityUtil.getClustersDefinedInColos(entity).isEmpty();
+    }
+
+    private static List<String> getReferences(Entity entity) {
+        List<String> references = new ArrayList<String>();
+        for (String cluster : EntityUtil.getClustersDefined(entity)) {
+            references.add(getKey(EntityType.CLUSTER, cluster));
+        }
+        if (entity.getEntityType() == EntityType.PROCESS) {
+            Process process = (Process) entity;
+            if (process.getInputs() != null) {
+                for (Input input : process.getInputs().getInputs()) {
+                    references.add(getKey(EntityType.FEED, input.getFeed()));
+                }
+            }
+            if (process.getOutputs() != null) {
+                for (Output output : process.getOutputs().getOutputs()) {
+                    references.add(getKey(EntityType.FEED, output.getFeed()));
+                }
+            }
+        }
+        return references;
+    }
+
+    private static String getKey(EntityType type, String name) {
+        return name + "(" + type + ")";
+    }
+
+    private static EntitiesResult.EntityResult newResult(Entity entity, APIResult.Status status, String message) {
+        return new EntitiesResult.EntityResult(entity.getEntityType().name().toLowerCase(), entity.getName(),
+                status, message);
+    }
+
+    private static String getMessage(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+    }
+
     /**
      * Suspends a running entity.
      *
@@ -187,7 +472,7 @@ public abstract class AbstractSchedulableEntityManager extends AbstractInstanceM
             entities = getEntities(type,
                     SchemaHelper.getDateFormat().format(startAndEndDates.first),
                     SchemaHelper.getDateFormat().format(startAndEndDates.second),
-                    cluster, filterBy, filterTags, orderBy, sortOrder, offset, resultsPerPage);
+                    cluster, filterBy, filterTags, orderBy, sortOrder, offset, resultsPerPage, null);
             colo = ((Cluster) configStore.get(EntityType.CLUSTER, cluster)).getColo();
         } catch (Exception e) {
             LOG.error("Failed to get entities", e);
@@ -199,7 +484,7 @@ public abstract class AbstractSchedulableEntityManager extends AbstractInstanceM
             InstancesResult instancesResult = getInstances(entity.getEntityType().name(), entity.getName(),
                     SchemaHelper.getDateFormat().format(startAndEndDates.first),
                     SchemaHelper.getDateFormat().format(startAndEndDates.second),
-                    colo, null, "", "", "", 0, numInstances);
+                    colo, null, "", "", "", 0, numInstances, null);
 
             /* ToDo - Use oozie bulk API after FALCON-591 is implemented
              *       getBulkInstances(entity, cluster,
@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.resource.InstancesResult.Instance;
+import org.apache.falcon.resource.InstancesResult.WorkflowStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Pages of instances in a stable order: the field ordered by, then the nominal time of the instance, latest first,
+ * and the cluster, so that no two instances of an entity tie and a page can continue right after the last one
+ * returned. Without a field to order by the latest instances come first, as they always have.
+ */
+public final class InstancePage {
+
+    private static final int CURSOR_KEYS = 5;
+
+    private InstancePage() {
+    }
+
+    /**
+     * @param orderBy   status, cluster, startTime or endTime, anything else only orders by instance and cluster
+     * @param sortOrder asc or desc, for the field ordered by
+     * @return order of the instances
+     */
+    public static Comparator<Instance> comparator(final String orderBy, String sortOrder) {
+        final boolean descending = "desc".equalsIgnoreCase(sortOrder);
+        return new Comparator<Instance>() {
+            @Override
+            public int compare(Instance i1, Instance i2) {
+                int result;
+                if (orderBy.equals("status")) {
+                    result = getStatus(i1).name().compareTo(getStatus(i2).name());
+                } else if (orderBy.equals("startTime")) {
+                    result = compareTimes(i1.getStartTime(), i2.getStartTime());
+                } else if (orderBy.equals("endTime")) {
+                    result = compareTimes(i1.getEndTime(), i2.getEndTime());
+                } else if (orderBy.equals("cluster")) {
+                    result = valueOf(i1.getCluster()).compareTo(valueOf(i2.getCluster()));
+                } else {
+                    result = 0;
+                }
+                if (result != 0) {
+                    return descending ? -result : result;
+                }
+                result = valueOf(i2.getInstance()).compareTo(valueOf(i1.getInstance()));
+                return result != 0 ? result : valueOf(i1.getCluster()).compareTo(valueOf(i2.getCluster()));
+            }
+        };
+    }
+
+    /**
+     * @return cursor for the page after the given instance
+     */
+    public static String getCursor(Instance last, String orderBy, String sortOrder) {
+        String key;
+        if (orderBy.equals("status")) {
+            key = getStatus(last).name();
+        } else if (orderBy.equals("startTime")) {
+            key = String.valueOf(getTime(last.getStartTime()));
+        } else if (orderBy.equals("endTime")) {
+            key = String.valueOf(getTime(last.getEndTime()));
+        } else {
+            key = "";
+        }
+        return PageCursor.encode(orderBy, sortOrder, key, valueOf(last.getCluster()), valueOf(last.getInstance()));
+    }
+
+    /**
+     * @return an instance with the sort keys of the cursor, the instances of the page come after
+     * @throws FalconException if the cursor was not returned for this order
+     */
+    public static Instance getAfter(String cursor, String orderBy, String sortOrder) throws FalconException {
+        String[] keys = PageCursor.decode(cursor, new String[]{orderBy, sortOrder}, CURSOR_KEYS);
+        Instance after = new Instance(keys[3], keys[4], null);
+        try {
+            if (orderBy.equals("status")) {
+                after.status = WorkflowStatus.valueOf(keys[2]);
+            } else if (orderBy.equals("startTime")) {
+                after.startTime = new Date(Long.parseLong(keys[2]));
+            } else if (orderBy.equals("endTime")) {
+                after.endTime = new Date(Long.parseLong(keys[2]));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new FalconException("Invalid cursor: " + cursor, e);
+        }
+        return after;
+    }
+
+    /**
+     * Picks the first instances in order, keeping no more than the page in memory instead of sorting them all.
+     *
+     * @param instances instances in any order
+     * @param order     order of the page
+     * @param after     only instances after this one are picked, null to start from the first
+     * @param limit     number of instances to pick
+     * @return the first instances after the given one, in order
+     */
+    public static List<Instance> select(Collection<Instance> instances, Comparator<Instance> order,
+                                        Instance after, int limit) {
+        PriorityQueue<Instance> page = new PriorityQueue<Instance>(Math.min(limit, instances.size()) + 1,
+                Collections.reverseOrder(order));
+        for (Instance instance : instances) {
+            if (after != null && order.compare(instance, after) <= 0) {
+                continue;
+            }
+            page.add(instance);
+            if (page.size() > limit) {
+                page.poll(); // the last one in order
+            }
+        }
+        List<Instance> selected = new ArrayList<Instance>(page);
+        Collections.sort(selected, order);
+        return selected;
+    }
+
+    /**
+     * Merges pages that are each in order into one, taking the first instance of any of them at every step.
+     *
+     * @param pages pages in order
+     * @param order order of the pages
+     * @param limit number of instances to take
+     * @return the first instances of all the pages, in order
+     */
+    public static List<Instance> merge(Collection<Instance[]> pages, final Comparator<Instance> order, int limit) {
+        final List<Instance[]> heads = new ArrayList<Instance[]>();
+        for (Instance[] page : pages) {
+            if (page != null && page.length > 0) {
+                heads.add(page);
+            }
+        }
+        // positions of the next instance of each page, ordered by that instance
+        final int[] positions = new int[heads.size()];
+        PriorityQueue<Integer> next = new PriorityQueue<Integer>(Math.max(heads.size(), 1),
+                new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer p1, Integer p2) {
+                        return order.compare(heads.get(p1)[positions[p1]], heads.get(p2)[positions[p2]]);
+                    }
+                });
+        for (int index = 0; index < heads.size(); index++) {
+            next.add(index);
+        }
+
+        List<Instance> merged = new ArrayList<Instance>();
+        while (merged.size() < limit && !next.isEmpty()) {
+            int page = next.poll();
+            merged.add(heads.get(page)[positions[page]++]);
+            if (positions[page] < heads.get(page).length) {
+                next.add(page);
+            }
+        }
+        return merged;
+    }
+
+    private static WorkflowStatus getStatus(Instance instance) {
+        return instance.getStatus() == null ? WorkflowStatus.ERROR : instance.getStatus();
+    }
+
+    private static long getTime(Date time) {
+        return time == null ? 0 : time.getTime();
+    }
+
+    private static int compareTimes(Date time1, Date time2) {
+        long t1 = getTime(time1);
+        long t2 = getTime(time2);
+        return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+    }
+
+    private static String valueOf(String key) {
+        return key == null ? "" : key;
+    }
+}
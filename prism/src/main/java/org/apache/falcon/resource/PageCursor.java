@@ -0,0 +1,62 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang.StringUtils;
+import org.apache.falcon.FalconException;
+
+import java.nio.charset.Charset;
+
+/**
+ * Cursor handed out with a page of results, for the next request to continue after the last result of the page.
+ * It holds the sort keys of that result along with the order it was issued for, encoded to be safe in a url.
+ */
+public final class PageCursor {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String SEPARATOR = "\n";
+
+    private PageCursor() {
+    }
+
+    public static String encode(String... keys) {
+        return Base64.encodeBase64URLSafeString(StringUtils.join(keys, SEPARATOR).getBytes(UTF8));
+    }
+
+    /**
+     * @param cursor   cursor returned with the previous page
+     * @param expected keys the cursor has to start with, the order it was issued for
+     * @param size     number of keys in the cursor
+     * @return keys of the cursor
+     * @throws FalconException if it is not a cursor of this order
+     */
+    public static String[] decode(String cursor, String[] expected, int size) throws FalconException {
+        String[] keys = StringUtils.splitPreserveAllTokens(new String(Base64.decodeBase64(cursor), UTF8), SEPARATOR);
+        if (keys.length != size) {
+            throw new FalconException("Invalid cursor: " + cursor);
+        }
+        for (int index = 0; index < expected.length; index++) {
+            if (!expected[index].equals(keys[index])) {
+                throw new FalconException("Cursor " + cursor + " was returned for another orderBy or sortOrder");
+            }
+        }
+        return keys;
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.falcon.util.BuildProperties;
 import org.apache.falcon.util.DeploymentProperties;
 import org.apache.falcon.util.RuntimeProperties;
 import org.apache.falcon.util.StartupProperties;
+import org.apache.falcon.workflow.engine.InstanceStatusCache;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -34,6 +35,7 @@ import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -106,6 +108,22 @@ public class AdminResource {
         }
     }
 
+    @GET
+    @Path("cache")
+    @Produces({MediaType.TEXT_XML, MediaType.APPLICATION_JSON})
+    public PropertyList getCacheStats() {
+        List<Property> props = new ArrayList<Property>();
+        for (Map.Entry<String, Long> stat : InstanceStatusCache.get().getStats().entrySet()) {
+            Property property = new Property();
+            property.key = "instance.cache." + stat.getKey();
+            property.value = String.valueOf(stat.getValue());
+            props.add(property);
+        }
+        PropertyList propertyList = new PropertyList();
+        propertyList.properties = props;
+        return propertyList;
+    }
+
     private PropertyList getProperties(Properties properties) {
         List<Property> props = new ArrayList<Property>();
 
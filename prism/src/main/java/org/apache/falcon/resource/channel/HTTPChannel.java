@@ -20,34 +20,30 @@ package org.apache.falcon.resource.channel;
 
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
 import org.apache.falcon.FalconException;
 import org.apache.falcon.resource.proxy.BufferedRequest;
 import org.apache.falcon.security.CurrentUser;
 import org.apache.falcon.util.DeploymentProperties;
 import org.apache.falcon.util.RuntimeProperties;
+import org.apache.falcon.util.StartupProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.ws.rs.Consumes;
-import javax.ws.rs.DELETE;
-import javax.ws.rs.HttpMethod;
-import javax.ws.rs.POST;
-import javax.ws.rs.PUT;
-import javax.ws.rs.Path;
-import javax.ws.rs.PathParam;
-import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status.Family;
 import javax.ws.rs.core.UriBuilder;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * A Channel implementation for HTTP.
+ * A Channel implementation for HTTP. The channels of a colo share a client that lives as long as the prism, its
+ * connections are kept alive and reused by the following calls, up to http.max.connections idle ones per colo.
  */
 public class HTTPChannel extends AbstractChannel {
     private static final Logger LOG = LoggerFactory.getLogger(HTTPChannel.class);
@@ -56,10 +52,15 @@ public class HTTPChannel extends AbstractChannel {
 
     private static final Properties DEPLOYMENT_PROPERTIES = DeploymentProperties.get();
 
+    private static final ConcurrentMap<String, Client> CLIENTS = new ConcurrentHashMap<String, Client>();
+
     private Class service;
     private String urlPrefix;
+    private String clientKey;
+    private final ConcurrentMap<Method, InvocationPlan> plans = new ConcurrentHashMap<Method, InvocationPlan>();
 
     public void init(String colo, String serviceName) throws FalconException {
+        clientKey = colo;
         String prefixPath = DEPLOYMENT_PROPERTIES.getProperty(serviceName + ".path");
         String falconEndPoint = RuntimeProperties.get().getProperty("falcon." + colo + ".endpoint");
         urlPrefix = falconEndPoint + "/" + prefixPath;
@@ -77,32 +78,34 @@ public class HTTPChannel extends AbstractChannel {
     @Override
     public <T> T invoke(String methodName, Object... args) throws FalconException {
         try {
-            Method method = getMethod(service, methodName, args);
-            String url = urlPrefix + "/" + pathValue(method, args);
+            InvocationPlan plan = getPlan(getMethod(service, methodName, args));
+            String url = urlPrefix + "/" + plan.getPath(args);
             LOG.debug("Executing {}", url);
 
-            HttpServletRequest incomingRequest = getIncomingRequest(args);
+            HttpServletRequest incomingRequest = plan.getRequest(args);
+            if (incomingRequest == null) {
+                incomingRequest = new BufferedRequest(DEFAULT_NULL_REQUEST);
+            }
             incomingRequest.getInputStream().reset();
-            String httpMethod = getHttpMethod(method);
-            String mimeType = getConsumes(method);
             String accept = MediaType.WILDCARD;
             String user = CurrentUser.getUser();
 
             ClientResponse response = getClient()
                     .resource(UriBuilder.fromUri(url).build().normalize())
                     .queryParam("user.name", user)
-                    .accept(accept).type(mimeType)
-                    .method(httpMethod, ClientResponse.class,
-                            (isPost(httpMethod) ? incomingRequest.getInputStream() : null));
+                    .accept(accept).type(plan.getMimeType())
+                    .method(plan.getHttpMethod(), ClientResponse.class,
+                            (plan.hasBody() ? incomingRequest.getInputStream() : null));
             incomingRequest.getInputStream().reset();
 
+            Class<?> returnType = plan.getMethod().getReturnType();
             Family status = response.getClientResponseStatus().getFamily();
             if (status == Family.INFORMATIONAL || status == Family.SUCCESSFUL) {
-                return (T) response.getEntity(method.getReturnType());
+                return (T) response.getEntity(returnType);
             } else if (response.getClientResponseStatus().getStatusCode()
                     == Response.Status.BAD_REQUEST.getStatusCode()) {
                 LOG.error("Request failed: {}", response.getClientResponseStatus().getStatusCode());
-                return (T) response.getEntity(method.getReturnType());
+                return (T) response.getEntity(returnType);
             } else {
                 LOG.error("Request failed: {}", response.getClientResponseStatus().getStatusCode());
                 throw new FalconException(response.getEntity(String.class));
@@ -113,88 +116,40 @@ public class HTTPChannel extends AbstractChannel {
         }
     }
 
-    protected Client getClient() throws Exception {
-        return Client.create(new DefaultClientConfig());
-    }
-
-    private boolean isPost(String httpMethod) {
-        return httpMethod.equals("POST") || httpMethod.equals("PUT");
-    }
-
-    private String pathValue(Method method, Object... args) throws FalconException {
-
-        Path pathParam = method.getAnnotation(Path.class);
-        if (pathParam == null) {
-            throw new FalconException("No path param mentioned for " + method);
-        }
-        String pathValue = pathParam.value();
-
-        Annotation[][] paramAnnotations = method.getParameterAnnotations();
-        StringBuilder queryString = new StringBuilder("?");
-        for (int index = 0; index < args.length; index++) {
-            if (args[index] instanceof String) {
-                String arg = (String) args[index];
-                for (int annotation = 0; annotation < paramAnnotations[index].length; annotation++) {
-                    Annotation paramAnnotation = paramAnnotations[index][annotation];
-                    String annotationClass = paramAnnotation.annotationType().getName();
-
-                    if (annotationClass.equals(QueryParam.class.getName())) {
-                        queryString.append(getAnnotationValue(paramAnnotation, "value")).
-                                append('=').append(arg).append("&");
-                    } else if (annotationClass.equals(PathParam.class.getName())) {
-                        pathValue = pathValue.replace("{"
-                                + getAnnotationValue(paramAnnotation, "value") + "}", arg);
-                    }
-                }
-            }
-        }
-        return pathValue + queryString.toString();
-    }
-
-    private String getAnnotationValue(Annotation paramAnnotation,
-                                      String annotationAttribute) throws FalconException {
-        try {
-            return String.valueOf(paramAnnotation.annotationType().
-                    getMethod(annotationAttribute).invoke(paramAnnotation));
-        } catch (Exception e) {
-            throw new FalconException("Unable to get attribute value for "
-                    + paramAnnotation + "[" + annotationAttribute + "]");
+    private InvocationPlan getPlan(Method method) throws FalconException {
+        InvocationPlan plan = plans.get(method);
+        if (plan == null) {
+            plan = new InvocationPlan(method);
+            plans.putIfAbsent(method, plan);
         }
+        return plan;
     }
 
-    private HttpServletRequest getIncomingRequest(Object... args) {
-        for (Object arg : args) {
-            if (arg instanceof HttpServletRequest) {
-                return (HttpServletRequest) arg;
+    protected Client getClient() throws Exception {
+        Client client = CLIENTS.get(clientKey);
+        if (client == null) {
+            Client created = createClient();
+            client = CLIENTS.putIfAbsent(clientKey, created);
+            if (client == null) {
+                client = created;
+            } else {
+                created.destroy();
             }
         }
-        return new BufferedRequest(DEFAULT_NULL_REQUEST);
+        return client;
     }
 
-    private String getHttpMethod(Method method) {
-        PUT put = method.getAnnotation(PUT.class);
-        if (put != null) {
-            return HttpMethod.PUT;
-        }
-
-        POST post = method.getAnnotation(POST.class);
-        if (post != null) {
-            return HttpMethod.POST;
-        }
-
-        DELETE delete = method.getAnnotation(DELETE.class);
-        if (delete != null) {
-            return HttpMethod.DELETE;
-        }
-
-        return HttpMethod.GET;
+    protected Client createClient() throws Exception {
+        return Client.create(getClientConfig());
     }
 
-    private String getConsumes(Method method) {
-        Consumes consumes = method.getAnnotation(Consumes.class);
-        if (consumes == null || consumes.value() == null) {
-            return MediaType.TEXT_PLAIN;
-        }
-        return consumes.value()[0];
+    protected DefaultClientConfig getClientConfig() {
+        Properties properties = StartupProperties.get();
+        DefaultClientConfig config = new DefaultClientConfig();
+        config.getProperties().put(ClientConfig.PROPERTY_CONNECT_TIMEOUT,
+                Integer.parseInt(properties.getProperty("prism.colo.connect.timeout.millis", "10000")));
+        config.getProperties().put(ClientConfig.PROPERTY_READ_TIMEOUT,
+                Integer.parseInt(properties.getProperty("prism.colo.read.timeout.millis", "300000")));
+        return config;
     }
 }
@@ -0,0 +1,201 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource.channel;
+
+import org.apache.falcon.FalconException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How a method of a proxied service is called over http, worked out once from the annotations of the method:
+ * the http method, the media type of the body, the path with a slot for each path parameter and the query
+ * parameters. A call then only fills the slots with the string and number arguments.
+ */
+final class InvocationPlan {
+
+    private final Method method;
+    private final String httpMethod;
+    private final String mimeType;
+    // the path is the literal parts with the argument of a slot in between, or the slot as is without one
+    private final String[] pathParts;
+    private final int[] slotArgs;
+    private final String[] slots;
+    private final String[] queryParams;
+    private final int requestArg;
+
+    InvocationPlan(Method method) throws FalconException {
+        this.method = method;
+        httpMethod = getHttpMethod(method);
+        mimeType = getConsumes(method);
+
+        Path pathParam = method.getAnnotation(Path.class);
+        if (pathParam == null) {
+            throw new FalconException("No path param mentioned for " + method);
+        }
+
+        Annotation[][] paramAnnotations = method.getParameterAnnotations();
+        Class<?>[] paramTypes = method.getParameterTypes();
+        Map<String, Integer> pathArgs = new HashMap<String, Integer>();
+        queryParams = new String[paramAnnotations.length];
+        int request = -1;
+        for (int index = 0; index < paramAnnotations.length; index++) {
+            if (request < 0 && HttpServletRequest.class.isAssignableFrom(paramTypes[index])) {
+                request = index;
+            }
+            for (Annotation paramAnnotation : paramAnnotations[index]) {
+                String annotationClass = paramAnnotation.annotationType().getName();
+                if (annotationClass.equals(QueryParam.class.getName())) {
+                    queryParams[index] = getAnnotationValue(paramAnnotation, "value");
+                } else if (annotationClass.equals(PathParam.class.getName())) {
+                    pathArgs.put(getAnnotationValue(paramAnnotation, "value"), index);
+                }
+            }
+        }
+        requestArg = request;
+
+        List<String> parts = new ArrayList<String>();
+        List<String> slotNames = new ArrayList<String>();
+        List<Integer> args = new ArrayList<Integer>();
+        String path = pathParam.value();
+        int partStart = 0;
+        int open = path.indexOf('{');
+        while (open >= 0) {
+            int close = path.indexOf('}', open);
+            if (close < 0) {
+                break;
+            }
+            // a name that is not a path parameter of the method is kept as is
+            Integer arg = pathArgs.get(path.substring(open + 1, close));
+            if (arg != null) {
+                parts.add(path.substring(partStart, open));
+                slotNames.add(path.substring(open, close + 1));
+                args.add(arg);
+                partStart = close + 1;
+            }
+            open = path.indexOf('{', close + 1);
+        }
+        parts.add(path.substring(partStart));
+
+        pathParts = parts.toArray(new String[parts.size()]);
+        slots = slotNames.toArray(new String[slotNames.size()]);
+        slotArgs = new int[args.size()];
+        for (int index = 0; index < slotArgs.length; index++) {
+            slotArgs[index] = args.get(index);
+        }
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    String getHttpMethod() {
+        return httpMethod;
+    }
+
+    String getMimeType() {
+        return mimeType;
+    }
+
+    boolean hasBody() {
+        return httpMethod.equals(HttpMethod.POST) || httpMethod.equals(HttpMethod.PUT);
+    }
+
+    /**
+     * @return the incoming request among the arguments, null if there is none
+     */
+    HttpServletRequest getRequest(Object[] args) {
+        if (requestArg >= 0 && args[requestArg] instanceof HttpServletRequest) {
+            return (HttpServletRequest) args[requestArg];
+        }
+        return null;
+    }
+
+    /**
+     * @return the path with the path parameters filled in, followed by the query parameters
+     */
+    String getPath(Object[] args) {
+        StringBuilder path = new StringBuilder(64);
+        for (int index = 0; index < slots.length; index++) {
+            path.append(pathParts[index]);
+            Object arg = args[slotArgs[index]];
+            path.append(arg instanceof String ? (String) arg : slots[index]);
+        }
+        path.append(pathParts[slots.length]).append('?');
+        for (int index = 0; index < queryParams.length; index++) {
+            // numbers are passed on as well, for the colos to return the page asked for
+            if (queryParams[index] != null && (args[index] instanceof String || args[index] instanceof Number)) {
+                path.append(queryParams[index]).append('=').append(args[index]).append('&');
+            }
+        }
+        return path.toString();
+    }
+
+    private static String getAnnotationValue(Annotation paramAnnotation,
+                                             String annotationAttribute) throws FalconException {
+        try {
+            return String.valueOf(paramAnnotation.annotationType().
+                    getMethod(annotationAttribute).invoke(paramAnnotation));
+        } catch (Exception e) {
+            throw new FalconException("Unable to get attribute value for "
+                    + paramAnnotation + "[" + annotationAttribute + "]");
+        }
+    }
+
+    private static String getHttpMethod(Method method) {
+        PUT put = method.getAnnotation(PUT.class);
+        if (put != null) {
+            return HttpMethod.PUT;
+        }
+
+        POST post = method.getAnnotation(POST.class);
+        if (post != null) {
+            return HttpMethod.POST;
+        }
+
+        DELETE delete = method.getAnnotation(DELETE.class);
+        if (delete != null) {
+            return HttpMethod.DELETE;
+        }
+
+        return HttpMethod.GET;
+    }
+
+    private static String getConsumes(Method method) {
+        Consumes consumes = method.getAnnotation(Consumes.class);
+        if (consumes == null || consumes.value() == null) {
+            return MediaType.TEXT_PLAIN;
+        }
+        return consumes.value()[0];
+    }
+}
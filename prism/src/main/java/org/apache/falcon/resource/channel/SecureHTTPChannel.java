@@ -27,33 +27,65 @@ import org.apache.falcon.util.StartupProperties;
 import org.apache.http.conn.ssl.AllowAllHostnameVerifier;
 import org.apache.log4j.Logger;
 
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import java.io.File;
 import java.security.SecureRandom;
 import java.util.Properties;
 
 /**
- * This supports prism server to falcon server over https.
+ * This supports prism server to falcon server over https. The ssl context is shared by the clients of all the
+ * colos, so that its sessions are resumed by new connections instead of going through a full handshake.
  */
 public class SecureHTTPChannel extends HTTPChannel {
     private static final Logger LOG = Logger.getLogger(SecureHTTPChannel.class);
 
+    private static SSLContext sslContext;
+
     @Override
-    protected Client getClient() throws Exception {
-        Properties properties = StartupProperties.get();
-        String keyStoreFile = properties.getProperty("keystore.file", "conf/prism.keystore");
-        String password = properties.getProperty("keystore.password", "falcon-prism-passwd");
-        SSLContext sslContext = SSLContext.getInstance("SSL");
-        sslContext.init(
-                new KeyManager[]{KeyManagerUtils.createClientKeyManager(new File(keyStoreFile), password)},
-                new TrustManager[] {TrustManagerUtils.getValidateServerCertificateTrustManager()},
-                new SecureRandom());
-        DefaultClientConfig config = new DefaultClientConfig();
+    protected Client createClient() throws Exception {
+        DefaultClientConfig config = getClientConfig();
         config.getProperties().put(HTTPSProperties.PROPERTY_HTTPS_PROPERTIES,
-                new HTTPSProperties(new AllowAllHostnameVerifier(), sslContext));
-        LOG.info("Configuring client with " + new File(keyStoreFile).getAbsolutePath());
+                new SharedHTTPSProperties(new AllowAllHostnameVerifier(), getSSLContext()));
         return Client.create(config);
     }
+
+    private static synchronized SSLContext getSSLContext() throws Exception {
+        if (sslContext == null) {
+            Properties properties = StartupProperties.get();
+            String keyStoreFile = properties.getProperty("keystore.file", "conf/prism.keystore");
+            String password = properties.getProperty("keystore.password", "falcon-prism-passwd");
+            SSLContext context = SSLContext.getInstance("SSL");
+            context.init(
+                    new KeyManager[]{KeyManagerUtils.createClientKeyManager(new File(keyStoreFile), password)},
+                    new TrustManager[] {TrustManagerUtils.getValidateServerCertificateTrustManager()},
+                    new SecureRandom());
+            LOG.info("Configuring client with " + new File(keyStoreFile).getAbsolutePath());
+            sslContext = context;
+        }
+        return sslContext;
+    }
+
+    /**
+     * Hands the same socket factory to every connection. The jdk only reuses a kept alive https connection for
+     * the factory it was opened with, and jersey asks the ssl context for a new factory per connection.
+     */
+    private static final class SharedHTTPSProperties extends HTTPSProperties {
+        private final SSLSocketFactory socketFactory;
+
+        private SharedHTTPSProperties(HostnameVerifier hostnameVerifier, SSLContext context) {
+            super(hostnameVerifier, context);
+            socketFactory = context.getSocketFactory();
+        }
+
+        @Override
+        public void setConnection(HttpsURLConnection connection) {
+            connection.setHostnameVerifier(getHostnameVerifier());
+            connection.setSSLSocketFactory(socketFactory);
+        }
+    }
 }
@@ -19,7 +19,10 @@
 package org.apache.falcon.resource.proxy;
 
 import org.apache.falcon.FalconWebException;
+import org.apache.falcon.util.StartupProperties;
 import org.apache.hadoop.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletInputStream;
@@ -29,59 +32,236 @@ import javax.servlet.http.HttpSession;
 import javax.ws.rs.core.Response;
 import java.io.*;
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 /**
- * A buffered implementation of HttpServletRequest.
+ * A buffered implementation of HttpServletRequest, whose body can be read again for every colo. A small body is
+ * kept in memory, one larger than prism.request.spool.threshold.bytes is spooled to a file that is removed by
+ * {@link #releaseSpooled()} once the request is served.
  */
 public class BufferedRequest implements HttpServletRequest {
 
-    private final HttpServletRequest request;
+    private static final Logger LOG = LoggerFactory.getLogger(BufferedRequest.class);
+
+    private static final int SPOOL_THRESHOLD = Integer.parseInt(
+            StartupProperties.get().getProperty("prism.request.spool.threshold.bytes", "1048576"));
 
-    private final ServletInputStream stream;
+    private static final String SPOOL_DIR = StartupProperties.get().getProperty("prism.request.spool.dir",
+            System.getProperty("java.io.tmpdir"));
 
-    private final ThreadLocal<ByteArrayOutputStream> streams =
-            new ThreadLocal<ByteArrayOutputStream>() {
+    // fixed size, the body is copied through it a chunk at a time
+    private static final ThreadLocal<byte[]> COPY_BUFFERS = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[8 * 1024];
+        }
+    };
+
+    // requests spooled by the thread serving the request
+    private static final ThreadLocal<List<BufferedRequest>> SPOOLED = new ThreadLocal<List<BufferedRequest>>() {
+        @Override
+        protected List<BufferedRequest> initialValue() {
+            return new ArrayList<BufferedRequest>();
+        }
+    };
+
+    // the body is read by the threads calling the colos in parallel, each with its own stream until
+    // releaseStreams() is called once the call is done
+    private static final ThreadLocal<Map<BufferedRequest, ServletInputStream>> STREAMS =
+            new ThreadLocal<Map<BufferedRequest, ServletInputStream>>() {
                 @Override
-                protected ByteArrayOutputStream initialValue() {
-                    return new ByteArrayOutputStream(2 * 1024);
+                protected Map<BufferedRequest, ServletInputStream> initialValue() {
+                    return new IdentityHashMap<BufferedRequest, ServletInputStream>();
                 }
             };
 
+    private final HttpServletRequest request;
+
+    private final List<InputStream> openStreams = new ArrayList<InputStream>();
+
+    private final int spoolThreshold;
+    private byte[] body;
+    private File spool;
+
     public BufferedRequest(HttpServletRequest request) {
+        this(request, SPOOL_THRESHOLD);
+    }
+
+    BufferedRequest(HttpServletRequest request, int spoolThreshold) {
+        this.request = request;
+        this.spoolThreshold = spoolThreshold;
         try {
-            this.request = request;
-            ByteArrayOutputStream copyBuffer = streams.get();
-            copyBuffer.reset();
-            IOUtils.copyBytes(request.getInputStream(), copyBuffer, 4096, false);
-            final ByteArrayInputStream buffer =
-                    new ByteArrayInputStream(copyBuffer.toByteArray(), 0, copyBuffer.size());
-            stream = new ServletInputStream() {
-                @Override
-                public int read() throws IOException {
-                    return buffer.read();
-                }
+            readBody(request.getInputStream());
+        } catch (IOException e) {
+            release();
+            throw FalconWebException.newException(e, Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
 
-                @Override
-                public void mark(int readlimit) {
-                    buffer.mark(readlimit);
+    private void readBody(InputStream in) throws IOException {
+        byte[] buffer = COPY_BUFFERS.get();
+        int length = request.getContentLength();
+        ByteArrayOutputStream memory = new ByteArrayOutputStream(
+                length > 0 && length <= spoolThreshold ? length : buffer.length);
+        OutputStream out = memory;
+        try {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                if (spool == null && memory.size() + read > spoolThreshold) {
+                    spool = File.createTempFile("falcon-request-", ".body", new File(SPOOL_DIR));
+                    SPOOLED.get().add(this);
+                    LOG.debug("Spooling request body to {}", spool);
+                    out = new BufferedOutputStream(new FileOutputStream(spool), buffer.length);
+                    memory.writeTo(out);
+                    memory = null;
                 }
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            out.close();
+        }
+        if (spool == null) {
+            body = memory.toByteArray();
+        }
+    }
 
-                @Override
-                public void reset() throws IOException {
-                    buffer.reset();
+    /**
+     * Removes the files of the bodies spooled while serving the current request.
+     */
+    public static void releaseSpooled() {
+        List<BufferedRequest> spooled = SPOOLED.get();
+        for (BufferedRequest bufferedRequest : spooled) {
+            bufferedRequest.release();
+        }
+        SPOOLED.remove();
+    }
+
+    /**
+     * Closes the streams the current thread read bodies through, a later read starts from the beginning.
+     */
+    public static void releaseStreams() {
+        for (ServletInputStream in : STREAMS.get().values()) {
+            IOUtils.closeStream(in);
+        }
+        STREAMS.remove();
+    }
+
+    private void release() {
+        synchronized (openStreams) {
+            for (InputStream in : openStreams) {
+                IOUtils.closeStream(in);
+            }
+            openStreams.clear();
+        }
+        if (spool != null && !spool.delete() && spool.exists()) {
+            LOG.warn("Unable to delete spooled request body {}", spool);
+        }
+    }
+
+    /**
+     * @return file the body is spooled to, null if it is in memory
+     */
+    File getSpool() {
+        return spool;
+    }
+
+    private ServletInputStream newStream() {
+        return spool == null ? new MemoryStream(body) : new SpoolStream();
+    }
+
+    /**
+     * Reads a body held in memory.
+     */
+    private static final class MemoryStream extends ServletInputStream {
+        private final ByteArrayInputStream buffer;
+
+        private MemoryStream(byte[] body) {
+            buffer = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return buffer.read();
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            return buffer.read(bytes, offset, length);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return buffer.available();
+        }
+
+        @Override
+        public void mark(int readlimit) {
+        }
+
+        @Override
+        public void reset() throws IOException {
+            buffer.reset();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+    }
+
+    /**
+     * Reads a spooled body, reset goes back to the start of the file.
+     */
+    private final class SpoolStream extends ServletInputStream {
+        private InputStream in;
+
+        @Override
+        public int read() throws IOException {
+            return open().read();
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            return open().read(bytes, offset, length);
+        }
+
+        @Override
+        public void mark(int readlimit) {
+        }
+
+        @Override
+        public void reset() throws IOException {
+            if (in != null) {
+                synchronized (openStreams) {
+                    openStreams.remove(in);
                 }
+                in.close();
+                in = null;
+            }
+        }
 
-                @Override
-                public boolean markSupported() {
-                    return buffer.markSupported();
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reset();
+        }
+
+        private InputStream open() throws IOException {
+            if (in == null) {
+                in = new BufferedInputStream(new FileInputStream(spool), COPY_BUFFERS.get().length);
+                synchronized (openStreams) {
+                    openStreams.add(in);
                 }
-            };
-            stream.mark(10 * 1024 * 1024);
-        } catch (IOException e) {
-            throw FalconWebException.newException(e, Response.Status.INTERNAL_SERVER_ERROR);
+            }
+            return in;
         }
     }
 
@@ -241,7 +421,13 @@ public class BufferedRequest implements HttpServletRequest {
 
     @Override
     public ServletInputStream getInputStream() throws IOException {
-        return stream;
+        Map<BufferedRequest, ServletInputStream> streams = STREAMS.get();
+        ServletInputStream in = streams.get(this);
+        if (in == null) {
+            in = newStream();
+            streams.put(this, in);
+        }
+        return in;
     }
 
     @Override
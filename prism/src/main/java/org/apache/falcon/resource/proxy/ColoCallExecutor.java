@@ -0,0 +1,267 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource.proxy;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.security.CurrentUser;
+import org.apache.falcon.util.StartupProperties;
+import org.apache.log4j.NDC;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.security.auth.Subject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a proxied call on several colos in parallel, so that the latency of a request is that of the slowest
+ * colo instead of the sum of all. Every colo has a deadline, a colo that misses it is reported as an error
+ * instead of holding back the response. A read only call still running on a colo after the hedge delay is
+ * sent to it a second time and the first of the two to answer is taken.
+ */
+final class ColoCallExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ColoCallExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long hedgeMillis;
+
+    /**
+     * Performs the call on one colo.
+     *
+     * @param <T> result of the call
+     */
+    interface ColoCall<T> {
+        T call(String colo) throws FalconException;
+    }
+
+    /**
+     * Results of the colos that answered and errors of those that did not, in the order of the colos.
+     *
+     * @param <T> result of the call
+     */
+    static final class Results<T> {
+        private final Map<String, T> results = new LinkedHashMap<String, T>();
+        private final Map<String, FalconException> errors = new LinkedHashMap<String, FalconException>();
+
+        Map<String, T> getResults() {
+            return results;
+        }
+
+        Map<String, FalconException> getErrors() {
+            return errors;
+        }
+    }
+
+    /**
+     * Holds the executor shared by the proxies, created on first use.
+     */
+    private static final class Holder {
+        private static final ColoCallExecutor INSTANCE = new ColoCallExecutor();
+    }
+
+    static ColoCallExecutor get() {
+        return Holder.INSTANCE;
+    }
+
+    private ColoCallExecutor() {
+        this(Integer.parseInt(StartupProperties.get().getProperty("prism.colo.call.threads", "20")),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(
+                        StartupProperties.get().getProperty("prism.colo.call.timeout.seconds", "300"))),
+                Long.parseLong(StartupProperties.get().getProperty("prism.colo.call.hedge.millis", "5000")));
+    }
+
+    ColoCallExecutor(int threads, long timeoutMillis, long hedgeMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.hedgeMillis = hedgeMillis;
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "prism-colo-call-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Calls every colo and waits for the answers until the deadline. A runtime exception of a call, like a
+     * FalconWebException of an embedded colo, is thrown as if the call was made by the caller.
+     *
+     * @param readOnly whether the call can safely be sent twice to a colo
+     */
+    <T> Results<T> invoke(Collection<String> colos, ColoCall<T> call, boolean readOnly) {
+        Map<String, Attempts<T>> attempts = new LinkedHashMap<String, Attempts<T>>();
+        for (String colo : colos) {
+            Attempts<T> coloAttempts = new Attempts<T>();
+            attempts.put(colo, coloAttempts);
+            submit(colo, call, coloAttempts);
+        }
+
+        long start = System.currentTimeMillis();
+        long deadline = start + timeoutMillis;
+        if (readOnly && hedgeMillis > 0 && hedgeMillis < timeoutMillis) {
+            long hedgeAt = start + hedgeMillis;
+            for (Map.Entry<String, Attempts<T>> entry : attempts.entrySet()) {
+                if (!entry.getValue().await(hedgeAt - System.currentTimeMillis())) {
+                    LOG.info("Call on colo {} took more than {} ms, calling it again", entry.getKey(), hedgeMillis);
+                    submit(entry.getKey(), call, entry.getValue());
+                }
+            }
+        }
+
+        Results<T> results = new Results<T>();
+        for (Map.Entry<String, Attempts<T>> entry : attempts.entrySet()) {
+            String colo = entry.getKey();
+            Attempts<T> coloAttempts = entry.getValue();
+            if (coloAttempts.await(deadline - System.currentTimeMillis())) {
+                if (coloAttempts.runtimeError != null) {
+                    cancelAll(attempts);
+                    throw coloAttempts.runtimeError;
+                }
+                if (coloAttempts.error != null) {
+                    results.errors.put(colo, coloAttempts.error);
+                } else {
+                    results.results.put(colo, coloAttempts.result);
+                }
+            } else if (Thread.currentThread().isInterrupted()) {
+                coloAttempts.cancel();
+                results.errors.put(colo, new FalconException("Interrupted while waiting for colo " + colo));
+            } else {
+                coloAttempts.cancel();
+                LOG.warn("Call on colo {} did not complete in {} ms", colo, timeoutMillis);
+                results.errors.put(colo, new FalconException("Timed out after " + timeoutMillis + " ms"));
+            }
+        }
+        return results;
+    }
+
+    private <T> void submit(final String colo, final ColoCall<T> call, final Attempts<T> attempts) {
+        if (!attempts.start()) {
+            return;
+        }
+        final Subject subject = CurrentUser.getSubject();
+        final Stack context = NDC.cloneStack();
+        attempts.add(executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                NDC.inherit(context);
+                CurrentUser.setSubject(subject);
+                try {
+                    attempts.succeeded(call.call(colo));
+                } catch (FalconException e) {
+                    attempts.failed(e, null);
+                } catch (RuntimeException e) {
+                    attempts.failed(null, e);
+                } catch (Throwable e) {
+                    attempts.failed(new FalconException(e), null);
+                } finally {
+                    // a pooled thread must not keep the body of a request it called a colo for
+                    BufferedRequest.releaseStreams();
+                    CurrentUser.clear();
+                    NDC.remove();
+                }
+            }
+        }));
+    }
+
+    private static void cancelAll(Map<String, ? extends Attempts<?>> attempts) {
+        for (Attempts<?> coloAttempts : attempts.values()) {
+            coloAttempts.cancel();
+        }
+    }
+
+    /**
+     * The calls made on one colo, done with the first answer or, if all of them failed, the last error.
+     *
+     * @param <T> result of the call
+     */
+    private static final class Attempts<T> {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final List<Future<?>> futures = new ArrayList<Future<?>>();
+        private int pending;
+        private T result;
+        private FalconException error;
+        private RuntimeException runtimeError;
+
+        private synchronized boolean start() {
+            if (isDone()) {
+                return false;
+            }
+            pending++;
+            return true;
+        }
+
+        private synchronized void add(Future<?> future) {
+            futures.add(future);
+        }
+
+        private boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        private synchronized void succeeded(T answer) {
+            pending--;
+            if (!isDone()) {
+                result = answer;
+                done.countDown();
+            }
+        }
+
+        private synchronized void failed(FalconException falconError, RuntimeException otherError) {
+            pending--;
+            if (!isDone() && pending == 0) {
+                error = falconError;
+                runtimeError = otherError;
+                done.countDown();
+            }
+        }
+
+        private boolean await(long millis) {
+            try {
+                return done.await(Math.max(millis, 0), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private synchronized void cancel() {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+}
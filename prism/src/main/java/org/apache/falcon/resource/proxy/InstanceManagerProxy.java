@@ -18,6 +18,7 @@
 
 package org.apache.falcon.resource.proxy;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.falcon.FalconException;
 import org.apache.falcon.FalconRuntimException;
 import org.apache.falcon.FalconWebException;
@@ -26,10 +27,12 @@ import org.apache.falcon.monitors.Dimension;
 import org.apache.falcon.monitors.Monitored;
 import org.apache.falcon.resource.APIResult;
 import org.apache.falcon.resource.AbstractInstanceManager;
+import org.apache.falcon.resource.InstancePage;
 import org.apache.falcon.resource.InstancesResult;
 import org.apache.falcon.resource.InstancesResult.Instance;
 import org.apache.falcon.resource.InstancesSummaryResult;
 import org.apache.falcon.resource.InstancesSummaryResult.InstanceSummary;
+import org.apache.falcon.resource.OperationResult;
 import org.apache.falcon.resource.channel.Channel;
 import org.apache.falcon.resource.channel.ChannelFactory;
 
@@ -39,6 +42,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A proxy implementation of the entity instance operations.
@@ -46,7 +50,7 @@ import java.util.*;
 @Path("instance")
 public class InstanceManagerProxy extends AbstractInstanceManager {
     private static final String DEFAULT_NUM_RESULTS = "10";
-    private final Map<String, Channel> processInstanceManagerChannels = new HashMap<String, Channel>();
+    private final Map<String, Channel> processInstanceManagerChannels = new ConcurrentHashMap<String, Channel>();
 
     public InstanceManagerProxy() {
         try {
@@ -86,13 +90,14 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             @DefaultValue("") @QueryParam("orderBy") final String orderBy,
             @DefaultValue("") @QueryParam("sortOrder") final String sortOrder,
             @DefaultValue("0") @QueryParam("offset") final Integer offset,
-            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") final Integer resultsPerPage) {
-        return new InstanceProxy() {
+            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") final Integer resultsPerPage,
+            @QueryParam("cursor") final String cursor) {
+        return new PagedInstanceProxy(orderBy, sortOrder, offset, resultsPerPage, cursor) {
             @Override
             protected InstancesResult doExecute(String colo) throws FalconException {
                 return getInstanceManager(colo).
                         invoke("getRunningInstances", type, entity, colo, lifeCycles,
-                                filterBy, orderBy, sortOrder, offset, resultsPerPage);
+                                filterBy, orderBy, sortOrder, 0, getColoResults(), cursor);
             }
         }.execute(colo, type, entity);
     }
@@ -117,13 +122,14 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             @DefaultValue("") @QueryParam("orderBy") final String orderBy,
             @DefaultValue("") @QueryParam("sortOrder") final String sortOrder,
             @DefaultValue("0") @QueryParam("offset") final Integer offset,
-            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") final Integer resultsPerPage) {
-        return new InstanceProxy() {
+            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") final Integer resultsPerPage,
+            @QueryParam("cursor") final String cursor) {
+        return new PagedInstanceProxy(orderBy, sortOrder, offset, resultsPerPage, cursor) {
             @Override
             protected InstancesResult doExecute(String colo) throws FalconException {
                 return getInstanceManager(colo).invoke("getInstances",
                         type, entity, startStr, endStr, colo, lifeCycles,
-                        filterBy, orderBy, sortOrder, offset, resultsPerPage);
+                        filterBy, orderBy, sortOrder, 0, getColoResults(), cursor);
             }
         }.execute(colo, type, entity);
     }
@@ -144,13 +150,14 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             @DefaultValue("") @QueryParam("orderBy") final String orderBy,
             @DefaultValue("") @QueryParam("sortOrder") final String sortOrder,
             @DefaultValue("0") @QueryParam("offset") final Integer offset,
-            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") final Integer resultsPerPage) {
-        return new InstanceProxy() {
+            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") final Integer resultsPerPage,
+            @QueryParam("cursor") final String cursor) {
+        return new PagedInstanceProxy(orderBy, sortOrder, offset, resultsPerPage, cursor) {
             @Override
             protected InstancesResult doExecute(String colo) throws FalconException {
                 return getInstanceManager(colo).invoke("getStatus",
                         type, entity, startStr, endStr, colo, lifeCycles,
-                        filterBy, orderBy, sortOrder, offset, resultsPerPage);
+                        filterBy, orderBy, sortOrder, 0, getColoResults(), cursor);
             }
         }.execute(colo, type, entity);
     }
@@ -167,7 +174,7 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             @Dimension("end-time") @QueryParam("end") final String endStr,
             @Dimension("colo") @QueryParam("colo") final String colo,
             @Dimension("lifecycle") @QueryParam("lifecycle") final List<LifeCycle> lifeCycles) {
-        return new InstanceSummaryProxy() {
+        return new InstanceSummaryProxy(true) {
             @Override
             protected InstancesSummaryResult doExecute(String colo) throws FalconException {
                 return getInstanceManager(colo).invoke("getSummary",
@@ -187,7 +194,7 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             @Dimension("start-time") @QueryParam("start") final String start,
             @Dimension("colo") @QueryParam("colo") String colo,
             @Dimension("lifecycle") @QueryParam("lifecycle") final List<LifeCycle> lifeCycles) {
-        return new InstanceProxy() {
+        return new InstanceProxy(true) {
             @Override
             protected InstancesResult doExecute(String colo) throws FalconException {
                 return getInstanceManager(colo).invoke("getInstanceParams",
@@ -214,13 +221,14 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             @DefaultValue("") @QueryParam("orderBy") final String orderBy,
             @DefaultValue("") @QueryParam("sortOrder") final String sortOrder,
             @DefaultValue("0") @QueryParam("offset") final Integer offset,
-            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") final Integer resultsPerPage) {
-        return new InstanceProxy() {
+            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") final Integer resultsPerPage,
+            @QueryParam("cursor") final String cursor) {
+        return new PagedInstanceProxy(orderBy, sortOrder, offset, resultsPerPage, cursor) {
             @Override
             protected InstancesResult doExecute(String colo) throws FalconException {
                 return getInstanceManager(colo).invoke("getLogs",
                         type, entity, startStr, endStr, colo, runId, lifeCycles,
-                        filterBy, orderBy, sortOrder, offset, resultsPerPage);
+                        filterBy, orderBy, sortOrder, 0, getColoResults(), cursor);
             }
         }.execute(colo, type, entity);
     }
@@ -240,7 +248,7 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             @Dimension("lifecycle") @QueryParam("lifecycle") final List<LifeCycle> lifeCycles) {
 
         final HttpServletRequest bufferedRequest = new BufferedRequest(request);
-        return new InstanceProxy() {
+        return new InstanceProxy(false) {
             @Override
             protected InstancesResult doExecute(String colo) throws FalconException {
                 return getInstanceManager(colo).invoke("killInstance",
@@ -263,7 +271,7 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             @Dimension("colo") @QueryParam("colo") String colo,
             @Dimension("lifecycle") @QueryParam("lifecycle") final List<LifeCycle> lifeCycles) {
         final HttpServletRequest bufferedRequest = new BufferedRequest(request);
-        return new InstanceProxy() {
+        return new InstanceProxy(false) {
             @Override
             protected InstancesResult doExecute(String colo) throws FalconException {
                 return getInstanceManager(colo).invoke("suspendInstance",
@@ -287,7 +295,7 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             @Dimension("lifecycle") @QueryParam("lifecycle") final List<LifeCycle> lifeCycles) {
 
         final HttpServletRequest bufferedRequest = new BufferedRequest(request);
-        return new InstanceProxy() {
+        return new InstanceProxy(false) {
             @Override
             protected InstancesResult doExecute(String colo) throws FalconException {
                 return getInstanceManager(colo).invoke("resumeInstance",
@@ -296,6 +304,58 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
         }.execute(colo, type, entity);
     }
 
+    @GET
+    @Path("operation/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Monitored(event = "operation-status")
+    @Override
+    public OperationResult getOperationStatus(
+            @Dimension("operation") @PathParam("id") final String operationId,
+            @QueryParam("wait") final String waitStr) {
+        // the operation of every colo, as "colo:id" separated by commas
+        final Map<String, String> coloOperationIds = new LinkedHashMap<String, String>();
+        for (String coloOperation : operationId.split(",")) {
+            int separator = coloOperation.indexOf(':');
+            if (separator < 0) {
+                throw FalconWebException.newException("Invalid operation " + coloOperation,
+                        Response.Status.BAD_REQUEST);
+            }
+            coloOperationIds.put(coloOperation.substring(0, separator), coloOperation.substring(separator + 1));
+        }
+
+        // the colos are waited on together, a status call can wait for the operation so it is not hedged
+        ColoCallExecutor.Results<OperationResult> coloResults = ColoCallExecutor.get().invoke(
+                coloOperationIds.keySet(), new ColoCallExecutor.ColoCall<OperationResult>() {
+                    @Override
+                    public OperationResult call(String colo) throws FalconException {
+                        return getInstanceManager(colo).invoke("getOperationStatus",
+                                coloOperationIds.get(colo), waitStr);
+                    }
+                }, false);
+        if (!coloResults.getErrors().isEmpty()) {
+            throw FalconWebException.newException(coloResults.getErrors().values().iterator().next(),
+                    Response.Status.BAD_REQUEST);
+        }
+        Collection<OperationResult> results = coloResults.getResults().values();
+        StringBuilder message = new StringBuilder();
+        for (Map.Entry<String, OperationResult> entry : coloResults.getResults().entrySet()) {
+            message.append(entry.getKey()).append('/').append(entry.getValue().getMessage()).append('\n');
+        }
+
+        OperationResult.OperationStatus status = OperationResult.OperationStatus.SUCCEEDED;
+        int pendingJobs = 0;
+        for (OperationResult result : results) {
+            pendingJobs += result.getPendingJobs();
+            if (result.getOperationStatus() == OperationResult.OperationStatus.RUNNING) {
+                status = OperationResult.OperationStatus.RUNNING;
+            } else if (result.getOperationStatus() == OperationResult.OperationStatus.FAILED
+                    && status != OperationResult.OperationStatus.RUNNING) {
+                status = OperationResult.OperationStatus.FAILED;
+            }
+        }
+        return new OperationResult(operationId, status, pendingJobs, message.toString());
+    }
+
     @POST
     @Path("rerun/{type}/{entity}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -311,7 +371,7 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             @Dimension("lifecycle") @QueryParam("lifecycle") final List<LifeCycle> lifeCycles) {
 
         final HttpServletRequest bufferedRequest = new BufferedRequest(request);
-        return new InstanceProxy() {
+        return new InstanceProxy(false) {
             @Override
             protected InstancesResult doExecute(String colo) throws FalconException {
                 return getInstanceManager(colo).invoke("reRunInstance",
@@ -319,25 +379,76 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             }
         }.execute(colo, type, entity);
     }
+
+    @POST
+    @Path("bulk/{action}/{type}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Monitored(event = "bulk-instance-action")
+    @Override
+    public OperationResult bulkInstanceAction(
+            @Context HttpServletRequest request,
+            @Dimension("action") @PathParam("action") final String action,
+            @Dimension("entityType") @PathParam("type") final String type,
+            @Dimension("start-time") @QueryParam("start") final String startStr,
+            @Dimension("end-time") @QueryParam("end") final String endStr,
+            @DefaultValue("") @QueryParam("filterBy") final String filterBy,
+            @DefaultValue("") @QueryParam("tags") final String filterTags,
+            @Dimension("colo") @QueryParam("colo") final String coloExpr,
+            @Dimension("lifecycle") @QueryParam("lifecycle") final List<LifeCycle> lifeCycles) {
+        // the entities are selected in every colo, each colo acts on the ones it has clusters for
+        Set<String> colos = coloExpr == null || coloExpr.isEmpty() || coloExpr.equals("*")
+                ? getAllColos() : new HashSet<String>(Arrays.asList(coloExpr.split(",")));
+        final HttpServletRequest bufferedRequest = new BufferedRequest(request);
+        ColoCallExecutor.Results<OperationResult> coloResults = ColoCallExecutor.get().invoke(colos,
+                new ColoCallExecutor.ColoCall<OperationResult>() {
+                    @Override
+                    public OperationResult call(String colo) throws FalconException {
+                        return getInstanceManager(colo).invoke("bulkInstanceAction", bufferedRequest,
+                                action, type, startStr, endStr, filterBy, filterTags, colo, lifeCycles);
+                    }
+                }, false);
+        List<String> operationIds = new ArrayList<String>();
+        StringBuilder message = new StringBuilder();
+        int pendingJobs = 0;
+        for (Map.Entry<String, OperationResult> entry : coloResults.getResults().entrySet()) {
+            OperationResult result = entry.getValue();
+            message.append(entry.getKey()).append('/').append(result.getMessage()).append('\n');
+            if (result.getOperationId() != null) {
+                operationIds.add(entry.getKey() + ":" + result.getOperationId());
+                pendingJobs += result.getPendingJobs();
+            }
+        }
+        for (Map.Entry<String, FalconException> error : coloResults.getErrors().entrySet()) {
+            message.append(error.getKey()).append('/').append(error.getValue().getMessage()).append('\n');
+        }
+        if (operationIds.isEmpty()) {
+            throw FalconWebException.newException(message.toString(), Response.Status.BAD_REQUEST);
+        }
+        return new OperationResult(StringUtils.join(operationIds, ','), OperationResult.OperationStatus.RUNNING,
+                pendingJobs, message.toString());
+    }
     //RESUME CHECKSTYLE CHECK ParameterNumberCheck
 
-    private abstract class InstanceProxy {
+    private abstract class InstanceProxy implements ColoCallExecutor.ColoCall<InstancesResult> {
+        private final boolean readOnly;
+
+        protected InstanceProxy(boolean readOnly) {
+            this.readOnly = readOnly;
+        }
 
         public InstancesResult execute(String coloExpr, String type, String name) {
             Set<String> colos = getColosFromExpression(coloExpr, type, name);
 
-            Map<String, InstancesResult> results = new HashMap<String, InstancesResult>();
-            for (String colo : colos) {
-                try {
-                    InstancesResult resultHolder = doExecute(colo);
-                    results.put(colo, resultHolder);
-                } catch (FalconException e) {
-                    results.put(colo, new InstancesResult(APIResult.Status.FAILED,
-                            e.getClass().getName() + "::" + e.getMessage(),
-                            new InstancesResult.Instance[0]));
-                }
+            ColoCallExecutor.Results<InstancesResult> coloResults = ColoCallExecutor.get().invoke(colos, this,
+                    readOnly);
+            Map<String, InstancesResult> results = new HashMap<String, InstancesResult>(coloResults.getResults());
+            for (Map.Entry<String, FalconException> error : coloResults.getErrors().entrySet()) {
+                FalconException e = error.getValue();
+                results.put(error.getKey(), new InstancesResult(APIResult.Status.FAILED,
+                        e.getClass().getName() + "::" + e.getMessage(),
+                        new InstancesResult.Instance[0]));
             }
-            InstancesResult finalResult = consolidateInstanceResult(results);
+            InstancesResult finalResult = consolidate(results);
             if (finalResult.getStatus() != APIResult.Status.SUCCEEDED) {
                 throw FalconWebException.newException(finalResult, Response.Status.BAD_REQUEST);
             } else {
@@ -345,24 +456,92 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             }
         }
 
+        protected InstancesResult consolidate(Map<String, InstancesResult> results) {
+            return consolidateInstanceResult(results);
+        }
+
+        @Override
+        public InstancesResult call(String colo) throws FalconException {
+            return doExecute(colo);
+        }
+
         protected abstract InstancesResult doExecute(String colo) throws FalconException;
     }
 
-    private abstract class InstanceSummaryProxy {
+    /**
+     * Pages through the instances of all the colos. Every colo returns its first instances in order, up to the
+     * end of the page or after the cursor, and these are merged into the page of all the colos. As the order
+     * ends with the cluster of an instance, a cursor taken from the merged page is valid at every colo.
+     */
+    private abstract class PagedInstanceProxy extends InstanceProxy {
+        private final String orderBy;
+        private final String sortOrder;
+        private final int skip;
+        private final int numResults;
+
+        protected PagedInstanceProxy(String orderBy, String sortOrder, Integer offset, Integer numResults,
+                                     String cursor) {
+            super(true);
+            this.orderBy = orderBy;
+            this.sortOrder = sortOrder;
+            this.skip = StringUtils.isEmpty(cursor) ? Math.max(offset, 0) : 0;
+            this.numResults = numResults;
+        }
+
+        /**
+         * @return number of instances to ask every colo for, the page starts at the offset of the merged instances
+         */
+        protected Integer getColoResults() {
+            return skip + numResults;
+        }
+
+        @Override
+        protected InstancesResult consolidate(Map<String, InstancesResult> results) {
+            InstancesResult result = consolidateInstanceResult(results);
+            if (result.getStatus() != APIResult.Status.SUCCEEDED) {
+                return result;
+            }
+
+            List<Instance[]> pages = new ArrayList<Instance[]>();
+            boolean more = false;
+            for (InstancesResult coloResult : results.values()) {
+                pages.add(coloResult.getInstances());
+                more |= coloResult.getNextCursor() != null;
+            }
+            String order = getValidSortOrder(sortOrder, orderBy);
+            List<Instance> merged = InstancePage.merge(pages, InstancePage.comparator(orderBy, order),
+                    skip + numResults + 1);
+            more |= merged.size() > skip + numResults;
+            List<Instance> page = merged.subList(Math.min(skip, merged.size()),
+                    Math.min(skip + numResults, merged.size()));
+
+            result.setInstances(page.toArray(new Instance[page.size()]));
+            if (more && !page.isEmpty()) {
+                result.setNextCursor(InstancePage.getCursor(page.get(page.size() - 1), orderBy, order));
+            }
+            return result;
+        }
+    }
+
+    private abstract class InstanceSummaryProxy implements ColoCallExecutor.ColoCall<InstancesSummaryResult> {
+        private final boolean readOnly;
+
+        protected InstanceSummaryProxy(boolean readOnly) {
+            this.readOnly = readOnly;
+        }
 
         public InstancesSummaryResult execute(String coloExpr, String type, String name) {
             Set<String> colos = getColosFromExpression(coloExpr, type, name);
 
-            Map<String, InstancesSummaryResult> results = new HashMap<String, InstancesSummaryResult>();
-            for (String colo : colos) {
-                try {
-                    InstancesSummaryResult resultHolder = doExecute(colo);
-                    results.put(colo, resultHolder);
-                } catch (FalconException e) {
-                    results.put(colo, new InstancesSummaryResult(APIResult.Status.FAILED,
-                            e.getClass().getName() + "::" + e.getMessage(),
-                            new InstancesSummaryResult.InstanceSummary[0]));
-                }
+            ColoCallExecutor.Results<InstancesSummaryResult> coloResults = ColoCallExecutor.get().invoke(colos,
+                    this, readOnly);
+            Map<String, InstancesSummaryResult> results =
+                    new HashMap<String, InstancesSummaryResult>(coloResults.getResults());
+            for (Map.Entry<String, FalconException> error : coloResults.getErrors().entrySet()) {
+                FalconException e = error.getValue();
+                results.put(error.getKey(), new InstancesSummaryResult(APIResult.Status.FAILED,
+                        e.getClass().getName() + "::" + e.getMessage(),
+                        new InstancesSummaryResult.InstanceSummary[0]));
             }
             InstancesSummaryResult finalResult = consolidateInstanceSummaryResult(results);
             if (finalResult.getStatus() != APIResult.Status.SUCCEEDED) {
@@ -372,6 +551,11 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             }
         }
 
+        @Override
+        public InstancesSummaryResult call(String colo) throws FalconException {
+            return doExecute(colo);
+        }
+
         protected abstract InstancesSummaryResult doExecute(String colo) throws FalconException;
     }
 
@@ -382,6 +566,7 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
 
         StringBuilder message = new StringBuilder();
         StringBuilder requestIds = new StringBuilder();
+        List<String> operationIds = new ArrayList<String>();
         List<Instance> instances = new ArrayList<Instance>();
         int statusCount = 0;
         for (Map.Entry<String, InstancesResult> entry : results.entrySet()) {
@@ -389,6 +574,9 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
             InstancesResult result = results.get(colo);
             message.append(colo).append('/').append(result.getMessage()).append('\n');
             requestIds.append(colo).append('/').append(result.getRequestId()).append('\n');
+            if (result.getOperationId() != null) {
+                operationIds.add(colo + ":" + result.getOperationId());
+            }
             statusCount += result.getStatus().ordinal();
 
             if (result.getInstances() == null) {
@@ -405,6 +593,9 @@ public class InstanceManagerProxy extends AbstractInstanceManager {
                 : ((statusCount == results.size() * 2) ? APIResult.Status.FAILED : APIResult.Status.PARTIAL);
         InstancesResult result = new InstancesResult(status, message.toString(), instances.toArray(arrInstances));
         result.setRequestId(requestIds.toString());
+        if (!operationIds.isEmpty()) {
+            result.setOperationId(StringUtils.join(operationIds, ','));
+        }
         return result;
     }
 
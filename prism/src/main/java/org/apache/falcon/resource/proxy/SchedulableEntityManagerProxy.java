@@ -29,6 +29,7 @@ import org.apache.falcon.monitors.Dimension;
 import org.apache.falcon.monitors.Monitored;
 import org.apache.falcon.resource.APIResult;
 import org.apache.falcon.resource.AbstractSchedulableEntityManager;
+import org.apache.falcon.resource.EntitiesResult;
 import org.apache.falcon.resource.EntityList;
 import org.apache.falcon.resource.EntitySummaryResult;
 import org.apache.falcon.resource.channel.Channel;
@@ -40,11 +41,14 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A proxy implementation of the schedulable entity operations.
@@ -54,8 +58,8 @@ public class SchedulableEntityManagerProxy extends AbstractSchedulableEntityMana
     private static final String PRISM_TAG = "prism";
     public static final String FALCON_TAG = "falcon";
 
-    private final Map<String, Channel> entityManagerChannels = new HashMap<String, Channel>();
-    private final Map<String, Channel> configSyncChannels = new HashMap<String, Channel>();
+    private final Map<String, Channel> entityManagerChannels = new ConcurrentHashMap<String, Channel>();
+    private final Map<String, Channel> configSyncChannels = new ConcurrentHashMap<String, Channel>();
     private boolean embeddedMode = DeploymentUtil.isEmbeddedMode();
     private String currentColo = DeploymentUtil.getCurrentColo();
 
@@ -269,7 +273,7 @@ public class SchedulableEntityManagerProxy extends AbstractSchedulableEntityMana
     public APIResult getStatus(@Dimension("entityType") @PathParam("type") final String type,
                                @Dimension("entityName") @PathParam("entity") final String entity,
                                @Dimension("colo") @QueryParam("colo") final String coloExpr) {
-        return new EntityProxy(type, entity) {
+        return new EntityProxy(type, entity, true) {
             @Override
             protected Set<String> getColosToApply() {
                 return getColosFromExpression(coloExpr, type, entity);
@@ -341,6 +345,130 @@ public class SchedulableEntityManagerProxy extends AbstractSchedulableEntityMana
         return consolidateResult(results);
     }
 
+    @POST
+    @Path("bulk/submit")
+    @Consumes({MediaType.TEXT_XML, MediaType.TEXT_PLAIN})
+    @Produces({MediaType.TEXT_XML, MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON})
+    @Monitored(event = "submitBulk")
+    @Override
+    public EntitiesResult submitBulk(@Context HttpServletRequest request,
+                                     @Dimension("colo") @QueryParam("colo") String ignore) {
+        return bulkProxy(request, "submitBulk");
+    }
+
+    @POST
+    @Path("bulk/submitAndSchedule")
+    @Consumes({MediaType.TEXT_XML, MediaType.TEXT_PLAIN})
+    @Produces({MediaType.TEXT_XML, MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON})
+    @Monitored(event = "submitAndScheduleBulk")
+    @Override
+    public EntitiesResult submitAndScheduleBulk(@Context HttpServletRequest request,
+                                                @Dimension("colo") @QueryParam("colo") String ignore) {
+        return bulkProxy(request, "submitAndScheduleBulk");
+    }
+
+    // every colo gets the whole request and picks the entities that apply to it
+    private EntitiesResult bulkProxy(HttpServletRequest request, final String method) {
+        final BufferedRequest bufferedRequest = new BufferedRequest(request);
+        List<Entity> entities = getBulkEntities(bufferedRequest);
+
+        ColoCallExecutor.Results<EntitiesResult> coloResults = ColoCallExecutor.get().invoke(
+                getApplicableColos(entities), new ColoCallExecutor.ColoCall<EntitiesResult>() {
+                    @Override
+                    public EntitiesResult call(String colo) throws FalconException {
+                        return getEntityManager(colo).invoke(method, bufferedRequest, colo);
+                    }
+                }, false);
+        Map<String, EntitiesResult> results = new HashMap<String, EntitiesResult>(coloResults.getResults());
+        for (Entry<String, FalconException> error : coloResults.getErrors().entrySet()) {
+            FalconException e = error.getValue();
+            List<EntitiesResult.EntityResult> failed = new ArrayList<EntitiesResult.EntityResult>();
+            for (Entity entity : entities) {
+                failed.add(new EntitiesResult.EntityResult(entity.getEntityType().name().toLowerCase(),
+                        entity.getName(), APIResult.Status.FAILED, e.getClass().getName() + "::" + e.getMessage()));
+            }
+            results.put(error.getKey(), new EntitiesResult(e.getMessage(),
+                    failed.toArray(new EntitiesResult.EntityResult[failed.size()])));
+        }
+
+        if (!embeddedMode) {
+            results.put(PRISM_TAG, super.submitBulk(bufferedRequest, currentColo));
+        }
+        return consolidateEntitiesResult(entities, results);
+    }
+
+    private List<Entity> getBulkEntities(HttpServletRequest request) {
+        try {
+            request.getInputStream().reset();
+            List<Entity> entities = deserializeEntities(request);
+            request.getInputStream().reset();
+            return entities;
+        } catch (Exception e) {
+            throw FalconWebException.newException(e, Response.Status.BAD_REQUEST);
+        }
+    }
+
+    private Set<String> getApplicableColos(List<Entity> entities) {
+        Set<String> colos = new HashSet<String>();
+        for (Entity entity : entities) {
+            if (entity.getEntityType() == EntityType.CLUSTER) {
+                return getAllColos();
+            }
+        }
+        for (Entity entity : entities) {
+            try {
+                colos.addAll(getApplicableColos(entity.getEntityType().name(), entity));
+            } catch (FalconWebException ignore) {
+                // refers to an unknown cluster, reported by the prism
+            }
+        }
+        return colos;
+    }
+
+    private EntitiesResult consolidateEntitiesResult(List<Entity> entities, Map<String, EntitiesResult> results) {
+        Map<String, Map<String, EntitiesResult.EntityResult>> resultsByEntity =
+                new HashMap<String, Map<String, EntitiesResult.EntityResult>>();
+        StringBuilder requestIds = new StringBuilder();
+        for (Entry<String, EntitiesResult> entry : results.entrySet()) {
+            requestIds.append(entry.getKey()).append('/').append(entry.getValue().getRequestId()).append('\n');
+            if (entry.getValue().getEntityResults() == null) {
+                continue;
+            }
+            for (EntitiesResult.EntityResult entityResult : entry.getValue().getEntityResults()) {
+                String key = entityResult.getType() + "/" + entityResult.getName();
+                Map<String, EntitiesResult.EntityResult> byColo = resultsByEntity.get(key);
+                if (byColo == null) {
+                    byColo = new HashMap<String, EntitiesResult.EntityResult>();
+                    resultsByEntity.put(key, byColo);
+                }
+                byColo.put(entry.getKey(), entityResult);
+            }
+        }
+
+        List<EntitiesResult.EntityResult> consolidated = new ArrayList<EntitiesResult.EntityResult>();
+        for (Entity entity : entities) {
+            String type = entity.getEntityType().name().toLowerCase();
+            Map<String, EntitiesResult.EntityResult> byColo = resultsByEntity.remove(type + "/" + entity.getName());
+            if (byColo == null) {
+                continue;
+            }
+            StringBuilder message = new StringBuilder();
+            int statusCount = 0;
+            for (Entry<String, EntitiesResult.EntityResult> entry : byColo.entrySet()) {
+                message.append(entry.getKey()).append('/').append(entry.getValue().getMessage()).append('\n');
+                statusCount += entry.getValue().getStatus().ordinal();
+            }
+            APIResult.Status status = (statusCount == 0) ? APIResult.Status.SUCCEEDED
+                    : ((statusCount == byColo.size() * 2) ? APIResult.Status.FAILED : APIResult.Status.PARTIAL);
+            consolidated.add(new EntitiesResult.EntityResult(type, entity.getName(), status, message.toString()));
+        }
+
+        EntitiesResult result = new EntitiesResult(consolidated.size() + " entities processed",
+                consolidated.toArray(new EntitiesResult.EntityResult[consolidated.size()]));
+        result.setRequestId(requestIds.toString());
+        return result;
+    }
+
     @POST
     @Path("suspend/{type}/{entity}")
     @Produces({MediaType.TEXT_XML, MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON})
@@ -402,8 +530,10 @@ public class SchedulableEntityManagerProxy extends AbstractSchedulableEntityMana
                                     @DefaultValue("asc") @QueryParam("sortOrder") String sortOrder,
                                     @DefaultValue("0") @QueryParam("offset") Integer offset,
                                     @DefaultValue(DEFAULT_NUM_RESULTS)
-                                    @QueryParam("numResults") Integer resultsPerPage) {
-        return super.getEntityList(type, fields, filterBy, tags, orderBy, sortOrder, offset, resultsPerPage);
+                                    @QueryParam("numResults") Integer resultsPerPage,
+                                    @QueryParam("cursor") String cursor) {
+        return super.getEntityList(type, fields, filterBy, tags, orderBy, sortOrder, offset, resultsPerPage,
+                cursor);
     }
 
     @GET
@@ -429,27 +559,30 @@ public class SchedulableEntityManagerProxy extends AbstractSchedulableEntityMana
     }
     //RESUME CHECKSTYLE CHECK ParameterNumberCheck
 
-    private abstract class EntityProxy {
+    private abstract class EntityProxy implements ColoCallExecutor.ColoCall<APIResult> {
         private String type;
         private String name;
+        private boolean readOnly;
 
         public EntityProxy(String type, String name) {
+            this(type, name, false);
+        }
+
+        public EntityProxy(String type, String name, boolean readOnly) {
             this.type = type;
             this.name = name;
+            this.readOnly = readOnly;
         }
 
         public APIResult execute() {
             Set<String> colos = getColosToApply();
 
-            Map<String, APIResult> results = new HashMap<String, APIResult>();
-
-            for (String colo : colos) {
-                try {
-                    results.put(colo, doExecute(colo));
-                } catch (FalconException e) {
-                    results.put(colo,
-                            new APIResult(APIResult.Status.FAILED, e.getClass().getName() + "::" + e.getMessage()));
-                }
+            ColoCallExecutor.Results<APIResult> coloResults = ColoCallExecutor.get().invoke(colos, this, readOnly);
+            Map<String, APIResult> results = new HashMap<String, APIResult>(coloResults.getResults());
+            for (Entry<String, FalconException> error : coloResults.getErrors().entrySet()) {
+                FalconException e = error.getValue();
+                results.put(error.getKey(),
+                        new APIResult(APIResult.Status.FAILED, e.getClass().getName() + "::" + e.getMessage()));
             }
             APIResult finalResult = consolidateResult(results);
             if (finalResult.getStatus() != APIResult.Status.SUCCEEDED) {
@@ -459,6 +592,11 @@ public class SchedulableEntityManagerProxy extends AbstractSchedulableEntityMana
             }
         }
 
+        @Override
+        public APIResult call(String colo) throws FalconException {
+            return doExecute(colo);
+        }
+
         protected Set<String> getColosToApply() {
             return getApplicableColos(type, name);
         }
@@ -19,6 +19,7 @@
 package org.apache.falcon.security;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.falcon.resource.proxy.BufferedRequest;
 import org.apache.falcon.util.StartupProperties;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.authentication.server.KerberosAuthenticationHandler;
@@ -184,6 +185,9 @@ public class FalconAuthenticationFilter
 
                             filterChain.doFilter(servletRequest, servletResponse);
                         } finally {
+                            // bodies spooled by the prism to replay them to the colos are no longer needed
+                            BufferedRequest.releaseStreams();
+                            BufferedRequest.releaseSpooled();
                             NDC.pop();
                             NDC.pop();
                         }
@@ -87,6 +87,11 @@ public class FalconAuthorizationFilter implements Filter {
         if (resource.equals("graphs")) {
             splits.add(pathSplits[1]);  // resource
             splits.add(pathSplits[2]);  // action
+        } else if (resource.equals("instance") && pathSplits.length > 3 && pathSplits[1].equals("bulk")) {
+            // bulk actions have no entity name, every entity selected is authorized in the API
+            splits.add(pathSplits[0]);  // resource
+            splits.add(pathSplits[2]);  // action
+            splits.add(pathSplits[3]);  // entity type
         } else {
             splits.add(pathSplits[0]);  // resource
             splits.add(pathSplits[1]);  // action
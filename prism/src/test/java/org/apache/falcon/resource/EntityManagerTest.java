@@ -17,6 +17,7 @@
  */
 package org.apache.falcon.resource;
 
+import org.apache.falcon.FalconException;
 import org.apache.falcon.FalconWebException;
 import org.apache.falcon.entity.v0.Entity;
 import org.apache.falcon.entity.v0.EntityType;
@@ -35,9 +36,11 @@ import org.testng.annotations.Test;
 
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
+import java.util.List;
 
 import static org.mockito.Mockito.when;
 
@@ -109,6 +112,29 @@ public class EntityManagerTest extends AbstractEntityManager {
         }
     }
 
+    @Test
+    public void testDeserializeEntities() throws Exception {
+        String entities = "<?xml version=\"1.0\"?>\n<entities>\n" + getClusterXml("cluster1")
+                + "\n<!-- second cluster -->\n" + getClusterXml("cluster2") + "</entities>";
+        when(mockHttpServletRequest.getInputStream()).thenReturn(getServletInputStream(
+                new ByteArrayInputStream(entities.getBytes("UTF-8"))));
+
+        List<Entity> deserialized = deserializeEntities(mockHttpServletRequest);
+        Assert.assertEquals(deserialized.size(), 2);
+        Assert.assertEquals(deserialized.get(0).getEntityType(), EntityType.CLUSTER);
+        Assert.assertEquals(deserialized.get(0).getName(), "cluster1");
+        Assert.assertEquals(deserialized.get(1).getName(), "cluster2");
+    }
+
+    @Test(expectedExceptions = FalconException.class)
+    public void testDeserializeUnknownEntity() throws Exception {
+        String entities = "<entities><dataset name=\"sample\"/></entities>";
+        when(mockHttpServletRequest.getInputStream()).thenReturn(getServletInputStream(
+                new ByteArrayInputStream(entities.getBytes("UTF-8"))));
+
+        deserializeEntities(mockHttpServletRequest);
+    }
+
     @Test
     public void testGetEntityList() throws Exception {
 
@@ -118,7 +144,7 @@ public class EntityManagerTest extends AbstractEntityManager {
         Entity process2 = buildProcess("processAuthUser", System.getProperty("user.name"), "", "");
         configStore.publish(EntityType.PROCESS, process2);
 
-        EntityList entityList = this.getEntityList("process", "", "", "", "", "asc", 0, 10);
+        EntityList entityList = this.getEntityList("process", "", "", "", "", "asc", 0, 10, null);
         Assert.assertNotNull(entityList.getElements());
         Assert.assertEquals(entityList.getElements().length, 2);
 
@@ -127,7 +153,7 @@ public class EntityManagerTest extends AbstractEntityManager {
          */
         StartupProperties.get().setProperty("falcon.security.authorization.enabled", "true");
         CurrentUser.authenticate(System.getProperty("user.name"));
-        entityList = this.getEntityList("process", "", "", "", "", "desc", 0, 10);
+        entityList = this.getEntityList("process", "", "", "", "", "desc", 0, 10, null);
         Assert.assertNotNull(entityList.getElements());
         Assert.assertEquals(entityList.getElements().length, 2);
 
@@ -135,7 +161,7 @@ public class EntityManagerTest extends AbstractEntityManager {
          * Only one entity should be returned when the auth is enabled.
          */
         CurrentUser.authenticate("fakeUser");
-        entityList = this.getEntityList("process", "", "", "", "", "", 0, 10);
+        entityList = this.getEntityList("process", "", "", "", "", "", 0, 10, null);
         Assert.assertNotNull(entityList.getElements());
         Assert.assertEquals(entityList.getElements().length, 1);
 
@@ -165,7 +191,7 @@ public class EntityManagerTest extends AbstractEntityManager {
         configStore.publish(EntityType.PROCESS, process4);
 
         EntityList entityList = this.getEntityList("process", "tags", "PIPELINES:dataReplicationPipeline",
-                "", "name", "desc", 1, 2);
+                "", "name", "desc", 1, 2, null);
         Assert.assertNotNull(entityList.getElements());
         Assert.assertEquals(entityList.getElements().length, 2);
         Assert.assertEquals(entityList.getElements()[1].name, "process1");
@@ -173,9 +199,19 @@ public class EntityManagerTest extends AbstractEntityManager {
         Assert.assertEquals(entityList.getElements()[1].tag.get(0), "consumer=consumer@xyz.com");
         Assert.assertEquals(entityList.getElements()[0].status, null);
 
+        // a cursor continues after the last entity of the previous page
+        entityList = this.getEntityList("process", "", "PIPELINES:dataReplicationPipeline", "", "name", "desc", 0, 2,
+                null);
+        Assert.assertEquals(entityList.getElements()[1].name, "process2");
+        Assert.assertNotNull(entityList.getNextCursor());
+        entityList = this.getEntityList("process", "", "PIPELINES:dataReplicationPipeline", "", "name", "desc", 0, 2,
+                entityList.getNextCursor());
+        Assert.assertEquals(entityList.getElements().length, 1);
+        Assert.assertEquals(entityList.getElements()[0].name, "process1");
+        Assert.assertNull(entityList.getNextCursor());
 
         entityList = this.getEntityList("process", "pipelines", "",
-                "consumer=consumer@xyz.com, owner=producer@xyz.com", "name", "", 0, 2);
+                "consumer=consumer@xyz.com, owner=producer@xyz.com", "name", "", 0, 2, null);
         Assert.assertNotNull(entityList.getElements());
         Assert.assertEquals(entityList.getElements().length, 2);
         Assert.assertEquals(entityList.getElements()[1].name, "process2");
@@ -184,13 +220,13 @@ public class EntityManagerTest extends AbstractEntityManager {
         Assert.assertEquals(entityList.getElements()[0].tag, null);
 
         entityList = this.getEntityList("process", "pipelines", "",
-                "consumer=consumer@xyz.com, owner=producer@xyz.com", "name", "", 10, 2);
+                "consumer=consumer@xyz.com, owner=producer@xyz.com", "name", "", 10, 2, null);
         Assert.assertEquals(entityList.getElements().length, 0);
 
         // Test negative value for numResults, should throw an exception.
         try {
             this.getEntityList("process", "pipelines", "",
-                    "consumer=consumer@xyz.com, owner=producer@xyz.com", "name", "", 10, -1);
+                    "consumer=consumer@xyz.com, owner=producer@xyz.com", "name", "", 10, -1, null);
             Assert.assertTrue(false);
         } catch (Throwable e) {
             Assert.assertTrue(true);
@@ -199,13 +235,29 @@ public class EntityManagerTest extends AbstractEntityManager {
         // Test invalid entry for sortOrder
         try {
             this.getEntityList("process", "pipelines", "",
-                    "consumer=consumer@xyz.com, owner=producer@xyz.com", "name", "invalid", 10, 2);
+                    "consumer=consumer@xyz.com, owner=producer@xyz.com", "name", "invalid", 10, 2, null);
             Assert.assertTrue(false);
         } catch (Throwable e) {
             Assert.assertTrue(true);
         }
     }
 
+    private String getClusterXml(String name) {
+        return "<cluster colo=\"default\" name=\"" + name + "\" xmlns=\"uri:falcon:cluster:0.1\">"
+                + "<interfaces>"
+                + "<interface type=\"readonly\" endpoint=\"hftp://localhost:50010\" version=\"0.20.2\"/>"
+                + "<interface type=\"write\" endpoint=\"hdfs://localhost:8020\" version=\"0.20.2\"/>"
+                + "<interface type=\"execute\" endpoint=\"localhost:8021\" version=\"0.20.2\"/>"
+                + "<interface type=\"workflow\" endpoint=\"http://localhost:11000/oozie/\" version=\"3.1\"/>"
+                + "<interface type=\"messaging\" endpoint=\"tcp://localhost:61616\" version=\"5.1.6\"/>"
+                + "</interfaces>"
+                + "<locations>"
+                + "<location name=\"staging\" path=\"/projects/falcon/staging\"/>"
+                + "<location name=\"working\" path=\"/projects/falcon/working\"/>"
+                + "</locations>"
+                + "</cluster>";
+    }
+
     private Entity buildProcess(String name, String username, String tags, String pipelines) {
         ACL acl = new ACL();
         acl.setOwner(username);
@@ -243,7 +295,10 @@ public class EntityManagerTest extends AbstractEntityManager {
      * @return ServletInputStream
      */
     private ServletInputStream getServletInputStream(String resourceName) {
-        final InputStream stream = this.getClass().getResourceAsStream(resourceName);
+        return getServletInputStream(this.getClass().getResourceAsStream(resourceName));
+    }
+
+    private ServletInputStream getServletInputStream(final InputStream stream) {
         return new ServletInputStream() {
 
             @Override
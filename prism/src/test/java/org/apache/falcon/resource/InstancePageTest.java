@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.resource.InstancesResult.Instance;
+import org.apache.falcon.resource.InstancesResult.WorkflowStatus;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Tests for paging through instances.
+ */
+public class InstancePageTest {
+
+    @Test
+    public void testPagesFollowTheCursor() throws Exception {
+        List<Instance> instances = new ArrayList<Instance>();
+        for (int hour = 10; hour < 20; hour++) {
+            instances.add(instance("c2", hour, hour % 2 == 0 ? WorkflowStatus.SUCCEEDED : WorkflowStatus.KILLED));
+            instances.add(instance("c1", hour, WorkflowStatus.SUCCEEDED));
+        }
+        Collections.shuffle(instances);
+
+        // statuses tie, pages still neither repeat nor miss any instance
+        Comparator<Instance> order = InstancePage.comparator("status", "desc");
+        List<String> seen = new ArrayList<String>();
+        Instance after = null;
+        List<Instance> page;
+        do {
+            page = InstancePage.select(instances, order, after, 3);
+            for (Instance instance : page) {
+                seen.add(instance.cluster + "/" + instance.instance);
+            }
+            if (!page.isEmpty()) {
+                String cursor = InstancePage.getCursor(page.get(page.size() - 1), "status", "desc");
+                after = InstancePage.getAfter(cursor, "status", "desc");
+            }
+        } while (!page.isEmpty());
+
+        Assert.assertEquals(seen.size(), 20);
+        Assert.assertEquals(seen.get(0), "c1/2014-01-01T19:00Z");
+        Assert.assertEquals(seen.get(14), "c2/2014-01-01T10:00Z");
+        Assert.assertEquals(seen.get(15), "c2/2014-01-01T19:00Z");
+    }
+
+    @Test
+    public void testLatestInstancesComeFirstByDefault() throws Exception {
+        List<Instance> instances = new ArrayList<Instance>();
+        for (int hour = 10; hour < 13; hour++) {
+            instances.add(instance("c2", hour, WorkflowStatus.RUNNING));
+            instances.add(instance("c1", hour, WorkflowStatus.SUCCEEDED));
+        }
+        Collections.shuffle(instances);
+
+        Comparator<Instance> order = InstancePage.comparator("", "asc");
+        List<String> seen = new ArrayList<String>();
+        for (Instance instance : InstancePage.select(instances, order, null, 4)) {
+            seen.add(instance.cluster + "/" + instance.instance);
+        }
+        Assert.assertEquals(seen, Arrays.asList("c1/2014-01-01T12:00Z", "c2/2014-01-01T12:00Z",
+                "c1/2014-01-01T11:00Z", "c2/2014-01-01T11:00Z"));
+
+        String cursor = InstancePage.getCursor(instances.get(0), "", "asc");
+        Instance after = InstancePage.getAfter(cursor, "", "asc");
+        Assert.assertEquals(order.compare(after, instances.get(0)), 0);
+    }
+
+    @Test
+    public void testPagesOfColosAreMerged() throws Exception {
+        Comparator<Instance> order = InstancePage.comparator("startTime", "desc");
+        Instance[] colo1 = {instance("c1", 15, null), instance("c1", 12, null), instance("c1", 11, null)};
+        Instance[] colo2 = {instance("c2", 14, null), instance("c2", 13, null), instance("c2", 10, null)};
+
+        List<Instance> merged = InstancePage.merge(Arrays.asList(colo1, colo2, new Instance[0]), order, 4);
+        Assert.assertEquals(merged, Arrays.asList(colo1[0], colo2[0], colo2[1], colo1[1]));
+        Assert.assertEquals(InstancePage.merge(Arrays.asList(colo1, colo2), order, 10).size(), 6);
+    }
+
+    @Test(expectedExceptions = FalconException.class)
+    public void testCursorOfAnotherOrder() throws Exception {
+        String cursor = InstancePage.getCursor(instance("c1", 10, null), "startTime", "desc");
+        InstancePage.getAfter(cursor, "startTime", "asc");
+    }
+
+    private static Instance instance(String cluster, int hour, WorkflowStatus status) {
+        Instance instance = new Instance(cluster, "2014-01-01T" + hour + ":00Z", status);
+        instance.startTime = new Date(hour * 3600000L);
+        return instance;
+    }
+}
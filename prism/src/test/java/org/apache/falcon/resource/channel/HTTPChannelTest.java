@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource.channel;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.config.ClientConfig;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the clients of the http channels.
+ */
+public class HTTPChannelTest {
+
+    @Test
+    public void testClientIsSharedPerColo() throws Exception {
+        HTTPChannel entities = new HTTPChannel();
+        entities.init("shared-ua1", "SchedulableEntityManager");
+        HTTPChannel instances = new HTTPChannel();
+        instances.init("shared-ua1", "ProcessInstanceManager");
+        HTTPChannel otherColo = new HTTPChannel();
+        otherColo.init("shared-ua2", "SchedulableEntityManager");
+
+        Client client = entities.getClient();
+        Assert.assertSame(entities.getClient(), client);
+        Assert.assertSame(instances.getClient(), client);
+        Assert.assertNotSame(otherColo.getClient(), client);
+    }
+
+    @Test
+    public void testClientHasTimeouts() throws Exception {
+        ClientConfig config = new HTTPChannel().getClientConfig();
+        Assert.assertEquals(config.getProperties().get(ClientConfig.PROPERTY_CONNECT_TIMEOUT), 10000);
+        Assert.assertEquals(config.getProperties().get(ClientConfig.PROPERTY_READ_TIMEOUT), 300000);
+    }
+}
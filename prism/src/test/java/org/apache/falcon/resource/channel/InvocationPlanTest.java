@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource.channel;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.resource.proxy.BufferedRequest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for the plans of calls made over http.
+ */
+public class InvocationPlanTest {
+
+    /**
+     * A service to plan calls of.
+     */
+    public static class Service {
+        @GET
+        @Path("status/{type}/{entity}")
+        public String getStatus(@PathParam("type") String type, @PathParam("entity") String entity,
+                                @QueryParam("start") String start, @QueryParam("lifecycle") List<String> lifeCycles,
+                                @QueryParam("offset") Integer offset) {
+            return null;
+        }
+
+        @POST
+        @Path("submit/{type}/{id: .+}")
+        @Consumes(MediaType.TEXT_XML)
+        public String submit(@Context HttpServletRequest request, @PathParam("type") String type,
+                             @QueryParam("colo") String colo) {
+            return null;
+        }
+
+        public String notExposed() {
+            return null;
+        }
+    }
+
+    @Test
+    public void testPathIsFilled() throws Exception {
+        InvocationPlan plan = new InvocationPlan(Service.class.getMethod("getStatus", String.class, String.class,
+                String.class, List.class, Integer.class));
+        Assert.assertEquals(plan.getHttpMethod(), "GET");
+        Assert.assertEquals(plan.getMimeType(), MediaType.TEXT_PLAIN);
+        Assert.assertFalse(plan.hasBody());
+        Assert.assertNull(plan.getRequest(new Object[]{"process", "clicks", null, null, null}));
+        Object[] args = {"process", "clicks", "2014-01-01T00:00Z", Arrays.asList("EXECUTION"), 10};
+        Assert.assertEquals(plan.getPath(args), "status/process/clicks?start=2014-01-01T00:00Z&offset=10&");
+        Assert.assertEquals(plan.getPath(new Object[]{"process", null, null, null, null}),
+                "status/process/{entity}?");
+    }
+
+    @Test
+    public void testBodyIsSent() throws Exception {
+        InvocationPlan plan = new InvocationPlan(Service.class.getMethod("submit", HttpServletRequest.class,
+                String.class, String.class));
+        Assert.assertEquals(plan.getHttpMethod(), "POST");
+        Assert.assertEquals(plan.getMimeType(), MediaType.TEXT_XML);
+        Assert.assertTrue(plan.hasBody());
+
+        HttpServletRequest request = new BufferedRequest(new NullServletRequest());
+        Assert.assertSame(plan.getRequest(new Object[]{request, "feed", "ua1"}), request);
+        Assert.assertEquals(plan.getPath(new Object[]{request, "feed", "ua1"}), "submit/feed/{id: .+}?colo=ua1&");
+    }
+
+    @Test(expectedExceptions = FalconException.class)
+    public void testMethodWithoutPath() throws Exception {
+        new InvocationPlan(Service.class.getMethod("notExposed"));
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource.proxy;
+
+import org.apache.commons.io.IOUtils;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Tests for replaying request bodies.
+ */
+public class BufferedRequestTest {
+
+    @Test
+    public void testSmallBodyIsKeptInMemory() throws Exception {
+        BufferedRequest request = new BufferedRequest(request("<process name=\"clicks\"/>"), 1024);
+        Assert.assertNull(request.getSpool());
+        Assert.assertEquals(read(request), "<process name=\"clicks\"/>");
+        Assert.assertEquals(read(request), "<process name=\"clicks\"/>");
+    }
+
+    @Test
+    public void testLargeBodyIsSpooled() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int index = 0; index < 5000; index++) {
+            body.append("<property name=\"p").append(index).append("\"/>");
+        }
+
+        BufferedRequest request = new BufferedRequest(request(body.toString()), 1024);
+        Assert.assertTrue(request.getSpool().exists());
+        Assert.assertEquals(read(request), body.toString());
+
+        // every thread reads the body from the start
+        final String[] read = new String[1];
+        final BufferedRequest shared = request;
+        Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    read[0] = read(shared);
+                } catch (IOException e) {
+                    read[0] = e.getMessage();
+                }
+            }
+        });
+        other.start();
+        other.join();
+        Assert.assertEquals(read[0], body.toString());
+
+        BufferedRequest.releaseSpooled();
+        Assert.assertFalse(request.getSpool().exists());
+    }
+
+    @Test
+    public void testReleasedStreamsStartOver() throws Exception {
+        BufferedRequest request = new BufferedRequest(request("<feed name=\"raw\"/>"), 1024);
+        ServletInputStream in = request.getInputStream();
+        Assert.assertEquals(in.read(), '<');
+        Assert.assertSame(request.getInputStream(), in);
+
+        // as done after every colo call, the thread no longer holds the stream
+        BufferedRequest.releaseStreams();
+        Assert.assertNotSame(request.getInputStream(), in);
+        Assert.assertEquals(IOUtils.toString(request.getInputStream()), "<feed name=\"raw\"/>");
+        BufferedRequest.releaseStreams();
+    }
+
+    private static String read(BufferedRequest request) throws IOException {
+        request.getInputStream().reset();
+        String body = IOUtils.toString(request.getInputStream());
+        request.getInputStream().reset();
+        return body;
+    }
+
+    private static HttpServletRequest request(String body) throws IOException {
+        final InputStream in = new ByteArrayInputStream(body.getBytes());
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getContentLength()).thenReturn(body.length());
+        Mockito.when(request.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public int read() throws IOException {
+                return in.read();
+            }
+        });
+        return request;
+    }
+}
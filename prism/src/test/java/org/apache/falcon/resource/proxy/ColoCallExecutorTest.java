@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.resource.proxy;
+
+import org.apache.falcon.FalconException;
+import org.apache.falcon.security.CurrentUser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for calling colos in parallel.
+ */
+public class ColoCallExecutorTest {
+
+    @Test
+    public void testColosAreCalledInParallel() throws Exception {
+        CurrentUser.authenticate("falcon");
+        ColoCallExecutor executor = new ColoCallExecutor(10, 10000, 0);
+        long start = System.currentTimeMillis();
+        ColoCallExecutor.Results<String> results = executor.invoke(Arrays.asList("ua1", "ua2", "ua3"),
+                new ColoCallExecutor.ColoCall<String>() {
+                    @Override
+                    public String call(String colo) throws FalconException {
+                        sleep(300);
+                        if (colo.equals("ua2")) {
+                            throw new FalconException("colo is down");
+                        }
+                        return colo + "/" + CurrentUser.getUser();
+                    }
+                }, false);
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 800);
+        Assert.assertEquals(results.getResults().keySet().toString(), "[ua1, ua3]");
+        Assert.assertEquals(results.getResults().get("ua1"), "ua1/falcon");
+        Assert.assertEquals(results.getErrors().get("ua2").getMessage(), "colo is down");
+    }
+
+    @Test
+    public void testSlowColoTimesOut() throws Exception {
+        ColoCallExecutor executor = new ColoCallExecutor(10, 200, 0);
+        long start = System.currentTimeMillis();
+        ColoCallExecutor.Results<String> results = executor.invoke(Arrays.asList("ua1", "ua2"),
+                new ColoCallExecutor.ColoCall<String>() {
+                    @Override
+                    public String call(String colo) throws FalconException {
+                        if (colo.equals("ua2")) {
+                            sleep(5000);
+                        }
+                        return colo;
+                    }
+                }, false);
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+        Assert.assertEquals(results.getResults().get("ua1"), "ua1");
+        Assert.assertEquals(results.getErrors().get("ua2").getMessage(), "Timed out after 200 ms");
+    }
+
+    @Test
+    public void testSlowReadIsHedged() throws Exception {
+        final ConcurrentMap<String, AtomicInteger> calls = new ConcurrentHashMap<String, AtomicInteger>();
+        ColoCallExecutor.ColoCall<String> call = new ColoCallExecutor.ColoCall<String>() {
+            @Override
+            public String call(String colo) throws FalconException {
+                calls.putIfAbsent(colo, new AtomicInteger());
+                if (calls.get(colo).incrementAndGet() == 1 && colo.equals("ua2")) {
+                    sleep(5000);
+                    return "slow";
+                }
+                return colo;
+            }
+        };
+
+        ColoCallExecutor executor = new ColoCallExecutor(10, 2000, 100);
+        ColoCallExecutor.Results<String> results = executor.invoke(Arrays.asList("ua1", "ua2"), call, true);
+        Assert.assertEquals(results.getResults().get("ua2"), "ua2");
+        Assert.assertEquals(calls.get("ua1").get(), 1);
+        Assert.assertEquals(calls.get("ua2").get(), 2);
+
+        // a call that changes things is never sent twice
+        calls.clear();
+        results = executor.invoke(Arrays.asList("ua2"), call, false);
+        Assert.assertEquals(results.getErrors().get("ua2").getMessage(), "Timed out after 2000 ms");
+        Assert.assertEquals(calls.get("ua2").get(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testRuntimeExceptionIsThrown() throws Exception {
+        new ColoCallExecutor(10, 1000, 0).invoke(Arrays.asList("ua1"), new ColoCallExecutor.ColoCall<String>() {
+            @Override
+            public String call(String colo) throws FalconException {
+                throw new IllegalStateException("bad request");
+            }
+        }, false);
+    }
+
+    private static void sleep(long millis) throws FalconException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new FalconException(e);
+        }
+    }
+}
@@ -86,6 +86,7 @@ public class FalconAuthorizationFilterTest {
             {"/entities/list/feed"},
             {"/entities/list/process"},
             {"/entities/list/cluster"},
+            {"/instance/bulk/kill/process"},
             {"/graphs/lineage/vertices/all"},
             {"/graphs/lineage/vertices/_1"},
             {"/graphs/lineage/vertices/properties/_1"},
@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.falcon.service;
+
+import org.apache.falcon.util.ReflectionUtils;
+import org.apache.falcon.util.StartupProperties;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Tests that the configured services can be loaded the way the server loads them.
+ */
+public class ApplicationServicesTest {
+
+    @Test
+    public void testDefaultServicesLoad() throws Exception {
+        assertServicesLoad(StartupProperties.get().getProperty("application.services"));
+    }
+
+    @Test
+    public void testShippedServicesLoad() throws Exception {
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream("../src/conf/startup.properties");
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        assertServicesLoad(properties.getProperty("*.application.services"));
+        assertServicesLoad(properties.getProperty("prism.application.services"));
+    }
+
+    private void assertServicesLoad(String services) throws Exception {
+        Assert.assertNotNull(services);
+        for (String service : services.split(",")) {
+            Object instance = ReflectionUtils.getInstanceByClassName(service.trim());
+            Assert.assertTrue(instance instanceof FalconService, service);
+        }
+    }
+}
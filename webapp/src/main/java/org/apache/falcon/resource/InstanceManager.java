@@ -49,9 +49,10 @@ public class InstanceManager extends AbstractInstanceManager {
             @DefaultValue("") @QueryParam("orderBy") String orderBy,
             @DefaultValue("") @QueryParam("sortOrder") String sortOrder,
             @DefaultValue("0") @QueryParam("offset") Integer offset,
-            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") Integer resultsPerPage) {
+            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") Integer resultsPerPage,
+            @QueryParam("cursor") String cursor) {
         return super.getRunningInstances(type, entity, colo, lifeCycles, filterBy,
-                orderBy, sortOrder, offset, resultsPerPage);
+                orderBy, sortOrder, offset, resultsPerPage, cursor);
     }
 
     /*
@@ -74,9 +75,10 @@ public class InstanceManager extends AbstractInstanceManager {
             @DefaultValue("") @QueryParam("orderBy") String orderBy,
             @DefaultValue("") @QueryParam("sortOrder") String sortOrder,
             @DefaultValue("0") @QueryParam("offset") Integer offset,
-            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") Integer resultsPerPage) {
+            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") Integer resultsPerPage,
+            @QueryParam("cursor") String cursor) {
         return super.getInstances(type, entity, startStr, endStr, colo, lifeCycles,
-                filterBy, orderBy, sortOrder, offset, resultsPerPage);
+                filterBy, orderBy, sortOrder, offset, resultsPerPage, cursor);
     }
 
     @GET
@@ -95,9 +97,10 @@ public class InstanceManager extends AbstractInstanceManager {
             @DefaultValue("") @QueryParam("orderBy") String orderBy,
             @DefaultValue("") @QueryParam("sortOrder") String sortOrder,
             @DefaultValue("0") @QueryParam("offset") Integer offset,
-            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") Integer resultsPerPage) {
+            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") Integer resultsPerPage,
+            @QueryParam("cursor") String cursor) {
         return super.getStatus(type, entity, startStr, endStr, colo, lifeCycles,
-                filterBy, orderBy, sortOrder, offset, resultsPerPage);
+                filterBy, orderBy, sortOrder, offset, resultsPerPage, cursor);
     }
 
     @GET
@@ -131,9 +134,10 @@ public class InstanceManager extends AbstractInstanceManager {
             @DefaultValue("") @QueryParam("orderBy") String orderBy,
             @DefaultValue("") @QueryParam("sortOrder") String sortOrder,
             @DefaultValue("0") @QueryParam("offset") Integer offset,
-            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") Integer resultsPerPage) {
+            @DefaultValue(DEFAULT_NUM_RESULTS) @QueryParam("numResults") Integer resultsPerPage,
+            @QueryParam("cursor") String cursor) {
         return super.getLogs(type, entity, startStr, endStr, colo, runId, lifeCycles,
-                filterBy, orderBy, sortOrder, offset, resultsPerPage);
+                filterBy, orderBy, sortOrder, offset, resultsPerPage, cursor);
     }
 
     @GET
@@ -199,6 +203,17 @@ public class InstanceManager extends AbstractInstanceManager {
         return super.resumeInstance(request, type, entity, startStr, endStr, colo, lifeCycles);
     }
 
+    @GET
+    @Path("operation/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Monitored(event = "operation-status")
+    @Override
+    public OperationResult getOperationStatus(
+            @Dimension("operation") @PathParam("id") String operationId,
+            @QueryParam("wait") String waitStr) {
+        return super.getOperationStatus(operationId, waitStr);
+    }
+
     @POST
     @Path("rerun/{type}/{entity}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -214,6 +229,25 @@ public class InstanceManager extends AbstractInstanceManager {
             @Dimension("lifecycle") @QueryParam("lifecycle") List<LifeCycle> lifeCycles) {
         return super.reRunInstance(type, entity, startStr, endStr, request, colo, lifeCycles);
     }
+
+    @POST
+    @Path("bulk/{action}/{type}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Monitored(event = "bulk-instance-action")
+    @Override
+    public OperationResult bulkInstanceAction(
+            @Context HttpServletRequest request,
+            @Dimension("action") @PathParam("action") String action,
+            @Dimension("type") @PathParam("type") String type,
+            @Dimension("start-time") @QueryParam("start") String startStr,
+            @Dimension("end-time") @QueryParam("end") String endStr,
+            @DefaultValue("") @QueryParam("filterBy") String filterBy,
+            @DefaultValue("") @QueryParam("tags") String filterTags,
+            @Dimension("colo") @QueryParam("colo") String colo,
+            @Dimension("lifecycle") @QueryParam("lifecycle") List<LifeCycle> lifeCycles) {
+        return super.bulkInstanceAction(request, action, type, startStr, endStr, filterBy, filterTags, colo,
+                lifeCycles);
+    }
     //RESUME CHECKSTYLE CHECK ParameterNumberCheck
 
 }
@@ -67,8 +67,10 @@ public class SchedulableEntityManager extends AbstractSchedulableEntityManager {
                                     @DefaultValue("asc") @QueryParam("sortOrder") String sortOrder,
                                     @DefaultValue("0") @QueryParam("offset") Integer offset,
                                     @DefaultValue(DEFAULT_NUM_RESULTS)
-                                    @QueryParam("numResults") Integer resultsPerPage) {
-        return super.getEntityList(type, fields, filterBy, tags, orderBy, sortOrder, offset, resultsPerPage);
+                                    @QueryParam("numResults") Integer resultsPerPage,
+                                    @QueryParam("cursor") String cursor) {
+        return super.getEntityList(type, fields, filterBy, tags, orderBy, sortOrder, offset, resultsPerPage,
+                cursor);
     }
 
     @GET
@@ -116,6 +118,28 @@ public class SchedulableEntityManager extends AbstractSchedulableEntityManager {
         return super.schedule(request, type, entity, colo);
     }
 
+    @POST
+    @Path("bulk/submit")
+    @Consumes({MediaType.TEXT_XML, MediaType.TEXT_PLAIN})
+    @Produces({MediaType.TEXT_XML, MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON})
+    @Monitored(event = "submitBulk")
+    @Override
+    public EntitiesResult submitBulk(@Context HttpServletRequest request,
+                                     @Dimension("colo") @QueryParam("colo") String colo) {
+        return super.submitBulk(request, colo);
+    }
+
+    @POST
+    @Path("bulk/submitAndSchedule")
+    @Consumes({MediaType.TEXT_XML, MediaType.TEXT_PLAIN})
+    @Produces({MediaType.TEXT_XML, MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON})
+    @Monitored(event = "submitAndScheduleBulk")
+    @Override
+    public EntitiesResult submitAndScheduleBulk(@Context HttpServletRequest request,
+                                                @Dimension("colo") @QueryParam("colo") String colo) {
+        return super.submitAndScheduleBulk(request, colo);
+    }
+
     @POST
     @Path("suspend/{type}/{entity}")
     @Produces({MediaType.TEXT_XML, MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON})